@@ -0,0 +1,253 @@
+package ch.hslu.vsk.logger.common.sharedmemory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer of variable length records backed by a memory-mapped file.
+ * Allows processes on the same host to hand records to another process without crossing the kernel per record.
+ * <br />
+ * The file consists of a header followed by {@code slotCount} fixed size slots. Each slot starts with a sequence
+ * number followed by the record length and the record itself. Producers claim a position by advancing the shared
+ * tail with a CAS, write their record and finally publish it by storing the sequence with release semantics. The
+ * consumer only reads a slot once its sequence has been published, and hands the slot back to the producers of the
+ * next lap by releasing the sequence {@code position + slotCount}.
+ * <br />
+ * Sample Usage:
+ * <pre>
+ * // consuming process (f.e. the logger server)
+ * SharedMemoryRingBuffer ring = SharedMemoryRingBuffer.create(Path.of("/dev/shm/logger.ring"), 65536, 1024);
+ * byte[] record = new byte[ring.getMaxRecordLength()];
+ * int length = ring.poll(record);
+ *
+ * // producing processes
+ * SharedMemoryRingBuffer ring = SharedMemoryRingBuffer.open(Path.of("/dev/shm/logger.ring"));
+ * boolean published = ring.offer(bytes, 0, bytes.length);
+ * </pre>
+ * A producer which dies between claiming and publishing a slot stalls the consumer at that slot, re-creating the
+ * ring resets it.
+ */
+public final class SharedMemoryRingBuffer implements Closeable {
+    private static final int MAGIC = 0x47303852; // "G08R"
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int SLOT_SIZE_OFFSET = 12;
+    // tail and head live on separate cache lines to avoid false sharing between producers and the consumer
+    private static final int TAIL_OFFSET = 64;
+    private static final int HEAD_OFFSET = 128;
+    private static final int HEADER_SIZE = 192;
+    private static final int SLOT_LENGTH_OFFSET = 8;
+    private static final int SLOT_HEADER_SIZE = 16;
+    private static final int SLOT_ALIGNMENT = 64;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int slotCount;
+    private final int slotSize;
+    private final long mask;
+    private long head;
+
+    private SharedMemoryRingBuffer(final FileChannel channel, final ByteBuffer buffer,
+                                   final int slotCount, final int slotSize) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.slotSize = slotSize;
+        this.mask = slotCount - 1;
+        this.head = (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+    }
+
+    /**
+     * Creates (or resets) the ring buffer in the given file. Must be called by the consuming process,
+     * records left over in an existing file are discarded.
+     *
+     * @param file      File backing the ring buffer, preferably located on a memory file system like {@code /dev/shm}
+     * @param slotCount Number of slots, must be a power of two
+     * @param slotSize  Size of a slot in bytes including its 16 byte header, must be a multiple of 64
+     * @return ring buffer ready to be consumed
+     * @throws IOException              if the file could not be created or mapped
+     * @throws IllegalArgumentException if the geometry is invalid
+     */
+    public static SharedMemoryRingBuffer create(final Path file, final int slotCount, final int slotSize)
+            throws IOException {
+        if (slotCount < 2 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two, was " + slotCount);
+        }
+        if (slotSize <= SLOT_HEADER_SIZE || slotSize % SLOT_ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Slot size must be a multiple of 64 bytes, was " + slotSize);
+        }
+
+        long fileSize = HEADER_SIZE + (long) slotCount * slotSize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring buffer must not exceed 2 GiB, was " + fileSize + " bytes");
+        }
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > fileSize) {
+                channel.truncate(fileSize);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+            // invalidate first, producers must not attach to a half initialized ring
+            INTS.setVolatile(buffer, MAGIC_OFFSET, 0);
+            INTS.set(buffer, VERSION_OFFSET, VERSION);
+            INTS.set(buffer, SLOT_COUNT_OFFSET, slotCount);
+            INTS.set(buffer, SLOT_SIZE_OFFSET, slotSize);
+            LONGS.set(buffer, TAIL_OFFSET, 0L);
+            LONGS.set(buffer, HEAD_OFFSET, 0L);
+            for (int i = 0; i < slotCount; i++) {
+                LONGS.set(buffer, HEADER_SIZE + i * slotSize, (long) i);
+            }
+            INTS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+
+            return new SharedMemoryRingBuffer(channel, buffer, slotCount, slotSize);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Attaches to a ring buffer previously created by the consuming process.
+     *
+     * @param file File backing the ring buffer
+     * @return ring buffer ready to be produced into
+     * @throws IOException if the file does not exist or does not contain an initialized ring buffer
+     */
+    public static SharedMemoryRingBuffer open(final Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not an initialized shared memory ring buffer: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if ((int) INTS.getAcquire(header, MAGIC_OFFSET) != MAGIC
+                    || (int) INTS.get(header, VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not an initialized shared memory ring buffer: " + file);
+            }
+
+            int slotCount = (int) INTS.get(header, SLOT_COUNT_OFFSET);
+            int slotSize = (int) INTS.get(header, SLOT_SIZE_OFFSET);
+            long fileSize = HEADER_SIZE + (long) slotCount * slotSize;
+            if (channel.size() < fileSize) {
+                throw new IOException("Shared memory ring buffer is truncated: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            return new SharedMemoryRingBuffer(channel, buffer, slotCount, slotSize);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Publishes a record, safe to be called concurrently by any number of producers in any number of processes.
+     *
+     * @param source Array containing the record
+     * @param offset Offset of the record within {@code source}
+     * @param length Length of the record in bytes
+     * @return {@code true} if the record was published, {@code false} if the ring buffer is full
+     * @throws IllegalArgumentException if the record exceeds {@link #getMaxRecordLength()}
+     */
+    public boolean offer(final byte[] source, final int offset, final int length) {
+        if (length > getMaxRecordLength()) {
+            throw new IllegalArgumentException(String.format("Record of %d bytes exceeds the maximum of %d bytes",
+                    length, getMaxRecordLength()));
+        }
+
+        long position = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+        while (true) {
+            int slot = slotOffset(position);
+            long difference = (long) LONGS.getAcquire(buffer, slot) - position;
+            if (difference == 0) {
+                if (LONGS.compareAndSet(buffer, TAIL_OFFSET, position, position + 1)) {
+                    buffer.putInt(slot + SLOT_LENGTH_OFFSET, length);
+                    buffer.put(slot + SLOT_HEADER_SIZE, source, offset, length);
+                    LONGS.setRelease(buffer, slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // slot still holds the unconsumed record of the previous lap
+            }
+            position = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+        }
+    }
+
+    /**
+     * Takes the next published record, must only be called by a single consumer thread.
+     *
+     * @param target Array receiving the record, must be able to hold {@link #getMaxRecordLength()} bytes
+     * @return length of the record copied into {@code target}, {@code -1} if no record is available
+     */
+    public int poll(final byte[] target) {
+        int slot = slotOffset(head);
+        if ((long) LONGS.getAcquire(buffer, slot) != head + 1) {
+            return -1;
+        }
+
+        int length = buffer.getInt(slot + SLOT_LENGTH_OFFSET);
+        buffer.get(slot + SLOT_HEADER_SIZE, target, 0, length);
+        LONGS.setRelease(buffer, slot, head + slotCount);
+        head++;
+        LONGS.setRelease(buffer, HEAD_OFFSET, head);
+        return length;
+    }
+
+    /**
+     * Returns the approximate number of records which are claimed or published but not yet consumed.
+     *
+     * @return number of pending records
+     */
+    public long size() {
+        long tail = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+        return Math.max(0, tail - (long) LONGS.getVolatile(buffer, HEAD_OFFSET));
+    }
+
+    /**
+     * Returns the largest record which fits into a slot.
+     *
+     * @return maximum record length in bytes
+     */
+    public int getMaxRecordLength() {
+        return slotSize - SLOT_HEADER_SIZE;
+    }
+
+    /**
+     * Returns the number of slots and thereby the maximum number of pending records.
+     *
+     * @return number of slots
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Closes the backing file. The mapping itself is released once the buffer is garbage collected.
+     *
+     * @throws IOException if closing the file failed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int slotOffset(final long position) {
+        return HEADER_SIZE + (int) (position & mask) * slotSize;
+    }
+}
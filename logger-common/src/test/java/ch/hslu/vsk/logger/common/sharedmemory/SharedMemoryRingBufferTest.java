@@ -0,0 +1,112 @@
+package ch.hslu.vsk.logger.common.sharedmemory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SharedMemoryRingBufferTest {
+    @Test
+    void testRecordsArePolledInPublishOrder(@TempDir final Path tempDir) throws IOException {
+        try (SharedMemoryRingBuffer consumer = SharedMemoryRingBuffer.create(tempDir.resolve("ring"), 4, 64);
+             SharedMemoryRingBuffer producer = SharedMemoryRingBuffer.open(tempDir.resolve("ring"))) {
+            byte[] target = new byte[consumer.getMaxRecordLength()];
+
+            for (int lap = 0; lap < 3; lap++) {
+                assertTrue(producer.offer(new byte[]{1}, 0, 1));
+                assertTrue(producer.offer(new byte[]{2, 3}, 0, 2));
+
+                assertEquals(1, consumer.poll(target));
+                assertEquals(1, target[0]);
+                assertEquals(2, consumer.poll(target));
+                assertArrayEquals(new byte[]{2, 3}, new byte[]{target[0], target[1]});
+            }
+            assertEquals(-1, consumer.poll(target));
+        }
+    }
+
+    @Test
+    void testOfferFailsWhenFull(@TempDir final Path tempDir) throws IOException {
+        try (SharedMemoryRingBuffer ring = SharedMemoryRingBuffer.create(tempDir.resolve("ring"), 2, 64)) {
+            byte[] record = {42};
+
+            assertTrue(ring.offer(record, 0, 1));
+            assertTrue(ring.offer(record, 0, 1));
+            assertFalse(ring.offer(record, 0, 1));
+            assertEquals(2, ring.size());
+
+            assertEquals(1, ring.poll(new byte[ring.getMaxRecordLength()]));
+            assertTrue(ring.offer(record, 0, 1));
+        }
+    }
+
+    @Test
+    void testRejectsRecordsLargerThanSlot(@TempDir final Path tempDir) throws IOException {
+        try (SharedMemoryRingBuffer ring = SharedMemoryRingBuffer.create(tempDir.resolve("ring"), 2, 64)) {
+            byte[] record = new byte[ring.getMaxRecordLength() + 1];
+
+            assertThrows(IllegalArgumentException.class, () -> ring.offer(record, 0, record.length));
+        }
+    }
+
+    @Test
+    void testOpenFailsOnUninitializedFile(@TempDir final Path tempDir) throws IOException {
+        Path file = Files.write(tempDir.resolve("ring"), new byte[1024]);
+
+        assertThrows(IOException.class, () -> SharedMemoryRingBuffer.open(file));
+    }
+
+    @Test
+    void testConcurrentProducersDeliverEveryRecordOnce(@TempDir final Path tempDir) throws Exception {
+        int producers = 4;
+        int recordsPerProducer = 20_000;
+        Path file = tempDir.resolve("ring");
+
+        try (SharedMemoryRingBuffer consumer = SharedMemoryRingBuffer.create(file, 64, 64);
+             ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                int producerNo = p;
+                executor.execute(() -> {
+                    try (SharedMemoryRingBuffer producer = SharedMemoryRingBuffer.open(file)) {
+                        byte[] record = new byte[Long.BYTES];
+                        for (int i = 0; i < recordsPerProducer; i++) {
+                            ByteBuffer.wrap(record).putInt(producerNo).putInt(i);
+                            while (!producer.offer(record, 0, record.length)) {
+                                Thread.onSpinWait();
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+
+            int[] nextExpected = new int[producers];
+            byte[] target = new byte[consumer.getMaxRecordLength()];
+            int received = 0;
+            while (received < producers * recordsPerProducer) {
+                if (consumer.poll(target) < 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                ByteBuffer record = ByteBuffer.wrap(target);
+                int producerNo = record.getInt();
+                // records of one producer keep their order
+                assertEquals(nextExpected[producerNo]++, record.getInt());
+                received++;
+            }
+            assertEquals(-1, consumer.poll(target));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ch.hslu.vsk.logger.component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Budget of messages a client may send, granted by the server as part of its credit based flow control.
+ * <br />
+ * Until the first grant arrives, the budget is unlimited, keeping clients compatible with servers which do not
+ * grant credits. A grant of {@link #PAUSE} revokes the remaining budget, which the server sends when shutting down
+ * in order to have clients apply their overflow policy instead of sending messages it might no longer read.
+ */
+final class Credits {
+    /**
+     * Grant revoking the remaining budget until further credits are granted.
+     */
+    static final int PAUSE = 0;
+    private static final long UNLIMITED = -1;
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private final AtomicLong available = new AtomicLong(UNLIMITED);
+
+    /**
+     * Adds the given number of messages to the budget.
+     *
+     * @param credits Number of messages granted by the server, {@link #PAUSE} to revoke the remaining budget
+     */
+    void grant(final int credits) {
+        if (credits == PAUSE) {
+            available.set(0);
+            return;
+        }
+
+        long current;
+        long updated;
+        do {
+            current = available.get();
+            updated = current + credits;
+            if (current == UNLIMITED) {
+                updated = credits;
+            }
+        } while (!available.compareAndSet(current, updated));
+    }
+
+    /**
+     * Takes a credit for one message if available.
+     *
+     * @return {@code true} if the message may be sent
+     */
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = available.get();
+            if (current == UNLIMITED) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    /**
+     * Takes a credit for one message, waiting for a grant if none is available.
+     *
+     * @param timeoutNanos Maximum time to wait for a grant
+     * @return {@code true} if the message may be sent, {@code false} if no credit was granted in time
+     */
+    boolean tryAcquire(final long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!tryAcquire()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of messages which may currently be sent.
+     *
+     * @return remaining budget, {@code -1} if unlimited
+     */
+    long available() {
+        return available.get();
+    }
+}
@@ -11,12 +11,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.time.Instant;
-import java.util.function.Consumer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
 
 public final class LogCacher {
 
     private final StringPersistor stringPersistor;
     private final Path fallbackfilePath;
+    // logs cached but not yet re-sent, read from the file once per drain instead of on every attempt
+    private final Deque<LogMessageDo> pending = new ArrayDeque<>();
+    private boolean pendingLoaded;
     private int cachedLogs;
     private int reSentLogs;
 
@@ -27,20 +32,26 @@ public final class LogCacher {
         this.cachedLogs = this.stringPersistor.get(Integer.MAX_VALUE).size();
     }
 
-    public void sendCachedLogs(final Consumer<LogMessageDo> logSender) {
-        if (this.cachedLogs == this.reSentLogs) {
+    public synchronized void sendCachedLogs(final Predicate<LogMessageDo> logSender) {
+        if (!hasCachedLogs()) {
             return;
         }
 
-        this.stringPersistor
-                .get(Integer.MAX_VALUE)
-                .stream()
-                .skip(this.reSentLogs)
-                .map(LogCacher::buildLogMessageDo)
-                .forEach((log) -> {
-                    logSender.accept(log);
-                    reSentLogs++;
-                });
+        if (!this.pendingLoaded) {
+            this.stringPersistor
+                    .get(Integer.MAX_VALUE)
+                    .stream()
+                    .skip(this.reSentLogs)
+                    .map(LogCacher::buildLogMessageDo)
+                    .forEach(this.pending::add);
+            this.pendingLoaded = true;
+        }
+
+        // stop at the first log which could not be sent, it stays cached for the next attempt
+        while (!this.pending.isEmpty() && logSender.test(this.pending.peekFirst())) {
+            this.pending.removeFirst();
+            this.reSentLogs++;
+        }
 
         // Delete Cache file to not resend messages after restart
         if (this.cachedLogs == this.reSentLogs) {
@@ -48,12 +59,17 @@ public final class LogCacher {
                 Files.delete(this.fallbackfilePath);
                 this.cachedLogs = 0;
                 this.reSentLogs = 0;
+                this.pendingLoaded = false;
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
     }
 
+    public synchronized boolean hasCachedLogs() {
+        return this.cachedLogs != this.reSentLogs;
+    }
+
     private static LogMessageDo buildLogMessageDo(final PersistedString persistedString) {
         var infos = persistedString.getPayload().split(";", 3);
         return new LogMessageDo.Builder(infos[2])
@@ -63,12 +79,15 @@ public final class LogCacher {
                 .build();
     }
 
-    public void cache(final LogMessageDo messageDo) {
+    public synchronized void cache(final LogMessageDo messageDo) {
         String log = MessageFormat.format("{0};{1};{2}",
                 messageDo.getLevel(),
                 messageDo.getSource(),
                 messageDo.getMessage());
         this.stringPersistor.save(Instant.now(), log);
         this.cachedLogs++;
+        if (this.pendingLoaded) {
+            this.pending.add(messageDo);
+        }
     }
 }
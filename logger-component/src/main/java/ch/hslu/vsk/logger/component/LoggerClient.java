@@ -6,12 +6,12 @@ import ch.hslu.vsk.logger.api.LoggerSetup;
 import ch.hslu.vsk.logger.common.KryoFactory;
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import com.esotericsoftware.kryo.Kryo;
-import com.esotericsoftware.kryo.io.Output;
 
 import java.io.IOException;
-import java.net.Socket;
 import java.net.URI;
 import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -31,17 +31,33 @@ import java.util.concurrent.TimeUnit;
  *          .build();
  *  client.info("This is an info-level message");
  * </pre>
+ * Clients running on the same host as the server may target its Unix domain socket instead,
+ * f.e. {@code URI.create("unix:/run/logger/logger.sock")}, or its shared memory ring buffer,
+ * f.e. {@code URI.create("shm:/dev/shm/g08-logger.ring")}.
+ * <br />
+ * The server grants each connection a budget of messages and replenishes it as it drains them. Messages logged while
+ * the budget is exhausted are handled according to the configured {@link OverflowPolicy}.
+ * <br />
+ * Clients not closed by {@link #close()} are closed on shutdown of the JVM by a single hook, so the server receives
+ * the messages still in flight.
  */
-public class LoggerClient implements LoggerSetup {
+public class LoggerClient implements LoggerSetup, AutoCloseable {
+    private static final long BLOCK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Set<LoggerClient> OPEN_CLIENTS = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(LoggerClient::closeOpenClients, "logger-client-shutdown"));
+    }
+
     private LogLevel minLogLevel;
-    private Socket socket;
-    private Output output;
+    private ServerConnection connection;
     private final Kryo kryo;
     private final URI targetServerAddress;
     private ScheduledFuture<?> reconnectFuture;
     private final String source;
     private final ScheduledExecutorService scheduler;
     private final LogCacher logCacher;
+    private final OverflowPolicy overflowPolicy;
     private boolean isReconnecting;
 
     protected LoggerClient(final LoggerClientBuilder builder) {
@@ -50,17 +66,24 @@ public class LoggerClient implements LoggerSetup {
         this.source = builder.getSource();
         this.logCacher = new LogCacher(builder.getFallbackFile());
         this.targetServerAddress = builder.getTargetServerAddress();
+        this.overflowPolicy = builder.getOverflowPolicy();
         kryo = KryoFactory.createConfiguredKryoInstance();
 
         try {
-            this.socket = new Socket(targetServerAddress.getHost(), targetServerAddress.getPort());
-            this.output = new Output(socket.getOutputStream());
-            this.logCacher.sendCachedLogs(this::sendLog);
+            this.connection = ServerConnection.open(targetServerAddress, kryo);
+            this.logCacher.sendCachedLogs(this::resendLog);
         } catch (IOException ioException) {
             this.tryToReconnect();
         }
     }
 
+    /**
+     * Registers the client to be closed on shutdown of the JVM, once it is fully constructed.
+     */
+    void register() {
+        OPEN_CLIENTS.add(this);
+    }
+
     /**
      * Sends a log to the remote target.
      *
@@ -83,23 +106,70 @@ public class LoggerClient implements LoggerSetup {
         }
 
         try {
-            kryo.writeObject(output, messageDo);
-            output.flush();
+            // messages cached due to missing credits are sent first to preserve their order
+            if (!this.isReconnecting && this.logCacher.hasCachedLogs()) {
+                this.logCacher.sendCachedLogs(this::resendLog);
+                if (this.logCacher.hasCachedLogs()) {
+                    this.logCacher.cache(messageDo);
+                    return;
+                }
+            }
+            // the credit is taken right before sending, so no path leaves it unused
+            if (!this.acquireCredit()) {
+                this.handleOverflow(messageDo);
+                return;
+            }
+            connection.send(messageDo);
+        } catch (IllegalArgumentException tooLarge) {
+            // the message can never be sent over this transport, caching it would resend it forever
         } catch (Exception e) {
             this.tryToReconnect();
             this.logCacher.cache(messageDo);
         }
     }
 
+    /**
+     * Sends a previously cached log if the server granted credits for it.
+     *
+     * @param messageDo cached log
+     * @return {@code true} if sent or too large to ever be sent, {@code false} if it has to stay cached
+     */
+    private boolean resendLog(final LogMessageDo messageDo) {
+        try {
+            if (!connection.getCredits().tryAcquire()) {
+                return false;
+            }
+            connection.send(messageDo);
+            return true;
+        } catch (IllegalArgumentException tooLarge) {
+            return true;
+        } catch (Exception e) {
+            this.tryToReconnect();
+            return false;
+        }
+    }
+
+    private boolean acquireCredit() {
+        if (this.overflowPolicy == OverflowPolicy.BLOCK) {
+            return connection.getCredits().tryAcquire(BLOCK_TIMEOUT_NANOS);
+        }
+        return connection.getCredits().tryAcquire();
+    }
+
+    private void handleOverflow(final LogMessageDo messageDo) {
+        if (this.overflowPolicy != OverflowPolicy.DROP) {
+            this.logCacher.cache(messageDo);
+        }
+    }
+
     @SuppressWarnings("EmptyCatchBlock")
     private void tryToReconnect() {
         if (!this.isReconnecting) {
             this.isReconnecting = true;
             this.reconnectFuture = this.scheduler.scheduleAtFixedRate(() -> {
                         try {
-                            this.socket = new Socket(targetServerAddress.getHost(), targetServerAddress.getPort());
-                            this.output = new Output(socket.getOutputStream());
-                            this.logCacher.sendCachedLogs(this::sendLog);
+                            this.connection = ServerConnection.open(targetServerAddress, kryo);
+                            this.logCacher.sendCachedLogs(this::resendLog);
                             this.isReconnecting = false;
                             this.reconnectFuture.cancel(false);
                         } catch (IOException ignored) {
@@ -111,6 +181,36 @@ public class LoggerClient implements LoggerSetup {
         }
     }
 
+    /**
+     * Closes the connection to the server and stops reconnecting. Messages logged afterwards are lost.
+     */
+    @Override
+    public void close() {
+        OPEN_CLIENTS.remove(this);
+        this.scheduler.shutdownNow();
+        this.closeConnection();
+    }
+
+    private static void closeOpenClients() {
+        for (LoggerClient client : OPEN_CLIENTS) {
+            client.closeConnection();
+        }
+    }
+
+    /**
+     * Closes the connection, in order for the server to receive the messages still in flight.
+     */
+    @SuppressWarnings("EmptyCatchBlock")
+    private void closeConnection() {
+        ServerConnection current = this.connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     /**
      * Creates an Instance of the RemoteLogger.
      *
@@ -25,6 +25,7 @@ public final class LoggerClientBuilder implements LoggerSetupBuilder {
     private String source;
     private Path fallbackFile;
     private URI targetServerAddress;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.CACHE;
 
     public LogLevel getMinLogLevel() {
         return minLogLevel;
@@ -42,6 +43,10 @@ public final class LoggerClientBuilder implements LoggerSetupBuilder {
         return  targetServerAddress;
     }
 
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
     /**
      * Sets the minimum log level for the logger client.
      * Messages with a lower log level will not be sent to the target server.
@@ -80,6 +85,9 @@ public final class LoggerClientBuilder implements LoggerSetupBuilder {
 
     /**
      * Sets the target server URL where log messages will be sent.
+     * A {@code unix:} URI (f.e. {@code unix:/run/logger/logger.sock}) connects over the server's Unix domain socket,
+     * a {@code shm:} URI (f.e. {@code shm:/dev/shm/g08-logger.ring}) over its shared memory ring buffer
+     * and any other URI over TCP to its host and port.
      *
      * @param uri the address to the logging server.
      * @return the builder instance for chaining
@@ -90,6 +98,18 @@ public final class LoggerClientBuilder implements LoggerSetupBuilder {
         return this;
     }
 
+    /**
+     * Sets how log messages are handled while the server has not granted credits for further messages.
+     * Defaults to {@link OverflowPolicy#CACHE}.
+     *
+     * @param policy the policy to apply when the server cannot keep up
+     * @return the builder instance for chaining
+     */
+    public LoggerClientBuilder overflowPolicy(final OverflowPolicy policy) {
+        this.overflowPolicy = policy;
+        return this;
+    }
+
     /**
      * Constructs the {@code LoggerClient} with the configured settings.
      *
@@ -97,6 +117,8 @@ public final class LoggerClientBuilder implements LoggerSetupBuilder {
      */
     @Override
     public LoggerSetup build() {
-        return new LoggerClient(this);
+        LoggerClient client = new LoggerClient(this);
+        client.register();
+        return client;
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package ch.hslu.vsk.logger.component;
+
+/**
+ * Defines how a {@link LoggerClient} handles log messages while the server has not granted credits for further
+ * messages, which happens when the server cannot keep up with the messages it receives.
+ */
+public enum OverflowPolicy {
+    /**
+     * Caches the message in the fallback file and resends it once the server grants credits again.
+     */
+    CACHE,
+
+    /**
+     * Discards the message, favouring the responsiveness of the application over completeness of the logs.
+     */
+    DROP,
+
+    /**
+     * Blocks the logging thread until the server grants credits again, but at most for one second
+     * before caching the message like {@link #CACHE}.
+     */
+    BLOCK
+}
@@ -0,0 +1,101 @@
+package ch.hslu.vsk.logger.component;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.Kryo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Transport independent connection from a {@link LoggerClient} to the logger server.
+ * <br />
+ * The transport is chosen based on the scheme of the target address:
+ * <ul>
+ *     <li>{@code unix:/path/to/logger.sock} connects over a Unix domain socket, skipping the loopback TCP stack
+ *     for clients running on the same host as the server.</li>
+ *     <li>{@code shm:/dev/shm/logger.ring} publishes into the shared memory ring buffer of a server on the same
+ *     host, without crossing the kernel per message.</li>
+ *     <li>Every other URI (f.e. {@code tcp://localhost:9999}) connects over TCP to its host and port.</li>
+ * </ul>
+ */
+interface ServerConnection extends Closeable {
+    /**
+     * URI scheme selecting the Unix domain socket transport.
+     */
+    String UNIX_SCHEME = "unix";
+
+    /**
+     * URI scheme selecting the shared memory ring buffer transport.
+     */
+    String SHARED_MEMORY_SCHEME = "shm";
+
+    /**
+     * Serializes and sends the given log message to the server.
+     *
+     * @param messageDo Log message to send
+     * @throws IOException              if the message could not be handed to the transport
+     * @throws IllegalArgumentException if the message is too large to ever be sent over the transport
+     */
+    void send(LogMessageDo messageDo) throws IOException;
+
+    /**
+     * Returns the budget of messages the server granted for this connection.
+     *
+     * @return credits of the connection
+     */
+    Credits getCredits();
+
+    /**
+     * Opens a new connection to the server with the given address.
+     *
+     * @param address Address of the server, either a {@code unix:} or {@code shm:} URI or a host and port
+     * @param kryo    Configured Kryo instance used to serialize the log messages
+     * @return established connection
+     * @throws IOException if the connection could not be established
+     */
+    static ServerConnection open(final URI address, final Kryo kryo) throws IOException {
+        if (SHARED_MEMORY_SCHEME.equalsIgnoreCase(address.getScheme())) {
+            return SharedMemoryServerConnection.open(resolvePath(address), kryo);
+        }
+
+        if (isUnixDomainAddress(address)) {
+            SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(resolvePath(address)));
+            return new StreamServerConnection(channel, Channels.newInputStream(channel),
+                    Channels.newOutputStream(channel), kryo);
+        }
+
+        Socket socket = new Socket(address.getHost(), address.getPort());
+        return new StreamServerConnection(socket, socket.getInputStream(), socket.getOutputStream(), kryo);
+    }
+
+    /**
+     * Checks whether the given address targets a Unix domain socket.
+     *
+     * @param address Address of the server
+     * @return {@code true} if the address uses the {@code unix:} scheme
+     */
+    static boolean isUnixDomainAddress(final URI address) {
+        return UNIX_SCHEME.equalsIgnoreCase(address.getScheme());
+    }
+
+    /**
+     * Resolves the file of a {@code unix:} or {@code shm:} URI, supporting both {@code unix:/run/logger.sock}
+     * and {@code unix:///run/logger.sock} notations as well as relative paths like {@code unix:logger.sock}.
+     *
+     * @param address {@code unix:} or {@code shm:} URI
+     * @return path of the socket or ring buffer file
+     */
+    static Path resolvePath(final URI address) {
+        String path = address.getPath();
+        if (path == null || path.isEmpty()) {
+            path = address.getSchemeSpecificPart();
+        }
+        return Path.of(path);
+    }
+}
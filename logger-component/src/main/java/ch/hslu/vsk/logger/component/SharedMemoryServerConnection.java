@@ -0,0 +1,80 @@
+package ch.hslu.vsk.logger.component;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.common.sharedmemory.SharedMemoryRingBuffer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.KryoBufferOverflowException;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection publishing each serialized log message as one record into the {@link SharedMemoryRingBuffer}
+ * of a logger server on the same host. The bounded ring buffer itself pushes back on the clients,
+ * hence the server does not grant credits for this transport.
+ */
+final class SharedMemoryServerConnection implements ServerConnection {
+    private static final long PUBLISH_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final SharedMemoryRingBuffer ringBuffer;
+    private final Output output;
+    private final Kryo kryo;
+    private final Credits credits = new Credits();
+
+    private SharedMemoryServerConnection(final SharedMemoryRingBuffer ringBuffer, final Kryo kryo) {
+        this.ringBuffer = ringBuffer;
+        // without a stream, messages larger than a slot fail with a buffer overflow instead of being split
+        this.output = new Output(ringBuffer.getMaxRecordLength());
+        this.kryo = kryo;
+    }
+
+    /**
+     * Attaches to the ring buffer created by the server.
+     *
+     * @param file File backing the ring buffer
+     * @param kryo Configured Kryo instance used to serialize the log messages
+     * @return established connection
+     * @throws IOException if the server has not yet created the ring buffer
+     */
+    static SharedMemoryServerConnection open(final Path file, final Kryo kryo) throws IOException {
+        return new SharedMemoryServerConnection(SharedMemoryRingBuffer.open(file), kryo);
+    }
+
+    /**
+     * Publishes the message into the ring buffer. Waits briefly if the ring buffer is full,
+     * as the server usually catches up within microseconds.
+     *
+     * @param messageDo Log message to send
+     * @throws IOException              if the ring buffer stays full
+     * @throws IllegalArgumentException if the serialized message exceeds the maximum record length
+     */
+    @Override
+    public void send(final LogMessageDo messageDo) throws IOException {
+        output.reset();
+        try {
+            kryo.writeObject(output, messageDo);
+        } catch (KryoBufferOverflowException tooLarge) {
+            throw new IllegalArgumentException("Log message exceeds the maximum record length of "
+                    + ringBuffer.getMaxRecordLength() + " bytes of the shared memory ring buffer", tooLarge);
+        }
+
+        long deadline = System.nanoTime() + PUBLISH_TIMEOUT_NANOS;
+        while (!ringBuffer.offer(output.getBuffer(), 0, output.position())) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IOException("Shared memory ring buffer is full");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public Credits getCredits() {
+        return credits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ringBuffer.close();
+    }
+}
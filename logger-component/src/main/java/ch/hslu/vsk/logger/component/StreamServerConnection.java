@@ -0,0 +1,89 @@
+package ch.hslu.vsk.logger.component;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+
+/**
+ * Connection streaming the serialized log messages over a socket, used for TCP and Unix domain sockets alike.
+ * Reads the credits granted by the server on a dedicated virtual thread.
+ */
+final class StreamServerConnection implements ServerConnection {
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(1);
+    private final Closeable transport;
+    private final Thread creditReader;
+    private final Output output;
+    private final Kryo kryo;
+    private final Credits credits = new Credits();
+
+    /**
+     * Creates a new connection writing to the given stream.
+     *
+     * @param transport    Socket or channel the streams belong to
+     * @param inputStream  Stream receiving the credits granted by the server
+     * @param outputStream Stream sending the log messages to the server
+     * @param kryo         Configured Kryo instance used to serialize the log messages
+     */
+    StreamServerConnection(final Closeable transport, final InputStream inputStream,
+                           final OutputStream outputStream, final Kryo kryo) {
+        this.transport = transport;
+        this.output = new Output(outputStream);
+        this.kryo = kryo;
+        this.creditReader = Thread.ofVirtual().name("credit-reader").start(() -> readGrants(inputStream));
+    }
+
+    @Override
+    public void send(final LogMessageDo messageDo) {
+        kryo.writeObject(output, messageDo);
+        output.flush();
+    }
+
+    @Override
+    public Credits getCredits() {
+        return credits;
+    }
+
+    /**
+     * Closes the connection gracefully: signals the end of the stream to the server and waits for the server to close
+     * its side, as closing with unread grants would reset the connection and make the server discard the messages
+     * it has not yet read.
+     *
+     * @throws IOException if closing the transport failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (transport instanceof Socket socket) {
+                socket.shutdownOutput();
+            } else if (transport instanceof SocketChannel channel) {
+                channel.shutdownOutput();
+            }
+            creditReader.join(CLOSE_TIMEOUT);
+        } catch (IOException alreadyClosed) {
+            // nothing left to deliver
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } finally {
+            transport.close();
+        }
+    }
+
+    private void readGrants(final InputStream inputStream) {
+        try (DataInputStream grants = new DataInputStream(inputStream)) {
+            while (true) {
+                credits.grant(grants.readInt());
+            }
+        } catch (IOException closed) {
+            // the connection is gone, which the sending side detects and handles on its own
+        }
+    }
+}
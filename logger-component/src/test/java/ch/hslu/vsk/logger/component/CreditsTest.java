@@ -0,0 +1,58 @@
+package ch.hslu.vsk.logger.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class CreditsTest {
+    @Test
+    public void testUnlimitedUntilFirstGrant() {
+        Credits credits = new Credits();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(credits.tryAcquire());
+        }
+        assertEquals(-1, credits.available());
+    }
+
+    @Test
+    public void testGrantedCreditsAreConsumed() {
+        Credits credits = new Credits();
+        credits.grant(2);
+
+        assertTrue(credits.tryAcquire());
+        assertTrue(credits.tryAcquire());
+        assertFalse(credits.tryAcquire());
+
+        credits.grant(1);
+        assertTrue(credits.tryAcquire());
+        assertEquals(0, credits.available());
+    }
+
+    @Test
+    public void testWaitsForGrant() {
+        Credits credits = new Credits();
+        credits.grant(0);
+
+        assertFalse(credits.tryAcquire(TimeUnit.MILLISECONDS.toNanos(20)));
+
+        Thread.ofVirtual().start(() -> credits.grant(1));
+        assertTrue(credits.tryAcquire(TimeUnit.SECONDS.toNanos(5)));
+    }
+
+    @Test
+    public void testPauseRevokesRemainingBudget() {
+        Credits credits = new Credits();
+        credits.grant(5);
+
+        credits.grant(Credits.PAUSE);
+        assertFalse(credits.tryAcquire());
+
+        credits.grant(1);
+        assertTrue(credits.tryAcquire());
+    }
+}
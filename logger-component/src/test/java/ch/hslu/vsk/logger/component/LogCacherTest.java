@@ -0,0 +1,53 @@
+package ch.hslu.vsk.logger.component;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LogCacherTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testResendsCachedLogsInOrderAcrossAttempts() {
+        Path fallbackFile = directory.resolve("fallback.log");
+        LogCacher cacher = new LogCacher(fallbackFile);
+        cacher.cache(log("first"));
+        cacher.cache(log("second"));
+        cacher.cache(log("third"));
+        List<String> sent = new ArrayList<>();
+
+        cacher.sendCachedLogs(messageDo -> sent.size() < 2 && sent.add(messageDo.getMessage()));
+        cacher.cache(log("fourth"));
+        cacher.sendCachedLogs(messageDo -> sent.add(messageDo.getMessage()));
+
+        assertEquals(List.of("first", "second", "third", "fourth"), sent);
+        assertFalse(cacher.hasCachedLogs());
+        assertFalse(Files.exists(fallbackFile));
+    }
+
+    @Test
+    public void testKeepsLogsWhichCouldNotBeSent() {
+        LogCacher cacher = new LogCacher(directory.resolve("fallback.log"));
+        cacher.cache(log("first"));
+
+        cacher.sendCachedLogs(messageDo -> false);
+
+        assertTrue(cacher.hasCachedLogs());
+    }
+
+    private static LogMessageDo log(final String message) {
+        return new LogMessageDo.Builder(message).from("client").at(Instant.now()).level(LogLevel.Info).build();
+    }
+}
@@ -0,0 +1,118 @@
+package ch.hslu.vsk.logger.component;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.common.sharedmemory.SharedMemoryRingBuffer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ServerConnectionTest {
+    @Test
+    public void testUnixSchemeIsDetected() {
+        assertTrue(ServerConnection.isUnixDomainAddress(URI.create("unix:/tmp/logger.sock")));
+        assertTrue(ServerConnection.isUnixDomainAddress(URI.create("UNIX:///tmp/logger.sock")));
+        assertFalse(ServerConnection.isUnixDomainAddress(URI.create("tcp://localhost:9999")));
+        assertFalse(ServerConnection.isUnixDomainAddress(URI.create("http://localhost:9999")));
+    }
+
+    @Test
+    public void testFilePathNotations() {
+        assertEquals(Path.of("/tmp/logger.sock"),
+                ServerConnection.resolvePath(URI.create("unix:/tmp/logger.sock")));
+        assertEquals(Path.of("/tmp/logger.sock"),
+                ServerConnection.resolvePath(URI.create("unix:///tmp/logger.sock")));
+        assertEquals(Path.of("logger.sock"),
+                ServerConnection.resolvePath(URI.create("unix:logger.sock")));
+        assertEquals(Path.of("/dev/shm/logger.ring"),
+                ServerConnection.resolvePath(URI.create("shm:/dev/shm/logger.ring")));
+    }
+
+    @Test
+    public void testSendsOverUnixDomainSocket(@TempDir final Path tempDir) throws Exception {
+        Path socketFile = tempDir.resolve("logger.sock");
+        Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+        LogMessageDo message = createMessage();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketFile));
+
+            try (ServerConnection connection = ServerConnection.open(URI.create("unix:" + socketFile), kryo);
+                 SocketChannel accepted = server.accept();
+                 Input received = new Input(Channels.newInputStream(accepted))) {
+                connection.send(message);
+                assertEquals(message, kryo.readObject(received, LogMessageDo.class));
+
+                // grants flow back while the connection keeps sending
+                accepted.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1));
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (connection.getCredits().available() != 1 && System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+                assertTrue(connection.getCredits().tryAcquire());
+                assertFalse(connection.getCredits().tryAcquire());
+                connection.send(message);
+                assertEquals(message, kryo.readObject(received, LogMessageDo.class));
+            }
+        }
+    }
+
+    @Test
+    public void testSendsOverSharedMemory(@TempDir final Path tempDir) throws Exception {
+        Path ringFile = tempDir.resolve("logger.ring");
+        Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+        LogMessageDo message = createMessage();
+
+        try (SharedMemoryRingBuffer server = SharedMemoryRingBuffer.create(ringFile, 8, 256);
+             ServerConnection connection = ServerConnection.open(URI.create("shm:" + ringFile), kryo)) {
+            connection.send(message);
+
+            byte[] record = new byte[server.getMaxRecordLength()];
+            int length = server.poll(record);
+            assertEquals(message, kryo.readObject(new Input(record, 0, length), LogMessageDo.class));
+        }
+    }
+
+    @Test
+    public void testRejectsMessageExceedingSharedMemoryRecord(@TempDir final Path tempDir) throws Exception {
+        Path ringFile = tempDir.resolve("logger.ring");
+        Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+        LogMessageDo large = new LogMessageDo.Builder("x".repeat(1024)).from("test-client").build();
+
+        try (SharedMemoryRingBuffer server = SharedMemoryRingBuffer.create(ringFile, 8, 256);
+             ServerConnection connection = ServerConnection.open(URI.create("shm:" + ringFile), kryo)) {
+            assertThrows(IllegalArgumentException.class, () -> connection.send(large));
+            connection.send(createMessage());
+
+            byte[] record = new byte[server.getMaxRecordLength()];
+            int length = server.poll(record);
+            assertEquals(createMessage(), kryo.readObject(new Input(record, 0, length), LogMessageDo.class));
+        }
+    }
+
+    private static LogMessageDo createMessage() {
+        return new LogMessageDo.Builder("test message")
+                .from("test-client")
+                .at(Instant.parse("2024-05-01T10:10:00.00Z"))
+                .level(LogLevel.Info)
+                .build();
+    }
+}
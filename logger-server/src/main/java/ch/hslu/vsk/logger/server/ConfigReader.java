@@ -1,8 +1,22 @@
 package ch.hslu.vsk.logger.server;
 
+import ch.hslu.vsk.logger.server.cluster.ClusterMember;
+import ch.hslu.vsk.logger.server.logstrategies.JsonLinesLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.OverflowPolicy;
+import ch.hslu.vsk.logger.server.store.Compression;
+import ch.hslu.vsk.logger.server.store.FsyncPolicy;
+import ch.hslu.vsk.logger.server.store.LogFileWriter;
+import ch.hslu.vsk.logger.server.store.RotationPolicy;
+
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 
@@ -22,10 +36,102 @@ public final class ConfigReader {
         }
     }
 
+    /**
+     * Constructs a new {@link ConfigReader} instance whose properties are overridden by the given ones, f.e. for
+     * running several servers in one process.
+     *
+     * @param overrides Properties taking precedence over the ones of the config file
+     */
+    public ConfigReader(final Properties overrides) {
+        this();
+        properties.putAll(overrides);
+    }
+
     public String getLogFilePath() {
         return getEnvVariableOrConfig("LOG_FILE");
     }
 
+    /**
+     * Returns the pattern the messages are formatted by.
+     *
+     * @return pattern of the log messages, empty for the format of the competition
+     */
+    public String getLogPattern() {
+        return getEnvVariableOrConfig("LOG_PATTERN");
+    }
+
+    /**
+     * Returns how the log messages are persisted to the log file.
+     *
+     * @return writer of the log file
+     */
+    public LogFileWriter getLogFileWriter() {
+        return LogFileWriter.valueOf(getEnvVariableOrConfig("LOG_FILE_WRITER").trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the size of the buffer the log records are batched in before they are written to the log file.
+     *
+     * @return buffer size in bytes
+     */
+    public Integer getLogFileBufferSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("LOG_FILE_BUFFER_SIZE"));
+    }
+
+    /**
+     * Returns when the written log records are synced to the storage device.
+     *
+     * @return fsync policy of the log file
+     */
+    public FsyncPolicy getLogFileFsyncPolicy() {
+        return FsyncPolicy.valueOf(getEnvVariableOrConfig("LOG_FILE_FSYNC").trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the minimum time between two syncs of the log file for {@link FsyncPolicy#INTERVAL}.
+     *
+     * @return fsync interval
+     */
+    public Duration getLogFileFsyncInterval() {
+        return Duration.ofMillis(Long.parseLong(getEnvVariableOrConfig("LOG_FILE_FSYNC_INTERVAL_MS")));
+    }
+
+    /**
+     * Returns when the log file is rotated into segments and how they are compressed.
+     *
+     * @return rotation policy of the log file
+     */
+    public RotationPolicy getLogFileRotation() {
+        long maxBytes = Long.parseLong(getEnvVariableOrConfig("LOG_FILE_ROTATE_BYTES").trim());
+        Duration interval = Duration.ofMinutes(Long.parseLong(
+                getEnvVariableOrConfig("LOG_FILE_ROTATE_INTERVAL_MINUTES").trim()));
+        Compression compression = Compression.valueOf(
+                getEnvVariableOrConfig("LOG_FILE_COMPRESSION").trim().toUpperCase(Locale.ROOT));
+        return new RotationPolicy(maxBytes, interval, compression);
+    }
+
+    /**
+     * Returns the number of records per block of the sparse index written along the log file.
+     *
+     * @return records per block, {@code 0} to not index the log file
+     */
+    public Integer getLogFileIndexInterval() {
+        return Integer.valueOf(getEnvVariableOrConfig("LOG_FILE_INDEX_INTERVAL").trim());
+    }
+
+    /**
+     * Returns the format of the timestamps if the messages are formatted as JSON lines instead of by the pattern.
+     *
+     * @return format of the timestamps, {@code null} if the messages are not formatted as JSON lines
+     */
+    public JsonLinesLogStrategy.TimestampFormat getLogJsonTimestampFormat() {
+        String value = getEnvVariableOrConfig("LOG_JSON_TIMESTAMPS");
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return JsonLinesLogStrategy.TimestampFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
     public Integer getSocketPort() {
         return Integer.valueOf(getEnvVariableOrConfig("LISTEN_PORT"));
     }
@@ -38,6 +144,387 @@ public final class ConfigReader {
         return getEnvVariableOrConfig("SOCKET_ADDRESS");
     }
 
+    /**
+     * Returns the path of the Unix domain socket to listen on for clients running on the same host.
+     *
+     * @return path of the socket file, {@code null} or blank if the Unix domain socket transport is disabled
+     */
+    public String getUnixSocketPath() {
+        return getEnvVariableOrConfig("UNIX_SOCKET_PATH");
+    }
+
+    /**
+     * Returns the path of the file backing the shared memory ring buffer for clients running on the same host.
+     *
+     * @return path of the ring buffer file, {@code null} or blank if the shared memory transport is disabled
+     */
+    public String getSharedMemoryFilePath() {
+        return getEnvVariableOrConfig("SHARED_MEMORY_FILE");
+    }
+
+    /**
+     * Returns the number of slots of the shared memory ring buffer, a power of two.
+     *
+     * @return number of slots
+     */
+    public Integer getSharedMemorySlotCount() {
+        return Integer.valueOf(getEnvVariableOrConfig("SHARED_MEMORY_SLOTS"));
+    }
+
+    /**
+     * Returns the size of a slot of the shared memory ring buffer, limiting the size of a serialized log message.
+     *
+     * @return slot size in bytes, a multiple of 64
+     */
+    public Integer getSharedMemorySlotSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("SHARED_MEMORY_SLOT_SIZE"));
+    }
+
+    /**
+     * Returns the number of messages a client may have in flight before it has to wait for further credits.
+     *
+     * @return credit window per connection, {@code 0} disables the credit based flow control
+     */
+    public Integer getCreditWindow() {
+        return Integer.valueOf(getEnvVariableOrConfig("CREDIT_WINDOW"));
+    }
+
+    /**
+     * Returns the number of received messages the dispatcher queues per source lane for the adapters.
+     *
+     * @return capacity of each dispatcher lane, a power of two
+     */
+    public Integer getDispatcherQueueSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("DISPATCHER_QUEUE_SIZE"));
+    }
+
+    /**
+     * Returns the maximum number of messages the dispatcher hands to the adapters in one batch.
+     *
+     * @return batch size of the dispatcher
+     */
+    public Integer getDispatcherBatchSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("DISPATCHER_BATCH_SIZE"));
+    }
+
+    /**
+     * Checks whether received log messages are decoded straight into recycled events instead of being deserialized
+     * by Kryo, which allocates every message.
+     *
+     * @return {@code true} if the allocation free decoding is enabled
+     */
+    public boolean isAllocationFreeDecoding() {
+        return Boolean.parseBoolean(getEnvVariableOrConfig("ALLOCATION_FREE_DECODING"));
+    }
+
+    /**
+     * Returns the number of messages queued per adapter.
+     *
+     * @return capacity of each adapter queue, a power of two
+     */
+    public Integer getAdapterQueueSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("ADAPTER_QUEUE_SIZE"));
+    }
+
+    /**
+     * Returns how messages are handed to the adapter with the given name while its queue is full. Falls back to
+     * {@code ADAPTER_OVERFLOW_POLICY} if {@code ADAPTER_OVERFLOW_POLICY_<NAME>} is not configured.
+     *
+     * @param adapterName Name of the adapter
+     * @return overflow policy of the adapter
+     */
+    public OverflowPolicy getAdapterOverflowPolicy(final String adapterName) {
+        String value = getEnvVariableOrConfig("ADAPTER_OVERFLOW_POLICY_" + adapterName.toUpperCase(Locale.ROOT));
+        if (value == null || value.isBlank()) {
+            value = getEnvVariableOrConfig("ADAPTER_OVERFLOW_POLICY");
+        }
+        return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the maximum number of concurrent client connections.
+     *
+     * @return connection limit, {@code 0} for no limit
+     */
+    public Integer getMaxConnections() {
+        return Integer.valueOf(getEnvVariableOrConfig("MAX_CONNECTIONS"));
+    }
+
+    /**
+     * Returns the number of messages per second each source may send before its further messages are shed.
+     *
+     * @return message quota per source, {@code 0} for no limit
+     */
+    public Long getSourceMessageQuota() {
+        return Long.valueOf(getEnvVariableOrConfig("SOURCE_MESSAGE_QUOTA"));
+    }
+
+    /**
+     * Returns the number of serialized bytes per second each source may send before its further messages are shed.
+     *
+     * @return byte quota per source, {@code 0} for no limit
+     */
+    public Long getSourceByteQuota() {
+        return Long.valueOf(getEnvVariableOrConfig("SOURCE_BYTE_QUOTA"));
+    }
+
+    /**
+     * Returns the weights of the sources getting a larger share of the dispatcher than others, configured as
+     * comma separated {@code name:weight} pairs.
+     *
+     * @return weights by the names of the sources, empty if all sources are weighted equally
+     * @throws IllegalArgumentException if a pair is malformed
+     */
+    public Map<String, Integer> getSourceWeights() {
+        Map<String, Integer> weights = new HashMap<>();
+        String value = getEnvVariableOrConfig("SOURCE_WEIGHTS");
+        if (value == null || value.isBlank()) {
+            return weights;
+        }
+
+        for (String pair : value.split(",")) {
+            int separator = pair.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid source weight, expected name:weight but was " + pair);
+            }
+            weights.put(pair.substring(0, separator).trim(), Integer.valueOf(pair.substring(separator + 1).trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Returns the number of dispatcher lanes, the first one shared by all sources not getting a lane of their own.
+     *
+     * @return number of lanes
+     */
+    public Integer getSourceLanes() {
+        return Integer.valueOf(getEnvVariableOrConfig("SOURCE_LANES"));
+    }
+
+    /**
+     * Returns the maximum number of sources tracked individually, further sources share a common quota.
+     *
+     * @return number of tracked sources
+     */
+    public Integer getMaxSources() {
+        return Integer.valueOf(getEnvVariableOrConfig("MAX_SOURCES"));
+    }
+
+    /**
+     * Returns the address the metrics are served on over HTTP.
+     *
+     * @return host name or IP address, by default the loopback address
+     */
+    public String getMetricsAddress() {
+        return getEnvVariableOrConfig("METRICS_ADDRESS");
+    }
+
+    /**
+     * Returns the port the metrics are served on in the Prometheus text format.
+     *
+     * @return HTTP port of the metrics, {@code 0} disables the endpoint
+     */
+    public Integer getMetricsPort() {
+        return Integer.valueOf(getEnvVariableOrConfig("METRICS_PORT"));
+    }
+
+    /**
+     * Checks whether the metrics are registered with the platform MBean server.
+     *
+     * @return {@code true} if the metrics are exposed over JMX
+     */
+    public boolean isJmxEnabled() {
+        return Boolean.parseBoolean(getEnvVariableOrConfig("JMX_ENABLED"));
+    }
+
+    /**
+     * Returns the time the server takes at most on shutdown to receive the messages in flight and to drain them
+     * through the adapters.
+     *
+     * @return shutdown timeout
+     */
+    public Duration getShutdownTimeout() {
+        return Duration.ofMillis(Long.parseLong(getEnvVariableOrConfig("SHUTDOWN_TIMEOUT_MS")));
+    }
+
+    /**
+     * Returns the rules routing the messages to the adapters, separated by {@code ;}.
+     *
+     * @return routing rules, empty to hand all messages to all adapters
+     */
+    public String getRoutingRules() {
+        return getEnvVariableOrConfig("ROUTING_RULES");
+    }
+
+    /**
+     * Returns the directory the rollups of the message counts are persisted to.
+     *
+     * @return path of the directory, empty to disable the rollups
+     */
+    public String getRollupDirectory() {
+        return getEnvVariableOrConfig("ROLLUP_DIRECTORY");
+    }
+
+    /**
+     * Returns the number of seconds the message counts per second are kept in memory.
+     *
+     * @return retention in seconds
+     */
+    public Long getRollupSecondRetention() {
+        return Long.valueOf(getEnvVariableOrConfig("ROLLUP_SECOND_RETENTION"));
+    }
+
+    /**
+     * Returns the number of minutes the message counts per minute are kept in memory.
+     *
+     * @return retention in minutes
+     */
+    public Long getRollupMinuteRetention() {
+        return Long.valueOf(getEnvVariableOrConfig("ROLLUP_MINUTE_RETENTION"));
+    }
+
+    /**
+     * Returns the maximum number of message templates mined and counted.
+     *
+     * @return number of templates kept, {@code 0} disables the template mining
+     */
+    public Integer getTemplateMaxCount() {
+        return Integer.valueOf(getEnvVariableOrConfig("TEMPLATE_MAX_COUNT"));
+    }
+
+    /**
+     * Returns the share of equal tokens for a message to match a mined template.
+     *
+     * @return similarity threshold between 0 and 1
+     */
+    public Double getTemplateSimilarity() {
+        return Double.valueOf(getEnvVariableOrConfig("TEMPLATE_SIMILARITY"));
+    }
+
+    /**
+     * Returns the depth of the tree the templates are mined with.
+     *
+     * @return depth of the parse tree, at least 3
+     */
+    public Integer getTemplateTreeDepth() {
+        return Integer.valueOf(getEnvVariableOrConfig("TEMPLATE_TREE_DEPTH"));
+    }
+
+    /**
+     * Returns the maximum number of sources and templates tracked as heavy hitters, {@code 0} if disabled.
+     *
+     * @return number of heavy hitters kept per dimension
+     */
+    public Integer getHeavyHitterCapacity() {
+        return Integer.valueOf(getEnvVariableOrConfig("HEAVY_HITTER_CAPACITY"));
+    }
+
+    /**
+     * Returns the length of the sliding window the heavy hitters are counted in.
+     *
+     * @return window length
+     */
+    public Duration getHeavyHitterWindow() {
+        return Duration.ofSeconds(Long.parseLong(getEnvVariableOrConfig("HEAVY_HITTER_WINDOW_SECONDS")));
+    }
+
+    /**
+     * Returns the number of counters per row of the sketches counting the heavy hitters.
+     *
+     * @return sketch width, a power of two
+     */
+    public Integer getHeavyHitterSketchWidth() {
+        return Integer.valueOf(getEnvVariableOrConfig("HEAVY_HITTER_SKETCH_WIDTH"));
+    }
+
+    /**
+     * Returns the directory the full-text index of the messages is kept in.
+     *
+     * @return path of the directory, empty to disable the index
+     */
+    public String getSearchIndexDirectory() {
+        return getEnvVariableOrConfig("SEARCH_INDEX_DIRECTORY");
+    }
+
+    /**
+     * Returns the number of messages buffered in memory before they are written to a segment of the full-text index.
+     *
+     * @return number of messages per segment
+     */
+    public Integer getSearchIndexSegmentDocuments() {
+        return Integer.valueOf(getEnvVariableOrConfig("SEARCH_INDEX_SEGMENT_DOCUMENTS"));
+    }
+
+    /**
+     * Returns the number of threads accepting TCP connections.
+     *
+     * @return number of acceptor threads
+     */
+    public Integer getAcceptorThreads() {
+        return Integer.valueOf(getEnvVariableOrConfig("ACCEPTOR_THREADS"));
+    }
+
+    /**
+     * Returns the number of connections the kernel queues per listener until they are accepted.
+     *
+     * @return length of the accept queue
+     */
+    public Integer getAcceptBacklog() {
+        return Integer.valueOf(getEnvVariableOrConfig("ACCEPT_BACKLOG"));
+    }
+
+    /**
+     * Returns the members of the cluster the sources are partitioned among, configured as comma separated
+     * {@code host:port} addresses, identical on all members.
+     *
+     * @return members of the cluster, empty if the server runs standalone
+     * @throws IllegalArgumentException if an address is malformed
+     */
+    public List<ClusterMember> getClusterMembers() {
+        List<ClusterMember> members = new ArrayList<>();
+        String value = getEnvVariableOrConfig("CLUSTER_MEMBERS");
+        if (value == null || value.isBlank()) {
+            return members;
+        }
+
+        for (String address : value.split(",")) {
+            members.add(ClusterMember.parse(address));
+        }
+        return members;
+    }
+
+    /**
+     * Returns the member of the cluster this server is.
+     *
+     * @return own member, {@code null} if the server runs standalone
+     * @throws IllegalArgumentException if the address is malformed
+     */
+    public ClusterMember getClusterSelf() {
+        String value = getEnvVariableOrConfig("CLUSTER_SELF");
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return ClusterMember.parse(value);
+    }
+
+    /**
+     * Returns the number of points every member is placed at on the hash ring of the cluster.
+     *
+     * @return number of virtual nodes per member
+     */
+    public Integer getClusterVirtualNodes() {
+        return Integer.valueOf(getEnvVariableOrConfig("CLUSTER_VIRTUAL_NODES"));
+    }
+
+    /**
+     * Returns the number of messages queued for every other member of the cluster.
+     *
+     * @return size of the queue per member, a power of two
+     */
+    public Integer getClusterForwardQueueSize() {
+        return Integer.valueOf(getEnvVariableOrConfig("CLUSTER_FORWARD_QUEUE_SIZE"));
+    }
+
     public String getCustomSetting(final String settingName) {
         if (properties.containsKey(settingName)) {
             return properties.getProperty(settingName);
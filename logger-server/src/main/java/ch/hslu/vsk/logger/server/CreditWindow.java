@@ -0,0 +1,157 @@
+package ch.hslu.vsk.logger.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Credit based flow control for one client connection.
+ * <br />
+ * The server grants the client a budget of {@code windowSize} messages up front and replenishes it as the adapters
+ * drain the received messages. Grants are sent to the client as 4 byte big endian integers, each adding the given
+ * number of messages to the client's budget. Clients exhausting their budget apply their overflow policy instead of
+ * sending further messages, so a slow adapter never lets the received but unprocessed messages pile up on the heap.
+ * <br />
+ * Clients which ignore the grants are throttled nevertheless, as {@link #acquire()} stops reading from their
+ * connection once {@code windowSize} messages are in flight, pushing back over TCP flow control.
+ * <br />
+ * Grants are written by {@link #run()} on a dedicated thread, thus releasing credits never blocks the adapters even
+ * if the client does not read the grants.
+ * <br />
+ * On shutdown, the server {@link #pause() pauses} the client by a grant of {@link #PAUSE}, which revokes the client's
+ * remaining budget, so it caches its further messages instead of sending them to a server about to stop reading.
+ */
+public final class CreditWindow implements Runnable {
+    /**
+     * Grant revoking the remaining budget of the client.
+     */
+    public static final int PAUSE = 0;
+    private static final Logger LOG = LoggerFactory.getLogger(CreditWindow.class);
+    private final WritableByteChannel client;
+    private final int windowSize;
+    private final int replenishThreshold;
+    private final Semaphore inFlight;
+    private final AtomicInteger drained = new AtomicInteger();
+    private volatile Thread grantWriter;
+    private volatile boolean paused;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new {@link CreditWindow} instance.
+     *
+     * @param client     Connection to send the grants to
+     * @param windowSize Maximum number of messages in flight, {@code 0} disables the flow control
+     * @throws IllegalArgumentException if {@code client} is {@code null} or {@code windowSize} is negative
+     */
+    public CreditWindow(final WritableByteChannel client, final int windowSize) {
+        if (client == null) {
+            throw new IllegalArgumentException("Provided client cannot be null");
+        }
+        if (windowSize < 0) {
+            throw new IllegalArgumentException("Window size cannot be negative, was " + windowSize);
+        }
+
+        this.client = client;
+        this.windowSize = windowSize;
+        // replenish in batches, but early enough for the client to never run dry on a healthy server
+        this.replenishThreshold = Math.max(1, windowSize / 2);
+        this.inFlight = new Semaphore(windowSize);
+    }
+
+    /**
+     * Checks whether flow control is enabled for the connection.
+     *
+     * @return {@code false} if configured with a window size of {@code 0}
+     */
+    public boolean isEnabled() {
+        return windowSize > 0;
+    }
+
+    /**
+     * Registers a received message, blocking while {@code windowSize} messages are already in flight.
+     *
+     * @throws InterruptedException if interrupted while waiting for in flight messages to be drained
+     */
+    public void acquire() throws InterruptedException {
+        if (isEnabled()) {
+            inFlight.acquire();
+        }
+    }
+
+    /**
+     * Registers a message as drained by all adapters, replenishing the client's budget. Never blocks.
+     */
+    public void release() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        inFlight.release();
+        if (drained.incrementAndGet() >= replenishThreshold) {
+            LockSupport.unpark(grantWriter);
+        }
+    }
+
+    /**
+     * Sends the initial grant and afterwards the replenishing grants until {@link #close()} or {@link #pause()} is
+     * called.
+     */
+    @Override
+    public void run() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        grantWriter = Thread.currentThread();
+        ByteBuffer grant = ByteBuffer.allocate(Integer.BYTES);
+        try {
+            writeGrant(grant, windowSize);
+            while (!closed) {
+                if (paused) {
+                    writeGrant(grant, PAUSE);
+                    break;
+                }
+                int replenished = drained.get();
+                if (replenished >= replenishThreshold) {
+                    drained.addAndGet(-replenished);
+                    writeGrant(grant, replenished);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } catch (IOException ioException) {
+            // the reading side of the connection handles the disconnect
+            LOG.debug("Stopped granting credits to {}", client, ioException);
+        }
+    }
+
+    /**
+     * Revokes the remaining budget of the client and stops replenishing it, while the messages already in flight
+     * are still received.
+     */
+    public void pause() {
+        paused = true;
+        LockSupport.unpark(grantWriter);
+    }
+
+    /**
+     * Stops sending grants.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(grantWriter);
+    }
+
+    private void writeGrant(final ByteBuffer grant, final int credits) throws IOException {
+        grant.clear().putInt(credits).flip();
+        while (grant.hasRemaining()) {
+            client.write(grant);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.server.admission.Source;
+import ch.hslu.vsk.logger.server.metrics.Histogram;
+import ch.hslu.vsk.logger.server.pipeline.AdapterStage;
+import ch.hslu.vsk.logger.server.pipeline.EpochClock;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.LogEventHandler;
+import ch.hslu.vsk.logger.server.pipeline.PipelineStage;
+import ch.hslu.vsk.logger.server.pipeline.StageMetrics;
+import ch.hslu.vsk.logger.server.routing.Router;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands received log messages to all log adapters, regardless of the transport they were received on.
+ * <br />
+ * The connection readers only publish the decoded messages into the queue of the dispatcher stage, whose dedicated
+ * consumer thread fans them out in batches to the {@link AdapterStage}s. Every adapter runs on its own thread with its
+ * own bounded queue, so reading from the sockets continues while the adapters persist and a stalled adapter only
+ * delays the others if its {@link ch.hslu.vsk.logger.server.pipeline.OverflowPolicy} says so.
+ * <br />
+ * A message occupies its slot in the dispatcher queue until all adapters are done with it, thus the dispatcher queue
+ * bounds the number of messages in flight on the server.
+ * <br />
+ * Messages of admitted {@link Source}s are queued in the lane of their source, which the dispatcher serves weighted
+ * fair, so a flooding source fills up its own lane instead of delaying all other sources.
+ * <br />
+ * The {@link Router} decides which adapters a message is handed to, by default all of them.
+ */
+public final class LogMessageDispatcher implements LogEventHandler {
+    private static final String STAGE_NAME = "log-dispatcher";
+    private final List<AdapterStage> adapterStages;
+    // indexed on the hot path, as the iterator of the list is not reliably scalar replaced
+    private final AdapterStage[] adapterStageArray;
+    private final PipelineStage stage;
+    private final EpochClock clock = new EpochClock();
+    private final Histogram endToEndLag = Histogram.latency();
+    private final Router router;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructs a new {@link LogMessageDispatcher} instance.
+     *
+     * @param adapterStages Stages running the adapters for persisting received log messages
+     * @param capacity      Number of messages the queue of the dispatcher holds, a power of two
+     * @param batchSize     Maximum number of messages handed to the adapters per batch
+     * @throws IllegalArgumentException if {@code adapterStages} is {@code null} or a size is invalid
+     */
+    public LogMessageDispatcher(final List<AdapterStage> adapterStages, final int capacity, final int batchSize) {
+        this(adapterStages, 1, capacity, batchSize);
+    }
+
+    /**
+     * Constructs a new {@link LogMessageDispatcher} instance with a queue per source lane.
+     *
+     * @param adapterStages Stages running the adapters for persisting received log messages
+     * @param laneCount     Number of lanes the sources are distributed on
+     * @param laneCapacity  Number of messages the queue of each lane holds, a power of two
+     * @param batchSize     Maximum number of messages handed to the adapters per batch
+     * @throws IllegalArgumentException if {@code adapterStages} is {@code null} or a size is invalid
+     */
+    public LogMessageDispatcher(final List<AdapterStage> adapterStages, final int laneCount, final int laneCapacity,
+                                final int batchSize) {
+        this(adapterStages, laneCount, laneCapacity, batchSize, Router.all());
+    }
+
+    /**
+     * Constructs a new {@link LogMessageDispatcher} instance with a queue per source lane, routing the messages to
+     * the adapters by the given router.
+     *
+     * @param adapterStages Stages running the adapters for persisting received log messages
+     * @param laneCount     Number of lanes the sources are distributed on
+     * @param laneCapacity  Number of messages the queue of each lane holds, a power of two
+     * @param batchSize     Maximum number of messages handed to the adapters per batch
+     * @param router        Router compiled for the adapters in the order of {@code adapterStages}
+     * @throws IllegalArgumentException if an argument is {@code null} or a size is invalid
+     */
+    public LogMessageDispatcher(final List<AdapterStage> adapterStages, final int laneCount, final int laneCapacity,
+                                final int batchSize, final Router router) {
+        if (adapterStages == null) {
+            throw new IllegalArgumentException("Provided adapterStages cannot be null");
+        }
+        if (router == null) {
+            throw new IllegalArgumentException("Provided router cannot be null");
+        }
+
+        this.adapterStages = List.copyOf(adapterStages);
+        this.adapterStageArray = this.adapterStages.toArray(new AdapterStage[0]);
+        this.router = router;
+        this.stage = new PipelineStage(STAGE_NAME, laneCount, laneCapacity, batchSize, this);
+    }
+
+    /**
+     * Starts the adapters and handing the published messages to them.
+     */
+    public void start() {
+        for (AdapterStage adapterStage : adapterStages) {
+            adapterStage.start();
+        }
+        stage.start();
+    }
+
+    /**
+     * Publishes a copy of the given event to be handed to all log adapters, waiting while the queue is full.
+     *
+     * @param received Event holding the log message as received from the client, may be reused once the call returns
+     */
+    public void dispatch(final LogEvent received) {
+        dispatch(received, null);
+    }
+
+    /**
+     * Publishes a copy of the given event to be handed to all log adapters, waiting while the queue is full.
+     *
+     * @param received    Event holding the log message as received from the client, may be reused once the call
+     *                    returns
+     * @param onProcessed Callback run once all adapters have processed the message, may be {@code null}
+     */
+    public void dispatch(final LogEvent received, final Runnable onProcessed) {
+        stage.publish(received, onProcessed);
+    }
+
+    /**
+     * Publishes a copy of the given event into the lane of its source, waiting while the queue of the lane is full.
+     *
+     * @param received    Event holding the log message as received from the client, may be reused once the call
+     *                    returns
+     * @param source      Admitted source of the message
+     * @param onProcessed Callback run once all adapters have processed the message, may be {@code null}
+     */
+    public void dispatch(final LogEvent received, final Source source, final Runnable onProcessed) {
+        stage.publish(source.getLane(), source.getWeight(), received, onProcessed);
+    }
+
+    /**
+     * Registers the point of time the message of the given event is processed and queues it for the log adapters
+     * it is routed to. Records the lag since the message was created by the client, which includes the clock skew
+     * between both.
+     *
+     * @param event      Event holding the received log message
+     * @param endOfBatch {@code true} for the last event of the batch
+     */
+    @Override
+    public void onEvent(final LogEvent event, final boolean endOfBatch) {
+        long processedAt = clock.epochNanos();
+        event.setProcessedAt(processedAt);
+        if (event.getCreatedAt() != LogEvent.NO_TIMESTAMP) {
+            endToEndLag.record(processedAt - event.getCreatedAt());
+        }
+
+        long targets = router.route(event);
+        if (targets == Router.NONE) {
+            dropped.increment();
+            return;
+        }
+        for (int i = 0; i < adapterStageArray.length; i++) {
+            if ((targets >>> i & 1L) != 0) {
+                adapterStageArray[i].submit(event);
+            }
+        }
+    }
+
+    /**
+     * Stops the dispatcher and afterwards the adapters once the already published messages are processed.
+     *
+     * @param timeout Maximum time to wait for all queues to be drained
+     * @return {@code true} if all published messages have been processed by the adapters in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(final Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = stage.stop(timeout);
+        for (AdapterStage adapterStage : adapterStages) {
+            Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            drained &= adapterStage.stop(remaining);
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of messages published to the dispatcher so far.
+     *
+     * @return published messages
+     */
+    public long getPublished() {
+        return stage.getMetrics().getPublished();
+    }
+
+    /**
+     * Returns the number of published messages not all adapters are done with yet.
+     *
+     * @return messages in flight
+     */
+    public long getInFlight() {
+        return stage.getMetrics().getInFlight();
+    }
+
+    /**
+     * Returns the number of messages dropped by the routing rules.
+     *
+     * @return dropped messages
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the stages running the adapters.
+     *
+     * @return adapter stages
+     */
+    public List<AdapterStage> getAdapterStages() {
+        return adapterStages;
+    }
+
+    /**
+     * Returns the distribution of the time between the creation of the messages by the clients and their
+     * processing by the dispatcher.
+     *
+     * @return histogram of the end to end lag
+     */
+    public Histogram getEndToEndLag() {
+        return endToEndLag;
+    }
+
+    /**
+     * Returns the queue metrics of the dispatcher stage followed by the ones of all adapter stages.
+     *
+     * @return metrics of all stages
+     */
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>();
+        metrics.add(stage.getMetrics());
+        for (AdapterStage adapterStage : adapterStages) {
+            metrics.add(adapterStage.getMetrics());
+        }
+        return metrics;
+    }
+}
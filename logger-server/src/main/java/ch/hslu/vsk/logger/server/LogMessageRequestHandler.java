@@ -1,8 +1,11 @@
 package ch.hslu.vsk.logger.server;
 
-import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
-import ch.hslu.vsk.logger.server.adapter.LogAdapter;
-import com.esotericsoftware.kryo.Kryo;
+import ch.hslu.vsk.logger.server.admission.AdmissionControl;
+import ch.hslu.vsk.logger.server.admission.Source;
+import ch.hslu.vsk.logger.server.admission.SourceCache;
+import ch.hslu.vsk.logger.server.cluster.Cluster;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.LogEventDecoder;
 import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Input;
 import org.slf4j.Logger;
@@ -10,70 +13,118 @@ import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.net.Socket;
 import java.net.SocketException;
-import java.time.Instant;
-import java.util.List;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 
 /**
- * Dedicated runnable for consuming all log messages sent by one client (one socket connection) and persisting them.
+ * Dedicated runnable for consuming all log messages sent by one client (one socket connection) and publishing them
+ * to the dispatcher. Handles TCP as well as Unix domain socket connections alike.
+ * <br />
+ * Messages of sources exceeding their quota are shed right after decoding, their credits are returned immediately.
+ * Messages of sources owned by another member of the {@link Cluster} are forwarded to it instead, which applies
+ * the quota of the source.
  */
 public final class LogMessageRequestHandler implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(LogMessageRequestHandler.class);
-    private final Socket client;
-    private final List<LogAdapter> logAdapters;
-    private final Kryo kryo;
+    private final SocketChannel client;
+    private final LogMessageDispatcher dispatcher;
+    private final LogEventDecoder decoder;
+    private final AdmissionControl admissionControl;
+    private final Cluster cluster;
+    private final CreditWindow creditWindow;
 
     /**
      * Constructs a new {@link LogMessageRequestHandler} instance, while injecting its dependencies.
      *
      * @param client      Established socket connection to the client
-     * @param logAdapters Adapter for persisting received log messages
-     * @param kryo        Configured Kryo serialization client
+     * @param dispatcher  Dispatcher handing received log messages to the adapters
+     * @param decoder     Decoder for the log messages of this connection
+     * @param admissionControl Admission control the connection has been registered with
+     * @param cluster     Cluster forwarding the messages of sources owned by other members
+     * @param creditWindowSize Number of messages the client may have in flight, {@code 0} disables flow control
      * @throws IllegalArgumentException if one of the arguments is {@code null}
      */
-    public LogMessageRequestHandler(final Socket client, final List<LogAdapter> logAdapters, final Kryo kryo) {
+    public LogMessageRequestHandler(final SocketChannel client, final LogMessageDispatcher dispatcher,
+                                    final LogEventDecoder decoder, final AdmissionControl admissionControl,
+                                    final Cluster cluster, final int creditWindowSize) {
         if (client == null) {
             throw new IllegalArgumentException("Provided client cannot be null");
         }
-        if (logAdapters == null) {
-            throw new IllegalArgumentException("Provided logAdapters cannot be null");
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("Provided dispatcher cannot be null");
         }
-        if (kryo == null) {
-            throw new IllegalArgumentException("Provided kryo cannot be null");
+        if (decoder == null) {
+            throw new IllegalArgumentException("Provided decoder cannot be null");
+        }
+        if (admissionControl == null) {
+            throw new IllegalArgumentException("Provided admissionControl cannot be null");
+        }
+        if (cluster == null) {
+            throw new IllegalArgumentException("Provided cluster cannot be null");
         }
 
         this.client = client;
-        this.logAdapters = logAdapters;
-        this.kryo = kryo;
+        this.dispatcher = dispatcher;
+        this.decoder = decoder;
+        this.admissionControl = admissionControl;
+        this.cluster = cluster;
+        this.creditWindow = new CreditWindow(client, creditWindowSize);
     }
 
     /**
-     * Receives and persists all log messages sent over the socket connection indefinitely until connection is closed.
+     * Receives and dispatches all log messages sent over the socket connection indefinitely until connection is closed.
      * Connection may be closed due to client cancellation, network issues etc.
+     * Meanwhile, grants the client credits for further messages as the received ones are drained.
      */
     @SuppressWarnings("InfiniteLoopStatement")
     @Override
     public void run() {
         LOG.info("Connected to: {}", client);
-        try (Input input = new Input(client.getInputStream())) {
+        Thread.ofVirtual().name("credit-writer").start(creditWindow);
+        // credits are returned once the dispatcher stage has handed the message to all adapters
+        Runnable releaseCredit = creditWindow::release;
+        // the dispatcher copies the decoded message, so the event is reused for every message of the connection
+        LogEvent received = new LogEvent();
+        SourceCache sources = admissionControl.newSourceCache();
+        try (Input input = new Input(Channels.newInputStream(client))) {
+            long consumed = 0;
             while (true) {
-                LogMessageDo messageDo = kryo.readObject(input, LogMessageDo.class);
-                Instant receivedLogAt = Instant.now();
-                messageDo = registerProcessedAt(messageDo, receivedLogAt);
-
-                for (LogAdapter logAdapter : logAdapters) {
-                    logAdapter.saveLogMessage(messageDo);
+                decoder.decode(input, received);
+                long total = input.total();
+                // the credit is consumed either way, as the client has sent the message
+                creditWindow.acquire();
+                if (!cluster.forward(received, releaseCredit)) {
+                    Source source = sources.resolve(received.getSource());
+                    if (source.tryAdmit((int) (total - consumed))) {
+                        dispatcher.dispatch(received, source, releaseCredit);
+                    } else {
+                        creditWindow.release();
+                    }
                 }
+                consumed = total;
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            LOG.info("Interrupted while waiting for credits, closing connection");
+        } catch (KryoException kryoException) {
+            // Kryo wraps failures of the underlying stream, the end of the stream surfaces as buffer underflow
+            Throwable cause = kryoException.getCause();
+            if (cause == null || cause instanceof EOFException) {
+                LOG.error("Client closed the connection");
+            } else if (cause instanceof AsynchronousCloseException) {
+                LOG.info("Connection closed by the server");
+            } else if (cause instanceof SocketException) {
+                LOG.error("SocketException: Possible client forceful termination or network issue", cause);
+            } else {
+                LOG.error("Something went wrong during receiving the log message or deserializing it",
+                        kryoException);
             }
-        } catch (EOFException e) {
-            LOG.error("Client closed the connection");
-        } catch (SocketException e) {
-            LOG.error("SocketException: Possible client forceful termination or network issue", e);
-        } catch (KryoException | IOException ioException) {
-            LOG.error("Something went wrong during receiving the log message or deserializing it", ioException);
         } finally {
-            if (!client.isClosed()) {
+            admissionControl.closeConnection();
+            creditWindow.close();
+            if (client.isOpen()) {
                 // Try to close socket gracefully
                 try {
                     client.close();
@@ -85,13 +136,19 @@ public final class LogMessageRequestHandler implements Runnable {
         }
     }
 
-    private LogMessageDo registerProcessedAt(final LogMessageDo message, final Instant timestamp) {
-        // Return new DO instance hence its instances are immutable
-        return new LogMessageDo.Builder(message.getMessage())
-                .from(message.getSource())
-                .level(message.getLevel())
-                .at(message.getCreatedAt())
-                .processed(timestamp)
-                .build();
+    /**
+     * Pauses the client by revoking its credits, while the messages it has already sent are still received.
+     */
+    public void pause() {
+        creditWindow.pause();
+    }
+
+    /**
+     * Closes the connection, which ends {@link #run()} once it has dispatched the message currently being read.
+     *
+     * @throws IOException if closing the connection failed
+     */
+    public void close() throws IOException {
+        client.close();
     }
 }
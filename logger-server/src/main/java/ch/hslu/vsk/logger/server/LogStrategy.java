@@ -1,6 +1,10 @@
 package ch.hslu.vsk.logger.server;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.logstrategies.Utf8;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.nio.ByteBuffer;
 
 /**
  * Defines a strategy for formatting log messages.
@@ -13,4 +17,33 @@ public interface LogStrategy {
      * @return a formatted string representation of the log message
      */
     String format(LogMessageDo message);
+
+    /**
+     * Appends the formatted log message of the given event to the given builder.
+     * <br />
+     * Defaults to {@link #format(LogMessageDo)} with an immutable copy of the event, strategies on the hot path
+     * override it in order to format the event without allocating.
+     *
+     * @param event  Event holding the log message to format, must not be referenced once the call returns
+     * @param target Builder to append the formatted log message to
+     */
+    default void formatTo(final LogEvent event, final StringBuilder target) {
+        target.append(format(event.toMessageDo()));
+    }
+
+    /**
+     * Appends the formatted log message of the given event encoded as UTF-8 to the given buffer.
+     * <br />
+     * Defaults to {@link #formatTo(LogEvent, StringBuilder)} into a new builder, strategies on the hot path override
+     * it in order to encode the event without allocating.
+     *
+     * @param event  Event holding the log message to format, must not be referenced once the call returns
+     * @param target Buffer to append the encoded log message to at its position
+     * @return {@code false} if the remaining space of the buffer does not suffice, leaving its position unchanged
+     */
+    default boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        StringBuilder text = new StringBuilder();
+        formatTo(event, text);
+        return Utf8.encode(text, target);
+    }
 }
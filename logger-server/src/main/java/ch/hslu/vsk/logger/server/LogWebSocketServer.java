@@ -1,12 +1,14 @@
 package ch.hslu.vsk.logger.server;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.framing.TextFrame;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -116,6 +118,25 @@ public class LogWebSocketServer extends WebSocketServer {
         }
     }
 
+    /**
+     * Broadcasts a log message already encoded as UTF-8 to all connected clients as text message, sparing the
+     * encoding of the message per client.
+     *
+     * @param logMessage the log message to broadcast, encoded as UTF-8 between its position and limit.
+     */
+    public void broadcastText(final ByteBuffer logMessage) {
+        synchronized (clients) {
+            for (WebSocket client : clients) {
+                if (client.isOpen()) {
+                    // the frame is copied into the send queue of the client, consuming the payload
+                    TextFrame frame = new TextFrame();
+                    frame.setPayload(logMessage.duplicate());
+                    client.sendFrame(frame);
+                }
+            }
+        }
+    }
+
     /**
      * Starts the WebSocket server.
      * Ensures that the server is started only once.
@@ -1,10 +1,30 @@
 package ch.hslu.vsk.logger.server;
 
 import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.sharedmemory.SharedMemoryRingBuffer;
 import ch.hslu.vsk.logger.server.adapter.FileStringPersistorLogAdapter;
 import ch.hslu.vsk.logger.server.adapter.LogAdapter;
 import ch.hslu.vsk.logger.server.adapter.LoggerViewerLogAdapter;
+import ch.hslu.vsk.logger.server.admission.AdmissionControl;
+import ch.hslu.vsk.logger.server.admission.Source;
+import ch.hslu.vsk.logger.server.cluster.Cluster;
+import ch.hslu.vsk.logger.server.cluster.ClusterMember;
 import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.JsonLinesLogStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.PatternLayoutStrategy;
+import ch.hslu.vsk.logger.server.metrics.MetricsHttpServer;
+import ch.hslu.vsk.logger.server.metrics.ServerMetrics;
+import ch.hslu.vsk.logger.server.pipeline.AdapterStage;
+import ch.hslu.vsk.logger.server.pipeline.LogEventDecoder;
+import ch.hslu.vsk.logger.server.rollup.RollupLogAdapter;
+import ch.hslu.vsk.logger.server.search.InvertedIndexLogAdapter;
+import ch.hslu.vsk.logger.server.sketch.HeavyHitterLogAdapter;
+import ch.hslu.vsk.logger.server.store.FileChannelLogAdapter;
+import ch.hslu.vsk.logger.server.store.LogFileQuery;
+import ch.hslu.vsk.logger.server.store.LogFileWriter;
+import ch.hslu.vsk.logger.server.store.MappedSegmentLogAdapter;
+import ch.hslu.vsk.logger.server.templates.TemplateMinerLogAdapter;
+import ch.hslu.vsk.logger.server.routing.Router;
 import ch.hslu.vsk.stringpersistor.FileStringPersistor;
 import ch.hslu.vsk.stringpersistor.api.StringPersistor;
 import com.esotericsoftware.kryo.Kryo;
@@ -14,27 +34,72 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The {@code LoggerServer} class encapsulates a simple TCP server that listens for log messages
  * on a specified port. When a log message is received, it prints the message to the console.
- * This server demonstrates a basic usage of Java's {@code ServerSocket} for accepting connections
+ * This server demonstrates a basic usage of Java's {@code ServerSocketChannel} for accepting connections
  * and reading objects sent to it over an Object stream.
+ * <br />
+ * If configured, the server additionally binds a Unix domain socket alongside TCP, which clients on the same host
+ * can target with a {@code unix:} URI in order to bypass the loopback TCP stack. For the highest volumes, clients on
+ * the same host may write into a shared memory ring buffer (a {@code shm:} URI) polled by a dedicated reader thread.
+ * <br />
+ * Connections are accepted by {@code ACCEPTOR_THREADS} threads. Where the platform supports {@code SO_REUSEPORT},
+ * every acceptor gets a listener of its own bound to the same port, among which the kernel spreads the incoming
+ * connections, so reconnect storms of thousands of clients are not serialized on a single accept queue.
+ * <br />
+ * The readers of all transports only decode the received messages and publish them to the {@link LogMessageDispatcher},
+ * whose dedicated stage hands them in batches to the adapters, each running on its own thread.
+ * <br />
+ * The {@link AdmissionControl} caps the number of connections and sheds the messages of sources exceeding their
+ * quotas, while the dispatcher serves the admitted sources weighted fair.
+ * <br />
+ * If configured as member of a {@link Cluster}, the server only persists the messages of the sources it owns and
+ * forwards all others to their owners, so clients may connect to any member.
+ * <br />
+ * If configured, the {@link ServerMetrics} are served in the Prometheus text format on a local HTTP port and
+ * registered over JMX.
  */
 public final class LoggerServer {
     private static final Logger LOG = LoggerFactory.getLogger(LoggerServer.class);
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(200);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
     private final ConfigReader config;
-    private final List<LogAdapter> logAdapters;
+    private final LogMessageDispatcher dispatcher;
+    private final AdmissionControl admissionControl;
+    private final Cluster cluster;
     private final LogWebSocketServer logWebSocketServer;
-    private ServerSocket listener;
+    private final MetricsHttpServer metricsHttpServer;
+    private final List<ServerSocketChannel> listeners = new CopyOnWriteArrayList<>();
+    private ServerSocketChannel unixListener;
+    private Path unixSocketPath;
+    private SharedMemoryRingBuffer sharedMemoryRingBuffer;
+    private SharedMemoryLogReader sharedMemoryLogReader;
+    private Thread sharedMemoryReaderThread;
+    private final Set<LogMessageRequestHandler> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean stopped = new AtomicBoolean();
     private ExecutorService virtualThreadExecutor;
     private final Pool<Kryo> kryoPool;
 
@@ -65,9 +130,95 @@ public final class LoggerServer {
         }
 
         this.config = config;
-        this.logAdapters = logAdapters;
+        List<AdapterStage> adapterStages = new ArrayList<>();
+        List<String> adapterNames = new ArrayList<>();
+        for (LogAdapter logAdapter : logAdapters) {
+            adapterStages.add(new AdapterStage(logAdapter, config.getAdapterOverflowPolicy(logAdapter.getName()),
+                    config.getAdapterQueueSize(), config.getDispatcherBatchSize()));
+            adapterNames.add(logAdapter.getName());
+        }
+        this.dispatcher = new LogMessageDispatcher(adapterStages, config.getSourceLanes(),
+                config.getDispatcherQueueSize(), config.getDispatcherBatchSize(),
+                Router.compile(config.getRoutingRules(), adapterNames));
+        this.admissionControl = new AdmissionControl(config.getMaxConnections(), config.getSourceMessageQuota(),
+                config.getSourceByteQuota(), config.getSourceWeights(), config.getSourceLanes(),
+                config.getMaxSources());
         this.logWebSocketServer = logWebSocketServer;
         this.kryoPool = kryoPool;
+        this.cluster = createCluster(config);
+        this.metricsHttpServer = new MetricsHttpServer(new ServerMetrics(dispatcher, admissionControl, kryoPool,
+                cluster));
+        for (LogAdapter logAdapter : logAdapters) {
+            if (logAdapter instanceof RollupLogAdapter rollupLogAdapter) {
+                metricsHttpServer.serveRollups(rollupLogAdapter);
+            }
+            if (logAdapter instanceof TemplateMinerLogAdapter templateMinerLogAdapter) {
+                metricsHttpServer.serveTemplates(templateMinerLogAdapter);
+            }
+            if (logAdapter instanceof HeavyHitterLogAdapter heavyHitterLogAdapter) {
+                metricsHttpServer.serveHeavyHitters(heavyHitterLogAdapter);
+            }
+            if (logAdapter instanceof InvertedIndexLogAdapter invertedIndexLogAdapter) {
+                metricsHttpServer.serveSearch(invertedIndexLogAdapter);
+            }
+        }
+        if (config.getLogFileWriter() != LogFileWriter.PERSISTOR && config.getLogFileIndexInterval() > 0) {
+            // without an index every query would read the whole log file
+            metricsHttpServer.serveLogs(new LogFileQuery(Path.of(config.getLogFilePath())));
+        }
+    }
+
+    private static LogStrategy createLogStrategy(final ConfigReader config) {
+        JsonLinesLogStrategy.TimestampFormat jsonTimestampFormat = config.getLogJsonTimestampFormat();
+        if (jsonTimestampFormat != null) {
+            return new JsonLinesLogStrategy(jsonTimestampFormat);
+        }
+        String pattern = config.getLogPattern();
+        if (pattern == null || pattern.isBlank()) {
+            return new CompetitionStrategy();
+        }
+        return new PatternLayoutStrategy(pattern);
+    }
+
+    private static LogAdapter createFileLogAdapter(final ConfigReader config, final LogStrategy logStrategy) {
+        Path logFile = Path.of(config.getLogFilePath());
+        LogFileWriter writer = config.getLogFileWriter();
+        if (writer == LogFileWriter.CHANNEL) {
+            return new FileChannelLogAdapter(logFile, logStrategy, config.getLogFileBufferSize(),
+                    config.getLogFileFsyncPolicy(), config.getLogFileFsyncInterval(), config.getLogFileRotation(),
+                    config.getLogFileIndexInterval());
+        }
+        if (writer == LogFileWriter.MAPPED) {
+            return new MappedSegmentLogAdapter(logFile, logStrategy, config.getLogFileFsyncPolicy(),
+                    config.getLogFileFsyncInterval(), config.getLogFileRotation(), config.getLogFileIndexInterval());
+        }
+        StringPersistor stringPersistor = new FileStringPersistor();
+        stringPersistor.setFile(logFile);
+        return new FileStringPersistorLogAdapter(stringPersistor, logStrategy, logFile);
+    }
+
+    /**
+     * Creates the pool of the {@link Kryo} instances decoding the received and serializing the forwarded messages.
+     * Acceptor and connection threads obtain and free instances concurrently, so the pool is thread safe.
+     *
+     * @return pool creating configured instances on demand
+     */
+    public static Pool<Kryo> createKryoPool() {
+        return new Pool<>(true, true) {
+            @Override
+            protected Kryo create() {
+                return KryoFactory.createConfiguredKryoInstance();
+            }
+        };
+    }
+
+    private static Cluster createCluster(final ConfigReader config) {
+        List<ClusterMember> members = config.getClusterMembers();
+        if (members.isEmpty()) {
+            return Cluster.standalone();
+        }
+        return new Cluster(config.getClusterSelf(), members, config.getClusterVirtualNodes(),
+                config.getClusterForwardQueueSize(), config.getDispatcherBatchSize());
     }
 
     /**
@@ -81,20 +232,28 @@ public final class LoggerServer {
     public void listen() {
         try {
             logWebSocketServer.startServer();
-            listener = new ServerSocket(config.getSocketPort(), 0,
-                    InetAddress.getByName(config.getSocketAddress()));
+            dispatcher.start();
+            cluster.start();
+            exposeMetrics();
+            bindListeners();
             virtualThreadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            listenOnUnixSocket();
+            readFromSharedMemory();
 
             LOG.info("Server started, listening on {}:{} for connections...",
                     config.getSocketAddress(),
                     config.getSocketPort());
 
+            // the calling thread is the first acceptor
+            int acceptors = Math.max(1, config.getAcceptorThreads());
+            for (int i = 1; i < acceptors; i++) {
+                acceptOnThread("acceptor-" + i, listeners.get(i % listeners.size()));
+            }
             while (true) {
-                Socket client = listener.accept();
-                Kryo kryo = kryoPool.obtain();
-                Runnable logConsumer = new LogMessageRequestHandler(client, logAdapters, kryo);
-                virtualThreadExecutor.execute(logConsumer);
+                acceptConnection(listeners.getFirst());
             }
+        } catch (AsynchronousCloseException closed) {
+            LOG.info("Stopped accepting connections on {}:{}", config.getSocketAddress(), config.getSocketPort());
         } catch (UnknownHostException unknownHostException) {
             LOG.error(String.format("Failed to resolve host during startup, for hostname: %s",
                             config.getSocketAddress()),
@@ -111,23 +270,287 @@ public final class LoggerServer {
     }
 
     /**
-     * Stops the server and releases resources.
+     * Binds the TCP listeners, one per acceptor thread sharing the port by {@code SO_REUSEPORT} if supported,
+     * otherwise a single one all acceptors accept from.
+     *
+     * @throws IOException if the port could not be bound
+     */
+    private void bindListeners() throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getByName(config.getSocketAddress()),
+                config.getSocketPort());
+        int acceptors = Math.max(1, config.getAcceptorThreads());
+        ServerSocketChannel first = ServerSocketChannel.open();
+        boolean reusePort = acceptors > 1
+                && first.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        if (reusePort) {
+            first.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        }
+        first.bind(address, config.getAcceptBacklog());
+        listeners.add(first);
+        if (!reusePort) {
+            return;
+        }
+
+        // the further listeners join the port actually bound, as the configured one may be ephemeral
+        InetSocketAddress bound = (InetSocketAddress) first.getLocalAddress();
+        for (int i = 1; i < acceptors; i++) {
+            ServerSocketChannel listener = ServerSocketChannel.open();
+            listener.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            listener.bind(bound, config.getAcceptBacklog());
+            listeners.add(listener);
+        }
+        LOG.info("Sharing port {} among {} listeners by SO_REUSEPORT", bound.getPort(), acceptors);
+    }
+
+    /**
+     * Accepts the connections of the given listener on a dedicated thread until the listener is closed.
+     *
+     * @param name     Name of the thread
+     * @param listener Listener to accept the connections from
+     */
+    private void acceptOnThread(final String name, final ServerSocketChannel listener) {
+        Thread.ofPlatform().name(name).daemon().start(() -> {
+            try {
+                while (true) {
+                    acceptConnection(listener);
+                }
+            } catch (AsynchronousCloseException closed) {
+                LOG.debug("Stopped accepting connections on {}", name);
+            } catch (IOException ioException) {
+                LOG.error(String.format("Failed to accept connection on %s", name), ioException);
+            }
+        });
+    }
+
+    /**
+     * Serves the metrics over HTTP and registers them over JMX, as far as configured.
+     *
+     * @throws IOException if the metrics port could not be bound
+     */
+    private void exposeMetrics() throws IOException {
+        if (config.isJmxEnabled()) {
+            metricsHttpServer.registerMBean();
+        }
+        if (config.getMetricsPort() > 0) {
+            metricsHttpServer.start(new InetSocketAddress(InetAddress.getByName(config.getMetricsAddress()),
+                    config.getMetricsPort()));
+        }
+    }
+
+    /**
+     * Binds the Unix domain socket, if configured, and accepts its connections on a dedicated thread.
+     *
+     * @throws IOException if the socket could not be bound
+     */
+    private void listenOnUnixSocket() throws IOException {
+        String configuredPath = config.getUnixSocketPath();
+        if (configuredPath == null || configuredPath.isBlank()) {
+            return;
+        }
+
+        unixSocketPath = Path.of(configuredPath);
+        Files.deleteIfExists(unixSocketPath); // stale socket file of a previous run would fail the bind
+        unixListener = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        unixListener.bind(UnixDomainSocketAddress.of(unixSocketPath));
+
+        acceptOnThread("unix-socket-acceptor", unixListener);
+        LOG.info("Listening on unix socket {} for connections...", unixSocketPath);
+    }
+
+    /**
+     * Creates the shared memory ring buffer, if configured, and polls it on a dedicated platform thread.
+     *
+     * @throws IOException if the ring buffer file could not be created
+     */
+    private void readFromSharedMemory() throws IOException {
+        String configuredPath = config.getSharedMemoryFilePath();
+        if (configuredPath == null || configuredPath.isBlank()) {
+            return;
+        }
+
+        sharedMemoryRingBuffer = SharedMemoryRingBuffer.create(Path.of(configuredPath),
+                config.getSharedMemorySlotCount(), config.getSharedMemorySlotSize());
+        sharedMemoryLogReader = new SharedMemoryLogReader(sharedMemoryRingBuffer, dispatcher, createDecoder(),
+                admissionControl, cluster);
+        sharedMemoryReaderThread = Thread.ofPlatform().name("shared-memory-reader").daemon()
+                .start(sharedMemoryLogReader);
+        LOG.info("Reading from shared memory ring buffer {} with {} slots...",
+                configuredPath, sharedMemoryRingBuffer.getSlotCount());
+    }
+
+    /**
+     * Blocks until a client connects on the given listener and delegates the handling of its log messages, unless
+     * the connection limit is reached, in which case the connection is closed right away.
+     * <br />
+     * The decoder is set up on the thread of the connection, so the acceptor returns to accepting right away.
+     *
+     * @param serverChannel listener to accept the connection from
+     * @throws IOException if accepting the connection failed
+     */
+    private void acceptConnection(final ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel client = serverChannel.accept();
+        if (!admissionControl.tryOpenConnection()) {
+            LOG.warn("Rejecting connection of {}, limit of {} connections reached", client,
+                    config.getMaxConnections());
+            client.close();
+            return;
+        }
+        virtualThreadExecutor.execute(() -> {
+            LogEventDecoder decoder = createDecoder();
+            LogMessageRequestHandler logConsumer = new LogMessageRequestHandler(client, dispatcher, decoder,
+                    admissionControl, cluster, config.getCreditWindow());
+            connections.add(logConsumer);
+            try {
+                if (stopped.get()) {
+                    // accepted just before the listener was closed, missed by the shutdown
+                    logConsumer.close();
+                }
+                logConsumer.run();
+            } catch (IOException e) {
+                LOG.warn("Failed to close connection", e);
+            } finally {
+                connections.remove(logConsumer);
+                kryoPool.free(decoder.getKryo());
+            }
+        });
+    }
+
+    private void logAdmissionSummary() {
+        LOG.info("Rejected {} connections", admissionControl.getRejectedConnections());
+        for (Source source : admissionControl.getSources()) {
+            if (source.getThrottledMessages() > 0) {
+                LOG.info("Throttled source {}", source);
+            }
+        }
+    }
+
+    private LogEventDecoder createDecoder() {
+        return new LogEventDecoder(kryoPool.obtain(), config.isAllocationFreeDecoding());
+    }
+
+    /**
+     * Stops the server gracefully within the configured shutdown timeout:
+     * <ol>
+     *     <li>stops accepting connections,</li>
+     *     <li>pauses the clients by revoking their credits, so they cache further messages instead of sending them,
+     *     and keeps receiving the messages already in flight until the clients have been quiet for a moment,</li>
+     *     <li>closes the connections and drains the shared memory ring buffer,</li>
+     *     <li>forwards the queued messages of sources owned by other members of the cluster,</li>
+     *     <li>drains the received messages through the adapters, which sync their stores to disk once done.</li>
+     * </ol>
+     * Finally, reports how many messages have been drained and how many were abandoned as the timeout expired.
      */
     public void stop() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + config.getShutdownTimeout().toNanos();
+        long publishedBefore = dispatcher.getPublished();
+        long inFlightBefore = dispatcher.getInFlight();
         try {
-            if (listener != null && !listener.isClosed()) {
-                listener.close();
+            stopAccepting();
+            pauseClients(deadline);
+            closeConnections(deadline);
+            if (!cluster.stop(remaining(deadline))) {
+                LOG.warn("Abandoned {} messages not yet forwarded to their owners", cluster.getInFlight());
             }
-            if (virtualThreadExecutor != null && !virtualThreadExecutor.isShutdown()) {
-                virtualThreadExecutor.shutdown();
+            boolean drained = dispatcher.stop(remaining(deadline));
+            long abandoned = dispatcher.getInFlight();
+            long drainedMessages = dispatcher.getPublished() - publishedBefore + inFlightBefore - abandoned;
+            if (drained) {
+                LOG.info("Drained {} messages on shutdown", drainedMessages);
+            } else {
+                LOG.warn("Drained {} messages on shutdown, abandoned {} as the timeout expired: {}",
+                        drainedMessages, abandoned, dispatcher.getMetrics());
             }
             logWebSocketServer.stopServer();
+            metricsHttpServer.stop();
+            logAdmissionSummary();
             LOG.info("Server stopped");
         } catch (IOException e) {
             LOG.error("Error stopping the server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while stopping the server", e);
+        }
+    }
+
+    private void stopAccepting() throws IOException {
+        for (ServerSocketChannel listener : listeners) {
+            listener.close();
+        }
+        if (unixListener != null && unixListener.isOpen()) {
+            unixListener.close();
+            Files.deleteIfExists(unixSocketPath);
+        }
+    }
+
+    /**
+     * Revokes the credits of all clients and waits until no further messages arrive, but at most until the deadline.
+     *
+     * @param deadline Deadline of the shutdown as {@link System#nanoTime()}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void pauseClients(final long deadline) throws InterruptedException {
+        for (LogMessageRequestHandler connection : connections) {
+            connection.pause();
+        }
+
+        long received = getReceivedMessages();
+        long quietSince = System.nanoTime();
+        while (!connections.isEmpty() && System.nanoTime() - quietSince < QUIET_PERIOD.toNanos()
+                && deadline - System.nanoTime() > 0) {
+            Thread.sleep(POLL_INTERVAL);
+            long current = getReceivedMessages();
+            if (current != received) {
+                received = current;
+                quietSince = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Closes all connections as well as the shared memory ring buffer once its published records are dispatched.
+     *
+     * @param deadline Deadline of the shutdown as {@link System#nanoTime()}
+     * @throws IOException          if unmapping the ring buffer failed
+     * @throws InterruptedException if interrupted while waiting for the readers
+     */
+    private void closeConnections(final long deadline) throws IOException, InterruptedException {
+        for (LogMessageRequestHandler connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close connection", e);
+            }
+        }
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+            if (!virtualThreadExecutor.awaitTermination(remaining(deadline).toNanos(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Connection readers did not terminate in time");
+            }
+        }
+        if (sharedMemoryLogReader != null) {
+            sharedMemoryLogReader.stop();
+            // the reader must not poll the ring buffer once it is unmapped
+            if (sharedMemoryReaderThread.join(remaining(deadline))) {
+                sharedMemoryRingBuffer.close();
+            } else {
+                LOG.warn("Shared memory reader did not terminate in time, leaving the ring buffer mapped");
+            }
         }
     }
 
+    private long getReceivedMessages() {
+        return admissionControl.getAdmittedMessages() + admissionControl.getThrottledMessages()
+                + cluster.getForwarded();
+    }
+
+    private static Duration remaining(final long deadline) {
+        return Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+    }
+
     /**
      * The entry point for the server application.
      * Creates an instance of {@code LoggerServer} and starts it.
@@ -136,20 +559,36 @@ public final class LoggerServer {
      */
     public static void main(final String[] args) {
         ConfigReader configReader = new ConfigReader();
-        LogStrategy logStrategy = new CompetitionStrategy();
-        StringPersistor stringPersistor = new FileStringPersistor();
-        stringPersistor.setFile(Path.of(configReader.getLogFilePath()));
+        LogStrategy logStrategy = createLogStrategy(configReader);
+        LogAdapter fileLogAdapter = createFileLogAdapter(configReader, logStrategy);
         LogWebSocketServer logWebSocketServer = new LogWebSocketServer(configReader.getLoggerViewerSocketPort());
-        FileStringPersistorLogAdapter fileStringPersistorLogAdapter = new FileStringPersistorLogAdapter(stringPersistor, logStrategy);
         LoggerViewerLogAdapter loggerViewerLogAdapter = new LoggerViewerLogAdapter(logStrategy, logWebSocketServer);
-        List<LogAdapter> adapters = Arrays.asList(fileStringPersistorLogAdapter, loggerViewerLogAdapter);
-        Pool<Kryo> kryoPool = new Pool<>(false, true) {
-            @Override
-            protected Kryo create() {
-                return KryoFactory.createConfiguredKryoInstance();
-            }
-        };
-        LoggerServer server = new LoggerServer(configReader, adapters, logWebSocketServer, kryoPool);
+        List<LogAdapter> adapters = new ArrayList<>(Arrays.asList(fileLogAdapter, loggerViewerLogAdapter));
+        String rollupDirectory = configReader.getRollupDirectory();
+        if (rollupDirectory != null && !rollupDirectory.isBlank()) {
+            adapters.add(new RollupLogAdapter(Path.of(rollupDirectory), configReader.getRollupSecondRetention(),
+                    configReader.getRollupMinuteRetention()));
+        }
+        int heavyHitterCapacity = configReader.getHeavyHitterCapacity();
+        if (configReader.getTemplateMaxCount() > 0 && heavyHitterCapacity > 0) {
+            adapters.add(new TemplateMinerLogAdapter(configReader.getTemplateTreeDepth(),
+                    configReader.getTemplateSimilarity(), configReader.getTemplateMaxCount(),
+                    configReader.getHeavyHitterWindow(), configReader.getHeavyHitterSketchWidth(),
+                    heavyHitterCapacity));
+        } else if (configReader.getTemplateMaxCount() > 0) {
+            adapters.add(new TemplateMinerLogAdapter(configReader.getTemplateTreeDepth(),
+                    configReader.getTemplateSimilarity(), configReader.getTemplateMaxCount()));
+        }
+        if (heavyHitterCapacity > 0) {
+            adapters.add(new HeavyHitterLogAdapter(configReader.getHeavyHitterWindow(),
+                    configReader.getHeavyHitterSketchWidth(), heavyHitterCapacity));
+        }
+        String searchIndexDirectory = configReader.getSearchIndexDirectory();
+        if (searchIndexDirectory != null && !searchIndexDirectory.isBlank()) {
+            adapters.add(new InvertedIndexLogAdapter(Path.of(searchIndexDirectory), logStrategy,
+                    configReader.getSearchIndexSegmentDocuments()));
+        }
+        LoggerServer server = new LoggerServer(configReader, adapters, logWebSocketServer, createKryoPool());
 
         Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
 
@@ -0,0 +1,114 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.common.sharedmemory.SharedMemoryRingBuffer;
+import ch.hslu.vsk.logger.server.admission.AdmissionControl;
+import ch.hslu.vsk.logger.server.admission.Source;
+import ch.hslu.vsk.logger.server.admission.SourceCache;
+import ch.hslu.vsk.logger.server.cluster.Cluster;
+import ch.hslu.vsk.logger.server.pipeline.BackoffIdleStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.LogEventDecoder;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dedicated runnable polling the {@link SharedMemoryRingBuffer} written by clients on the same host and handing the
+ * contained log messages to the dispatcher.
+ * <br />
+ * While records arrive the reader busy spins in order to pick them up within nanoseconds. Once the ring buffer stays
+ * empty it backs off as defined by the {@link BackoffIdleStrategy}, so an idle server does not burn a core.
+ */
+public final class SharedMemoryLogReader implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(SharedMemoryLogReader.class);
+    private final SharedMemoryRingBuffer ringBuffer;
+    private final LogMessageDispatcher dispatcher;
+    private final LogEventDecoder decoder;
+    private final AdmissionControl admissionControl;
+    private final Cluster cluster;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new {@link SharedMemoryLogReader} instance, while injecting its dependencies.
+     *
+     * @param ringBuffer Ring buffer created by the server
+     * @param dispatcher Dispatcher handing received log messages to the adapters
+     * @param decoder    Decoder for the log messages of the ring buffer
+     * @param admissionControl Admission control applying the quotas of the sources
+     * @param cluster    Cluster forwarding the messages of sources owned by other members
+     * @throws IllegalArgumentException if one of the arguments is {@code null}
+     */
+    public SharedMemoryLogReader(final SharedMemoryRingBuffer ringBuffer, final LogMessageDispatcher dispatcher,
+                                 final LogEventDecoder decoder, final AdmissionControl admissionControl,
+                                 final Cluster cluster) {
+        if (ringBuffer == null) {
+            throw new IllegalArgumentException("Provided ringBuffer cannot be null");
+        }
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("Provided dispatcher cannot be null");
+        }
+        if (decoder == null) {
+            throw new IllegalArgumentException("Provided decoder cannot be null");
+        }
+        if (admissionControl == null) {
+            throw new IllegalArgumentException("Provided admissionControl cannot be null");
+        }
+        if (cluster == null) {
+            throw new IllegalArgumentException("Provided cluster cannot be null");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.dispatcher = dispatcher;
+        this.decoder = decoder;
+        this.admissionControl = admissionControl;
+        this.cluster = cluster;
+    }
+
+    /**
+     * Polls and dispatches all published log messages until {@link #stop()} is called and the ring buffer is
+     * drained.
+     */
+    @Override
+    public void run() {
+        byte[] record = new byte[ringBuffer.getMaxRecordLength()];
+        Input input = new Input(record);
+        LogEvent received = new LogEvent();
+        SourceCache sources = admissionControl.newSourceCache();
+        int idleIterations = 0;
+
+        while (true) {
+            int length = ringBuffer.poll(record);
+            if (length < 0) {
+                if (!running) {
+                    break;
+                }
+                idleIterations = BackoffIdleStrategy.idle(idleIterations);
+                continue;
+            }
+
+            idleIterations = 0;
+            try {
+                input.setBuffer(record, 0, length);
+                decoder.decode(input, received);
+                if (cluster.forward(received, null)) {
+                    continue;
+                }
+                Source source = sources.resolve(received.getSource());
+                if (source.tryAdmit(length)) {
+                    dispatcher.dispatch(received, source, null);
+                }
+            } catch (KryoException kryoException) {
+                LOG.error("Failed to deserialize log message from shared memory, skipping record", kryoException);
+            }
+        }
+        LOG.info("Stopped reading from shared memory");
+    }
+
+    /**
+     * Signals the reader to stop once it has dispatched the records already published.
+     */
+    public void stop() {
+        running = false;
+    }
+}
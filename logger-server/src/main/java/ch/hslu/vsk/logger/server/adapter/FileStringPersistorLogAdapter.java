@@ -2,10 +2,17 @@ package ch.hslu.vsk.logger.server.adapter;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 import ch.hslu.vsk.stringpersistor.api.StringPersistor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 /**
  * The FileStringPersistorLogAdapter is responsible for saving log messages to a persistor using a strategy.
  */
@@ -15,6 +22,8 @@ public class FileStringPersistorLogAdapter implements LogAdapter {
 
     private final LogStrategy strategy;
 
+    private final Path file;
+
     /**
      * Constructs a new FileStringPersistorLogAdapter instance.
      *
@@ -22,8 +31,21 @@ public class FileStringPersistorLogAdapter implements LogAdapter {
      * @param strategy        The strategy to use for formatting log messages
      */
     public FileStringPersistorLogAdapter(final StringPersistor stringPersistor, final LogStrategy strategy) {
+        this(stringPersistor, strategy, null);
+    }
+
+    /**
+     * Constructs a new FileStringPersistorLogAdapter instance, which syncs the given file to disk when closed.
+     *
+     * @param stringPersistor The persistor to use for saving log messages
+     * @param strategy        The strategy to use for formatting log messages
+     * @param file            The file the persistor writes to, {@code null} to skip syncing it
+     */
+    public FileStringPersistorLogAdapter(final StringPersistor stringPersistor, final LogStrategy strategy,
+                                         final Path file) {
         this.stringPersistor = stringPersistor;
         this.strategy = strategy;
+        this.file = file;
     }
 
     /**
@@ -40,4 +62,46 @@ public class FileStringPersistorLogAdapter implements LogAdapter {
             LOG.error("Error saving log message", e);
         }
     }
+
+    /**
+     * Saves the log message of the given event to the configured persistor, formatted once per strategy.
+     *
+     * @param event Event holding the log message to save
+     */
+    @Override
+    public void saveLogEvent(final LogEvent event) {
+        try {
+            this.stringPersistor.save(LogEvent.toInstant(event.getProcessedAt()), event.getFormattedString(strategy));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(event.toMessageDo().toString()); // be decoupled from used strategy for integration tests
+            }
+        } catch (Exception e) {
+            LOG.error("Error saving log message", e);
+        }
+    }
+
+    /**
+     * Syncs the file written by the persistor to disk, so the persisted messages survive a crash of the host.
+     */
+    @Override
+    public void close() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOG.error("Failed to sync log file to disk: {}", file, e);
+        }
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "file"}
+     */
+    @Override
+    public String getName() {
+        return "file";
+    }
 }
@@ -1,6 +1,9 @@
 package ch.hslu.vsk.logger.server.adapter;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.util.Locale;
 
 /**
  * Interface for any adapter which pushes a log message to another component and or system.
@@ -12,4 +15,40 @@ public interface LogAdapter {
      * @param messageDo Log message which should be saved
      */
     void saveLogMessage(final LogMessageDo messageDo);
+
+    /**
+     * Saves the given event to the adapted component. The event is recycled once the call returns, thus must not be
+     * referenced afterwards.
+     * <br />
+     * Defaults to {@link #saveLogMessage(LogMessageDo)} with an immutable copy of the event, adapters on the hot path
+     * override it in order to work on the event without allocating.
+     *
+     * @param event Event holding the log message which should be saved
+     */
+    default void saveLogEvent(final LogEvent event) {
+        saveLogMessage(event.toMessageDo());
+    }
+
+    /**
+     * Called on the thread of the adapter after the last message of a batch, i.e. whenever its queue is drained for
+     * the moment. Adapters buffering messages write them out at once here, as a single write for all connections.
+     */
+    default void endOfBatch() {
+    }
+
+    /**
+     * Flushes everything the adapter has buffered to durable storage and releases its resources. Called once on the
+     * thread of the adapter after its last message on shutdown.
+     */
+    default void close() {
+    }
+
+    /**
+     * Returns the name identifying the adapter in the configuration, thread names and metrics.
+     *
+     * @return short lower case name of the adapter
+     */
+    default String getName() {
+        return getClass().getSimpleName().toLowerCase(Locale.ROOT);
+    }
 }
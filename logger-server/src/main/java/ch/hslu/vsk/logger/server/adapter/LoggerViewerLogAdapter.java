@@ -3,6 +3,7 @@ package ch.hslu.vsk.logger.server.adapter;
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.LogStrategy;
 import ch.hslu.vsk.logger.server.LogWebSocketServer;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,4 +43,31 @@ public class LoggerViewerLogAdapter implements LogAdapter {
             LOG.error("Failed to propagate log to log ws server", e);
         }
     }
+
+    /**
+     * Propagates the log message of the given event to the viewers as UTF-8 text, encoded once for all viewers.
+     *
+     * @param event Event holding the log message to propagate
+     */
+    @Override
+    public void saveLogEvent(final LogEvent event) {
+        try {
+            logWebSocketServer.broadcastText(event.getFormattedUtf8(strategy));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(event.toMessageDo().toString()); // be decoupled from used strategy for integration tests
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to propagate log to log ws server", e);
+        }
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "viewer"}
+     */
+    @Override
+    public String getName() {
+        return "viewer";
+    }
 }
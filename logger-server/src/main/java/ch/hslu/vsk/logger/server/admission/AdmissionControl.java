@@ -0,0 +1,192 @@
+package ch.hslu.vsk.logger.server.admission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which connections and messages the server accepts, so a single misbehaving client gets shed instead of
+ * starving every other one.
+ * <br />
+ * The number of concurrent connections is capped, and every source is limited to a message and a byte quota per
+ * second. Sources get a dispatcher lane of their own, weighted by their configured share, until the lanes are used
+ * up; the sources registered afterwards share the first lane. In order to bound the memory spent on tracking, sources
+ * exceeding {@code maxSources} are accounted to a single shared overflow source.
+ */
+public final class AdmissionControl {
+    /**
+     * Name of the source all sources exceeding the tracked maximum are accounted to.
+     */
+    public static final String OVERFLOW_SOURCE = "*";
+    private static final int SHARED_LANE = 0;
+    private final int maxConnections;
+    private final long messagesPerSecond;
+    private final long bytesPerSecond;
+    private final Map<String, Integer> weights;
+    private final int laneCount;
+    private final int maxSources;
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+    private final Source overflowSource;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger nextLane = new AtomicInteger(SHARED_LANE + 1);
+    private final LongAdder rejectedConnections = new LongAdder();
+
+    /**
+     * Constructs a new {@link AdmissionControl} instance.
+     *
+     * @param maxConnections    Maximum number of concurrent connections, {@code 0} for no limit
+     * @param messagesPerSecond Message quota per source, {@code 0} for no limit
+     * @param bytesPerSecond    Byte quota per source, {@code 0} for no limit
+     * @param weights           Weights of the sources by their names, sources not contained get a weight of 1
+     * @param laneCount         Number of dispatcher lanes to assign to the sources
+     * @param maxSources        Maximum number of sources tracked individually
+     * @throws IllegalArgumentException if {@code weights} is {@code null} or a limit is negative
+     */
+    public AdmissionControl(final int maxConnections, final long messagesPerSecond, final long bytesPerSecond,
+                            final Map<String, Integer> weights, final int laneCount, final int maxSources) {
+        if (weights == null) {
+            throw new IllegalArgumentException("Provided weights cannot be null");
+        }
+        if (maxConnections < 0 || laneCount <= 0 || maxSources < 0) {
+            throw new IllegalArgumentException("Connection, lane and source limits cannot be negative");
+        }
+
+        this.maxConnections = maxConnections;
+        this.messagesPerSecond = messagesPerSecond;
+        this.bytesPerSecond = bytesPerSecond;
+        this.weights = Map.copyOf(weights);
+        this.laneCount = laneCount;
+        this.maxSources = maxSources;
+        this.overflowSource = new Source(OVERFLOW_SOURCE, 1, SHARED_LANE, messagesPerSecond, bytesPerSecond);
+    }
+
+    /**
+     * Registers a new connection unless the connection limit is reached.
+     *
+     * @return {@code false} if the connection is to be rejected
+     */
+    public boolean tryOpenConnection() {
+        while (true) {
+            int active = activeConnections.get();
+            if (maxConnections > 0 && active >= maxConnections) {
+                rejectedConnections.increment();
+                return false;
+            }
+            if (activeConnections.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Unregisters a connection previously registered by {@link #tryOpenConnection()}.
+     */
+    public void closeConnection() {
+        activeConnections.decrementAndGet();
+    }
+
+    /**
+     * Returns the source with the given name, registering it on first use. Allocates on first use only, readers
+     * look up their sources through a {@link SourceCache}.
+     *
+     * @param name Name of the source as sent by the client
+     * @return registered source
+     */
+    public Source resolve(final CharSequence name) {
+        String key = name.toString();
+        Source source = sources.get(key);
+        if (source != null) {
+            return source;
+        }
+        if (sources.size() >= maxSources) {
+            return overflowSource;
+        }
+        return sources.computeIfAbsent(key, this::register);
+    }
+
+    /**
+     * Creates a cache for looking up sources without allocating, to be used by a single reader.
+     *
+     * @return new source cache
+     */
+    public SourceCache newSourceCache() {
+        return new SourceCache(this);
+    }
+
+    /**
+     * Returns the number of currently open connections.
+     *
+     * @return active connections
+     */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * Returns the number of connections rejected due to the connection limit.
+     *
+     * @return rejected connections
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * Returns all sources tracked so far, including the shared overflow source.
+     *
+     * @return tracked sources
+     */
+    public Collection<Source> getSources() {
+        List<Source> all = new ArrayList<>(sources.values());
+        all.add(overflowSource);
+        return all;
+    }
+
+    /**
+     * Returns the number of messages admitted over all sources.
+     *
+     * @return admitted messages
+     */
+    public long getAdmittedMessages() {
+        return getSources().stream().mapToLong(Source::getAdmittedMessages).sum();
+    }
+
+    /**
+     * Returns the serialized size of the messages admitted over all sources.
+     *
+     * @return admitted bytes
+     */
+    public long getAdmittedBytes() {
+        return getSources().stream().mapToLong(Source::getAdmittedBytes).sum();
+    }
+
+    /**
+     * Returns the number of messages shed over all sources.
+     *
+     * @return throttled messages
+     */
+    public long getThrottledMessages() {
+        return getSources().stream().mapToLong(Source::getThrottledMessages).sum();
+    }
+
+    /**
+     * Returns the serialized size of the messages shed over all sources.
+     *
+     * @return throttled bytes
+     */
+    public long getThrottledBytes() {
+        return getSources().stream().mapToLong(Source::getThrottledBytes).sum();
+    }
+
+    private Source register(final String name) {
+        int lane = nextLane.getAndUpdate(next -> Math.min(next + 1, laneCount));
+        if (lane >= laneCount) {
+            lane = SHARED_LANE;
+        }
+        return new Source(name, weights.getOrDefault(name, 1), lane, messagesPerSecond, bytesPerSecond);
+    }
+}
@@ -0,0 +1,83 @@
+package ch.hslu.vsk.logger.server.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free rate limiter based on the generic cell rate algorithm (GCRA), equivalent to a token bucket holding one
+ * second of the rate.
+ * <br />
+ * Instead of refilling tokens, the limiter keeps the theoretical point of time at which the bucket would be empty
+ * again. A request is admitted as long as that point does not lie more than a second in the future, thus a single
+ * compare and set per request suffices and nothing needs to be refilled in the background.
+ * <br />
+ * A request for more permits than a second of the rate is admitted once the bucket is full, its excess delaying the
+ * following requests, so it is neither rejected forever nor lets the sustained rate be exceeded.
+ */
+public final class RateLimiter {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private final long permitsPerSecond;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Constructs a new {@link RateLimiter} instance.
+     *
+     * @param permitsPerSecond Sustained rate, also the size of the allowed burst; {@code 0} disables the limit
+     * @throws IllegalArgumentException if {@code permitsPerSecond} is negative
+     */
+    public RateLimiter(final long permitsPerSecond) {
+        if (permitsPerSecond < 0) {
+            throw new IllegalArgumentException("Rate cannot be negative, was " + permitsPerSecond);
+        }
+
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Checks whether the limiter restricts the rate at all.
+     *
+     * @return {@code false} if configured with a rate of {@code 0}
+     */
+    public boolean isEnabled() {
+        return permitsPerSecond > 0;
+    }
+
+    /**
+     * Takes the given number of permits if that does not exceed the rate, or if the bucket is full.
+     *
+     * @param permits Number of permits to take
+     * @param now     Current value of {@link System#nanoTime()}
+     * @return {@code false} if the permits exceed the rate and have not been taken
+     */
+    public boolean tryAcquire(final long permits, final long now) {
+        if (!isEnabled()) {
+            return true;
+        }
+
+        long cost = permits * NANOS_PER_SECOND / permitsPerSecond;
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = Math.max(arrival, now);
+            long next = start + cost;
+            if (next - now > NANOS_PER_SECOND && start - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the given number of permits taken before, f.e. for a request rejected by another limiter.
+     *
+     * @param permits Number of permits to return
+     */
+    public void release(final long permits) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        theoreticalArrival.addAndGet(-(permits * NANOS_PER_SECOND / permitsPerSecond));
+    }
+}
@@ -0,0 +1,133 @@
+package ch.hslu.vsk.logger.server.admission;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sending system as identified by the source of its log messages, together with its quotas, scheduling weight and
+ * counters of admitted and throttled traffic. Shared by all connections of the same source.
+ */
+public final class Source {
+    private static final Logger LOG = LoggerFactory.getLogger(Source.class);
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private final String name;
+    private final int weight;
+    private final int lane;
+    private final RateLimiter messageQuota;
+    private final RateLimiter byteQuota;
+    private final LongAdder admittedMessages = new LongAdder();
+    private final LongAdder admittedBytes = new LongAdder();
+    private final LongAdder throttledMessages = new LongAdder();
+    private final LongAdder throttledBytes = new LongAdder();
+    private volatile long lastWarning = System.nanoTime() - WARNING_INTERVAL_NANOS;
+
+    Source(final String name, final int weight, final int lane, final long messagesPerSecond,
+           final long bytesPerSecond) {
+        this.name = name;
+        this.weight = weight;
+        this.lane = lane;
+        this.messageQuota = new RateLimiter(messagesPerSecond);
+        this.byteQuota = new RateLimiter(bytesPerSecond);
+    }
+
+    /**
+     * Admits a message of the given size if the source has not exceeded its quotas, counting it as throttled
+     * otherwise. A throttled message does not count against either quota.
+     *
+     * @param bytes Serialized size of the message
+     * @return {@code false} if the message exceeds a quota and is to be shed
+     */
+    public boolean tryAdmit(final int bytes) {
+        long now = System.nanoTime();
+        if (messageQuota.tryAcquire(1, now)) {
+            if (byteQuota.tryAcquire(bytes, now)) {
+                admittedMessages.increment();
+                admittedBytes.add(bytes);
+                return true;
+            }
+            messageQuota.release(1);
+        }
+
+        throttledMessages.increment();
+        throttledBytes.add(bytes);
+        if (now - lastWarning >= WARNING_INTERVAL_NANOS) {
+            lastWarning = now;
+            LOG.warn("Source '{}' exceeds its quota, shedding its messages (throttled so far: {} messages, {} bytes)",
+                    name, throttledMessages.sum(), throttledBytes.sum());
+        }
+        return false;
+    }
+
+    /**
+     * Returns the name of the source.
+     *
+     * @return name as sent by the clients
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the share of the dispatcher throughput the source gets relative to the other sources.
+     *
+     * @return weight, at least {@code 1}
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Returns the dispatcher lane the messages of the source are queued in.
+     *
+     * @return index of the lane, {@code 0} for the lane shared by the sources without a lane of their own
+     */
+    public int getLane() {
+        return lane;
+    }
+
+    /**
+     * Returns the number of admitted messages.
+     *
+     * @return admitted messages
+     */
+    public long getAdmittedMessages() {
+        return admittedMessages.sum();
+    }
+
+    /**
+     * Returns the serialized size of all admitted messages.
+     *
+     * @return admitted bytes
+     */
+    public long getAdmittedBytes() {
+        return admittedBytes.sum();
+    }
+
+    /**
+     * Returns the number of messages shed as the source exceeded its quota.
+     *
+     * @return throttled messages
+     */
+    public long getThrottledMessages() {
+        return throttledMessages.sum();
+    }
+
+    /**
+     * Returns the serialized size of all messages shed as the source exceeded its quota.
+     *
+     * @return throttled bytes
+     */
+    public long getThrottledBytes() {
+        return throttledBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: weight=%d, lane=%d, admitted=%d (%d bytes), throttled=%d (%d bytes)",
+                name, weight, lane, getAdmittedMessages(), getAdmittedBytes(), getThrottledMessages(),
+                getThrottledBytes());
+    }
+}
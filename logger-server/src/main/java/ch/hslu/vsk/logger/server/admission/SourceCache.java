@@ -0,0 +1,33 @@
+package ch.hslu.vsk.logger.server.admission;
+
+/**
+ * Per reader cache of the most recently resolved {@link Source}, as a connection usually sends the messages of a
+ * single source. Resolves sources by the reused buffers of received events without allocating. The cache is keyed by
+ * the received name, as it differs from the name of the shared source of the sources beyond the tracked maximum.
+ * Not thread safe.
+ */
+public final class SourceCache {
+    private final AdmissionControl admissionControl;
+    private final StringBuilder recentName = new StringBuilder();
+    private Source recent;
+
+    SourceCache(final AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Returns the source with the given name.
+     *
+     * @param name Name of the source as received
+     * @return registered source
+     */
+    public Source resolve(final CharSequence name) {
+        if (recent != null && CharSequence.compare(recentName, name) == 0) {
+            return recent;
+        }
+        recent = admissionControl.resolve(name);
+        recentName.setLength(0);
+        recentName.append(name);
+        return recent;
+    }
+}
@@ -0,0 +1,163 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.StageMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statically configured cluster of servers, partitioning the sources among its members.
+ * <br />
+ * Every source is owned by exactly one member, determined by a {@link ConsistentHashRing} which all members build
+ * from the same member list. A server receiving a message of a source owned by another member forwards it there by
+ * a {@link MemberForwarder}, so all messages of a source are persisted in order by the same server and its quota is
+ * applied at a single place, while clients may connect to any member.
+ * <br />
+ * Membership is static: a member which is down is not replaced, its sources queue up at the other members until it
+ * is reachable again.
+ */
+public final class Cluster {
+    private static final Logger LOG = LoggerFactory.getLogger(Cluster.class);
+    private final ClusterMember self;
+    private final ConsistentHashRing ring;
+    private final Map<ClusterMember, MemberForwarder> forwarders = new HashMap<>();
+
+    private Cluster() {
+        this.self = null;
+        this.ring = null;
+    }
+
+    /**
+     * Constructs a new {@link Cluster} instance.
+     *
+     * @param self         Member this server is, contained in {@code members}
+     * @param members      All members of the cluster, identical on all of them
+     * @param virtualNodes Number of points per member on the hash ring
+     * @param queueSize    Number of messages queued per member, a power of two
+     * @param batchSize    Maximum number of messages forwarded per write
+     * @throws IllegalArgumentException if an argument is {@code null} or {@code self} is not a member
+     */
+    public Cluster(final ClusterMember self, final List<ClusterMember> members, final int virtualNodes,
+                   final int queueSize, final int batchSize) {
+        if (self == null) {
+            throw new IllegalArgumentException("Provided self cannot be null");
+        }
+        if (members == null || !members.contains(self)) {
+            throw new IllegalArgumentException("Provided members must contain " + self);
+        }
+
+        this.self = self;
+        this.ring = new ConsistentHashRing(members, virtualNodes);
+        for (ClusterMember member : members) {
+            if (!member.equals(self)) {
+                forwarders.put(member, new MemberForwarder(member, queueSize, batchSize));
+            }
+        }
+    }
+
+    /**
+     * Creates the cluster of a server running on its own, which owns all sources.
+     *
+     * @return cluster of a single server
+     */
+    public static Cluster standalone() {
+        return new Cluster();
+    }
+
+    /**
+     * Starts forwarding to the other members.
+     */
+    public void start() {
+        for (MemberForwarder forwarder : forwarders.values()) {
+            forwarder.start();
+        }
+        if (ring != null) {
+            LOG.info("Member {} of cluster {}", self, forwarders.keySet());
+        }
+    }
+
+    /**
+     * Forwards a copy of the given event to the member owning its source, unless this server owns it, waiting while
+     * the queue of the owner is full.
+     *
+     * @param received    Event holding the received message, may be reused once the call returns
+     * @param onProcessed Callback run once the message has been handed to the owner, may be {@code null}
+     * @return {@code false} if this server owns the source and has to process the message itself
+     */
+    public boolean forward(final LogEvent received, final Runnable onProcessed) {
+        if (ring == null) {
+            return false;
+        }
+        ClusterMember owner = ring.owner(received.getSource());
+        if (owner.equals(self)) {
+            return false;
+        }
+        forwarders.get(owner).forward(received, onProcessed);
+        return true;
+    }
+
+    /**
+     * Stops forwarding once the already queued messages are written to their owners.
+     *
+     * @param timeout Maximum time to wait for the queues to be drained
+     * @return {@code true} if all queued messages have been forwarded in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(final Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = true;
+        for (MemberForwarder forwarder : forwarders.values()) {
+            Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            if (!forwarder.stop(remaining)) {
+                LOG.warn("Failed to forward all queued messages to {}", forwarder.getMember());
+                drained = false;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Returns the number of messages forwarded to other members so far.
+     *
+     * @return forwarded messages
+     */
+    public long getForwarded() {
+        long forwarded = 0;
+        for (MemberForwarder forwarder : forwarders.values()) {
+            forwarded += forwarder.getMetrics().getPublished();
+        }
+        return forwarded;
+    }
+
+    /**
+     * Returns the number of forwarded messages not yet written to their owners.
+     *
+     * @return messages in flight
+     */
+    public long getInFlight() {
+        long inFlight = 0;
+        for (MemberForwarder forwarder : forwarders.values()) {
+            inFlight += forwarder.getMetrics().getInFlight();
+        }
+        return inFlight;
+    }
+
+    /**
+     * Returns the queue metrics of the stages forwarding to the other members.
+     *
+     * @return metrics of the forwarding stages
+     */
+    public List<StageMetrics> getMetrics() {
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (MemberForwarder forwarder : forwarders.values()) {
+            metrics.add(forwarder.getMetrics());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,101 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+
+/**
+ * Server instance of the cluster, identified by the host and port it accepts forwarded messages on.
+ */
+public final class ClusterMember {
+    private final String host;
+    private final int port;
+
+    /**
+     * Constructs a new {@link ClusterMember} instance.
+     *
+     * @param host Host name or IP address of the member
+     * @param port Port the member accepts forwarded messages on
+     * @throws IllegalArgumentException if {@code host} is {@code null} or blank
+     */
+    public ClusterMember(final String host, final int port) {
+        if (host == null || host.isBlank()) {
+            throw new IllegalArgumentException("Provided host cannot be null or blank");
+        }
+
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Parses a member given as {@code host:port}.
+     *
+     * @param address Address of the member
+     * @return parsed member
+     * @throws IllegalArgumentException if the address is malformed
+     */
+    public static ClusterMember parse(final String address) {
+        String trimmed = address.trim();
+        int separator = trimmed.lastIndexOf(':');
+        if (separator <= 0 || separator == trimmed.length() - 1) {
+            throw new IllegalArgumentException("Invalid cluster member, expected host:port but was " + address);
+        }
+        return new ClusterMember(trimmed.substring(0, separator), Integer.parseInt(trimmed.substring(separator + 1)));
+    }
+
+    /**
+     * Returns the identifier of the member, used for placing it on the hash ring.
+     *
+     * @return {@code host:port}
+     */
+    public String getId() {
+        return host + ":" + port;
+    }
+
+    /**
+     * Returns the address the member accepts forwarded messages on.
+     *
+     * @return unresolved socket address
+     */
+    public InetSocketAddress getAddress() {
+        return InetSocketAddress.createUnresolved(host, port);
+    }
+
+    /**
+     * Returns the host of the member.
+     *
+     * @return host name or IP address
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the port the member accepts forwarded messages on.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ClusterMember member)) {
+            return false;
+        }
+        return port == member.port && host.equals(member.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port);
+    }
+
+    @Override
+    public String toString() {
+        return getId();
+    }
+}
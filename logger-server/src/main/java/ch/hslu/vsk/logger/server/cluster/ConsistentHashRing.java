@@ -0,0 +1,94 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Assigns sources to cluster members by consistent hashing.
+ * <br />
+ * Every member is placed on a ring of 64 bit hashes at {@code virtualNodes} points; a source belongs to the member of
+ * the first point following the hash of its name. Adding or removing a member thus only moves the sources between
+ * that member and its neighbours, about {@code 1/n} of all sources. Looking up an owner hashes the characters of the
+ * source without allocating and binary searches the points.
+ */
+public final class ConsistentHashRing {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private final long[] points;
+    private final ClusterMember[] owners;
+
+    /**
+     * Constructs a new {@link ConsistentHashRing} instance.
+     *
+     * @param members      Members of the cluster, identical on all of them
+     * @param virtualNodes Number of points per member, more points spread the sources more evenly
+     * @throws IllegalArgumentException if {@code members} is {@code null} or empty or {@code virtualNodes} is not
+     *                                  positive
+     */
+    public ConsistentHashRing(final List<ClusterMember> members, final int virtualNodes) {
+        if (members == null || members.isEmpty()) {
+            throw new IllegalArgumentException("Provided members cannot be null or empty");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive, was " + virtualNodes);
+        }
+
+        List<Point> ring = new ArrayList<>(members.size() * virtualNodes);
+        for (ClusterMember member : members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.add(new Point(hash(member.getId() + "#" + i), member));
+            }
+        }
+        // members ordered by id break ties between colliding points the same way on every node
+        ring.sort(Comparator.comparingLong(Point::hash).thenComparing(point -> point.member().getId()));
+        this.points = new long[ring.size()];
+        this.owners = new ClusterMember[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            points[i] = ring.get(i).hash();
+            owners[i] = ring.get(i).member();
+        }
+    }
+
+    /**
+     * Returns the member owning the given source.
+     *
+     * @param source Name of the source
+     * @return owning member
+     */
+    public ClusterMember owner(final CharSequence source) {
+        int index = Arrays.binarySearch(points, hash(source));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        if (index == points.length) {
+            index = 0;
+        }
+        return owners[index];
+    }
+
+    /**
+     * Hashes the given characters with FNV-1a, finalized by the mixer of MurmurHash3 for an even spread of similar
+     * names like {@code app-1} and {@code app-2}.
+     *
+     * @param value Characters to hash
+     * @return 64 bit hash
+     */
+    static long hash(final CharSequence value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private record Point(long hash, ClusterMember member) {
+    }
+}
@@ -0,0 +1,215 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.LogEventEncoder;
+import ch.hslu.vsk.logger.server.pipeline.LogEventHandler;
+import ch.hslu.vsk.logger.server.pipeline.PipelineStage;
+import ch.hslu.vsk.logger.server.pipeline.StageMetrics;
+import com.esotericsoftware.kryo.io.Output;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Forwards the messages of the sources owned by another member of the cluster to it, over a connection speaking the
+ * same protocol as the clients.
+ * <br />
+ * Messages are queued in a {@link PipelineStage} of their own and encoded straight from their events into a buffer,
+ * which is written to the owner at the end of every batch, so forwarding costs one write per batch instead of one per
+ * message. As the queue blocks while full, an unreachable owner pushes back on the connections receiving its sources
+ * and thereby on their clients, instead of dropping messages.
+ * <br />
+ * Messages are delivered at most once, as the owner does not acknowledge them: the credit of the client is released
+ * as soon as a message is encoded, and a message counts as forwarded once it has been written to the socket. Messages
+ * written to a connection which breaks before the owner read them, i.e. those still in the socket buffers of either
+ * side, are lost. If a write fails, only the messages not completely written are resent on a new connection, starting
+ * with the one the failed write cut, which the owner discards as incomplete. Once the forwarder is stopped, a batch
+ * which cannot be written is dropped instead of being retried.
+ */
+final class MemberForwarder implements LogEventHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(MemberForwarder.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Duration LINGER = Duration.ofSeconds(5);
+    private final ClusterMember member;
+    private final PipelineStage stage;
+    private final Output output = new Output(BUFFER_SIZE, -1);
+    private int[] messageEnds;
+    private int messages;
+    private volatile boolean stopping;
+    private SocketChannel channel;
+    private Thread grantReader;
+
+    /**
+     * Constructs a new {@link MemberForwarder} instance.
+     *
+     * @param member    Member to forward to
+     * @param capacity  Number of messages queued for the member, a power of two
+     * @param batchSize Maximum number of messages written per batch
+     */
+    MemberForwarder(final ClusterMember member, final int capacity, final int batchSize) {
+        this.member = member;
+        this.stage = new PipelineStage("forward-" + member.getId(), capacity, batchSize, this);
+        this.messageEnds = new int[batchSize];
+    }
+
+    void start() {
+        stage.start();
+    }
+
+    /**
+     * Queues a copy of the given event for the member, waiting while the queue is full.
+     *
+     * @param event       Event holding the received message
+     * @param onProcessed Callback run once the message has been encoded for the member, before it is written to it,
+     *                    may be {@code null}
+     */
+    void forward(final LogEvent event, final Runnable onProcessed) {
+        stage.publish(event, onProcessed);
+    }
+
+    /**
+     * Encodes the given event and writes all encoded messages to the member at the end of the batch.
+     *
+     * @param event      Event holding the message
+     * @param endOfBatch {@code true} for the last event of the batch
+     */
+    @Override
+    public void onEvent(final LogEvent event, final boolean endOfBatch) {
+        LogEventEncoder.encode(event, output);
+        if (messages == messageEnds.length) {
+            messageEnds = Arrays.copyOf(messageEnds, messages * 2);
+        }
+        messageEnds[messages++] = output.position();
+        if (endOfBatch || output.position() >= BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Closes the connection to the member once all queued messages are written and the member has read them.
+     * <br />
+     * Closing right away would reset the connection, as it holds unread grants, which makes the member discard the
+     * messages it has not yet read. Thus only the sending side is shut down, and the connection is closed once the
+     * member closed its side after reading to the end, but at most after a linger timeout.
+     */
+    @Override
+    public void onShutdown() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.shutdownOutput();
+            if (!grantReader.join(LINGER)) {
+                LOG.warn("Cluster member {} did not read all forwarded messages in time", member);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to shut down connection to {}", member, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeChannel();
+    }
+
+    /**
+     * Stops forwarding once the queued messages are written, dropping those which cannot be written instead of
+     * retrying.
+     *
+     * @param timeout Maximum time to wait for the queued messages
+     * @return {@code true} if all queued messages were handled in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean stop(final Duration timeout) throws InterruptedException {
+        stopping = true;
+        return stage.stop(timeout);
+    }
+
+    ClusterMember getMember() {
+        return member;
+    }
+
+    StageMetrics getMetrics() {
+        return stage.getMetrics();
+    }
+
+    private void flush() {
+        ByteBuffer batch = ByteBuffer.wrap(output.getBuffer(), 0, output.position());
+        long retryDelay = TimeUnit.MILLISECONDS.toNanos(10);
+        int written = 0;
+        while (batch.hasRemaining()) {
+            try {
+                SocketChannel connection = connect();
+                while (batch.hasRemaining()) {
+                    connection.write(batch);
+                }
+            } catch (IOException ioException) {
+                closeChannel();
+                // the messages written completely count as forwarded, the one cut is resent from its start
+                while (written < messages && messageEnds[written] <= batch.position()) {
+                    written++;
+                }
+                if (stopping) {
+                    LOG.warn("Failed to forward {} messages to {} while stopping, dropping them",
+                            messages - written, member, ioException);
+                    break;
+                }
+                LOG.warn("Failed to forward {} messages to {}, retrying", messages - written, member, ioException);
+                if (written > 0) {
+                    batch.position(messageEnds[written - 1]);
+                } else {
+                    batch.position(0);
+                }
+                LockSupport.parkNanos(retryDelay);
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_NANOS);
+            }
+        }
+        output.reset();
+        messages = 0;
+    }
+
+    private SocketChannel connect() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = SocketChannel.open(new InetSocketAddress(member.getHost(), member.getPort()));
+            InputStream grants = Channels.newInputStream(channel);
+            // the owner grants credits like to any client, reading them keeps its grant writer from blocking
+            grantReader = Thread.ofVirtual().name("forward-grants-" + member.getId()).start(() -> discard(grants));
+            LOG.info("Connected to cluster member {}", member);
+        }
+        return channel;
+    }
+
+    private static void discard(final InputStream grants) {
+        byte[] buffer = new byte[Integer.BYTES * 64];
+        // the forwarder relies on TCP flow control instead
+        int read = 0;
+        try {
+            while (read >= 0) {
+                read = grants.read(buffer);
+            }
+        } catch (IOException closed) {
+            // the forwarding side detects and handles the disconnect
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.debug("Failed to close connection to {}", member, e);
+        }
+        channel = null;
+    }
+}
@@ -2,13 +2,27 @@ package ch.hslu.vsk.logger.server.logstrategies;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 
-import java.text.MessageFormat;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Implements a logging strategy to format log messages as CSV.
+ * <br />
+ * Fields are enclosed in double quotes if they contain a comma, a double quote or a line feed, with their double
+ * quotes doubled. Missing fields are written as empty fields.
  */
 public final class CSVLogStrategy implements LogStrategy {
+    private static final String SEPARATOR = ", ";
+    private static final CompiledFormat FORMAT = new CompiledFormat(List.of(
+            CompiledFormat.csvEscaped(CompiledFormat.createdAt(TimestampFormatter.isoInstant())),
+            CompiledFormat.literal(SEPARATOR),
+            CompiledFormat.csvEscaped(CompiledFormat.level()),
+            CompiledFormat.literal(SEPARATOR),
+            CompiledFormat.csvEscaped(CompiledFormat.source()),
+            CompiledFormat.literal(SEPARATOR),
+            CompiledFormat.csvEscaped(CompiledFormat.message())));
 
     /**
      * Formats a log message into a CSV line.
@@ -18,29 +32,29 @@ public final class CSVLogStrategy implements LogStrategy {
      */
     @Override
     public String format(final LogMessageDo message) {
-        return MessageFormat.format("{0}, {1}, {2}, {3}",
-                escapeCsv(message.getCreatedAt().toString()),
-                escapeCsv(message.getLevel().toString()),
-                escapeCsv(message.getSource()),
-                escapeCsv(message.getMessage()));
+        return FORMAT.format(message);
     }
 
     /**
-     * Escapes CSV characters in a string input.
-     * F.e. escapes a ',' in a string to '\,'.
+     * Appends the log message of the given event as CSV line, without allocating unless a field needs escaping.
      *
-     * @param input the string to be escaped
-     * @return an escaped CSV string
+     * @param event  Event holding the log message to format
+     * @param target Builder to append the formatted log message to
      */
-    private String escapeCsv(final String input) {
-        String escaped = input;
-        // Check if escaping is needed (if input contains comma, double-quote, or newline)
-        if (input.contains(",") || input.contains("\"") || input.contains("\n")) {
-            // Escape double-quotes by doubling them
-            escaped = input.replace("\"", "\"\"");
-            // Wrap the escaped input in double-quotes
-            escaped = "\"" + escaped + "\"";
-        }
-        return escaped;
+    @Override
+    public void formatTo(final LogEvent event, final StringBuilder target) {
+        FORMAT.formatTo(event, target);
+    }
+
+    /**
+     * Appends the log message of the given event as CSV line encoded as UTF-8, without intermediate strings.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Buffer to append the encoded log message to
+     * @return {@code false} if the remaining space of the buffer does not suffice
+     */
+    @Override
+    public boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        return FORMAT.encodeTo(event, target);
     }
 }
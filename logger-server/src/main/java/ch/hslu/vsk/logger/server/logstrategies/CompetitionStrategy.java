@@ -2,15 +2,24 @@ package ch.hslu.vsk.logger.server.logstrategies;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
- * Implements a logging strategy to format log messages for the competition.
+ * Implements a logging strategy to format log messages for the competition, f.e.
+ * {@code 2024-04-29 16:43:16.2345 INFO MyHost Example LogMessage}.
  */
 public class CompetitionStrategy implements LogStrategy {
+    private static final CompiledFormat FORMAT = new CompiledFormat(List.of(
+            CompiledFormat.createdAt(TimestampFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSS")),
+            CompiledFormat.literal(" "),
+            CompiledFormat.upperCaseLevel(),
+            CompiledFormat.literal(" "),
+            CompiledFormat.source(),
+            CompiledFormat.literal(" "),
+            CompiledFormat.message()));
 
     /**
      * Formats a log message into the format for the competition.
@@ -20,15 +29,29 @@ public class CompetitionStrategy implements LogStrategy {
      */
     @Override
     public String format(final LogMessageDo message) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSS")
-                .withZone(ZoneId.of("UTC"));
+        return FORMAT.format(message);
+    }
 
-        String timestamp = formatter.format(message.getCreatedAt());
+    /**
+     * Appends the log message of the given event in the format for the competition, without allocating.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Builder to append the formatted log message to
+     */
+    @Override
+    public void formatTo(final LogEvent event, final StringBuilder target) {
+        FORMAT.formatTo(event, target);
+    }
 
-        return String.format("%s %s %s %s",
-                timestamp,
-                (message.getLevel()).toString().toUpperCase(Locale.getDefault()),
-                message.getSource(),
-                message.getMessage());
+    /**
+     * Appends the log message of the given event in the format for the competition encoded as UTF-8.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Buffer to append the encoded log message to
+     * @return {@code false} if the remaining space of the buffer does not suffice
+     */
+    @Override
+    public boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        return FORMAT.encodeTo(event, target);
     }
 }
@@ -0,0 +1,256 @@
+package ch.hslu.vsk.logger.server.logstrategies;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Format of the log strategies compiled once into a sequence of {@link Segment}s, each appending a literal or a
+ * field of the message to a {@link StringBuilder}, instead of parsing a pattern per message.
+ * <br />
+ * {@link #formatTo(LogEvent, StringBuilder)} appends to the builder of the caller without allocating, as long as
+ * the timestamps do not need to be formatted by a {@link java.time.format.DateTimeFormatter} and no field needs
+ * escaping. {@link #format(LogMessageDo)} formats into a builder per thread and only allocates the resulting string,
+ * {@link #encodeTo(LogEvent, ByteBuffer)} encodes the builder per thread as UTF-8 without allocating.
+ * <br />
+ * Missing fields are appended as empty text. A {@link LogEvent} holds a missing source or message as empty text, as
+ * the wire format does not tell them apart, so missing timestamps, levels and latencies are rendered alike.
+ */
+final class CompiledFormat {
+    private static final String MISSING = "";
+    // builders grown beyond are replaced, so a single huge message does not pin its memory for good
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    private static final String[] UPPER_CASE_LEVELS = upperCaseLevels();
+    private final Segment[] segments;
+
+    /**
+     * Constructs a new {@link CompiledFormat} instance.
+     *
+     * @param segments Segments appended in the given order
+     */
+    CompiledFormat(final List<Segment> segments) {
+        this.segments = segments.toArray(new Segment[0]);
+    }
+
+    /**
+     * Appends the formatted message of the given event.
+     *
+     * @param event  Event holding the message
+     * @param target Builder to append to
+     */
+    void formatTo(final LogEvent event, final StringBuilder target) {
+        for (Segment segment : segments) {
+            segment.appendTo(event, target);
+        }
+    }
+
+    /**
+     * Appends the formatted message of the given event encoded as UTF-8.
+     *
+     * @param event  Event holding the message
+     * @param target Buffer to append to
+     * @return {@code false} if the remaining space of the buffer does not suffice, leaving its position unchanged
+     */
+    boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        Scratch scratch = SCRATCH.get();
+        StringBuilder text = scratch.text;
+        text.setLength(0);
+        formatTo(event, text);
+        boolean encoded = Utf8.encode(text, target);
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            scratch.text = new StringBuilder();
+        }
+        return encoded;
+    }
+
+    /**
+     * Formats the given message.
+     *
+     * @param message Message to format
+     * @return formatted message
+     */
+    String format(final LogMessageDo message) {
+        Scratch scratch = SCRATCH.get();
+        scratch.event.copyFrom(message);
+        StringBuilder text = scratch.text;
+        text.setLength(0);
+        formatTo(scratch.event, text);
+        String formatted = text.toString();
+        if (text.capacity() > MAX_RETAINED_CAPACITY) {
+            scratch.text = new StringBuilder();
+        }
+        return formatted;
+    }
+
+    /**
+     * Returns a segment appending the given text.
+     *
+     * @param text Literal text
+     * @return literal segment
+     */
+    static Segment literal(final String text) {
+        return (event, target) -> target.append(text);
+    }
+
+    /**
+     * Returns a segment appending the point of time the message was created by the client.
+     *
+     * @param formatter Formatter of the timestamp
+     * @return timestamp segment
+     */
+    static Segment createdAt(final TimestampFormatter formatter) {
+        return (event, target) -> formatter.appendTo(event.getCreatedAt(), target);
+    }
+
+    /**
+     * Returns a segment appending the point of time the message was processed by the server.
+     *
+     * @param formatter Formatter of the timestamp
+     * @return timestamp segment
+     */
+    static Segment processedAt(final TimestampFormatter formatter) {
+        return (event, target) -> formatter.appendTo(event.getProcessedAt(), target);
+    }
+
+    /**
+     * Returns a segment appending the milliseconds between the creation of the message by the client and its
+     * processing by the server, including the clock skew between both.
+     *
+     * @return latency segment
+     */
+    static Segment latency() {
+        return (event, target) -> {
+            if (event.getCreatedAt() == LogEvent.NO_TIMESTAMP || event.getProcessedAt() == LogEvent.NO_TIMESTAMP) {
+                target.append(MISSING);
+            } else {
+                target.append(TimeUnit.NANOSECONDS.toMillis(event.getProcessedAt() - event.getCreatedAt()));
+            }
+        };
+    }
+
+    /**
+     * Returns a segment appending the name of the level, f.e. {@code Info}.
+     *
+     * @return level segment
+     */
+    static Segment level() {
+        return (event, target) -> {
+            LogLevel level = event.getLevel();
+            if (level == null) {
+                target.append(MISSING);
+            } else {
+                target.append(level.toString());
+            }
+        };
+    }
+
+    /**
+     * Returns a segment appending the name of the level in upper case, f.e. {@code INFO}.
+     *
+     * @return level segment
+     */
+    static Segment upperCaseLevel() {
+        return (event, target) -> {
+            LogLevel level = event.getLevel();
+            if (level == null) {
+                target.append(MISSING);
+            } else {
+                target.append(UPPER_CASE_LEVELS[level.ordinal()]);
+            }
+        };
+    }
+
+    /**
+     * Returns a segment appending the source of the message.
+     *
+     * @return source segment
+     */
+    static Segment source() {
+        return (event, target) -> target.append(event.getSource());
+    }
+
+    /**
+     * Returns a segment appending the text of the message.
+     *
+     * @return message segment
+     */
+    static Segment message() {
+        return (event, target) -> target.append(event.getMessage());
+    }
+
+    /**
+     * Returns a segment appending the text of the given segment as CSV field: enclosed in double quotes with inner
+     * double quotes doubled if it contains a comma, a double quote or a line feed, as is otherwise.
+     *
+     * @param field Segment appending the field
+     * @return escaping segment
+     */
+    static Segment csvEscaped(final Segment field) {
+        return (event, target) -> {
+            int start = target.length();
+            field.appendTo(event, target);
+            if (needsCsvEscaping(target, start)) {
+                // rare, thus simply copied
+                String raw = target.substring(start);
+                target.setLength(start);
+                target.append('"');
+                for (int i = 0; i < raw.length(); i++) {
+                    char c = raw.charAt(i);
+                    if (c == '"') {
+                        target.append('"');
+                    }
+                    target.append(c);
+                }
+                target.append('"');
+            }
+        };
+    }
+
+    private static boolean needsCsvEscaping(final StringBuilder text, final int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] upperCaseLevels() {
+        LogLevel[] levels = LogLevel.values();
+        String[] names = new String[levels.length];
+        for (LogLevel level : levels) {
+            names[level.ordinal()] = level.toString().toUpperCase(Locale.ROOT);
+        }
+        return names;
+    }
+
+    /**
+     * Part of a compiled format.
+     */
+    @FunctionalInterface
+    interface Segment {
+        /**
+         * Appends the part of the formatted message of the given event.
+         *
+         * @param event  Event holding the message
+         * @param target Builder to append to
+         */
+        void appendTo(LogEvent event, StringBuilder target);
+    }
+
+    /**
+     * Event and builder reused by {@link #format(LogMessageDo)} and {@link #encodeTo(LogEvent, ByteBuffer)} per
+     * thread.
+     */
+    private static final class Scratch {
+        private final LogEvent event = new LogEvent();
+        private StringBuilder text = new StringBuilder();
+    }
+}
@@ -0,0 +1,182 @@
+package ch.hslu.vsk.logger.server.logstrategies;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Implements a logging strategy formatting log messages as JSON objects for machine ingestion, one per line
+ * (<a href="https://jsonlines.org">JSON Lines</a>), f.e.
+ * {@code {"createdAt":"2024-04-29T16:43:16.234500Z","processedAt":"2024-04-29T16:43:16.279500Z","level":"Info",
+ * "source":"MyHost","message":"Example LogMessage"}}.
+ * <br />
+ * The object is written field by field into the builder of the caller by a {@link CompiledFormat}, without maps,
+ * reflection or a general-purpose JSON library. Strings are escaped as required by RFC 8259: quotation marks,
+ * reverse solidi and control characters, the latter by their short escape if there is one. Line feeds within the
+ * message are thus escaped as well, so every message stays on a single line. Missing timestamps and levels are written
+ * as {@code null}.
+ */
+public final class JsonLinesLogStrategy implements LogStrategy {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String NULL = "null";
+    private final TimestampFormat timestampFormat;
+    private final CompiledFormat format;
+
+    /**
+     * Constructs a new {@link JsonLinesLogStrategy} instance writing the timestamps as ISO-8601 strings.
+     */
+    public JsonLinesLogStrategy() {
+        this(TimestampFormat.ISO);
+    }
+
+    /**
+     * Constructs a new {@link JsonLinesLogStrategy} instance.
+     *
+     * @param timestampFormat Format of the timestamps
+     * @throws IllegalArgumentException if the timestamp format is {@code null}
+     */
+    public JsonLinesLogStrategy(final TimestampFormat timestampFormat) {
+        if (timestampFormat == null) {
+            throw new IllegalArgumentException("Provided timestampFormat cannot be null");
+        }
+
+        this.timestampFormat = timestampFormat;
+        this.format = new CompiledFormat(List.of(
+                CompiledFormat.literal("{\"createdAt\":"),
+                timestamp(timestampFormat, TimestampFormatter.isoInstant(), true),
+                CompiledFormat.literal(",\"processedAt\":"),
+                timestamp(timestampFormat, TimestampFormatter.isoInstant(), false),
+                CompiledFormat.literal(",\"level\":"),
+                JsonLinesLogStrategy::appendLevel,
+                CompiledFormat.literal(",\"source\":"),
+                (event, target) -> appendString(event.getSource(), target),
+                CompiledFormat.literal(",\"message\":"),
+                (event, target) -> appendString(event.getMessage(), target),
+                CompiledFormat.literal("}")));
+    }
+
+    /**
+     * Formats a log message as JSON object.
+     *
+     * @param message the log message to format
+     * @return the formatted log message
+     */
+    @Override
+    public String format(final LogMessageDo message) {
+        return format.format(message);
+    }
+
+    /**
+     * Appends the log message of the given event as JSON object, without allocating.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Builder to append the formatted log message to
+     */
+    @Override
+    public void formatTo(final LogEvent event, final StringBuilder target) {
+        format.formatTo(event, target);
+    }
+
+    /**
+     * Appends the log message of the given event as JSON object encoded as UTF-8.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Buffer to append the encoded log message to
+     * @return {@code false} if the remaining space of the buffer does not suffice
+     */
+    @Override
+    public boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        return format.encodeTo(event, target);
+    }
+
+    /**
+     * Returns the format of the timestamps.
+     *
+     * @return format of the timestamps
+     */
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    /**
+     * Appends the given text as JSON string, enclosed in quotation marks and escaped. Runs of characters which need
+     * no escaping are appended at once.
+     *
+     * @param text   Text to append
+     * @param target Builder to append to
+     */
+    static void appendString(final CharSequence text, final StringBuilder target) {
+        target.append('"');
+        int length = text.length();
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            target.append(text, run, i);
+            run = i + 1;
+            switch (c) {
+                case '"' -> target.append("\\\"");
+                case '\\' -> target.append("\\\\");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                case '\t' -> target.append("\\t");
+                case '\b' -> target.append("\\b");
+                case '\f' -> target.append("\\f");
+                default -> target.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        target.append(text, run, length);
+        target.append('"');
+    }
+
+    private static CompiledFormat.Segment timestamp(final TimestampFormat timestampFormat,
+                                                    final TimestampFormatter formatter, final boolean created) {
+        return (event, target) -> {
+            long epochNanos;
+            if (created) {
+                epochNanos = event.getCreatedAt();
+            } else {
+                epochNanos = event.getProcessedAt();
+            }
+            if (epochNanos == LogEvent.NO_TIMESTAMP) {
+                target.append(NULL);
+            } else if (timestampFormat == TimestampFormat.EPOCH_NANOS) {
+                target.append(epochNanos);
+            } else {
+                target.append('"');
+                formatter.appendTo(epochNanos, target);
+                target.append('"');
+            }
+        };
+    }
+
+    private static void appendLevel(final LogEvent event, final StringBuilder target) {
+        LogLevel level = event.getLevel();
+        if (level == null) {
+            target.append(NULL);
+        } else {
+            // the names of the levels need no escaping
+            target.append('"').append(level).append('"');
+        }
+    }
+
+    /**
+     * Format of the timestamps of the messages.
+     */
+    public enum TimestampFormat {
+        /**
+         * ISO-8601 instants in UTC as strings, like {@link java.time.Instant#toString()}.
+         */
+        ISO,
+        /**
+         * Nanoseconds since the epoch as numbers, exact and cheapest to parse.
+         */
+        EPOCH_NANOS
+    }
+}
@@ -0,0 +1,161 @@
+package ch.hslu.vsk.logger.server.logstrategies;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements a logging strategy formatting log messages by a configurable pattern of literal text and conversions,
+ * f.e. {@code %d{yyyy-MM-dd HH:mm:ss.SSSS} %LEVEL %source %message} for the format of the competition.
+ * <br />
+ * Supported conversions:
+ * <ul>
+ *     <li>{@code %d} or {@code %d{pattern}}: point of time the message was created, as ISO-8601 instant or by the
+ *     given {@link java.time.format.DateTimeFormatter} pattern, in UTC</li>
+ *     <li>{@code %processed} or {@code %processed{pattern}}: point of time the message was processed by the server,
+ *     formatted like {@code %d}</li>
+ *     <li>{@code %latency}: milliseconds between creation and processing, including the clock skew</li>
+ *     <li>{@code %level} and {@code %LEVEL}: level as is respectively in upper case</li>
+ *     <li>{@code %source} and {@code %message}: source and text of the message</li>
+ *     <li>{@code %n}: line separator, {@code %%}: percent sign</li>
+ * </ul>
+ * The pattern is compiled once into a {@link CompiledFormat}. Timestamps are cached per second, or per millisecond
+ * if their pattern holds fields finer than a second other than a trailing fraction, so formatting a message does
+ * not allocate in general.
+ */
+public final class PatternLayoutStrategy implements LogStrategy {
+    private final String pattern;
+    private final CompiledFormat format;
+
+    /**
+     * Constructs a new {@link PatternLayoutStrategy} instance.
+     *
+     * @param pattern Pattern of the formatted messages
+     * @throws IllegalArgumentException if the pattern is {@code null} or invalid
+     */
+    public PatternLayoutStrategy(final String pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("Provided pattern cannot be null");
+        }
+
+        this.pattern = pattern;
+        this.format = new CompiledFormat(compile(pattern));
+    }
+
+    /**
+     * Formats a log message by the pattern.
+     *
+     * @param message the log message to format
+     * @return the formatted log message
+     */
+    @Override
+    public String format(final LogMessageDo message) {
+        return format.format(message);
+    }
+
+    /**
+     * Appends the log message of the given event formatted by the pattern.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Builder to append the formatted log message to
+     */
+    @Override
+    public void formatTo(final LogEvent event, final StringBuilder target) {
+        format.formatTo(event, target);
+    }
+
+    /**
+     * Appends the log message of the given event formatted by the pattern and encoded as UTF-8.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Buffer to append the encoded log message to
+     * @return {@code false} if the remaining space of the buffer does not suffice
+     */
+    @Override
+    public boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        return format.encodeTo(event, target);
+    }
+
+    /**
+     * Returns the pattern of the strategy.
+     *
+     * @return pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    private static List<CompiledFormat.Segment> compile(final String pattern) {
+        List<CompiledFormat.Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i == pattern.length()) {
+                throw new IllegalArgumentException("Dangling % at the end of pattern " + pattern);
+            }
+            if (pattern.charAt(i) == '%') {
+                literal.append('%');
+                i++;
+                continue;
+            }
+
+            int nameStart = i;
+            while (i < pattern.length() && Character.isLetter(pattern.charAt(i))) {
+                i++;
+            }
+            String name = pattern.substring(nameStart, i);
+            String option = null;
+            if (i < pattern.length() && pattern.charAt(i) == '{') {
+                int optionEnd = pattern.indexOf('}', i);
+                if (optionEnd < 0) {
+                    throw new IllegalArgumentException("Unterminated option of %" + name + " in pattern " + pattern);
+                }
+                option = pattern.substring(i + 1, optionEnd);
+                i = optionEnd + 1;
+            }
+
+            if ("n".equals(name)) {
+                literal.append(System.lineSeparator());
+                continue;
+            }
+            if (!literal.isEmpty()) {
+                segments.add(CompiledFormat.literal(literal.toString()));
+                literal.setLength(0);
+            }
+            segments.add(conversion(name, option, pattern));
+        }
+        if (!literal.isEmpty()) {
+            segments.add(CompiledFormat.literal(literal.toString()));
+        }
+        return segments;
+    }
+
+    private static CompiledFormat.Segment conversion(final String name, final String option, final String pattern) {
+        return switch (name) {
+            case "d" -> CompiledFormat.createdAt(timestampFormatter(option));
+            case "processed" -> CompiledFormat.processedAt(timestampFormatter(option));
+            case "latency" -> CompiledFormat.latency();
+            case "level" -> CompiledFormat.level();
+            case "LEVEL" -> CompiledFormat.upperCaseLevel();
+            case "source" -> CompiledFormat.source();
+            case "message" -> CompiledFormat.message();
+            default -> throw new IllegalArgumentException("Unknown conversion %" + name + " in pattern " + pattern);
+        };
+    }
+
+    private static TimestampFormatter timestampFormatter(final String option) {
+        if (option == null || option.isEmpty()) {
+            return TimestampFormatter.isoInstant();
+        }
+        return TimestampFormatter.ofPattern(option);
+    }
+}
@@ -2,13 +2,25 @@ package ch.hslu.vsk.logger.server.logstrategies;
 
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 
-import java.text.MessageFormat;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
- * Implements a logging strategy to format log messages as plain text.
+ * Implements a logging strategy to format log messages as plain text, f.e.
+ * {@code [2007-12-03T10:15:30Z] [Info] source: message}.
  */
 public final class TextLogStrategy implements LogStrategy {
+    private static final CompiledFormat FORMAT = new CompiledFormat(List.of(
+            CompiledFormat.literal("["),
+            CompiledFormat.createdAt(TimestampFormatter.isoInstant()),
+            CompiledFormat.literal("] ["),
+            CompiledFormat.level(),
+            CompiledFormat.literal("] "),
+            CompiledFormat.source(),
+            CompiledFormat.literal(": "),
+            CompiledFormat.message()));
 
     /**
      * Formats a log message into a plain text format.
@@ -18,10 +30,29 @@ public final class TextLogStrategy implements LogStrategy {
      */
     @Override
     public String format(final LogMessageDo message) {
-        return MessageFormat.format("[{0}] [{1}] {2}: {3}",
-                message.getCreatedAt(),
-                message.getLevel(),
-                message.getSource(),
-                message.getMessage());
+        return FORMAT.format(message);
+    }
+
+    /**
+     * Appends the log message of the given event in a plain text format, without allocating.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Builder to append the formatted log message to
+     */
+    @Override
+    public void formatTo(final LogEvent event, final StringBuilder target) {
+        FORMAT.formatTo(event, target);
+    }
+
+    /**
+     * Appends the log message of the given event in a plain text format encoded as UTF-8, without intermediate strings.
+     *
+     * @param event  Event holding the log message to format
+     * @param target Buffer to append the encoded log message to
+     * @return {@code false} if the remaining space of the buffer does not suffice
+     */
+    @Override
+    public boolean encodeTo(final LogEvent event, final ByteBuffer target) {
+        return FORMAT.encodeTo(event, target);
     }
 }
@@ -0,0 +1,183 @@
+package ch.hslu.vsk.logger.server.logstrategies;
+
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends timestamps given as nanoseconds since the epoch to a {@link StringBuilder}, in UTC.
+ * <br />
+ * The text up to the second is formatted by a {@link DateTimeFormatter} once per second and cached, the fraction
+ * of the second is appended digit by digit, so consecutive timestamps within a second are formatted without
+ * allocating. Patterns with fields finer than a second other than a trailing fraction are cached per millisecond
+ * as a whole, patterns with fields finer than a millisecond are formatted by the {@link DateTimeFormatter} every
+ * time. The cache is replaced as a whole, so a formatter may be shared by several threads.
+ */
+public final class TimestampFormatter {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long UNCACHED = 0;
+    private static final String MISSING = "";
+    // range of years Instant.toString prints with four digits and without sign
+    private static final long MIN_ISO_SECOND = -62_167_219_200L;
+    private static final long MAX_ISO_SECOND = 253_402_300_799L;
+    private static final int ISO_FRACTION = -1;
+    private final DateTimeFormatter cachedFormatter;
+    private final long cacheUnit;
+    private final DateTimeFormatter fullFormatter;
+    private final int fractionDigits;
+    private final String suffix;
+    private volatile CachedText cached = new CachedText(Long.MIN_VALUE, null);
+
+    private TimestampFormatter(final DateTimeFormatter cachedFormatter, final long cacheUnit,
+                               final DateTimeFormatter fullFormatter, final int fractionDigits, final String suffix) {
+        this.cachedFormatter = cachedFormatter;
+        this.cacheUnit = cacheUnit;
+        this.fullFormatter = fullFormatter;
+        this.fractionDigits = fractionDigits;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Creates a formatter printing timestamps like {@link Instant#toString()}, f.e. {@code 2024-04-29T16:43:16.234Z}.
+     *
+     * @return formatter of ISO-8601 instants
+     */
+    public static TimestampFormatter isoInstant() {
+        return new TimestampFormatter(formatterOf("uuuu-MM-dd'T'HH:mm:ss"), NANOS_PER_SECOND,
+                DateTimeFormatter.ISO_INSTANT, ISO_FRACTION, "Z");
+    }
+
+    /**
+     * Creates a formatter printing timestamps by the given {@link DateTimeFormatter} pattern, f.e.
+     * {@code yyyy-MM-dd HH:mm:ss.SSSS}.
+     *
+     * @param pattern Pattern of the timestamp
+     * @return formatter of the pattern
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static TimestampFormatter ofPattern(final String pattern) {
+        DateTimeFormatter fullFormatter = formatterOf(pattern);
+        int fractionStart = pattern.length();
+        while (fractionStart > 0 && pattern.charAt(fractionStart - 1) == 'S') {
+            fractionStart--;
+        }
+        String secondPattern = pattern.substring(0, fractionStart);
+        int fractionDigits = pattern.length() - fractionStart;
+        if (precisionOf(secondPattern) == NANOS_PER_SECOND && fractionDigits <= 9) {
+            if (fractionDigits == 0) {
+                return new TimestampFormatter(fullFormatter, NANOS_PER_SECOND, fullFormatter, 0, "");
+            }
+            return new TimestampFormatter(formatterOf(secondPattern), NANOS_PER_SECOND, fullFormatter,
+                    fractionDigits, "");
+        }
+        if (precisionOf(pattern) >= NANOS_PER_MILLISECOND) {
+            return new TimestampFormatter(fullFormatter, NANOS_PER_MILLISECOND, fullFormatter, 0, "");
+        }
+        return new TimestampFormatter(null, UNCACHED, fullFormatter, 0, "");
+    }
+
+    /**
+     * Appends the given timestamp.
+     *
+     * @param epochNanos Nanoseconds since the epoch, {@link LogEvent#NO_TIMESTAMP} appends nothing
+     * @param target     Builder to append to
+     */
+    public void appendTo(final long epochNanos, final StringBuilder target) {
+        if (epochNanos == LogEvent.NO_TIMESTAMP) {
+            target.append(MISSING);
+            return;
+        }
+        long epochSecond = Math.floorDiv(epochNanos, NANOS_PER_SECOND);
+        int nanos = (int) Math.floorMod(epochNanos, NANOS_PER_SECOND);
+        if (cacheUnit == UNCACHED
+                || fractionDigits == ISO_FRACTION && (epochSecond < MIN_ISO_SECOND || epochSecond > MAX_ISO_SECOND)) {
+            fullFormatter.formatTo(Instant.ofEpochSecond(epochSecond, nanos), target);
+            return;
+        }
+
+        long unit = Math.floorDiv(epochNanos, cacheUnit);
+        CachedText text = cached;
+        if (text.unit != unit) {
+            text = new CachedText(unit, cachedFormatter.format(Instant.ofEpochSecond(epochSecond,
+                    nanos - Math.floorMod(epochNanos, cacheUnit))));
+            cached = text;
+        }
+        target.append(text.text);
+        if (fractionDigits == ISO_FRACTION) {
+            appendIsoFraction(nanos, target);
+        } else {
+            appendFraction(nanos, fractionDigits, target);
+        }
+        target.append(suffix);
+    }
+
+    private static void appendIsoFraction(final int nanos, final StringBuilder target) {
+        if (nanos == 0) {
+            return;
+        }
+        target.append('.');
+        if (nanos % 1_000_000 == 0) {
+            appendFraction(nanos, 3, target);
+        } else if (nanos % 1_000 == 0) {
+            appendFraction(nanos, 6, target);
+        } else {
+            appendFraction(nanos, 9, target);
+        }
+    }
+
+    private static void appendFraction(final int nanos, final int digits, final StringBuilder target) {
+        int divisor = 100_000_000;
+        for (int i = 0; i < digits; i++) {
+            target.append((char) ('0' + nanos / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+    private static long precisionOf(final String pattern) {
+        long precision = NANOS_PER_SECOND;
+        boolean quoted = false;
+        int fractionDigits = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char letter = pattern.charAt(i);
+            if (letter == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && letter == 'S') {
+                fractionDigits++;
+                long digitPrecision = NANOS_PER_SECOND;
+                for (int digit = 0; digit < fractionDigits && digitPrecision > 1; digit++) {
+                    digitPrecision /= 10;
+                }
+                precision = Math.min(precision, digitPrecision);
+                continue;
+            } else if (!quoted && letter == 'A') {
+                precision = Math.min(precision, NANOS_PER_MILLISECOND);
+            } else if (!quoted && (letter == 'n' || letter == 'N')) {
+                precision = 1;
+            }
+            fractionDigits = 0;
+        }
+        return precision;
+    }
+
+    private static DateTimeFormatter formatterOf(final String pattern) {
+        return DateTimeFormatter.ofPattern(pattern).withZone(UTC);
+    }
+
+    /**
+     * Cached part of the text of the timestamps within a second or millisecond, for the unit it was formatted for.
+     */
+    private static final class CachedText {
+        private final long unit;
+        private final String text;
+
+        private CachedText(final long unit, final String text) {
+            this.unit = unit;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ch.hslu.vsk.logger.server.logstrategies;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes character sequences as UTF-8 straight into a {@link ByteBuffer}, without the intermediate {@link String}
+ * and byte array of {@link String#getBytes(java.nio.charset.Charset)}.
+ * <br />
+ * Runs of ASCII characters, the bulk of log messages, are copied byte by byte into the backing array of heap buffers.
+ * Unpaired surrogates are encoded as {@code ?}, like {@link String#getBytes(java.nio.charset.Charset)} does.
+ */
+public final class Utf8 {
+    private static final byte REPLACEMENT = '?';
+
+    private Utf8() {
+    }
+
+    /**
+     * Appends the given text encoded as UTF-8 at the position of the given buffer.
+     *
+     * @param text   Text to encode
+     * @param target Buffer to append to, advanced by the number of encoded bytes
+     * @return {@code false} if the remaining space of the buffer does not suffice, leaving its position unchanged
+     */
+    public static boolean encode(final CharSequence text, final ByteBuffer target) {
+        int length = text.length();
+        if (target.remaining() < length) {
+            return false;
+        }
+
+        int start = target.position();
+        int i = 0;
+        if (target.hasArray()) {
+            byte[] array = target.array();
+            int offset = target.arrayOffset() + start;
+            while (i < length) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                array[offset + i] = (byte) c;
+                i++;
+            }
+            target.position(start + i);
+        }
+        if (i < length && !encodeFrom(text, i, target)) {
+            target.position(start);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes of the given text encoded as UTF-8.
+     *
+     * @param text Text to encode
+     * @return encoded length in bytes
+     */
+    public static int encodedLength(final CharSequence text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    // both chars of the pair make up four bytes
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean encodeFrom(final CharSequence text, final int start, final ByteBuffer target) {
+        int length = text.length();
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (!target.hasRemaining()) {
+                    return false;
+                }
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                if (target.remaining() < 2) {
+                    return false;
+                }
+                target.put((byte) (0xC0 | c >> 6));
+                target.put((byte) (0x80 | c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                if (target.remaining() < 3) {
+                    return false;
+                }
+                target.put((byte) (0xE0 | c >> 12));
+                target.put((byte) (0x80 | c >> 6 & 0x3F));
+                target.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (target.remaining() < 4) {
+                    return false;
+                }
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                target.put((byte) (0xF0 | codePoint >> 18));
+                target.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                target.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                target.put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                if (!target.hasRemaining()) {
+                    return false;
+                }
+                target.put(REPLACEMENT);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with fixed buckets, cheap enough to be recorded for every message.
+ * <br />
+ * Recording a value is a binary search over the bucket bounds followed by incrementing two striped counters, so
+ * concurrent writers do not contend and neither locks nor allocations are involved. Quantiles are estimated by the
+ * upper bound of the bucket they fall into.
+ */
+public final class Histogram {
+    private static final long[] LATENCY_BOUNDS = {
+            micros(1), micros(2), micros(5), micros(10), micros(25), micros(50), micros(100), micros(250),
+            micros(500), millis(1), millis(2), millis(5), millis(10), millis(25), millis(50), millis(100),
+            millis(250), millis(500), millis(1000), millis(2500), millis(5000), millis(10_000)
+    };
+    private final long[] bounds;
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Constructs a new {@link Histogram} instance with the given bucket bounds. Values above the last bound are
+     * counted in an additional overflow bucket.
+     *
+     * @param bounds Inclusive upper bounds of the buckets in nanoseconds, ascending
+     * @throws IllegalArgumentException if {@code bounds} is {@code null}, empty or not strictly ascending
+     */
+    public Histogram(final long... bounds) {
+        if (bounds == null || bounds.length == 0) {
+            throw new IllegalArgumentException("Provided bounds cannot be null or empty");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("Bounds must be strictly ascending: " + Arrays.toString(bounds));
+            }
+        }
+
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Creates a histogram with buckets from one microsecond up to ten seconds.
+     *
+     * @return new latency histogram
+     */
+    public static Histogram latency() {
+        return new Histogram(LATENCY_BOUNDS);
+    }
+
+    /**
+     * Records the given duration. Negative values, f.e. due to clock skew between client and server, are counted in
+     * the first bucket.
+     *
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        int index = Arrays.binarySearch(bounds, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        buckets[index].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Returns the upper bounds of the buckets, excluding the overflow bucket.
+     *
+     * @return bounds in nanoseconds
+     */
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * Returns the number of recorded values per bucket, the last element being the overflow bucket.
+     *
+     * @return counts of all buckets, not cumulative
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return count of all buckets
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of all recorded values.
+     *
+     * @return sum in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Estimates the given quantile by the upper bound of the bucket it falls into.
+     *
+     * @param quantile Quantile between {@code 0} and {@code 1}, f.e. {@code 0.99}
+     * @return estimated value in nanoseconds, {@code 0} if nothing has been recorded and {@link Long#MAX_VALUE} if the
+     *         quantile falls into the overflow bucket
+     */
+    public long getQuantile(final double quantile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return bounds[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static long micros(final long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    private static long millis(final long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,425 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.rollup.Granularity;
+import ch.hslu.vsk.logger.server.rollup.RollupLogAdapter;
+import ch.hslu.vsk.logger.server.search.InvertedIndexLogAdapter;
+import ch.hslu.vsk.logger.server.sketch.HeavyHitter;
+import ch.hslu.vsk.logger.server.sketch.HeavyHitterLogAdapter;
+import ch.hslu.vsk.logger.server.store.LogFileQuery;
+import ch.hslu.vsk.logger.server.templates.LogTemplate;
+import ch.hslu.vsk.logger.server.templates.TemplateMinerLogAdapter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Serves the {@link ServerMetrics} in the Prometheus text format on {@code /metrics} using the HTTP server built
+ * into the JDK, and registers them as MXBean with the platform MBean server.
+ * <br />
+ * If a {@link RollupLogAdapter} is configured, its counts are served on
+ * {@code /rollups?source=name&level=Error&granularity=minute&from=2024-05-01T10:00:00Z&to=2024-05-01T11:00:00Z} as
+ * lines of {@code bucket;count}. All parameters but the source are optional, by default the counts per minute of all
+ * levels of the last hour are returned.
+ * <br />
+ * If a {@link TemplateMinerLogAdapter} is configured, the templates matched by the most messages are served on
+ * {@code /templates?limit=50} as lines of {@code id;count;pattern}.
+ * <br />
+ * The sources sending the most messages within the sliding window of a {@link HeavyHitterLogAdapter} are served on
+ * {@code /heavyhitters?by=source&limit=20} as lines of {@code source;count}, the templates matched most often within
+ * the window on {@code /heavyhitters?by=template&limit=20} as lines of {@code id;count;pattern}. Counts are estimates
+ * which may exceed the exact counts.
+ * <br />
+ * If an {@link InvertedIndexLogAdapter} is configured, the newest records containing all keywords and quoted phrases
+ * of a query are served on {@code /search?q=timeout+%22connection+refused%22&limit=100}, a record per line.
+ * <br />
+ * If a {@link LogFileQuery} is configured, the records of the log file and its segments are served on
+ * {@code /logs?from=2024-05-01T10:00:00Z&to=2024-05-01T11:00:00Z&source=shop,billing&level=Error&limit=1000}, a
+ * record per line in the order they were written. All parameters are optional, sources and levels are separated by
+ * commas, by default the first 1000 records of any time, source and level are returned. It is only configured for
+ * log files written with an index, as queries would read the whole log file otherwise.
+ * <br />
+ * Requests are handled by a pool of {@value #HANDLER_THREADS} threads, so a slow query does not hold up scrapes of the
+ * metrics, while concurrent queries cannot start more threads. As the records of the log are served without
+ * authentication, the server should only be bound to a trusted address, as it is to the loopback address by default.
+ */
+public final class MetricsHttpServer {
+    /**
+     * Name the metrics are registered with over JMX.
+     */
+    public static final String OBJECT_NAME = "ch.hslu.vsk.logger.server:type=ServerMetrics";
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsHttpServer.class);
+    private static final int HANDLER_THREADS = 4;
+    private static final String PATH = "/metrics";
+    private static final String ROLLUPS_PATH = "/rollups";
+    private static final Duration DEFAULT_ROLLUP_RANGE = Duration.ofHours(1);
+    private static final String TEMPLATES_PATH = "/templates";
+    private static final int DEFAULT_TEMPLATE_LIMIT = 50;
+    private static final String HEAVY_HITTERS_PATH = "/heavyhitters";
+    private static final int DEFAULT_HEAVY_HITTER_LIMIT = 20;
+    private static final String SEARCH_PATH = "/search";
+    private static final int DEFAULT_SEARCH_LIMIT = 100;
+    private static final String LOGS_PATH = "/logs";
+    private static final int DEFAULT_LOGS_LIMIT = 1000;
+    private final ServerMetrics metrics;
+    private RollupLogAdapter rollups;
+    private TemplateMinerLogAdapter templates;
+    private HeavyHitterLogAdapter heavyHitters;
+    private InvertedIndexLogAdapter search;
+    private LogFileQuery logs;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+    private ObjectName objectName;
+
+    /**
+     * Constructs a new {@link MetricsHttpServer} instance.
+     *
+     * @param metrics Metrics to serve
+     * @throws IllegalArgumentException if {@code metrics} is {@code null}
+     */
+    public MetricsHttpServer(final ServerMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Provided metrics cannot be null");
+        }
+
+        this.metrics = metrics;
+    }
+
+    /**
+     * Serves the counts of the given adapter on {@code /rollups} once started.
+     *
+     * @param rollupAdapter Adapter counting the messages
+     */
+    public void serveRollups(final RollupLogAdapter rollupAdapter) {
+        this.rollups = rollupAdapter;
+    }
+
+    /**
+     * Serves the templates mined by the given adapter on {@code /templates} once started.
+     *
+     * @param templateAdapter Adapter mining the templates
+     */
+    public void serveTemplates(final TemplateMinerLogAdapter templateAdapter) {
+        this.templates = templateAdapter;
+    }
+
+    /**
+     * Serves the sources tracked by the given adapter on {@code /heavyhitters} once started.
+     *
+     * @param heavyHitterAdapter Adapter tracking the sources sending the most messages
+     */
+    public void serveHeavyHitters(final HeavyHitterLogAdapter heavyHitterAdapter) {
+        this.heavyHitters = heavyHitterAdapter;
+    }
+
+    /**
+     * Serves the records found in the index of the given adapter on {@code /search} once started.
+     *
+     * @param searchAdapter Adapter indexing the messages
+     */
+    public void serveSearch(final InvertedIndexLogAdapter searchAdapter) {
+        this.search = searchAdapter;
+    }
+
+    /**
+     * Serves the records found by the given query of the log file on {@code /logs} once started.
+     *
+     * @param logFileQuery Query of the log file and its segments
+     */
+    public void serveLogs(final LogFileQuery logFileQuery) {
+        this.logs = logFileQuery;
+    }
+
+    /**
+     * Starts serving the metrics over HTTP on the given address.
+     *
+     * @param address Address to listen on, f.e. the loopback address in order to only serve local scrapers
+     * @throws IOException if the address could not be bound
+     */
+    public void start(final InetSocketAddress address) throws IOException {
+        httpServer = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(HANDLER_THREADS,
+                Thread.ofPlatform().name("metrics-http-", 0).daemon().factory());
+        httpServer.setExecutor(executor);
+        httpServer.createContext(PATH, this::handle);
+        if (rollups != null) {
+            httpServer.createContext(ROLLUPS_PATH, exchange -> handleQuery(exchange, this::queryRollups));
+        }
+        if (templates != null) {
+            httpServer.createContext(TEMPLATES_PATH, exchange -> handleQuery(exchange, this::queryTemplates));
+        }
+        if (heavyHitters != null || templates != null) {
+            httpServer.createContext(HEAVY_HITTERS_PATH, exchange -> handleQuery(exchange, this::queryHeavyHitters));
+        }
+        if (search != null) {
+            httpServer.createContext(SEARCH_PATH, exchange -> handleQuery(exchange, this::querySearch));
+        }
+        if (logs != null) {
+            httpServer.createContext(LOGS_PATH, exchange -> handleQuery(exchange, this::queryLogs));
+        }
+        httpServer.start();
+        LOG.info("Serving metrics on http://{}:{}{}", address.getHostString(), httpServer.getAddress().getPort(),
+                PATH);
+    }
+
+    /**
+     * Registers the metrics as MXBean with the platform MBean server.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            mBeanServer.registerMBean(metrics, objectName);
+        } catch (JMException exception) {
+            LOG.error("Failed to register metrics over JMX", exception);
+            objectName = null;
+        }
+    }
+
+    /**
+     * Returns the port the metrics are served on.
+     *
+     * @return bound port, {@code -1} if not started
+     */
+    public int getPort() {
+        if (httpServer == null) {
+            return -1;
+        }
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving the metrics and unregisters the MXBean.
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdown();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException exception) {
+                LOG.warn("Failed to unregister metrics from JMX", exception);
+            }
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+
+            StringBuilder body = new StringBuilder(16 * 1024);
+            metrics.writePrometheus(body);
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, bytes.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Answers a GET request with the plain text body the given query writes for its parameters, with status 400 if
+     * the parameters are invalid and 500 if the queried data could not be read.
+     *
+     * @param exchange Exchange of the request
+     * @param query    Query writing the body for the parameters of the request
+     * @throws IOException if the response could not be sent
+     */
+    private static void handleQuery(final HttpExchange exchange, final Query query) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            StringBuilder body = new StringBuilder();
+            int status = HttpURLConnection.HTTP_OK;
+            try {
+                query.answer(parameters, body);
+            } catch (IllegalArgumentException | DateTimeParseException invalid) {
+                status = HttpURLConnection.HTTP_BAD_REQUEST;
+                body.setLength(0);
+                body.append(invalid.getMessage()).append('\n');
+            } catch (IOException e) {
+                LOG.error("Failed to answer request of {}", exchange.getRequestURI().getPath(), e);
+                status = HttpURLConnection.HTTP_INTERNAL_ERROR;
+                body.setLength(0);
+                body.append("Failed to read the queried data\n");
+            }
+
+            respond(exchange, status, body);
+        }
+    }
+
+    private void queryRollups(final Map<String, String> parameters, final StringBuilder body) {
+        String source = parameters.get("source");
+        if (source == null) {
+            throw new IllegalArgumentException("Missing parameter source");
+        }
+        LogLevel level = null;
+        if (parameters.containsKey("level")) {
+            level = LogLevel.valueOf(parameters.get("level"));
+        }
+        Granularity granularity = Granularity.valueOf(
+                parameters.getOrDefault("granularity", "minute").toUpperCase(Locale.ROOT));
+        Instant to = Instant.now();
+        if (parameters.containsKey("to")) {
+            to = Instant.parse(parameters.get("to"));
+        }
+        Instant from = to.minus(DEFAULT_ROLLUP_RANGE);
+        if (parameters.containsKey("from")) {
+            from = Instant.parse(parameters.get("from"));
+        }
+
+        SortedMap<Instant, Long> counts = rollups.query(source, level, granularity, from, to);
+        for (Map.Entry<Instant, Long> count : counts.entrySet()) {
+            body.append(count.getKey()).append(';').append(count.getValue()).append('\n');
+        }
+    }
+
+    private void queryTemplates(final Map<String, String> parameters, final StringBuilder body) {
+        for (LogTemplate template : templates.getTopTemplates(limit(parameters, DEFAULT_TEMPLATE_LIMIT))) {
+            appendTemplate(template, body);
+        }
+    }
+
+    private void queryHeavyHitters(final Map<String, String> parameters, final StringBuilder body) {
+        int limit = limit(parameters, DEFAULT_HEAVY_HITTER_LIMIT);
+        String by = parameters.getOrDefault("by", "source");
+        if ("source".equals(by) && heavyHitters != null) {
+            for (HeavyHitter<String> source : heavyHitters.getTopSources(limit)) {
+                body.append(source.getKey()).append(';').append(source.getEstimate()).append('\n');
+            }
+        } else if ("template".equals(by) && templates != null) {
+            for (LogTemplate template : templates.getRecentTopTemplates(limit)) {
+                appendTemplate(template, body);
+            }
+        } else {
+            throw new IllegalArgumentException("Heavy hitters by " + by + " are not tracked");
+        }
+    }
+
+    private void querySearch(final Map<String, String> parameters, final StringBuilder body) {
+        String query = parameters.get("q");
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Parameter q is required");
+        }
+        for (String found : search.search(query, limit(parameters, DEFAULT_SEARCH_LIMIT))) {
+            body.append(found).append('\n');
+        }
+    }
+
+    private void queryLogs(final Map<String, String> parameters, final StringBuilder body) throws IOException {
+        Instant from = null;
+        if (parameters.containsKey("from")) {
+            from = Instant.parse(parameters.get("from"));
+        }
+        Instant to = null;
+        if (parameters.containsKey("to")) {
+            to = Instant.parse(parameters.get("to"));
+        }
+        List<String> sources = splitList(parameters.get("source"));
+        List<LogLevel> levels = new ArrayList<>();
+        for (String level : splitList(parameters.get("level"))) {
+            levels.add(LogLevel.valueOf(level));
+        }
+        for (String record : logs.find(from, to, sources, levels, limit(parameters, DEFAULT_LOGS_LIMIT))) {
+            body.append(record).append('\n');
+        }
+    }
+
+    private static int limit(final Map<String, String> parameters, final int defaultLimit) {
+        if (parameters.containsKey("limit")) {
+            return Integer.parseInt(parameters.get("limit"));
+        }
+        return defaultLimit;
+    }
+
+    private static void appendTemplate(final LogTemplate template, final StringBuilder body) {
+        body.append(template.getId()).append(';').append(template.getCount()).append(';')
+                .append(template.getPattern()).append('\n');
+    }
+
+    private static List<String> splitList(final String list) {
+        List<String> values = new ArrayList<>();
+        if (list == null) {
+            return values;
+        }
+        for (String value : list.split(",")) {
+            if (!value.isBlank()) {
+                values.add(value.strip());
+            }
+        }
+        return values;
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final CharSequence body)
+            throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(final String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Query answering a request from its parameters.
+     */
+    @FunctionalInterface
+    private interface Query {
+        /**
+         * Writes the answer to the request with the given parameters.
+         *
+         * @param parameters Decoded parameters of the request
+         * @param body       Builder the answer is appended to
+         * @throws IOException if the queried data could not be read
+         */
+        void answer(Map<String, String> parameters, StringBuilder body) throws IOException;
+    }
+}
@@ -0,0 +1,140 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4). Durations are exposed in seconds, as
+ * Prometheus expects base units.
+ */
+public final class PrometheusWriter {
+    /**
+     * Content type of the text exposition format.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private final StringBuilder out;
+
+    /**
+     * Constructs a new {@link PrometheusWriter} instance.
+     *
+     * @param out Buffer to write the metrics to
+     * @throws IllegalArgumentException if {@code out} is {@code null}
+     */
+    public PrometheusWriter(final StringBuilder out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Provided out cannot be null");
+        }
+
+        this.out = out;
+    }
+
+    /**
+     * Writes the header of a metric family, to be followed by its samples.
+     *
+     * @param name Name of the metric family
+     * @param type Prometheus type, f.e. {@code counter}, {@code gauge} or {@code histogram}
+     * @param help Description of the metric
+     * @return this writer
+     */
+    public PrometheusWriter family(final String name, final String type, final String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a sample without labels.
+     *
+     * @param name  Name of the metric
+     * @param value Value of the sample
+     * @return this writer
+     */
+    public PrometheusWriter sample(final String name, final double value) {
+        out.append(name).append(' ');
+        appendValue(value);
+        out.append('\n');
+        return this;
+    }
+
+    /**
+     * Writes a sample with a single label.
+     *
+     * @param name       Name of the metric
+     * @param labelName  Name of the label
+     * @param labelValue Value of the label
+     * @param value      Value of the sample
+     * @return this writer
+     */
+    public PrometheusWriter sample(final String name, final String labelName, final String labelValue,
+                                   final double value) {
+        out.append(name).append('{');
+        appendLabel(labelName, labelValue);
+        out.append("} ");
+        appendValue(value);
+        out.append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the cumulative buckets, the sum and the count of a histogram of durations.
+     *
+     * @param name       Name of the metric family
+     * @param labelName  Name of the label distinguishing the histograms of the family, {@code null} for none
+     * @param labelValue Value of the label
+     * @param histogram  Histogram of durations in nanoseconds
+     * @return this writer
+     */
+    public PrometheusWriter histogram(final String name, final String labelName, final String labelValue,
+                                      final Histogram histogram) {
+        long[] bounds = histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            out.append(name).append("_bucket{");
+            if (labelName != null) {
+                appendLabel(labelName, labelValue);
+                out.append(',');
+            }
+            out.append("le=\"");
+            if (i < bounds.length) {
+                appendValue(bounds[i] / NANOS_PER_SECOND);
+            } else {
+                out.append("+Inf");
+            }
+            out.append("\"} ").append(cumulative).append('\n');
+        }
+        // the count of the family has to match the +Inf bucket, which concurrent records may have changed meanwhile
+        if (labelName == null) {
+            sample(name + "_sum", histogram.getSum() / NANOS_PER_SECOND);
+            sample(name + "_count", cumulative);
+        } else {
+            sample(name + "_sum", labelName, labelValue, histogram.getSum() / NANOS_PER_SECOND);
+            sample(name + "_count", labelName, labelValue, cumulative);
+        }
+        return this;
+    }
+
+    private void appendLabel(final String labelName, final String labelValue) {
+        out.append(labelName).append("=\"");
+        for (int i = 0; i < labelValue.length(); i++) {
+            char c = labelValue.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private void appendValue(final double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import ch.hslu.vsk.logger.server.LogMessageDispatcher;
+import ch.hslu.vsk.logger.server.admission.AdmissionControl;
+import ch.hslu.vsk.logger.server.cluster.Cluster;
+import ch.hslu.vsk.logger.server.pipeline.AdapterStage;
+import ch.hslu.vsk.logger.server.pipeline.StageMetrics;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.Pool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the metrics of the logger server from its components, which record them with striped counters and
+ * fixed bucket histograms on their own, so nothing is aggregated on the message path. Rates such as messages per
+ * second are derived from the counters by the monitoring system.
+ */
+public final class ServerMetrics implements ServerMetricsMXBean {
+    private static final double P99 = 0.99;
+    private final LogMessageDispatcher dispatcher;
+    private final AdmissionControl admissionControl;
+    private final Pool<Kryo> kryoPool;
+    private final Cluster cluster;
+
+    /**
+     * Constructs a new {@link ServerMetrics} instance of a standalone server.
+     *
+     * @param dispatcher       Dispatcher providing the stage and adapter metrics
+     * @param admissionControl Admission control providing the connection and traffic counters
+     * @param kryoPool         Pool of the Kryo instances used by the readers
+     * @throws IllegalArgumentException if one of the arguments is {@code null}
+     */
+    public ServerMetrics(final LogMessageDispatcher dispatcher, final AdmissionControl admissionControl,
+                         final Pool<Kryo> kryoPool) {
+        this(dispatcher, admissionControl, kryoPool, Cluster.standalone());
+    }
+
+    /**
+     * Constructs a new {@link ServerMetrics} instance.
+     *
+     * @param dispatcher       Dispatcher providing the stage and adapter metrics
+     * @param admissionControl Admission control providing the connection and traffic counters
+     * @param kryoPool         Pool of the Kryo instances used by the readers
+     * @param cluster          Cluster providing the metrics of the stages forwarding to other members
+     * @throws IllegalArgumentException if one of the arguments is {@code null}
+     */
+    public ServerMetrics(final LogMessageDispatcher dispatcher, final AdmissionControl admissionControl,
+                         final Pool<Kryo> kryoPool, final Cluster cluster) {
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("Provided dispatcher cannot be null");
+        }
+        if (admissionControl == null) {
+            throw new IllegalArgumentException("Provided admissionControl cannot be null");
+        }
+        if (kryoPool == null) {
+            throw new IllegalArgumentException("Provided kryo pool cannot be null");
+        }
+        if (cluster == null) {
+            throw new IllegalArgumentException("Provided cluster cannot be null");
+        }
+
+        this.dispatcher = dispatcher;
+        this.admissionControl = admissionControl;
+        this.kryoPool = kryoPool;
+        this.cluster = cluster;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format.
+     *
+     * @param out Buffer to write the metrics to
+     */
+    public void writePrometheus(final StringBuilder out) {
+        PrometheusWriter writer = new PrometheusWriter(out);
+        writer.family("logger_received_messages_total", "counter", "Messages received over all transports.")
+                .sample("logger_received_messages_total", getReceivedMessages())
+                .family("logger_received_bytes_total", "counter", "Serialized bytes received over all transports.")
+                .sample("logger_received_bytes_total", getReceivedBytes())
+                .family("logger_throttled_messages_total", "counter", "Messages shed due to source quotas.")
+                .sample("logger_throttled_messages_total", getThrottledMessages())
+                .family("logger_throttled_bytes_total", "counter", "Serialized bytes shed due to source quotas.")
+                .sample("logger_throttled_bytes_total", admissionControl.getThrottledBytes())
+                .family("logger_routed_dropped_messages_total", "counter", "Messages dropped by routing rules.")
+                .sample("logger_routed_dropped_messages_total", dispatcher.getDropped())
+                .family("logger_active_connections", "gauge", "Currently open client connections.")
+                .sample("logger_active_connections", getActiveConnections())
+                .family("logger_rejected_connections_total", "counter", "Connections rejected due to the limit.")
+                .sample("logger_rejected_connections_total", getRejectedConnections())
+                .family("logger_kryo_pool_free", "gauge", "Idle Kryo instances in the pool.")
+                .sample("logger_kryo_pool_free", getKryoPoolFree());
+
+        List<StageMetrics> stages = getStageMetrics();
+        writer.family("logger_stage_published_total", "counter", "Messages published into the queue of a stage.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_published_total", "stage", stage.getStageName(), stage.getPublished());
+        }
+        writer.family("logger_stage_processed_total", "counter", "Messages processed by a stage.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_processed_total", "stage", stage.getStageName(), stage.getProcessed());
+        }
+        writer.family("logger_stage_dropped_total", "counter", "Messages dropped as the queue of a stage was full.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_dropped_total", "stage", stage.getStageName(), stage.getDropped());
+        }
+        writer.family("logger_stage_producer_stalls_total", "counter", "Producers waiting for a full stage.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_producer_stalls_total", "stage", stage.getStageName(),
+                    stage.getProducerStalls());
+        }
+        writer.family("logger_stage_queue_depth", "gauge", "Messages waiting in the queue of a stage.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_queue_depth", "stage", stage.getStageName(), stage.getQueueDepth());
+        }
+        writer.family("logger_stage_queue_capacity", "gauge", "Messages the queue of a stage can hold.");
+        for (StageMetrics stage : stages) {
+            writer.sample("logger_stage_queue_capacity", "stage", stage.getStageName(), stage.getQueueCapacity());
+        }
+        writer.family("logger_stage_batch_duration_seconds", "histogram", "Time a stage takes per batch.");
+        for (StageMetrics stage : stages) {
+            writer.histogram("logger_stage_batch_duration_seconds", "stage", stage.getStageName(),
+                    stage.getBatchDuration());
+        }
+
+        writer.family("logger_adapter_save_duration_seconds", "histogram", "Time an adapter takes per message.");
+        for (AdapterStage adapterStage : dispatcher.getAdapterStages()) {
+            writer.histogram("logger_adapter_save_duration_seconds", "adapter", adapterStage.getAdapterName(),
+                    adapterStage.getSaveDuration());
+        }
+        writer.family("logger_end_to_end_lag_seconds", "histogram",
+                        "Time between the creation of a message on the client and its processing on the server.")
+                .histogram("logger_end_to_end_lag_seconds", null, null, dispatcher.getEndToEndLag());
+    }
+
+    @Override
+    public long getReceivedMessages() {
+        return admissionControl.getAdmittedMessages() + admissionControl.getThrottledMessages();
+    }
+
+    @Override
+    public long getReceivedBytes() {
+        return admissionControl.getAdmittedBytes() + admissionControl.getThrottledBytes();
+    }
+
+    @Override
+    public long getThrottledMessages() {
+        return admissionControl.getThrottledMessages();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return admissionControl.getActiveConnections();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return admissionControl.getRejectedConnections();
+    }
+
+    @Override
+    public int getKryoPoolFree() {
+        return kryoPool.getFree();
+    }
+
+    @Override
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (StageMetrics stage : getStageMetrics()) {
+            depths.put(stage.getStageName(), stage.getQueueDepth());
+        }
+        return depths;
+    }
+
+    @Override
+    public Map<String, Long> getAdapterSaveDurationP99Nanos() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (AdapterStage adapterStage : dispatcher.getAdapterStages()) {
+            durations.put(adapterStage.getAdapterName(), adapterStage.getSaveDuration().getQuantile(P99));
+        }
+        return durations;
+    }
+
+    @Override
+    public long getEndToEndLagP99Nanos() {
+        return dispatcher.getEndToEndLag().getQuantile(P99);
+    }
+
+    private List<StageMetrics> getStageMetrics() {
+        List<StageMetrics> stages = new ArrayList<>(dispatcher.getMetrics());
+        stages.addAll(cluster.getMetrics());
+        return stages;
+    }
+}
@@ -0,0 +1,71 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the metrics of the logger server over JMX.
+ */
+public interface ServerMetricsMXBean {
+    /**
+     * Returns the number of messages received over all transports, admitted or not.
+     *
+     * @return received messages
+     */
+    long getReceivedMessages();
+
+    /**
+     * Returns the serialized size of all received messages.
+     *
+     * @return received bytes
+     */
+    long getReceivedBytes();
+
+    /**
+     * Returns the number of messages shed as their sources exceeded their quotas.
+     *
+     * @return throttled messages
+     */
+    long getThrottledMessages();
+
+    /**
+     * Returns the number of currently open client connections.
+     *
+     * @return active connections
+     */
+    int getActiveConnections();
+
+    /**
+     * Returns the number of connections rejected due to the connection limit.
+     *
+     * @return rejected connections
+     */
+    long getRejectedConnections();
+
+    /**
+     * Returns the number of idle Kryo instances in the pool.
+     *
+     * @return free Kryo instances
+     */
+    int getKryoPoolFree();
+
+    /**
+     * Returns the number of messages waiting in the queue of every stage.
+     *
+     * @return queue depths by stage name
+     */
+    Map<String, Integer> getQueueDepths();
+
+    /**
+     * Returns the 99th percentile of the time every adapter takes to save a message.
+     *
+     * @return upper bound of the percentile in nanoseconds by adapter name
+     */
+    Map<String, Long> getAdapterSaveDurationP99Nanos();
+
+    /**
+     * Returns the 99th percentile of the time between the creation of a message and its processing on the server.
+     *
+     * @return upper bound of the percentile in nanoseconds
+     */
+    long getEndToEndLagP99Nanos();
+}
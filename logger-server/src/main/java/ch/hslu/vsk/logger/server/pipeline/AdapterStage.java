@@ -0,0 +1,143 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.metrics.Histogram;
+
+import java.time.Duration;
+
+/**
+ * Runs one {@link LogAdapter} on its own consumer thread with its own bounded queue, so adapters progress
+ * independently of each other.
+ * <br />
+ * Every queued message keeps a reference to the dispatcher's event, thus the event and the credits of the sending
+ * client are only released once all adapters are done with the message. Whether the dispatcher waits for an adapter
+ * with a full queue or skips the message for it is defined by the adapter's {@link OverflowPolicy}.
+ */
+public final class AdapterStage implements LogEventHandler {
+    private final LogAdapter adapter;
+    private final OverflowPolicy overflowPolicy;
+    private final PipelineStage stage;
+    private final Histogram saveDuration = Histogram.latency();
+
+    /**
+     * Constructs a new {@link AdapterStage} instance.
+     *
+     * @param adapter        Adapter to run
+     * @param overflowPolicy Handling of messages while the queue of the adapter is full
+     * @param capacity       Number of messages the queue of the adapter holds, a power of two
+     * @param batchSize      Maximum number of messages handed to the adapter per batch
+     * @throws IllegalArgumentException if {@code adapter} or {@code overflowPolicy} is {@code null} or a size is
+     *                                  invalid
+     */
+    public AdapterStage(final LogAdapter adapter, final OverflowPolicy overflowPolicy, final int capacity,
+                        final int batchSize) {
+        if (adapter == null) {
+            throw new IllegalArgumentException("Provided adapter cannot be null");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Provided overflowPolicy cannot be null");
+        }
+
+        this.adapter = adapter;
+        this.overflowPolicy = overflowPolicy;
+        this.stage = new PipelineStage("adapter-" + adapter.getName(), capacity, batchSize, this);
+    }
+
+    /**
+     * Starts the consumer thread of the adapter.
+     */
+    public void start() {
+        stage.start();
+    }
+
+    /**
+     * Queues a copy of the given event for the adapter, retaining the event until the adapter is done.
+     *
+     * @param event Event of the dispatcher
+     * @return {@code false} if the event was dropped as the queue was full
+     */
+    public boolean submit(final LogEvent event) {
+        event.retain();
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            stage.publish(event, event.getReleaseCallback());
+            return true;
+        }
+        if (stage.offer(event, event.getReleaseCallback())) {
+            return true;
+        }
+        event.release();
+        return false;
+    }
+
+    /**
+     * Hands the given event to the adapter, recording the time it takes to save it, and ends the batch of the
+     * adapter after its last event.
+     *
+     * @param event      Event holding the message
+     * @param endOfBatch {@code true} for the last event of the batch
+     */
+    @Override
+    public void onEvent(final LogEvent event, final boolean endOfBatch) {
+        long start = System.nanoTime();
+        adapter.saveLogEvent(event);
+        if (endOfBatch) {
+            adapter.endOfBatch();
+        }
+        saveDuration.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Closes the adapter once its queue is drained, so it persists what it has buffered.
+     */
+    @Override
+    public void onShutdown() {
+        adapter.close();
+    }
+
+    /**
+     * Stops the adapter once its queued messages are processed and closes it.
+     *
+     * @param timeout Maximum time to wait for the queue to be drained
+     * @return {@code true} if all queued messages have been processed in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(final Duration timeout) throws InterruptedException {
+        return stage.stop(timeout);
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return name of the adapter
+     */
+    public String getAdapterName() {
+        return adapter.getName();
+    }
+
+    /**
+     * Returns the distribution of the time the adapter took to save a message.
+     *
+     * @return histogram of the save durations
+     */
+    public Histogram getSaveDuration() {
+        return saveDuration;
+    }
+
+    /**
+     * Returns the overflow policy of the adapter.
+     *
+     * @return overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the queue metrics of the adapter.
+     *
+     * @return metrics of the adapter stage
+     */
+    public StageMetrics getMetrics() {
+        return stage.getMetrics();
+    }
+}
@@ -0,0 +1,37 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle strategy for threads polling a queue without blocking.
+ * <br />
+ * While work arrives the caller busy spins in order to pick it up within nanoseconds. Once the queue stays empty it
+ * backs off to yielding and finally to parking, so an idle server does not burn a core.
+ */
+public final class BackoffIdleStrategy {
+    private static final int SPIN_ITERATIONS = 10_000;
+    private static final int YIELD_ITERATIONS = SPIN_ITERATIONS + 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private BackoffIdleStrategy() {
+    }
+
+    /**
+     * Idles for one iteration, backing off the longer the caller found no work.
+     *
+     * @param idleIterations Number of consecutive iterations without work, {@code 0} after work was found
+     * @return number of idle iterations to pass on the next call
+     */
+    public static int idle(final int idleIterations) {
+        if (idleIterations < SPIN_ITERATIONS) {
+            Thread.onSpinWait();
+        } else if (idleIterations < YIELD_ITERATIONS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idleIterations;
+        }
+        return idleIterations + 1;
+    }
+}
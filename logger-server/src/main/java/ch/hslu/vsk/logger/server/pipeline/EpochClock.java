@@ -0,0 +1,43 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall clock reading nanoseconds since the epoch without allocating an {@link Instant} per call.
+ * <br />
+ * The clock anchors {@link System#nanoTime()} to the wall clock and re-anchors once per second, so it follows
+ * adjustments of the system clock with at most a second of delay while being as precise as {@link Instant#now()}.
+ * Not thread safe, every thread stamping events uses its own instance.
+ */
+public final class EpochClock {
+    private static final long REANCHOR_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private long anchorEpochNanos;
+    private long anchorNanoTime;
+
+    /**
+     * Constructs a new {@link EpochClock} anchored to the current wall clock time.
+     */
+    public EpochClock() {
+        anchor();
+    }
+
+    /**
+     * Returns the current wall clock time.
+     *
+     * @return nanoseconds since the epoch
+     */
+    public long epochNanos() {
+        long elapsed = System.nanoTime() - anchorNanoTime;
+        if (elapsed >= REANCHOR_INTERVAL_NANOS) {
+            anchor();
+            return anchorEpochNanos;
+        }
+        return anchorEpochNanos + elapsed;
+    }
+
+    private void anchor() {
+        anchorNanoTime = System.nanoTime();
+        anchorEpochNanos = LogEvent.toEpochNanos(Instant.now());
+    }
+}
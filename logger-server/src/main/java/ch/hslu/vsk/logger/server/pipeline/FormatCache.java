@@ -0,0 +1,161 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.Utf8;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Formatted representations of the message of a {@link LogEvent} per {@link LogStrategy}, computed on first use and
+ * shared by all adapters using the same strategy instance, so a message is formatted at most once per strategy.
+ * <br />
+ * Up to {@value #MAX_STRATEGIES} strategies are cached, further strategies format the message on every use. The
+ * builders and buffers of the slots are kept when the cache is cleared for the next message of the event, thus a
+ * warmed up cache does not allocate but for the strings requested. The UTF-8 bytes are encoded by the strategy
+ * straight into the buffer of the slot, unless the text has been formatted already. Thread safe, as the adapters of a
+ * message run concurrently.
+ */
+final class FormatCache {
+    private static final int MAX_STRATEGIES = 4;
+    private static final int INITIAL_BYTES_CAPACITY = 256;
+    private final Slot[] slots = new Slot[MAX_STRATEGIES];
+    private int used;
+    // lets clearing an unused cache skip the lock, as every event is cleared per message
+    private volatile boolean empty = true;
+
+    /**
+     * Returns the message of the given event formatted by the given strategy.
+     *
+     * @param strategy Strategy to format with
+     * @param event    Event holding the message, any event sharing this cache
+     * @return formatted message, not modified until the cache is cleared
+     */
+    synchronized CharSequence text(final LogStrategy strategy, final LogEvent event) {
+        Slot slot = slot(strategy);
+        if (slot == null) {
+            StringBuilder text = new StringBuilder();
+            strategy.formatTo(event, text);
+            return text;
+        }
+        return format(slot, strategy, event);
+    }
+
+    /**
+     * Returns the message of the given event formatted by the given strategy as string, created once per strategy.
+     *
+     * @param strategy Strategy to format with
+     * @param event    Event holding the message, any event sharing this cache
+     * @return formatted message
+     */
+    synchronized String string(final LogStrategy strategy, final LogEvent event) {
+        Slot slot = slot(strategy);
+        if (slot == null) {
+            return text(strategy, event).toString();
+        }
+        if (slot.string == null) {
+            slot.string = format(slot, strategy, event).toString();
+        }
+        return slot.string;
+    }
+
+    /**
+     * Returns the message of the given event formatted by the given strategy as UTF-8 bytes, encoded once per
+     * strategy.
+     *
+     * @param strategy Strategy to format with
+     * @param event    Event holding the message, any event sharing this cache
+     * @return read only buffer holding the encoded message between its position and limit
+     */
+    synchronized ByteBuffer utf8(final LogStrategy strategy, final LogEvent event) {
+        Slot slot = slot(strategy);
+        if (slot == null) {
+            CharSequence text = text(strategy, event);
+            ByteBuffer bytes = ByteBuffer.allocate(Utf8.encodedLength(text));
+            Utf8.encode(text, bytes);
+            return bytes.flip().asReadOnlyBuffer();
+        }
+        if (!slot.encoded) {
+            slot.encode(event);
+        }
+        return slot.bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Forgets the formatted representations, keeping their builders and buffers for reuse.
+     */
+    void clear() {
+        if (empty) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < used; i++) {
+                slots[i].clear();
+            }
+            used = 0;
+            empty = true;
+        }
+    }
+
+    private CharSequence format(final Slot slot, final LogStrategy strategy, final LogEvent event) {
+        if (!slot.formatted) {
+            slot.text.setLength(0);
+            strategy.formatTo(event, slot.text);
+            slot.formatted = true;
+        }
+        return slot.text;
+    }
+
+    private Slot slot(final LogStrategy strategy) {
+        for (int i = 0; i < used; i++) {
+            if (slots[i].strategy == strategy) {
+                return slots[i];
+            }
+        }
+        if (used == MAX_STRATEGIES) {
+            return null;
+        }
+        if (slots[used] == null) {
+            slots[used] = new Slot();
+        }
+        Slot slot = slots[used++];
+        slot.strategy = strategy;
+        empty = false;
+        return slot;
+    }
+
+    /**
+     * Representations of the message formatted by one strategy.
+     */
+    private static final class Slot {
+        private final StringBuilder text = new StringBuilder();
+        private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_BYTES_CAPACITY);
+        private LogStrategy strategy;
+        private boolean formatted;
+        private String string;
+        private boolean encoded;
+
+        private void encode(final LogEvent event) {
+            bytes.clear();
+            if (formatted) {
+                // encoding the text formatted for another adapter is cheaper than formatting again
+                if (!Utf8.encode(text, bytes)) {
+                    bytes = ByteBuffer.allocate(Utf8.encodedLength(text));
+                    Utf8.encode(text, bytes);
+                }
+            } else {
+                while (!strategy.encodeTo(event, bytes)) {
+                    bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+                }
+            }
+            bytes.flip();
+            encoded = true;
+        }
+
+        private void clear() {
+            strategy = null;
+            formatted = false;
+            string = null;
+            encoded = false;
+        }
+    }
+}
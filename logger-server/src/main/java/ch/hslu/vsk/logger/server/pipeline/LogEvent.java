@@ -0,0 +1,324 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable holder of a received log message while it passes through the pipeline.
+ * <br />
+ * Instances are preallocated by the {@link LogEventRingBuffer} and recycled for every message published into their
+ * slot: text fields are kept in reused {@link StringBuilder}s and timestamps as primitive nanoseconds since the epoch,
+ * so a message passes the pipeline without allocating. Handlers therefore must not keep references to an event or its
+ * text fields beyond handling it.
+ * <br />
+ * The slot is handed back to the producers once every holder of a reference has released the event, so handlers
+ * passing the event on to further stages {@link #retain()} it and have the stage call {@link #getReleaseCallback()}
+ * when done.
+ * <br />
+ * The formatted representations of the message are cached per {@link LogStrategy} in a {@link FormatCache}. A copy
+ * released into the release callback of its event, as queued for every adapter, shares the cache of the event, since
+ * the event outlives its copies.
+ * Thus every strategy formats a message at most once, however many adapters use it.
+ */
+public final class LogEvent {
+    /**
+     * Timestamp value of an event without the respective timestamp.
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int INITIAL_TEXT_CAPACITY = 256;
+    private final LogEventRingBuffer ringBuffer;
+    private final int index;
+    private final AtomicInteger references = new AtomicInteger();
+    private final Runnable releaseCallback = this::release;
+    private final StringBuilder message = new StringBuilder(INITIAL_TEXT_CAPACITY);
+    private final StringBuilder source = new StringBuilder();
+    private final FormatCache ownFormats = new FormatCache();
+    private FormatCache formats = ownFormats;
+    private LogLevel level;
+    private long createdAt = NO_TIMESTAMP;
+    private long processedAt = NO_TIMESTAMP;
+    private Runnable onProcessed;
+    private long position;
+
+    /**
+     * Constructs a new event not belonging to a ring buffer, f.e. to decode received messages into before publishing
+     * them.
+     */
+    public LogEvent() {
+        this(null, -1);
+    }
+
+    LogEvent(final LogEventRingBuffer ringBuffer, final int index) {
+        this.ringBuffer = ringBuffer;
+        this.index = index;
+    }
+
+    /**
+     * Returns the text of the log message.
+     *
+     * @return reused buffer holding the text, empty if the message had none
+     */
+    public CharSequence getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the name of the system the log message originates from.
+     *
+     * @return reused buffer holding the source, empty if the message had none
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the level of the log message.
+     *
+     * @return level, may be {@code null}
+     */
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the point of time the log message was created by the client.
+     *
+     * @return nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Returns the point of time the log message was processed by the server.
+     *
+     * @return nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     */
+    public long getProcessedAt() {
+        return processedAt;
+    }
+
+    /**
+     * Returns the second the log message was processed by the server, the current one if it has no such timestamp.
+     *
+     * @return seconds since the epoch
+     */
+    public long getProcessedEpochSecond() {
+        if (processedAt == NO_TIMESTAMP) {
+            return Instant.now().getEpochSecond();
+        }
+        return Math.floorDiv(processedAt, TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the buffer to decode the text of the log message into.
+     *
+     * @return cleared, reused buffer
+     */
+    public StringBuilder clearMessage() {
+        invalidateFormats();
+        message.setLength(0);
+        return message;
+    }
+
+    /**
+     * Returns the buffer to decode the source of the log message into.
+     *
+     * @return cleared, reused buffer
+     */
+    public StringBuilder clearSource() {
+        invalidateFormats();
+        source.setLength(0);
+        return source;
+    }
+
+    /**
+     * Sets the level of the log message.
+     *
+     * @param level level, may be {@code null}
+     */
+    public void setLevel(final LogLevel level) {
+        invalidateFormats();
+        this.level = level;
+    }
+
+    /**
+     * Sets the point of time the log message was created by the client.
+     *
+     * @param createdAt nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     */
+    public void setCreatedAt(final long createdAt) {
+        invalidateFormats();
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Sets the point of time the log message was processed by the server.
+     *
+     * @param processedAt nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     */
+    public void setProcessedAt(final long processedAt) {
+        invalidateFormats();
+        this.processedAt = processedAt;
+    }
+
+    /**
+     * Copies all fields of the given event into this one.
+     *
+     * @param other Event to copy
+     */
+    public void copyFrom(final LogEvent other) {
+        invalidateFormats();
+        clearMessage().append(other.message);
+        clearSource().append(other.source);
+        level = other.level;
+        createdAt = other.createdAt;
+        processedAt = other.processedAt;
+    }
+
+    /**
+     * Copies all fields of the given log message into this event.
+     *
+     * @param messageDo Log message to copy
+     */
+    public void copyFrom(final LogMessageDo messageDo) {
+        invalidateFormats();
+        clearMessage();
+        if (messageDo.getMessage() != null) {
+            message.append(messageDo.getMessage());
+        }
+        clearSource();
+        if (messageDo.getSource() != null) {
+            source.append(messageDo.getSource());
+        }
+        level = messageDo.getLevel();
+        createdAt = toEpochNanos(messageDo.getCreatedAt());
+        processedAt = toEpochNanos(messageDo.getProcessedAt());
+    }
+
+    /**
+     * Returns the log message formatted by the given strategy, formatting it only if no adapter has done so before.
+     *
+     * @param strategy Strategy to format with, cached by identity
+     * @return formatted message, must not be referenced once the event is handled
+     */
+    public CharSequence getFormatted(final LogStrategy strategy) {
+        return formats.text(strategy, this);
+    }
+
+    /**
+     * Returns the log message formatted by the given strategy as string, created at most once per strategy.
+     *
+     * @param strategy Strategy to format with, cached by identity
+     * @return formatted message
+     */
+    public String getFormattedString(final LogStrategy strategy) {
+        return formats.string(strategy, this);
+    }
+
+    /**
+     * Returns the log message formatted by the given strategy encoded as UTF-8, encoded at most once per strategy.
+     *
+     * @param strategy Strategy to format with, cached by identity
+     * @return read only buffer holding the encoded message between its position and limit, must not be referenced
+     * once the event is handled
+     */
+    public ByteBuffer getFormattedUtf8(final LogStrategy strategy) {
+        return formats.utf8(strategy, this);
+    }
+
+    /**
+     * Creates an immutable {@link LogMessageDo} of the event, for consumers not (yet) working on events.
+     * Allocates, thus should be avoided on the hot path.
+     *
+     * @return log message with the fields of the event
+     */
+    public LogMessageDo toMessageDo() {
+        return new LogMessageDo.Builder(message.toString())
+                .from(source.toString())
+                .level(level)
+                .at(toInstant(createdAt))
+                .processed(toInstant(processedAt))
+                .build();
+    }
+
+    /**
+     * Adds a reference to the event, which keeps its slot occupied until the reference is released.
+     */
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Releases a reference to the event. Releasing the last reference notifies the publisher that the event has been
+     * processed and hands its slot back to the producers.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            Runnable callback = onProcessed;
+            onProcessed = null;
+            if (ringBuffer != null) {
+                ringBuffer.free(index, position);
+            }
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+
+    /**
+     * Returns a callback releasing a reference to the event, allocated once per slot.
+     *
+     * @return callback calling {@link #release()}
+     */
+    public Runnable getReleaseCallback() {
+        return releaseCallback;
+    }
+
+    /**
+     * Converts the given instant to nanoseconds since the epoch.
+     *
+     * @param instant instant between the years 1677 and 2262, may be {@code null}
+     * @return nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     */
+    public static long toEpochNanos(final Instant instant) {
+        if (instant == null) {
+            return NO_TIMESTAMP;
+        }
+        return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    }
+
+    /**
+     * Converts the given nanoseconds since the epoch to an instant.
+     *
+     * @param epochNanos nanoseconds since the epoch or {@link #NO_TIMESTAMP}
+     * @return instant, {@code null} for {@link #NO_TIMESTAMP}
+     */
+    public static Instant toInstant(final long epochNanos) {
+        if (epochNanos == NO_TIMESTAMP) {
+            return null;
+        }
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    void publish(final LogEvent payload, final Runnable callback, final long publishedAt) {
+        copyFrom(payload);
+        if (callback == payload.releaseCallback) {
+            // the payload is only released once this copy has been processed, thus outlives it
+            formats = payload.formats;
+        }
+        this.onProcessed = callback;
+        this.position = publishedAt;
+    }
+
+    private void invalidateFormats() {
+        formats = ownFormats;
+        ownFormats.clear();
+    }
+}
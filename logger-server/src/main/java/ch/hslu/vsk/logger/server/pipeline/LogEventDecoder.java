@@ -0,0 +1,129 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes the {@link LogMessageDo}s sent by the clients into a reused {@link LogEvent}.
+ * <br />
+ * In allocation free mode the decoder reads the fields straight from the {@link Input} in the wire format Kryo's
+ * field serializer produces for {@link LogMessageDo} (fields in alphabetical order, each prefixed by a null marker
+ * respectively encoded as a nullable string), appending the text fields to the reused buffers of the event. Otherwise
+ * it deserializes a {@link LogMessageDo} with Kryo and copies its fields, which allocates the message, its strings and
+ * timestamps. Not thread safe, every connection uses its own decoder.
+ */
+public final class LogEventDecoder {
+    private static final byte NULL = 0;
+    private static final int ASCII_END = 0x80;
+    private static final int ASCII_CHAR = 0x7F;
+    private static final LogLevel[] LEVELS = LogLevel.values();
+    private final Kryo kryo;
+    private final boolean allocationFree;
+
+    /**
+     * Constructs a new {@link LogEventDecoder} instance.
+     *
+     * @param kryo           Configured Kryo serialization client, used unless in allocation free mode
+     * @param allocationFree {@code true} to decode without allocating
+     * @throws IllegalArgumentException if {@code kryo} is {@code null}
+     */
+    public LogEventDecoder(final Kryo kryo, final boolean allocationFree) {
+        if (kryo == null) {
+            throw new IllegalArgumentException("Provided kryo cannot be null");
+        }
+
+        this.kryo = kryo;
+        this.allocationFree = allocationFree;
+    }
+
+    /**
+     * Returns the Kryo instance of the decoder, f.e. in order to hand it back to its pool once the decoder is done.
+     *
+     * @return Kryo instance
+     */
+    public Kryo getKryo() {
+        return kryo;
+    }
+
+    /**
+     * Reads the next log message from the input into the given event.
+     *
+     * @param input  Input to read from
+     * @param target Event to overwrite with the decoded message
+     * @throws KryoException if the input ended or does not hold a valid log message
+     */
+    public void decode(final Input input, final LogEvent target) {
+        if (!allocationFree) {
+            target.copyFrom(kryo.readObject(input, LogMessageDo.class));
+            return;
+        }
+
+        target.setCreatedAt(readInstant(input));
+        target.setLevel(readLevel(input));
+        readString(input, target.clearMessage());
+        target.setProcessedAt(readInstant(input));
+        readString(input, target.clearSource());
+    }
+
+    private static long readInstant(final Input input) {
+        if (input.readByte() == NULL) {
+            return LogEvent.NO_TIMESTAMP;
+        }
+        long seconds = input.readVarLong(true);
+        int nanos = input.readInt(true);
+        return TimeUnit.SECONDS.toNanos(seconds) + nanos;
+    }
+
+    private static LogLevel readLevel(final Input input) {
+        int ordinal = input.readVarInt(true);
+        if (ordinal == NULL) {
+            return null;
+        }
+        if (ordinal > LEVELS.length) {
+            throw new KryoException("Invalid log level ordinal: " + (ordinal - 1));
+        }
+        return LEVELS[ordinal - 1];
+    }
+
+    /**
+     * Reads a string written by {@link com.esotericsoftware.kryo.io.Output#writeString(String)}, which either encodes
+     * ASCII with the end marked by the highest bit or the length followed by the characters in UTF-8.
+     *
+     * @param input  Input positioned at the string
+     * @param target Builder the characters are appended to
+     */
+    private static void readString(final Input input, final StringBuilder target) {
+        if (!input.readVarIntFlag()) {
+            int b;
+            do {
+                b = input.readByte();
+                target.append((char) (b & ASCII_CHAR));
+            } while ((b & ASCII_END) == 0);
+            return;
+        }
+
+        // 0 encodes null, 1 the empty string, which are both decoded as empty
+        int charCount = input.readVarIntFlag(true) - 1;
+        for (int i = 0; i < charCount; i++) {
+            target.append(readUtf8Char(input));
+        }
+    }
+
+    private static char readUtf8Char(final Input input) {
+        int b = input.readByte() & 0xFF;
+        switch (b >> 4) {
+            case 12:
+            case 13:
+                return (char) ((b & 0x1F) << 6 | input.readByte() & 0x3F);
+            case 14:
+                return (char) ((b & 0x0F) << 12 | (input.readByte() & 0x3F) << 6 | input.readByte() & 0x3F);
+            default:
+                return (char) b;
+        }
+    }
+}
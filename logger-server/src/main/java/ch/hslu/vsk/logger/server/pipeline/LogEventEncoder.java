@@ -0,0 +1,82 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a {@link LogEvent} straight into an {@link Output} in the wire format Kryo's field serializer produces for
+ * {@link LogMessageDo}, the counterpart of the allocation free mode of the {@link LogEventDecoder}.
+ * <br />
+ * Writing the fields of the event directly avoids copying it into a {@link LogMessageDo} with its strings and
+ * timestamps first. Strings are always written in the UTF-8 form of {@link Output#writeString(String)}, which every
+ * reader of that format accepts.
+ */
+public final class LogEventEncoder {
+    private static final byte NULL = 0;
+    private static final byte NOT_NULL = 1;
+    private static final int ONE_BYTE_END = 0x80;
+    private static final int TWO_BYTES_END = 0x800;
+
+    private LogEventEncoder() {
+    }
+
+    /**
+     * Writes the message held by the given event to the output.
+     *
+     * @param event  Event holding the message
+     * @param output Output to write to
+     */
+    public static void encode(final LogEvent event, final Output output) {
+        writeInstant(output, event.getCreatedAt());
+        writeLevel(output, event.getLevel());
+        writeString(output, event.getMessage());
+        writeInstant(output, event.getProcessedAt());
+        writeString(output, event.getSource());
+    }
+
+    private static void writeInstant(final Output output, final long epochNanos) {
+        if (epochNanos == LogEvent.NO_TIMESTAMP) {
+            output.writeByte(NULL);
+            return;
+        }
+        output.writeByte(NOT_NULL);
+        output.writeVarLong(Math.floorDiv(epochNanos, TimeUnit.SECONDS.toNanos(1)), true);
+        output.writeInt((int) Math.floorMod(epochNanos, TimeUnit.SECONDS.toNanos(1)), true);
+    }
+
+    private static void writeLevel(final Output output, final LogLevel level) {
+        if (level == null) {
+            output.writeVarInt(NULL, true);
+            return;
+        }
+        output.writeVarInt(level.ordinal() + 1, true);
+    }
+
+    /**
+     * Writes the given characters like {@link Output#writeString(String)} writes a non-ASCII string: the flagged
+     * number of characters plus one, followed by each character in up to three bytes.
+     *
+     * @param output Output to write to
+     * @param value  Characters to write
+     */
+    private static void writeString(final Output output, final CharSequence value) {
+        int charCount = value.length();
+        output.writeVarIntFlag(true, charCount + 1, true);
+        for (int i = 0; i < charCount; i++) {
+            char c = value.charAt(i);
+            if (c < ONE_BYTE_END) {
+                output.writeByte(c);
+            } else if (c < TWO_BYTES_END) {
+                output.writeByte(0xC0 | c >> 6);
+                output.writeByte(0x80 | c & 0x3F);
+            } else {
+                output.writeByte(0xE0 | c >> 12);
+                output.writeByte(0x80 | c >> 6 & 0x3F);
+                output.writeByte(0x80 | c & 0x3F);
+            }
+        }
+    }
+}
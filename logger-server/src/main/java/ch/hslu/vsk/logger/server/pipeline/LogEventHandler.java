@@ -0,0 +1,22 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+/**
+ * Consumer of the events drained from a {@link LogEventRingBuffer}.
+ */
+@FunctionalInterface
+public interface LogEventHandler {
+    /**
+     * Processes one event of a batch.
+     *
+     * @param event      Event to process, only valid for the duration of the call
+     * @param endOfBatch {@code true} for the last event of the batch, allowing handlers to flush batched work
+     */
+    void onEvent(LogEvent event, boolean endOfBatch);
+
+    /**
+     * Called once on the consumer thread after the stage has drained its last event, allowing handlers to flush and
+     * release their resources.
+     */
+    default void onShutdown() {
+    }
+}
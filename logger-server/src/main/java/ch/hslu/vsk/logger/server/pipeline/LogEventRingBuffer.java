@@ -0,0 +1,145 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, preallocated queue of {@link LogEvent}s with any number of producers and a single consumer.
+ * <br />
+ * Every slot carries a sequence telling producers and the consumer whose turn it is (Vyukov's bounded queue), thus
+ * producers only contend on claiming a position and never wait for each other while filling their slot. The events
+ * are allocated once up front and recycled, so publishing does not allocate.
+ * <br />
+ * A drained event keeps its slot until all references to it are released (see {@link LogEvent#retain()}), thus
+ * events handed on to further stages bound the number of messages in flight across the whole pipeline.
+ */
+public final class LogEventRingBuffer {
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+    private final LogEvent[] events;
+    private final long[] sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder freed = new LongAdder();
+    private volatile long head;
+
+    /**
+     * Constructs a new {@link LogEventRingBuffer} with all its events preallocated.
+     *
+     * @param capacity Number of events the ring buffer holds, a power of two
+     * @throws IllegalArgumentException if {@code capacity} is not a positive power of two
+     */
+    public LogEventRingBuffer(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two, was " + capacity);
+        }
+
+        this.events = new LogEvent[capacity];
+        this.sequences = new long[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new LogEvent(this, i);
+            sequences[i] = i;
+        }
+    }
+
+    /**
+     * Publishes a copy of the given event if there is a free slot. Safe to be called by any number of threads.
+     *
+     * @param payload     Event to publish a copy of
+     * @param onProcessed Callback run by the consumer once the event has been processed, may be {@code null}
+     * @return {@code false} if the ring buffer is full
+     */
+    public boolean tryPublish(final LogEvent payload, final Runnable onProcessed) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = (long) SEQUENCES.getAcquire(sequences, index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index].publish(payload, onProcessed, position);
+                    SEQUENCES.setRelease(sequences, index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the consumer has not yet released the slot of the previous lap
+                return false;
+            } else {
+                // another producer claimed the position meanwhile
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code maxBatchSize} published events in publish order to the handler. The slot of an event is
+     * released once the handler returns, unless the handler retained the event. Must only be called by the single
+     * consumer thread.
+     *
+     * @param handler      Handler to process the events
+     * @param maxBatchSize Maximum number of events to drain
+     * @return number of drained events, {@code 0} if the ring buffer was empty
+     */
+    public int drain(final LogEventHandler handler, final int maxBatchSize) {
+        long first = head;
+        int available = 0;
+        while (available < maxBatchSize
+                && (long) SEQUENCES.getAcquire(sequences, (int) (first + available) & mask) == first + available + 1) {
+            available++;
+        }
+
+        for (int i = 0; i < available; i++) {
+            long position = first + i;
+            LogEvent event = events[(int) position & mask];
+            event.retain();
+            try {
+                handler.onEvent(event, i == available - 1);
+            } finally {
+                head = position + 1;
+                event.release();
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Hands the slot of a fully released event to the producers of the next lap. Slots may be freed in any order.
+     *
+     * @param index    Index of the slot
+     * @param position Position the event was published at
+     */
+    void free(final int index, final long position) {
+        freed.increment();
+        SEQUENCES.setRelease(sequences, index, position + events.length);
+    }
+
+    /**
+     * Returns the number of events published but not yet drained.
+     *
+     * @return approximate number of queued events
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Returns the number of events published whose slots have not been freed yet, including drained events still
+     * referenced by further stages.
+     *
+     * @return approximate number of events in flight
+     */
+    public long getInFlight() {
+        return Math.max(0, tail.get() - freed.sum());
+    }
+
+    /**
+     * Returns the number of events the ring buffer holds.
+     *
+     * @return capacity of the ring buffer
+     */
+    public int getCapacity() {
+        return events.length;
+    }
+}
@@ -0,0 +1,18 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+/**
+ * Defines how a message is handed to an {@link AdapterStage} whose queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Waits for the adapter to catch up, pushing back on the dispatcher and eventually on the clients.
+     * Suited for durable adapters which must not lose messages.
+     */
+    BLOCK,
+
+    /**
+     * Skips the message for the adapter, so a slow adapter never delays the others.
+     * Suited for best effort adapters like live viewers.
+     */
+    DROP
+}
@@ -0,0 +1,280 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stage of the ingest pipeline: one or more lanes, each a {@link LogEventRingBuffer} fed by any number of producers,
+ * drained in batches by a dedicated consumer thread handing the events to a {@link LogEventHandler}.
+ * <br />
+ * Producers finding the queue of their lane full wait until the consumer has freed a slot, so a slow stage pushes
+ * back on its producers instead of buffering without bounds.
+ * <br />
+ * Lanes are served by deficit round robin: per round, every lane may hand {@code batchSize} events times its weight
+ * to the handler. A lane flooded by one producer therefore only delays its own producers, while the other lanes
+ * keep their share of the stage's throughput. The ring buffer of a lane is allocated on its first use.
+ */
+public final class PipelineStage implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineStage.class);
+    private final String name;
+    private final int laneCapacity;
+    private final AtomicReferenceArray<Lane> lanes;
+    private final LogEventHandler handler;
+    private final int batchSize;
+    private final StageMetrics metrics;
+    private volatile boolean running = true;
+    private Thread consumer;
+
+    /**
+     * Constructs a new single lane {@link PipelineStage} instance.
+     *
+     * @param name      Name of the stage, used for its consumer thread and metrics
+     * @param capacity  Number of events the queue of the stage holds, a power of two
+     * @param batchSize Maximum number of events handled per batch
+     * @param handler   Handler processing the events
+     * @throws IllegalArgumentException if {@code name} or {@code handler} is {@code null} or a size is invalid
+     */
+    public PipelineStage(final String name, final int capacity, final int batchSize, final LogEventHandler handler) {
+        this(name, 1, capacity, batchSize, handler);
+    }
+
+    /**
+     * Constructs a new {@link PipelineStage} instance with the given number of lanes.
+     *
+     * @param name         Name of the stage, used for its consumer thread and metrics
+     * @param laneCount    Number of lanes
+     * @param laneCapacity Number of events the queue of each lane holds, a power of two
+     * @param batchSize    Maximum number of events handled per batch
+     * @param handler      Handler processing the events
+     * @throws IllegalArgumentException if {@code name} or {@code handler} is {@code null} or a size is invalid
+     */
+    public PipelineStage(final String name, final int laneCount, final int laneCapacity, final int batchSize,
+                         final LogEventHandler handler) {
+        if (name == null) {
+            throw new IllegalArgumentException("Provided name cannot be null");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Provided handler cannot be null");
+        }
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("Lane count must be positive, was " + laneCount);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize);
+        }
+
+        this.name = name;
+        this.laneCapacity = laneCapacity;
+        this.lanes = new AtomicReferenceArray<>(laneCount);
+        this.handler = handler;
+        this.batchSize = batchSize;
+        // fail fast on an invalid capacity instead of on the first message
+        this.lanes.set(0, new Lane(new LogEventRingBuffer(laneCapacity), 1));
+        this.metrics = new StageMetrics(name, this);
+    }
+
+    /**
+     * Starts the consumer of the stage on a dedicated platform thread.
+     */
+    public void start() {
+        consumer = Thread.ofPlatform().name(name).daemon().start(this);
+    }
+
+    /**
+     * Publishes a copy of the given event into the first lane of the stage, waiting while its queue is full.
+     *
+     * @param payload     Event to publish a copy of
+     * @param onProcessed Callback run once the handler has processed the message, may be {@code null}
+     */
+    public void publish(final LogEvent payload, final Runnable onProcessed) {
+        publish(0, 1, payload, onProcessed);
+    }
+
+    /**
+     * Publishes a copy of the given event into the given lane of the stage, waiting while its queue is full.
+     *
+     * @param lane        Index of the lane
+     * @param weight      Share of the lane relative to the other lanes, applied when the lane is first used
+     * @param payload     Event to publish a copy of
+     * @param onProcessed Callback run once the handler has processed the message, may be {@code null}
+     */
+    public void publish(final int lane, final int weight, final LogEvent payload, final Runnable onProcessed) {
+        LogEventRingBuffer ringBuffer = lane(lane, weight).ringBuffer;
+        if (!ringBuffer.tryPublish(payload, onProcessed)) {
+            metrics.recordProducerStall();
+            int idleIterations = 0;
+            while (!ringBuffer.tryPublish(payload, onProcessed)) {
+                idleIterations = BackoffIdleStrategy.idle(idleIterations);
+            }
+        }
+        metrics.recordPublished();
+    }
+
+    /**
+     * Publishes a copy of the given event into the first lane of the stage if its queue has a free slot, counting it
+     * as dropped otherwise.
+     *
+     * @param payload     Event to publish a copy of
+     * @param onProcessed Callback run once the handler has processed the message, may be {@code null}
+     * @return {@code false} if the queue was full and the event has not been published
+     */
+    public boolean offer(final LogEvent payload, final Runnable onProcessed) {
+        if (lanes.get(0).ringBuffer.tryPublish(payload, onProcessed)) {
+            metrics.recordPublished();
+            return true;
+        }
+        metrics.recordDropped();
+        return false;
+    }
+
+    /**
+     * Drains the lanes in batches until {@link #stop(Duration)} is called and all published events are processed,
+     * then shuts down the handler.
+     */
+    @Override
+    public void run() {
+        int idleIterations = 0;
+        while (running || getQueueDepth() > 0) {
+            int drained = 0;
+            for (int i = 0; i < lanes.length(); i++) {
+                Lane lane = lanes.get(i);
+                if (lane != null) {
+                    drained += drainLane(lane);
+                }
+            }
+
+            if (drained == 0) {
+                idleIterations = BackoffIdleStrategy.idle(idleIterations);
+            } else {
+                idleIterations = 0;
+            }
+        }
+        try {
+            handler.onShutdown();
+        } catch (RuntimeException exception) {
+            LOG.error("Stage {} failed to shut down its handler", name, exception);
+        }
+        LOG.info("Stopped stage {}", metrics);
+    }
+
+    /**
+     * Stops the stage once the already published events are processed, waiting at most the given timeout.
+     *
+     * @param timeout Maximum time to wait for the queue to be drained
+     * @return {@code true} if all published events have been processed in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean stop(final Duration timeout) throws InterruptedException {
+        running = false;
+        if (consumer == null) {
+            return getQueueDepth() == 0;
+        }
+        return consumer.join(timeout);
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return name of the stage
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the queue metrics of the stage.
+     *
+     * @return metrics of the stage
+     */
+    public StageMetrics getMetrics() {
+        return metrics;
+    }
+
+    int getQueueDepth() {
+        int depth = 0;
+        for (int i = 0; i < lanes.length(); i++) {
+            Lane lane = lanes.get(i);
+            if (lane != null) {
+                depth += lane.ringBuffer.size();
+            }
+        }
+        return depth;
+    }
+
+    long getInFlight() {
+        long inFlight = 0;
+        for (int i = 0; i < lanes.length(); i++) {
+            Lane lane = lanes.get(i);
+            if (lane != null) {
+                inFlight += lane.ringBuffer.getInFlight();
+            }
+        }
+        return inFlight;
+    }
+
+    int getQueueCapacity() {
+        int capacity = 0;
+        for (int i = 0; i < lanes.length(); i++) {
+            Lane lane = lanes.get(i);
+            if (lane != null) {
+                capacity += lane.ringBuffer.getCapacity();
+            }
+        }
+        return capacity;
+    }
+
+    private int drainLane(final Lane lane) {
+        if (lane.ringBuffer.size() == 0) {
+            // idle lanes do not save up their share
+            lane.deficit = 0;
+            return 0;
+        }
+
+        lane.deficit += (long) batchSize * lane.weight;
+        int drained = 0;
+        while (lane.deficit > 0) {
+            long start = System.nanoTime();
+            int batch;
+            try {
+                batch = lane.ringBuffer.drain(handler, (int) Math.min(lane.deficit, batchSize));
+            } catch (RuntimeException exception) {
+                LOG.error("Stage {} failed to process an event, skipping it", name, exception);
+                continue;
+            }
+            if (batch == 0) {
+                lane.deficit = 0;
+                break;
+            }
+            lane.deficit -= batch;
+            drained += batch;
+            metrics.recordBatch(batch, System.nanoTime() - start);
+        }
+        return drained;
+    }
+
+    private Lane lane(final int index, final int weight) {
+        Lane lane = lanes.get(index);
+        if (lane == null) {
+            lanes.compareAndSet(index, null, new Lane(new LogEventRingBuffer(laneCapacity), weight));
+            lane = lanes.get(index);
+        }
+        return lane;
+    }
+
+    /**
+     * Queue of one lane together with its scheduling state, which is only accessed by the consumer.
+     */
+    private static final class Lane {
+        private final LogEventRingBuffer ringBuffer;
+        private final int weight;
+        private long deficit;
+
+        private Lane(final LogEventRingBuffer ringBuffer, final int weight) {
+            this.ringBuffer = ringBuffer;
+            this.weight = Math.max(1, weight);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.server.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue metrics of one {@link PipelineStage}.
+ * <br />
+ * Counters written by the producers are striped in order not to add contention to the publishing path, the ones
+ * written by the consumer of the stage are single writer fields.
+ */
+public final class StageMetrics {
+    private final String stageName;
+    private final PipelineStage stage;
+    private final LongAdder published = new LongAdder();
+    private final LongAdder producerStalls = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Histogram batchDuration = Histogram.latency();
+    private volatile long processed;
+    private volatile long batches;
+    private volatile int maxBatchSize;
+
+    StageMetrics(final String stageName, final PipelineStage stage) {
+        this.stageName = stageName;
+        this.stage = stage;
+    }
+
+    void recordPublished() {
+        published.increment();
+    }
+
+    void recordProducerStall() {
+        producerStalls.increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    @SuppressWarnings("NonAtomicOperationOnVolatileField") // only written by the consumer thread
+    void recordBatch(final int batchSize, final long durationNanos) {
+        batchDuration.record(durationNanos);
+        processed += batchSize;
+        batches++;
+        if (batchSize > maxBatchSize) {
+            maxBatchSize = batchSize;
+        }
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return name of the stage
+     */
+    public String getStageName() {
+        return stageName;
+    }
+
+    /**
+     * Returns the number of events published into the stage.
+     *
+     * @return published events
+     */
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * Returns the number of events the stage has processed.
+     *
+     * @return processed events
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Returns the number of batches the stage has processed.
+     *
+     * @return processed batches
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Returns the size of the largest batch processed so far.
+     *
+     * @return maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Returns the number of times a producer found the queue of the stage full and had to wait.
+     *
+     * @return producer stalls
+     */
+    public long getProducerStalls() {
+        return producerStalls.sum();
+    }
+
+    /**
+     * Returns the number of events dropped as the queue of the stage was full.
+     *
+     * @return dropped events
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Returns the number of events currently waiting in the queue of the stage.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return stage.getQueueDepth();
+    }
+
+    /**
+     * Returns the number of events published into the stage whose slots have not been freed yet, as they are
+     * queued, being processed or still referenced by further stages.
+     *
+     * @return events in flight
+     */
+    public long getInFlight() {
+        return stage.getInFlight();
+    }
+
+    /**
+     * Returns the number of events the queues of all lanes in use can hold.
+     *
+     * @return queue capacity
+     */
+    public int getQueueCapacity() {
+        return stage.getQueueCapacity();
+    }
+
+    /**
+     * Returns the distribution of the time the handler of the stage took per batch.
+     *
+     * @return histogram of the batch durations
+     */
+    public Histogram getBatchDuration() {
+        return batchDuration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: published=%d, processed=%d, batches=%d, maxBatch=%d, depth=%d/%d, stalls=%d, dropped=%d",
+                stageName, getPublished(), processed, batches, maxBatchSize, getQueueDepth(), getQueueCapacity(),
+                getProducerStalls(), getDropped());
+    }
+}
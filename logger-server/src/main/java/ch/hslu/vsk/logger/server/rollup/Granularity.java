@@ -0,0 +1,40 @@
+package ch.hslu.vsk.logger.server.rollup;
+
+/**
+ * Width of the time buckets the messages are counted in.
+ */
+public enum Granularity {
+    /**
+     * Buckets of one second, kept for a short retention only.
+     */
+    SECOND(1),
+    /**
+     * Buckets of one minute, kept in memory for a longer retention and persisted to the rollup files.
+     */
+    MINUTE(60);
+
+    private final long seconds;
+
+    Granularity(final long seconds) {
+        this.seconds = seconds;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given point of time.
+     *
+     * @param epochSecond Seconds since the epoch
+     * @return start of the bucket in seconds since the epoch
+     */
+    public long bucketOf(final long epochSecond) {
+        return epochSecond - Math.floorMod(epochSecond, seconds);
+    }
+
+    /**
+     * Returns the width of the buckets.
+     *
+     * @return width in seconds
+     */
+    public long getSeconds() {
+        return seconds;
+    }
+}
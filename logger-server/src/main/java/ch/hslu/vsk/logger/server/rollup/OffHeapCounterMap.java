@@ -0,0 +1,183 @@
+package ch.hslu.vsk.logger.server.rollup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongPredicate;
+
+/**
+ * Open addressing hash map from {@code long} keys to {@code long} counters, stored off heap in a direct buffer of
+ * 16 byte slots, so millions of counters neither allocate per entry nor burden the garbage collector.
+ * <br />
+ * Collisions are resolved by linear probing. The map doubles its capacity once three quarters of the slots are in
+ * use and entries are only removed in bulk by {@link #retainIf(LongPredicate)}, which compacts the slots in place by
+ * backward shift deletion instead of allocating new ones, so the periodic eviction of old buckets does not churn
+ * direct memory. Key {@value #EMPTY} is reserved for empty slots. Not thread safe.
+ */
+final class OffHeapCounterMap {
+    private static final long EMPTY = 0L;
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs a new {@link OffHeapCounterMap} instance.
+     *
+     * @param initialCapacity Number of slots allocated initially, a power of two
+     * @throws IllegalArgumentException if the capacity is not a power of two
+     */
+    OffHeapCounterMap(final int initialCapacity) {
+        if (initialCapacity <= 0 || Integer.bitCount(initialCapacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, was " + initialCapacity);
+        }
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Adds one to the counter of the given key.
+     *
+     * @param key Key, not {@value #EMPTY}
+     */
+    void increment(final long key) {
+        int offset = find(key) * SLOT_SIZE;
+        if (slots.getLong(offset) == EMPTY) {
+            slots.putLong(offset, key);
+            size++;
+        }
+        slots.putLong(offset + Long.BYTES, slots.getLong(offset + Long.BYTES) + 1);
+        if (size * 4L > (mask + 1) * 3L) {
+            grow();
+        }
+    }
+
+    /**
+     * Returns the counter of the given key.
+     *
+     * @param key Key
+     * @return counter, {@code 0} if the key is not contained
+     */
+    long get(final long key) {
+        int offset = find(key) * SLOT_SIZE;
+        if (slots.getLong(offset) == EMPTY) {
+            return 0;
+        }
+        return slots.getLong(offset + Long.BYTES);
+    }
+
+    /**
+     * Visits all entries in no particular order.
+     *
+     * @param visitor Visitor of the entries
+     */
+    void forEach(final Visitor visitor) {
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = slots.getLong(slot * SLOT_SIZE);
+            if (key != EMPTY) {
+                visitor.visit(key, slots.getLong(slot * SLOT_SIZE + Long.BYTES));
+            }
+        }
+    }
+
+    /**
+     * Removes all entries whose key does not satisfy the given predicate.
+     *
+     * @param keep Predicate of the keys to keep
+     */
+    void retainIf(final LongPredicate keep) {
+        // start behind an empty slot, so no run of occupied slots wraps around the start of the scan
+        int start = 0;
+        while (slots.getLong(start * SLOT_SIZE) != EMPTY) {
+            start++;
+        }
+        for (int i = 1; i <= mask; i++) {
+            int slot = (start + i) & mask;
+            long key = slots.getLong(slot * SLOT_SIZE);
+            // a removal may shift the next entry of the run into this slot, which is then tested as well
+            while (key != EMPTY && !keep.test(key)) {
+                remove(slot);
+                key = slots.getLong(slot * SLOT_SIZE);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(final long key) {
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long current = slots.getLong(slot * SLOT_SIZE);
+            if (current == key || current == EMPTY) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties the given slot and moves the following entries of its run backwards, so every entry stays reachable
+     * from its home slot without gaps.
+     *
+     * @param slot Index of the slot to empty
+     */
+    private void remove(final int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long key = slots.getLong(next * SLOT_SIZE);
+        while (key != EMPTY) {
+            int home = (int) mix(key) & mask;
+            // the entry may fill the hole unless its home lies cyclically within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots.putLong(hole * SLOT_SIZE, key);
+                slots.putLong(hole * SLOT_SIZE + Long.BYTES, slots.getLong(next * SLOT_SIZE + Long.BYTES));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+            key = slots.getLong(next * SLOT_SIZE);
+        }
+        slots.putLong(hole * SLOT_SIZE, EMPTY);
+        slots.putLong(hole * SLOT_SIZE + Long.BYTES, 0);
+        size--;
+    }
+
+    private void grow() {
+        ByteBuffer previous = slots;
+        int previousSlots = mask + 1;
+        allocate(2 * previousSlots);
+        for (int slot = 0; slot < previousSlots; slot++) {
+            long key = previous.getLong(slot * SLOT_SIZE);
+            if (key != EMPTY) {
+                int offset = find(key) * SLOT_SIZE;
+                slots.putLong(offset, key);
+                slots.putLong(offset + Long.BYTES, previous.getLong(slot * SLOT_SIZE + Long.BYTES));
+                size++;
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE).order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static long mix(final long key) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    /**
+     * Visitor of the entries of the map.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        /**
+         * Visits one entry.
+         *
+         * @param key   Key of the entry
+         * @param count Counter of the entry
+         */
+        void visit(long key, long count);
+    }
+}
@@ -0,0 +1,284 @@
+package ch.hslu.vsk.logger.server.rollup;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+/**
+ * Counts the received messages per source, level and time bucket as they stream in, so questions like "how many
+ * errors did each service log per minute" are answered by {@link #query} without scanning the log file.
+ * <br />
+ * Counters are kept per second and per minute in {@link OffHeapCounterMap}s, keyed by the bucket, an identifier
+ * interned per source and the level packed into a single {@code long}. Counting a message of a known source thus
+ * does not allocate. Messages are counted in the bucket of the time the server processed them, so buckets are
+ * completed in order regardless of the clocks of the clients.
+ * <br />
+ * Whenever a minute is completed, its counters are appended to a rollup file per day as lines of
+ * {@code minute;source;level;count}, and buckets beyond their retention are evicted from memory. Messages processed
+ * in a minute already completed, f.e. by an adapter stage running behind, are counted in their own buckets and
+ * appended as corrections along with the next completed minute, so a minute may occur in several lines, whose counts
+ * add up. The same holds for the minute the server was stopped in and restarted again.
+ * <br />
+ * {@link #query} only answers from the buckets retained in memory, older counts are to be read from the rollup files.
+ */
+public final class RollupLogAdapter implements LogAdapter {
+    private static final Logger LOG = LoggerFactory.getLogger(RollupLogAdapter.class);
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_SOURCES = 1 << 24;
+    private static final int NO_LEVEL = 1;
+    private static final String SEPARATOR = ";";
+    private static final String OVERFLOW_SOURCE = "*";
+    private final Path directory;
+    private final long secondRetention;
+    private final long minuteRetention;
+    private final OffHeapCounterMap seconds = new OffHeapCounterMap(INITIAL_CAPACITY);
+    private final OffHeapCounterMap minutes = new OffHeapCounterMap(INITIAL_CAPACITY);
+    private final OffHeapCounterMap lateMinutes = new OffHeapCounterMap(INITIAL_CAPACITY);
+    private final Map<String, Integer> sourceIds = new HashMap<>();
+    private final List<String> sourceNames = new ArrayList<>();
+    private final LogEvent converted = new LogEvent();
+    private String recentSource;
+    private int recentSourceId;
+    private long currentMinute = Long.MIN_VALUE;
+
+    /**
+     * Constructs a new {@link RollupLogAdapter} instance.
+     *
+     * @param directory       Directory of the rollup files
+     * @param secondRetention Number of seconds the per second counters are kept in memory
+     * @param minuteRetention Number of minutes the per minute counters are kept in memory
+     * @throws IllegalArgumentException if {@code directory} is {@code null} or a retention is not positive
+     */
+    public RollupLogAdapter(final Path directory, final long secondRetention, final long minuteRetention) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Provided directory cannot be null");
+        }
+        if (secondRetention <= 0 || minuteRetention <= 0) {
+            throw new IllegalArgumentException("Retentions must be positive");
+        }
+
+        this.directory = directory;
+        this.secondRetention = secondRetention;
+        this.minuteRetention = minuteRetention;
+    }
+
+    /**
+     * Counts the given message, allocating.
+     *
+     * @param messageDo The log message to count
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        converted.copyFrom(messageDo);
+        saveLogEvent(converted);
+    }
+
+    /**
+     * Counts the message of the given event in the buckets of the second and minute it was processed in.
+     *
+     * @param event Event holding the message
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        long epochSecond = event.getProcessedEpochSecond();
+        long minute = Granularity.MINUTE.bucketOf(epochSecond);
+        if (minute > currentMinute) {
+            completeMinute(minute);
+        }
+        int source = sourceId(event.getSource());
+        int level = levelCode(event.getLevel());
+        seconds.increment(key(epochSecond, source, level));
+        minutes.increment(key(minute, source, level));
+        if (minute < currentMinute) {
+            lateMinutes.increment(key(minute, source, level));
+        }
+    }
+
+    /**
+     * Returns the number of messages of the given source and level per bucket within the given time range, as far
+     * as retained in memory.
+     *
+     * @param source      Name of the source
+     * @param level       Level of the messages, {@code null} to count the messages of all levels
+     * @param granularity Width of the buckets
+     * @param from        Start of the range, inclusive
+     * @param to          End of the range, exclusive
+     * @return counts by the start of their buckets, without empty buckets
+     */
+    public synchronized SortedMap<Instant, Long> query(final String source, final LogLevel level,
+                                                       final Granularity granularity, final Instant from,
+                                                       final Instant to) {
+        SortedMap<Instant, Long> counts = new TreeMap<>();
+        Integer id = sourceIds.get(source);
+        if (id == null || currentMinute == Long.MIN_VALUE) {
+            return counts;
+        }
+
+        // only the buckets retained in memory are looked up, however wide the range
+        OffHeapCounterMap counters = countersOf(granularity);
+        long retention = retentionOf(granularity) * granularity.getSeconds();
+        long start = Math.max(granularity.bucketOf(from.getEpochSecond()), currentMinute - retention);
+        long end = Math.min(to.getEpochSecond(), currentMinute + Granularity.MINUTE.getSeconds());
+        for (long bucket = start; bucket < end; bucket += granularity.getSeconds()) {
+            long count = 0;
+            if (level == null) {
+                for (int code = NO_LEVEL; code <= LogLevel.values().length + NO_LEVEL; code++) {
+                    count += counters.get(key(bucket, id, code));
+                }
+            } else {
+                count = counters.get(key(bucket, id, levelCode(level)));
+            }
+            if (count > 0) {
+                counts.put(Instant.ofEpochSecond(bucket), count);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Appends the counters of the current, incomplete minute and the corrections of completed minutes to the rollup
+     * files.
+     */
+    @Override
+    public synchronized void close() {
+        if (currentMinute != Long.MIN_VALUE) {
+            persistMinute(currentMinute);
+        }
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "rollup"}
+     */
+    @Override
+    public String getName() {
+        return "rollup";
+    }
+
+    private void completeMinute(final long minute) {
+        if (currentMinute != Long.MIN_VALUE) {
+            persistMinute(currentMinute);
+        }
+        currentMinute = minute;
+        long oldestSecond = minute - secondRetention;
+        long oldestMinute = minute - minuteRetention * Granularity.MINUTE.getSeconds();
+        seconds.retainIf(key -> bucketOf(key) >= oldestSecond);
+        minutes.retainIf(key -> bucketOf(key) >= oldestMinute);
+    }
+
+    private void persistMinute(final long minute) {
+        persist(minutes, key -> bucketOf(key) == minute);
+        if (lateMinutes.size() > 0) {
+            persist(lateMinutes, key -> true);
+            lateMinutes.retainIf(key -> false);
+        }
+    }
+
+    /**
+     * Appends the given counters to the rollup files of the days of their minutes.
+     *
+     * @param counters  Counters per minute
+     * @param persisted Predicate selecting the keys of the counters to append
+     */
+    private void persist(final OffHeapCounterMap counters, final LongPredicate persisted) {
+        LogLevel[] levels = LogLevel.values();
+        Map<LocalDate, StringBuilder> lines = new TreeMap<>();
+        counters.forEach((key, count) -> {
+            if (!persisted.test(key)) {
+                return;
+            }
+            Instant minute = Instant.ofEpochSecond(bucketOf(key));
+            int code = (int) (key & 0xff);
+            String level = "";
+            if (code > NO_LEVEL) {
+                level = levels[code - NO_LEVEL - 1].name();
+            }
+            lines.computeIfAbsent(LocalDate.ofInstant(minute, ZoneOffset.UTC), day -> new StringBuilder())
+                    .append(minute).append(SEPARATOR)
+                    .append(sourceNames.get((int) (key >>> 8 & (MAX_SOURCES - 1)))).append(SEPARATOR)
+                    .append(level).append(SEPARATOR).append(count).append(System.lineSeparator());
+        });
+        for (Map.Entry<LocalDate, StringBuilder> day : lines.entrySet()) {
+            Path file = directory.resolve("rollup-" + day.getKey() + ".csv");
+            try {
+                Files.createDirectories(directory);
+                Files.writeString(file, day.getValue(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                LOG.error("Failed to persist rollup of {} to {}", day.getKey(), file, e);
+            }
+        }
+    }
+
+    private int sourceId(final CharSequence source) {
+        if (recentSource != null && recentSource.contentEquals(source)) {
+            return recentSourceId;
+        }
+        String received = source.toString();
+        String name = received;
+        Integer id = sourceIds.get(name);
+        if (id == null) {
+            if (sourceNames.size() == MAX_SOURCES - 1) {
+                name = OVERFLOW_SOURCE;
+                id = sourceIds.get(name);
+            }
+            if (id == null) {
+                id = sourceNames.size();
+                sourceNames.add(name);
+                sourceIds.put(name, id);
+            }
+        }
+        recentSource = received;
+        recentSourceId = id;
+        return id;
+    }
+
+    private static int levelCode(final LogLevel level) {
+        if (level == null) {
+            return NO_LEVEL;
+        }
+        return level.ordinal() + NO_LEVEL + 1;
+    }
+
+    private static long key(final long bucket, final int source, final int level) {
+        return bucket << 32 | (long) source << 8 | level;
+    }
+
+    private static long bucketOf(final long key) {
+        return key >>> 32;
+    }
+
+    private OffHeapCounterMap countersOf(final Granularity granularity) {
+        if (granularity == Granularity.SECOND) {
+            return seconds;
+        }
+        return minutes;
+    }
+
+    private long retentionOf(final Granularity granularity) {
+        if (granularity == Granularity.SECOND) {
+            return secondRetention;
+        }
+        return minuteRetention;
+    }
+}
@@ -0,0 +1,140 @@
+package ch.hslu.vsk.logger.server.routing;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which adapters a log message is handed to, by the first of the configured {@link RoutingRule}s matching
+ * it. Messages matching no rule are handed to all adapters, messages matching a {@code drop} rule to none.
+ * <br />
+ * The rules are compiled once into bitmasks over the rules: one per level and one per source, found by a
+ * {@link SourceTrie} in a single pass over the source. Their intersection yields the candidate rules, of which only
+ * the ones with a message condition need to be evaluated one by one, in the order configured. Routing a message
+ * thus neither allocates nor depends on the number of rules for the level and source conditions. Up to
+ * {@value #MAX_RULES} rules and as many adapters are supported.
+ */
+public final class Router {
+    /**
+     * Adapters of a message handed to all adapters.
+     */
+    public static final long ALL = -1L;
+    /**
+     * Adapters of a dropped message.
+     */
+    public static final long NONE = 0L;
+    private static final int MAX_RULES = Long.SIZE;
+    private static final String RULE_SEPARATOR = ";";
+    private final SourceTrie sources = new SourceTrie();
+    // one more for messages without level, matched by the rules without level condition
+    private final long[] levelRules = new long[LogLevel.values().length + 1];
+    private final String[] messageParts;
+    private final long[] targets;
+
+    private Router(final List<RoutingRule> rules, final List<String> adapterNames) {
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " routing rules are supported");
+        }
+        if (adapterNames.size() > Long.SIZE) {
+            throw new IllegalArgumentException("Routing supports at most " + Long.SIZE + " adapters");
+        }
+
+        this.messageParts = new String[rules.size()];
+        this.targets = new long[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            RoutingRule rule = rules.get(i);
+            sources.add(rule.getSource(), rule.isSourcePrefix(), i);
+            for (LogLevel level : rule.getLevels()) {
+                levelRules[level.ordinal()] |= 1L << i;
+            }
+            if (rule.getLevels().size() == LogLevel.values().length) {
+                levelRules[LogLevel.values().length] |= 1L << i;
+            }
+            messageParts[i] = rule.getMessagePart();
+            for (String adapter : rule.getAdapters()) {
+                int index = adapterNames.indexOf(adapter);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Unknown adapter " + adapter + " in routing rule " + i
+                            + ", known adapters are " + adapterNames);
+                }
+                targets[i] |= 1L << index;
+            }
+        }
+    }
+
+    /**
+     * Compiles the given rules.
+     *
+     * @param rules        Rules separated by {@code ;}, empty to hand all messages to all adapters
+     * @param adapterNames Names of the adapters, in the order of the adapter stages
+     * @return compiled router
+     * @throws IllegalArgumentException if a rule is malformed or refers to an unknown adapter
+     */
+    public static Router compile(final String rules, final List<String> adapterNames) {
+        if (adapterNames == null) {
+            throw new IllegalArgumentException("Provided adapterNames cannot be null");
+        }
+
+        List<RoutingRule> parsed = new ArrayList<>();
+        if (rules != null) {
+            for (String rule : rules.split(RULE_SEPARATOR)) {
+                if (!rule.isBlank()) {
+                    parsed.add(RoutingRule.parse(rule.trim()));
+                }
+            }
+        }
+        return new Router(parsed, adapterNames);
+    }
+
+    /**
+     * Creates a router handing all messages to all adapters.
+     *
+     * @return router without rules
+     */
+    public static Router all() {
+        return new Router(List.of(), List.of());
+    }
+
+    /**
+     * Returns the adapters the given message is handed to.
+     *
+     * @param event Event holding the message
+     * @return bitmask over the indices of the adapters, {@link #ALL} or {@link #NONE}
+     */
+    public long route(final LogEvent event) {
+        LogLevel level = event.getLevel();
+        int levelIndex = levelRules.length - 1;
+        if (level != null) {
+            levelIndex = level.ordinal();
+        }
+        long candidates = levelRules[levelIndex];
+        if (candidates == 0) {
+            return ALL;
+        }
+        candidates &= sources.match(event.getSource());
+        while (candidates != 0) {
+            int rule = Long.numberOfTrailingZeros(candidates);
+            if (messageParts[rule] == null || contains(event.getMessage(), messageParts[rule])) {
+                return targets[rule];
+            }
+            candidates &= candidates - 1;
+        }
+        return ALL;
+    }
+
+    private static boolean contains(final CharSequence text, final String part) {
+        int last = text.length() - part.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < part.length() && text.charAt(start + i) == part.charAt(i)) {
+                i++;
+            }
+            if (i == part.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
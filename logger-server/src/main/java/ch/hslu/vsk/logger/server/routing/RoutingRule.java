@@ -0,0 +1,124 @@
+package ch.hslu.vsk.logger.server.routing;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Routing rule as configured, consisting of predicates on the level, source and message of a log message and the
+ * adapters matching messages are routed to.
+ * <br />
+ * A rule is written as space separated conditions, followed by {@code ->} and either {@code drop} or a comma
+ * separated list of adapter names, f.e. {@code level=Debug source=noisy-* -> drop} or
+ * {@code level=Error|Warning message~timeout -> file,errors}. Supported conditions are:
+ * <ul>
+ *     <li>{@code level=A|B} matches messages of any of the given levels,</li>
+ *     <li>{@code source=name} matches the source exactly, {@code source=prefix*} any source starting with the
+ *     prefix,</li>
+ *     <li>{@code message~text} matches messages containing the text.</li>
+ * </ul>
+ * Conditions left out match any message.
+ */
+final class RoutingRule {
+    private static final String ARROW = "->";
+    private static final String DROP = "drop";
+    private final Set<LogLevel> levels;
+    private final String source;
+    private final boolean sourcePrefix;
+    private final String messagePart;
+    private final List<String> adapters;
+
+    private RoutingRule(final Set<LogLevel> levels, final String source, final boolean sourcePrefix,
+                        final String messagePart, final List<String> adapters) {
+        this.levels = levels;
+        this.source = source;
+        this.sourcePrefix = sourcePrefix;
+        this.messagePart = messagePart;
+        this.adapters = adapters;
+    }
+
+    /**
+     * Parses a single rule.
+     *
+     * @param rule Rule as configured
+     * @return parsed rule
+     * @throws IllegalArgumentException if the rule is malformed
+     */
+    static RoutingRule parse(final String rule) {
+        int arrow = rule.indexOf(ARROW);
+        if (arrow < 0) {
+            throw new IllegalArgumentException("Invalid routing rule, expected conditions -> action but was " + rule);
+        }
+
+        Set<LogLevel> levels = EnumSet.allOf(LogLevel.class);
+        String source = "";
+        boolean sourcePrefix = true;
+        String messagePart = null;
+        for (String condition : rule.substring(0, arrow).trim().split("\\s+")) {
+            if (condition.isEmpty()) {
+                continue;
+            }
+            if (condition.startsWith("level=")) {
+                levels = EnumSet.noneOf(LogLevel.class);
+                for (String level : condition.substring("level=".length()).split("\\|")) {
+                    levels.add(parseLevel(level, rule));
+                }
+            } else if (condition.startsWith("source=")) {
+                source = condition.substring("source=".length());
+                sourcePrefix = source.endsWith("*");
+                if (sourcePrefix) {
+                    source = source.substring(0, source.length() - 1);
+                }
+            } else if (condition.startsWith("message~")) {
+                messagePart = condition.substring("message~".length());
+            } else {
+                throw new IllegalArgumentException("Invalid condition " + condition + " in routing rule " + rule);
+            }
+        }
+
+        List<String> adapters = new ArrayList<>();
+        String action = rule.substring(arrow + ARROW.length()).trim();
+        if (action.isEmpty()) {
+            throw new IllegalArgumentException("Missing action in routing rule " + rule);
+        }
+        if (!DROP.equals(action)) {
+            for (String adapter : action.split(",")) {
+                adapters.add(adapter.trim());
+            }
+        }
+        return new RoutingRule(levels, source, sourcePrefix, messagePart, adapters);
+    }
+
+    private static LogLevel parseLevel(final String level, final String rule) {
+        for (LogLevel candidate : LogLevel.values()) {
+            if (candidate.name().toLowerCase(Locale.ROOT).equals(level.trim().toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Invalid level " + level + " in routing rule " + rule);
+    }
+
+    Set<LogLevel> getLevels() {
+        return levels;
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    boolean isSourcePrefix() {
+        return sourcePrefix;
+    }
+
+    String getMessagePart() {
+        return messagePart;
+    }
+
+    List<String> getAdapters() {
+        return adapters;
+    }
+}
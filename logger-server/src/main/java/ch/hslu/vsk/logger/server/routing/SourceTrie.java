@@ -0,0 +1,80 @@
+package ch.hslu.vsk.logger.server.routing;
+
+import java.util.Arrays;
+
+/**
+ * Prefix trie over the source conditions of the routing rules, yielding the set of rules whose source condition
+ * matches a source as a bitmask, by a single pass over its characters.
+ */
+final class SourceTrie {
+    private final Node root = new Node();
+
+    /**
+     * Adds the source condition of a rule.
+     *
+     * @param source Source or prefix of the sources to match, empty to match all sources if {@code prefix}
+     * @param prefix {@code true} if all sources starting with {@code source} match
+     * @param rule   Index of the rule
+     */
+    void add(final String source, final boolean prefix, final int rule) {
+        Node node = root;
+        for (int i = 0; i < source.length(); i++) {
+            node = node.childOrCreate(source.charAt(i));
+        }
+        if (prefix) {
+            node.prefixRules |= 1L << rule;
+        } else {
+            node.exactRules |= 1L << rule;
+        }
+    }
+
+    /**
+     * Returns the rules whose source condition matches the given source.
+     *
+     * @param source Source of the message
+     * @return bitmask of the matching rules
+     */
+    long match(final CharSequence source) {
+        Node node = root;
+        long rules = node.prefixRules;
+        for (int i = 0; i < source.length(); i++) {
+            node = node.child(source.charAt(i));
+            if (node == null) {
+                return rules;
+            }
+            rules |= node.prefixRules;
+        }
+        return rules | node.exactRules;
+    }
+
+    /**
+     * Node of the trie, whose children are kept in parallel arrays scanned linearly, as source names branch little.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private long prefixRules;
+        private long exactRules;
+
+        private Node child(final char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node childOrCreate(final char key) {
+            Node child = child(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
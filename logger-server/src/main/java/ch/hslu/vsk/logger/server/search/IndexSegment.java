@@ -0,0 +1,204 @@
+package ch.hslu.vsk.logger.server.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable segment of the inverted index, holding the posting lists and stored records of a range of consecutive
+ * documents. The file is mapped into memory and only its term dictionary is read when opening it, the posting lists
+ * and records are decoded when a query needs them.
+ * <br />
+ * A segment file named {@code <first document>-<level>.sidx} consists of:
+ * <ol>
+ *     <li>the posting lists of the terms as written by the {@link PostingsEncoder}, ordered by term</li>
+ *     <li>the stored records of the documents in UTF-8, without separator</li>
+ *     <li>the offsets of the records relative to the first one, an {@code int} per document plus the end</li>
+ *     <li>the term dictionary: per term its length and UTF-8 bytes, the offset and length of its posting list, each
+ *     as {@link Varint}</li>
+ *     <li>a footer of a fixed size with the number of the first document, the number of documents and terms, the
+ *     level, the offsets of the sections and a magic number</li>
+ * </ol>
+ * Document numbers within a segment are relative to its first document. Segments written by a flush have level 0, a
+ * merged segment has the level of its inputs plus one.
+ */
+final class IndexSegment {
+    /**
+     * Extension of segment files.
+     */
+    static final String EXTENSION = ".sidx";
+    /**
+     * Marks the end of a complete segment file.
+     */
+    static final int MAGIC = 0x53494458;
+    /**
+     * Size of the footer in bytes.
+     */
+    static final int FOOTER_SIZE = Long.BYTES + 7 * Integer.BYTES;
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final Footer footer;
+    private final String[] terms;
+    private final Map<String, Long> postingLists;
+
+    private IndexSegment(final Path path, final MappedByteBuffer data, final Footer footer, final String[] terms,
+                         final Map<String, Long> postingLists) {
+        this.path = path;
+        this.data = data;
+        this.footer = footer;
+        this.terms = terms;
+        this.postingLists = postingLists;
+    }
+
+    /**
+     * Maps the given segment file and reads its term dictionary.
+     *
+     * @param path Segment file
+     * @return opened segment
+     * @throws IOException if the file could not be read or is not a complete segment
+     */
+    static IndexSegment open(final Path path) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FOOTER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index segment " + path + " has an invalid size of " + channel.size());
+            }
+            // the mapping stays valid once the channel is closed
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Footer footer = Footer.read(data.slice(data.capacity() - FOOTER_SIZE, FOOTER_SIZE), path);
+
+        ByteBuffer dictionary = data.slice(footer.termsOffset(), data.capacity() - FOOTER_SIZE - footer.termsOffset());
+        String[] terms = new String[footer.terms()];
+        Map<String, Long> postingLists = new HashMap<>(footer.terms() * 2);
+        for (int i = 0; i < terms.length; i++) {
+            byte[] term = new byte[Varint.read(dictionary)];
+            dictionary.get(term);
+            terms[i] = new String(term, StandardCharsets.UTF_8);
+            long offset = Varint.read(dictionary);
+            long length = Varint.read(dictionary);
+            postingLists.put(terms[i], offset << Integer.SIZE | length);
+        }
+        return new IndexSegment(path, data, footer, terms, postingLists);
+    }
+
+    /**
+     * Returns the name of the file of a segment.
+     *
+     * @param firstDocument Number of the first document of the segment
+     * @param level         Level of the segment
+     * @return file name
+     */
+    static String fileName(final long firstDocument, final int level) {
+        return String.format("%019d-%02d%s", firstDocument, level, EXTENSION);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getFirstDocument() {
+        return footer.firstDocument();
+    }
+
+    int getDocuments() {
+        return footer.documents();
+    }
+
+    int getLevel() {
+        return footer.level();
+    }
+
+    /**
+     * Returns the size of the segment file.
+     *
+     * @return size in bytes
+     */
+    long getSize() {
+        return data.capacity();
+    }
+
+    /**
+     * Returns the terms of the segment.
+     *
+     * @return terms in ascending order, not to be modified
+     */
+    String[] getTerms() {
+        return terms;
+    }
+
+    /**
+     * Decodes the posting list of the given term.
+     *
+     * @param term Term as split by the {@link Tokenizer}
+     * @return posting list, {@code null} if no document of the segment contains the term
+     */
+    Postings postings(final String term) {
+        Long location = postingLists.get(term);
+        if (location == null) {
+            return null;
+        }
+        int offset = (int) (location >>> Integer.SIZE);
+        int length = (int) (long) location;
+        return Postings.decode(data.slice(offset, length));
+    }
+
+    /**
+     * Returns the stored record of the given document.
+     *
+     * @param document Document number within the segment
+     * @return record in UTF-8, backed by the mapped file
+     */
+    ByteBuffer record(final int document) {
+        int start = data.getInt(footer.offsetsOffset() + document * Integer.BYTES);
+        int end = data.getInt(footer.offsetsOffset() + (document + 1) * Integer.BYTES);
+        return data.slice(footer.documentsOffset() + start, end - start);
+    }
+
+    /**
+     * Returns the stored record of the given document as text.
+     *
+     * @param document Document number within the segment
+     * @return record as stored
+     */
+    String recordText(final int document) {
+        return StandardCharsets.UTF_8.decode(record(document)).toString();
+    }
+
+    /**
+     * Footer of a segment file, locating its sections.
+     *
+     * @param firstDocument   Number of the first document
+     * @param documents       Number of documents
+     * @param terms           Number of terms
+     * @param level           Level of the segment
+     * @param documentsOffset Offset of the stored records
+     * @param offsetsOffset   Offset of the offsets of the records
+     * @param termsOffset     Offset of the term dictionary
+     */
+    private record Footer(long firstDocument, int documents, int terms, int level, int documentsOffset,
+                          int offsetsOffset, int termsOffset) {
+        /**
+         * Reads the footer of the given segment file.
+         *
+         * @param footer Bytes of the footer
+         * @param path   Segment file, for the error message
+         * @return footer read
+         * @throws IOException if the footer does not end with the magic number, as the segment is incomplete
+         */
+        static Footer read(final ByteBuffer footer, final Path path) throws IOException {
+            Footer read = new Footer(footer.getLong(), footer.getInt(), footer.getInt(), footer.getInt(),
+                    footer.getInt(), footer.getInt(), footer.getInt());
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Index segment " + path + " is incomplete");
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ch.hslu.vsk.logger.server.search;
+
+import ch.hslu.vsk.logger.server.store.DurableFiles;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes an {@link IndexSegment}, either from the documents buffered in memory or by merging existing segments.
+ * <br />
+ * The segment is written to a temporary file, which is forced to disk and atomically moved to its final name once
+ * complete, so a segment file is either complete or missing, even after a crash of the host. Posting lists are added
+ * first in ascending order of their terms, the records after them in the order of their documents.
+ */
+final class IndexSegmentWriter {
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private final Path target;
+    private final Path temporary;
+    private final long firstDocument;
+    private final int level;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+    private final DataOutputStream dictionary = new DataOutputStream(dictionaryBytes);
+    private int terms;
+    private int documentsOffset = -1;
+    private int[] recordOffsets = new int[1024];
+    private int documents;
+
+    private IndexSegmentWriter(final Path directory, final long firstDocument, final int level) throws IOException {
+        this.target = directory.resolve(IndexSegment.fileName(firstDocument, level));
+        this.temporary = target.resolveSibling(target.getFileName() + TEMPORARY_EXTENSION);
+        this.firstDocument = firstDocument;
+        this.level = level;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)));
+    }
+
+    /**
+     * Writes a segment of level 0 from the given buffered documents.
+     *
+     * @param directory     Directory of the index
+     * @param firstDocument Number of the first buffered document
+     * @param records       Records of the buffered documents
+     * @param postingLists  Posting lists of the buffered documents by term, every document ended
+     * @return written segment file
+     * @throws IOException if the segment could not be written
+     */
+    static Path write(final Path directory, final long firstDocument, final List<String> records,
+                      final Map<String, PostingsEncoder> postingLists) throws IOException {
+        IndexSegmentWriter writer = new IndexSegmentWriter(directory, firstDocument, 0);
+        try {
+            String[] sorted = postingLists.keySet().toArray(new String[0]);
+            Arrays.sort(sorted);
+            for (String term : sorted) {
+                writer.addTerm(term, postingLists.get(term).encoded());
+            }
+            for (String record : records) {
+                writer.addRecord(ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8)));
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a segment holding the documents of the given consecutive segments. The input segments are left as they
+     * are.
+     *
+     * @param directory Directory of the index
+     * @param segments  Segments to merge, ordered by their first document, their documents being renumbered
+     *                  consecutively
+     * @param level     Level of the merged segment, higher than the levels of the input segments
+     * @return written segment file
+     * @throws IOException if the segment could not be written
+     */
+    static Path merge(final Path directory, final List<IndexSegment> segments, final int level) throws IOException {
+        IndexSegment first = segments.get(0);
+        IndexSegmentWriter writer = new IndexSegmentWriter(directory, first.getFirstDocument(), level);
+        try {
+            int[] next = new int[segments.size()];
+            int[] shifts = new int[segments.size()];
+            for (int i = 1; i < segments.size(); i++) {
+                shifts[i] = shifts[i - 1] + segments.get(i - 1).getDocuments();
+            }
+            String term = nextTerm(segments, next);
+            while (term != null) {
+                // posting lists of the segments are concatenated, shifting their documents behind the previous ones
+                PostingsEncoder merged = new PostingsEncoder();
+                for (int i = 0; i < segments.size(); i++) {
+                    IndexSegment segment = segments.get(i);
+                    String[] terms = segment.getTerms();
+                    if (next[i] < terms.length && terms[next[i]].equals(term)) {
+                        segment.postings(term).appendTo(merged, shifts[i]);
+                        next[i]++;
+                    }
+                }
+                writer.addTerm(term, merged.encoded());
+                term = nextTerm(segments, next);
+            }
+            for (IndexSegment segment : segments) {
+                for (int i = 0; i < segment.getDocuments(); i++) {
+                    writer.addRecord(segment.record(i));
+                }
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the smallest term of the given segments not yet merged.
+     *
+     * @param segments Segments being merged
+     * @param next     Index of the next term to merge per segment
+     * @return smallest term, {@code null} once all terms are merged
+     */
+    private static String nextTerm(final List<IndexSegment> segments, final int[] next) {
+        String smallest = null;
+        for (int i = 0; i < segments.size(); i++) {
+            String[] terms = segments.get(i).getTerms();
+            if (next[i] < terms.length && (smallest == null || terms[next[i]].compareTo(smallest) < 0)) {
+                smallest = terms[next[i]];
+            }
+        }
+        return smallest;
+    }
+
+    private void addTerm(final String term, final ByteBuffer postings) throws IOException {
+        byte[] encoded = term.getBytes(StandardCharsets.UTF_8);
+        Varint.write(dictionary, encoded.length);
+        dictionary.write(encoded);
+        Varint.write(dictionary, out.size());
+        Varint.write(dictionary, postings.remaining());
+        writeFully(postings);
+        terms++;
+    }
+
+    private void addRecord(final ByteBuffer record) throws IOException {
+        if (documentsOffset < 0) {
+            documentsOffset = out.size();
+        }
+        if (documents + 1 == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+        }
+        recordOffsets[documents] = out.size() - documentsOffset;
+        writeFully(record);
+        documents++;
+    }
+
+    private void writeFully(final ByteBuffer bytes) throws IOException {
+        if (bytes.hasArray()) {
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        } else {
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.duplicate().get(copy);
+            out.write(copy);
+        }
+        if (out.size() == Integer.MAX_VALUE) {
+            // the counter of the stream saturates, offsets beyond it cannot be addressed
+            throw new IOException("Index segment " + target + " exceeds " + Integer.MAX_VALUE + " bytes");
+        }
+    }
+
+    private Path finish() throws IOException {
+        if (documentsOffset < 0) {
+            documentsOffset = out.size();
+        }
+        recordOffsets[documents] = out.size() - documentsOffset;
+        int offsetsOffset = out.size();
+        for (int i = 0; i <= documents; i++) {
+            out.writeInt(recordOffsets[i]);
+        }
+        int termsOffset = out.size();
+        dictionary.flush();
+        dictionaryBytes.writeTo(out);
+        out.writeLong(firstDocument);
+        out.writeInt(documents);
+        out.writeInt(terms);
+        out.writeInt(level);
+        out.writeInt(documentsOffset);
+        out.writeInt(offsetsOffset);
+        out.writeInt(termsOffset);
+        out.writeInt(IndexSegment.MAGIC);
+        out.close();
+        DurableFiles.force(temporary);
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    /**
+     * Deletes the temporary file of a segment which failed to be written. Left over temporary files are deleted when
+     * the index is opened again.
+     *
+     * @param cause Failure writing the segment, failures deleting the file are added as suppressed
+     */
+    private void abort(final Exception cause) {
+        try {
+            out.close();
+            Files.deleteIfExists(temporary);
+        } catch (IOException suppressed) {
+            cause.addSuppressed(suppressed);
+        }
+    }
+
+    /**
+     * Returns whether the given file is a left over temporary segment file.
+     *
+     * @param file File within the directory of the index
+     * @return {@code true} if it is a temporary segment file
+     */
+    static boolean isTemporary(final Path file) {
+        return file.getFileName().toString().endsWith(IndexSegment.EXTENSION + TEMPORARY_EXTENSION);
+    }
+}
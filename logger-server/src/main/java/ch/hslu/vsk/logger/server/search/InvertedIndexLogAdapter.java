@@ -0,0 +1,528 @@
+package ch.hslu.vsk.logger.server.search;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.logstrategies.TimestampFormatter;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.store.DurableFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Indexes the terms of the received messages in an inverted index, so {@link #search} finds the records containing
+ * given keywords and phrases by looking up their posting lists instead of scanning the log file. The records found
+ * are served by the metrics server on {@code /search}.
+ * <br />
+ * Messages are split into terms by the {@link Tokenizer} and added to posting lists in memory, which are compressed
+ * as they grow. Along with them the record is stored as {@code <processed at> | <formatted message>}, like the
+ * persistor writes it. Every given number of messages, and when closed, the buffered documents are written to an
+ * immutable {@link IndexSegment} in the index directory. Whenever {@value #MERGE_FACTOR} consecutive segments have the
+ * same level, they are merged into a segment of the next level on a daemon thread of the lowest priority, the lowest
+ * level first, keeping the number of segments a query visits logarithmic in the number of messages. A shorter run of
+ * segments enclosed by segments of higher levels, f.e. written when the adapter was closed, never grows, thus it is
+ * merged as if it had the lower of the enclosing levels. Merged segments are swapped in atomically
+ * and the directory is forced to disk before their inputs are deleted; segments left over by a crash in between are
+ * dropped when the index is opened.
+ * <br />
+ * Like mining templates, indexing allocates per message. As it runs on the thread of its own adapter stage, this only
+ * costs the server throughput if the stage falls behind, in which case its overflow policy may be set to {@code DROP}
+ * to index a sample of the messages only.
+ */
+public final class InvertedIndexLogAdapter implements LogAdapter {
+    /**
+     * Number of segments of the same level merged into a segment of the next level.
+     */
+    public static final int MERGE_FACTOR = 8;
+    private static final Logger LOG = LoggerFactory.getLogger(InvertedIndexLogAdapter.class);
+    private static final long MAX_MERGED_SIZE = 1L << 30;
+    private static final String SEPARATOR = " | ";
+    private static final String QUOTE = "\"";
+    private static final Duration MERGER_CLOSE_TIMEOUT = Duration.ofSeconds(30);
+    private final Path directory;
+    private final LogStrategy strategy;
+    private final int segmentDocuments;
+    private final ExecutorService merger;
+    private final Map<String, PostingsEncoder> buffer = new HashMap<>();
+    private final List<String> bufferedRecords = new ArrayList<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<PostingsEncoder> touched = new ArrayList<>();
+    private final StringBuilder record = new StringBuilder();
+    private final TimestampFormatter timestamps = TimestampFormatter.isoInstant();
+    private final LogEvent converted = new LogEvent();
+    private List<IndexSegment> segments = List.of();
+    private long nextDocument;
+    private boolean opened;
+    private boolean merging;
+    private boolean closed;
+
+    /**
+     * Constructs a new {@link InvertedIndexLogAdapter} instance.
+     *
+     * @param directory        Directory of the index segments, created if missing
+     * @param strategy         Strategy formatting the stored records
+     * @param segmentDocuments Number of messages buffered in memory before they are written to a segment
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public InvertedIndexLogAdapter(final Path directory, final LogStrategy strategy, final int segmentDocuments) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Provided directory cannot be null");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided strategy cannot be null");
+        }
+        if (segmentDocuments < 1) {
+            throw new IllegalArgumentException("Documents per segment must be positive, was " + segmentDocuments);
+        }
+
+        this.directory = directory;
+        this.strategy = strategy;
+        this.segmentDocuments = segmentDocuments;
+        this.merger = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("search-index-merger").daemon()
+                .priority(Thread.MIN_PRIORITY).factory());
+    }
+
+    /**
+     * Indexes the given message, allocating.
+     *
+     * @param messageDo The log message to index
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        converted.copyFrom(messageDo);
+        saveLogEvent(converted);
+    }
+
+    /**
+     * Indexes the message of the given event, writing the buffered documents to a segment once there are enough.
+     *
+     * @param event Event holding the message
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        if (closed) {
+            return;
+        }
+        open();
+        int document = bufferedRecords.size();
+        terms.clear();
+        Tokenizer.tokenize(event.getMessage(), terms);
+        for (int position = 0; position < terms.size(); position++) {
+            PostingsEncoder postings = buffer.computeIfAbsent(terms.get(position), term -> new PostingsEncoder());
+            if (postings.addPosition(document, position)) {
+                touched.add(postings);
+            }
+        }
+        for (PostingsEncoder postings : touched) {
+            postings.endDocument();
+        }
+        touched.clear();
+
+        record.setLength(0);
+        timestamps.appendTo(event.getProcessedAt(), record);
+        record.append(SEPARATOR).append(event.getFormatted(strategy));
+        bufferedRecords.add(record.toString());
+        if (bufferedRecords.size() == segmentDocuments) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the newest records containing all keywords and phrases of the given query. Quoted parts of the query
+     * are phrases, their terms having to occur one after the other, the other terms are keywords. Terms are matched
+     * regardless of their case, punctuation is ignored.
+     *
+     * @param query Query like {@code timeout "connection refused"}
+     * @param limit Maximum number of records to return
+     * @return records in the layout of the log file, the newest first, empty if the query has no terms
+     * @throws IllegalArgumentException if {@code query} is {@code null} or {@code limit} is negative
+     */
+    public List<String> search(final String query, final int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Provided query cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative, was " + limit);
+        }
+
+        List<List<String>> phrases = parse(query);
+        List<String> found = new ArrayList<>();
+        if (phrases.isEmpty() || limit == 0) {
+            return found;
+        }
+        List<IndexSegment> snapshot;
+        synchronized (this) {
+            open();
+            collect(phrases, term -> {
+                PostingsEncoder postings = buffer.get(term);
+                if (postings == null) {
+                    return null;
+                }
+                return Postings.decode(postings.encoded());
+            }, bufferedRecords::get, limit, found);
+            snapshot = segments;
+        }
+        // segments are immutable, so they are searched without holding up indexing
+        for (int i = snapshot.size() - 1; i >= 0 && found.size() < limit; i--) {
+            IndexSegment segment = snapshot.get(i);
+            collect(phrases, segment::postings, segment::recordText, limit, found);
+        }
+        return found;
+    }
+
+    /**
+     * Does nothing, the documents are buffered until a segment is complete.
+     */
+    @Override
+    public void endOfBatch() {
+        // segments are written by their number of documents, not per batch
+    }
+
+    /**
+     * Writes the buffered documents to a segment and waits for a running merge to complete.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+        }
+        merger.shutdown();
+        try {
+            if (!merger.awaitTermination(MERGER_CLOSE_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Index segments still being merged after {}, resuming at the next start",
+                        MERGER_CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "search"}
+     */
+    @Override
+    public String getName() {
+        return "search";
+    }
+
+    /**
+     * Returns the number of segments of the index.
+     *
+     * @return number of segments written and not merged yet
+     */
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Loads the segments of the index directory, dropping those covered by a merged segment and temporary files left
+     * by a crash, and resumes merging. Does nothing if already opened.
+     */
+    private void open() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        List<IndexSegment> found = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    if (IndexSegmentWriter.isTemporary(file)) {
+                        Files.delete(file);
+                    } else if (file.getFileName().toString().endsWith(IndexSegment.EXTENSION)) {
+                        open(file, found);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to load search index in {}, searching the new messages only", directory, e);
+        }
+        // a merged segment sorts before its inputs, which are then covered
+        found.sort(Comparator.comparingLong(IndexSegment::getFirstDocument)
+                .thenComparing(Comparator.comparingInt(IndexSegment::getLevel).reversed()));
+        List<IndexSegment> loaded = new ArrayList<>();
+        for (IndexSegment segment : found) {
+            if (segment.getFirstDocument() < nextDocument) {
+                delete(segment);
+            } else {
+                loaded.add(segment);
+                nextDocument = segment.getFirstDocument() + segment.getDocuments();
+            }
+        }
+        segments = List.copyOf(loaded);
+        mergeIfDue();
+    }
+
+    private static void open(final Path file, final List<IndexSegment> found) {
+        try {
+            found.add(IndexSegment.open(file));
+        } catch (IOException e) {
+            LOG.warn("Failed to open search index segment {}, skipping its messages", file, e);
+        }
+    }
+
+    /**
+     * Writes the buffered documents to a segment of level 0. If it cannot be written, the documents are dropped from
+     * the index rather than buffered without limit.
+     */
+    private void flush() {
+        if (bufferedRecords.isEmpty()) {
+            return;
+        }
+        try {
+            IndexSegment segment = IndexSegment.open(IndexSegmentWriter.write(directory, nextDocument,
+                    bufferedRecords, buffer));
+            List<IndexSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = List.copyOf(updated);
+            nextDocument += bufferedRecords.size();
+        } catch (IOException e) {
+            LOG.error("Failed to write search index segment to {}, dropping its {} messages from the index",
+                    directory, bufferedRecords.size(), e);
+        }
+        buffer.clear();
+        bufferedRecords.clear();
+        mergeIfDue();
+    }
+
+    /**
+     * Queues a merge of the first {@value #MERGE_FACTOR} consecutive segments of the lowest merge level whose merged
+     * segment stays mappable.
+     */
+    private void mergeIfDue() {
+        if (merging || closed || segments.size() < MERGE_FACTOR) {
+            return;
+        }
+        int[] levels = mergeLevels(segments);
+        int highest = 0;
+        for (int level : levels) {
+            highest = Math.max(highest, level);
+        }
+        for (int level = 0; level <= highest; level++) {
+            int run = 0;
+            for (int end = 1; end <= levels.length; end++) {
+                if (levels[end - 1] != level) {
+                    run = 0;
+                    continue;
+                }
+                run++;
+                if (run >= MERGE_FACTOR && isMappable(segments.subList(end - MERGE_FACTOR, end))) {
+                    List<IndexSegment> inputs = segments.subList(end - MERGE_FACTOR, end);
+                    int mergedLevel = level + 1;
+                    merging = true;
+                    try {
+                        merger.execute(() -> merge(inputs, mergedLevel));
+                    } catch (RejectedExecutionException e) {
+                        merging = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the levels the given segments are merged by, their own levels except for runs of fewer than
+     * {@value #MERGE_FACTOR} segments of the same level enclosed by segments of higher levels or the start of the
+     * index, which take the lower of the enclosing levels. Only the last run still grows by new segments.
+     *
+     * @param segments Segments of the index, the oldest first
+     * @return level to merge by per segment
+     */
+    private static int[] mergeLevels(final List<IndexSegment> segments) {
+        int[] levels = new int[segments.size()];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = segments.get(i).getLevel();
+        }
+        boolean raised = true;
+        while (raised) {
+            raised = false;
+            int start = 0;
+            while (start < levels.length) {
+                int end = start + 1;
+                while (end < levels.length && levels[end] == levels[start]) {
+                    end++;
+                }
+                if (end < levels.length && end - start < MERGE_FACTOR && levels[end] > levels[start]
+                        && (start == 0 || levels[start - 1] > levels[start])) {
+                    int enclosing = levels[end];
+                    if (start > 0) {
+                        enclosing = Math.min(enclosing, levels[start - 1]);
+                    }
+                    Arrays.fill(levels, start, end, enclosing);
+                    raised = true;
+                }
+                start = end;
+            }
+        }
+        return levels;
+    }
+
+    private static boolean isMappable(final List<IndexSegment> inputs) {
+        long size = 0;
+        for (IndexSegment input : inputs) {
+            size += input.getSize();
+        }
+        return size <= MAX_MERGED_SIZE;
+    }
+
+    private void merge(final List<IndexSegment> inputs, final int level) {
+        IndexSegment merged;
+        try {
+            merged = IndexSegment.open(IndexSegmentWriter.merge(directory, inputs, level));
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Failed to merge {} search index segments in {}, keeping them", inputs.size(), directory, e);
+            synchronized (this) {
+                merging = false;
+            }
+            return;
+        }
+        synchronized (this) {
+            int start = segments.indexOf(inputs.get(0));
+            List<IndexSegment> updated = new ArrayList<>(segments.subList(0, start));
+            updated.add(merged);
+            updated.addAll(segments.subList(start + inputs.size(), segments.size()));
+            segments = List.copyOf(updated);
+            merging = false;
+        }
+        try {
+            DurableFiles.forceDirectory(directory);
+            // running queries keep reading the mapped inputs, which stay valid once deleted
+            for (IndexSegment input : inputs) {
+                delete(input);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to force search index directory {}, dropping the merged segments at the next start",
+                    directory, e);
+        }
+        synchronized (this) {
+            mergeIfDue();
+        }
+    }
+
+    private void delete(final IndexSegment segment) {
+        try {
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException e) {
+            LOG.warn("Failed to delete merged search index segment {}, dropping it at the next start",
+                    segment.getPath(), e);
+        }
+    }
+
+    /**
+     * Appends the records of the documents matching all phrases to the given list, the newest first.
+     *
+     * @param phrases Phrases of the query, each a list of consecutive terms
+     * @param lookup  Posting list per term, {@code null} if no document contains it
+     * @param records Stored record per document number
+     * @param limit   Maximum number of records in the list
+     * @param found   Records found so far, the matching records are appended to
+     */
+    private static void collect(final List<List<String>> phrases, final Function<String, Postings> lookup,
+                                final IntFunction<String> records, final int limit, final List<String> found) {
+        Map<String, Postings> postings = new HashMap<>();
+        Postings rarest = null;
+        for (List<String> phrase : phrases) {
+            for (String term : phrase) {
+                if (!postings.containsKey(term)) {
+                    Postings termPostings = lookup.apply(term);
+                    if (termPostings == null) {
+                        return;
+                    }
+                    postings.put(term, termPostings);
+                    if (rarest == null || termPostings.size() < rarest.size()) {
+                        rarest = termPostings;
+                    }
+                }
+            }
+        }
+        // only the documents of the rarest term are candidates
+        for (int i = rarest.size() - 1; i >= 0 && found.size() < limit; i--) {
+            int document = rarest.document(i);
+            if (matches(document, phrases, postings)) {
+                found.add(records.apply(document));
+            }
+        }
+    }
+
+    private static boolean matches(final int document, final List<List<String>> phrases,
+                                   final Map<String, Postings> postings) {
+        for (List<String> phrase : phrases) {
+            int[] indexes = new int[phrase.size()];
+            for (int k = 0; k < phrase.size(); k++) {
+                indexes[k] = postings.get(phrase.get(k)).indexOf(document);
+                if (indexes[k] < 0) {
+                    return false;
+                }
+            }
+            if (phrase.size() > 1 && !containsPhrase(phrase, indexes, postings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsPhrase(final List<String> phrase, final int[] indexes,
+                                          final Map<String, Postings> postings) {
+        for (int start : postings.get(phrase.get(0)).positions(indexes[0])) {
+            int k = 1;
+            while (k < phrase.size() && postings.get(phrase.get(k)).hasPosition(indexes[k], start + k)) {
+                k++;
+            }
+            if (k == phrase.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a query into phrases, a keyword being a phrase of a single term.
+     *
+     * @param query Keywords and phrases in double quotes
+     * @return phrases, each a list of consecutive terms
+     */
+    private static List<List<String>> parse(final String query) {
+        List<List<String>> phrases = new ArrayList<>();
+        String[] parts = query.split(QUOTE, -1);
+        for (int i = 0; i < parts.length; i++) {
+            List<String> partTerms = new ArrayList<>();
+            Tokenizer.tokenize(parts[i], partTerms);
+            if (i % 2 == 1) {
+                if (!partTerms.isEmpty()) {
+                    phrases.add(partTerms);
+                }
+            } else {
+                for (String term : partTerms) {
+                    phrases.add(List.of(term));
+                }
+            }
+        }
+        return phrases;
+    }
+}
@@ -0,0 +1,121 @@
+package ch.hslu.vsk.logger.server.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decoded posting list of a term within an index segment: the documents containing the term in ascending order and
+ * the positions of the term within each of them.
+ */
+final class Postings {
+    private final int[] documents;
+    private final int[] starts;
+    private final int[] positions;
+    private final int size;
+
+    private Postings(final int[] documents, final int[] starts, final int[] positions, final int size) {
+        this.documents = documents;
+        this.starts = starts;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    /**
+     * Decodes a posting list as written by the {@link PostingsEncoder}.
+     *
+     * @param encoded Encoded posting list from its position to its limit, which is advanced
+     * @return decoded posting list
+     */
+    static Postings decode(final ByteBuffer encoded) {
+        int[] documents = new int[8];
+        int[] starts = new int[9];
+        int[] positions = new int[16];
+        int size = 0;
+        int positionCount = 0;
+        int document = -1;
+        while (encoded.hasRemaining()) {
+            document += Varint.read(encoded);
+            int frequency = Varint.read(encoded);
+            if (size + 1 == documents.length) {
+                documents = Arrays.copyOf(documents, documents.length * 2);
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            if (positionCount + frequency > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, positionCount + frequency));
+            }
+            documents[size] = document;
+            starts[size] = positionCount;
+            int position = 0;
+            for (int i = 0; i < frequency; i++) {
+                position += Varint.read(encoded);
+                positions[positionCount++] = position;
+            }
+            size++;
+        }
+        starts[size] = positionCount;
+        return new Postings(documents, starts, positions, size);
+    }
+
+    /**
+     * Returns the number of documents containing the term.
+     *
+     * @return number of documents
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the document at the given index.
+     *
+     * @param index Index within the posting list
+     * @return document number within the segment
+     */
+    int document(final int index) {
+        return documents[index];
+    }
+
+    /**
+     * Returns the index of the given document.
+     *
+     * @param document Document number within the segment
+     * @return index within the posting list, negative if the document does not contain the term
+     */
+    int indexOf(final int document) {
+        return Arrays.binarySearch(documents, 0, size, document);
+    }
+
+    /**
+     * Returns the positions of the term within the document at the given index.
+     *
+     * @param index Index within the posting list
+     * @return positions in ascending order, copied
+     */
+    int[] positions(final int index) {
+        return Arrays.copyOfRange(positions, starts[index], starts[index + 1]);
+    }
+
+    /**
+     * Appends all documents with their positions to the given encoder, shifting the document numbers, f.e. when the
+     * documents of a segment follow those of another within a merged segment.
+     *
+     * @param target        Encoder to append to
+     * @param documentShift Number to add to the document numbers
+     */
+    void appendTo(final PostingsEncoder target, final int documentShift) {
+        for (int i = 0; i < size; i++) {
+            target.add(documents[i] + documentShift, positions, starts[i], starts[i + 1]);
+        }
+    }
+
+    /**
+     * Returns whether the term occurs at the given position of the document at the given index.
+     *
+     * @param index    Index within the posting list
+     * @param position Position within the document
+     * @return {@code true} if the term occurs at the position
+     */
+    boolean hasPosition(final int index, final int position) {
+        return Arrays.binarySearch(positions, starts[index], starts[index + 1], position) >= 0;
+    }
+}
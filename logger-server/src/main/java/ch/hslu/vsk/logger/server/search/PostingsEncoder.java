@@ -0,0 +1,100 @@
+package ch.hslu.vsk.logger.server.search;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds the posting list of a term in its compressed form: per document the gap to the previous document, the
+ * number of positions of the term and the gaps between these positions, each as a {@link Varint}. Documents are
+ * added in ascending order, the positions of a document in ascending order as well.
+ * <br />
+ * While indexing, the positions of the current document are collected until {@link #endDocument()}, as their number
+ * is written before them. Not thread safe.
+ */
+final class PostingsEncoder {
+    private static final int MAX_VARINT_BYTES = 5;
+    private byte[] bytes = new byte[16];
+    private int length;
+    private int documents;
+    private int lastDocument = -1;
+    private int[] pending = new int[4];
+    private int pendingCount;
+    private int pendingDocument = -1;
+
+    /**
+     * Adds a position of the term in the given document.
+     *
+     * @param document Document the term occurs in, not lower than the documents added before
+     * @param position Position of the term within the document, higher than the positions added before
+     * @return {@code true} if it is the first position of the document, which has to be ended after its last one
+     */
+    boolean addPosition(final int document, final int position) {
+        boolean first = pendingCount == 0;
+        if (document != pendingDocument) {
+            endDocument();
+            pendingDocument = document;
+            first = true;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = position;
+        return first;
+    }
+
+    /**
+     * Encodes the positions collected for the current document, if any.
+     */
+    void endDocument() {
+        if (pendingCount > 0) {
+            add(pendingDocument, pending, 0, pendingCount);
+            pendingCount = 0;
+        }
+        pendingDocument = -1;
+    }
+
+    /**
+     * Encodes a document with the given positions of the term.
+     *
+     * @param document  Document the term occurs in, higher than the documents added before
+     * @param positions Positions of the term within the document, ascending
+     * @param from      Index of the first position, inclusive
+     * @param to        Index of the last position, exclusive
+     */
+    void add(final int document, final int[] positions, final int from, final int to) {
+        ensureCapacity((to - from + 2) * MAX_VARINT_BYTES);
+        length = Varint.write(bytes, length, document - lastDocument);
+        length = Varint.write(bytes, length, to - from);
+        int previous = 0;
+        for (int i = from; i < to; i++) {
+            length = Varint.write(bytes, length, positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDocument = document;
+        documents++;
+    }
+
+    /**
+     * Returns the number of documents encoded.
+     *
+     * @return number of documents
+     */
+    int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the encoded posting list, backed by the encoder.
+     *
+     * @return buffer from the first to the last encoded byte
+     */
+    ByteBuffer encoded() {
+        return ByteBuffer.wrap(bytes, 0, length);
+    }
+
+    private void ensureCapacity(final int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ch.hslu.vsk.logger.server.search;
+
+import java.util.List;
+
+/**
+ * Splits text into the terms of the {@link InvertedIndexLogAdapter}: runs of letters and digits, lower cased, so
+ * {@code "Timeout after 30s (pool=db-1)"} becomes {@code timeout after 30s pool db 1}. Messages and queries are split
+ * the same way, so a term is found regardless of its case and the punctuation around it.
+ * <br />
+ * Terms are cut off after {@value #MAX_TERM_LENGTH} characters, keeping long identifiers and encoded payloads from
+ * bloating the term dictionary while they can still be searched by the same cut off term.
+ */
+final class Tokenizer {
+    /**
+     * Maximum length of a term in characters.
+     */
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Appends the terms of the given text to the given list, in the order they occur, their index in the text being
+     * their position.
+     *
+     * @param text  Text to split
+     * @param terms List to append the terms to
+     */
+    static void tokenize(final CharSequence text, final List<String> terms) {
+        StringBuilder term = new StringBuilder();
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (length < MAX_TERM_LENGTH) {
+                    term.append(Character.toLowerCase(c));
+                }
+                length++;
+            } else if (length > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+                length = 0;
+            }
+        }
+        if (length > 0) {
+            terms.add(term.toString());
+        }
+    }
+}
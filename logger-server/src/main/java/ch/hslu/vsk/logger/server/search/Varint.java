@@ -0,0 +1,71 @@
+package ch.hslu.vsk.logger.server.search;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes non-negative integers in seven bits per byte, the highest bit telling whether another byte follows, so the
+ * small gaps between the documents and positions of a posting list mostly take a single byte.
+ */
+final class Varint {
+    private static final int PAYLOAD_MASK = 0x7F;
+    private static final int CONTINUATION = 0x80;
+    private static final int PAYLOAD_BITS = 7;
+
+    private Varint() {
+    }
+
+    /**
+     * Writes the given value.
+     *
+     * @param out   Output to write to
+     * @param value Non-negative value
+     * @throws IOException if the output could not be written
+     */
+    static void write(final DataOutput out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~PAYLOAD_MASK) != 0) {
+            out.writeByte(remaining & PAYLOAD_MASK | CONTINUATION);
+            remaining >>>= PAYLOAD_BITS;
+        }
+        out.writeByte(remaining);
+    }
+
+    /**
+     * Writes the given value into the given array.
+     *
+     * @param target Array to write to, large enough for five more bytes
+     * @param offset Offset to write the value at
+     * @param value  Non-negative value
+     * @return offset after the value
+     */
+    static int write(final byte[] target, final int offset, final int value) {
+        int position = offset;
+        int remaining = value;
+        while ((remaining & ~PAYLOAD_MASK) != 0) {
+            target[position++] = (byte) (remaining & PAYLOAD_MASK | CONTINUATION);
+            remaining >>>= PAYLOAD_BITS;
+        }
+        target[position++] = (byte) remaining;
+        return position;
+    }
+
+    /**
+     * Reads a value at the position of the given buffer, advancing it.
+     *
+     * @param buffer Buffer to read from
+     * @return value read
+     */
+    static int read(final ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & PAYLOAD_MASK) << shift;
+            shift += PAYLOAD_BITS;
+        } while ((b & CONTINUATION) != 0);
+        return value;
+    }
+}
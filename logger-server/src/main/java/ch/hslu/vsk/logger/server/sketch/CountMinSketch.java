@@ -0,0 +1,94 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch (Cormode and Muthukrishnan, 2005): estimates the number of occurrences of any number of keys in
+ * a fixed number of counters, never underestimating them.
+ * <br />
+ * The counters are organized in {@code depth} rows of {@code width} counters. An occurrence increments one counter
+ * per row, picked by the hash of its key, and the estimate of a key is the minimum of its counters. With {@code N}
+ * occurrences counted, an estimate exceeds the exact count by more than {@code eN / width} with a probability of at
+ * most {@code e^-depth}. Sketches of the same dimensions are linear, so counts of one sketch can be subtracted from
+ * another. Not thread safe.
+ */
+final class CountMinSketch {
+    private final int depth;
+    private final int mask;
+    private final long[] counters;
+
+    /**
+     * Constructs a new {@link CountMinSketch} instance.
+     *
+     * @param width Number of counters per row, a power of two
+     * @param depth Number of rows
+     * @throws IllegalArgumentException if a dimension is invalid
+     */
+    CountMinSketch(final int width, final int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Width must be a power of two, was " + width);
+        }
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive, was " + depth);
+        }
+
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Counts the given number of occurrences of a key.
+     *
+     * @param hash  Well mixed 64 bit hash of the key
+     * @param count Number of occurrences
+     * @return estimated count of the key, including the given occurrences
+     */
+    long add(final long hash, final long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            counters[index] += count;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated count of a key.
+     *
+     * @param hash Well mixed 64 bit hash of the key
+     * @return estimated count of the key
+     */
+    long estimate(final long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Subtracts the counts of the given sketch, which must have been counted into this sketch before.
+     *
+     * @param other Sketch of the same dimensions
+     */
+    void subtract(final CountMinSketch other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+    }
+
+    /**
+     * Resets all counters.
+     */
+    void clear() {
+        Arrays.fill(counters, 0L);
+    }
+
+    private int index(final long hash, final int row) {
+        // double hashing derives the row hashes from both halves of a single hash (Kirsch and Mitzenmacher)
+        int combined = (int) hash + row * ((int) (hash >>> 32) | 1);
+        return row * (mask + 1) + (combined & mask);
+    }
+}
@@ -0,0 +1,49 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import java.util.Comparator;
+
+/**
+ * Snapshot of a key counted by {@link HeavyHitters} together with its estimated count within the window.
+ *
+ * @param <K> Type of the key
+ */
+public final class HeavyHitter<K> {
+    static final Comparator<HeavyHitter<?>> BY_DESCENDING_ESTIMATE =
+            Comparator.comparingLong((HeavyHitter<?> heavyHitter) -> heavyHitter.estimate).reversed();
+    private final K key;
+    private final long estimate;
+
+    /**
+     * Constructs a new {@link HeavyHitter} instance.
+     *
+     * @param key      Counted key
+     * @param estimate Estimated count of the key
+     */
+    HeavyHitter(final K key, final long estimate) {
+        this.key = key;
+        this.estimate = estimate;
+    }
+
+    /**
+     * Returns the counted key.
+     *
+     * @return key
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the estimated count of the key, which is never below its exact count.
+     *
+     * @return estimated count
+     */
+    public long getEstimate() {
+        return estimate;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + estimate;
+    }
+}
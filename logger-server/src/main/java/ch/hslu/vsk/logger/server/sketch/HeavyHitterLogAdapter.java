@@ -0,0 +1,80 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tracks the sources sending the most messages within a sliding window, like the 20 noisiest sources of the last
+ * five minutes, using {@link HeavyHitters}. Unlike exact counters per source, its memory does not grow with the number
+ * of sources. The heavy hitters are served by the metrics server on {@code /heavyhitters}.
+ * <br />
+ * Messages are counted at the time the server processed them. The name of the source is only copied into a string
+ * if it differs from the one of the previous message, as connections usually deliver runs of the same source.
+ */
+public final class HeavyHitterLogAdapter implements LogAdapter {
+    private final HeavyHitters<String> sources;
+    private final LogEvent converted = new LogEvent();
+    private String recentSource;
+
+    /**
+     * Constructs a new {@link HeavyHitterLogAdapter} instance.
+     *
+     * @param windowLength Length of the sliding window, at least ten seconds
+     * @param sketchWidth  Number of counters per sketch row, a power of two
+     * @param capacity     Maximum number of heavy hitters kept
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public HeavyHitterLogAdapter(final Duration windowLength, final int sketchWidth, final int capacity) {
+        this.sources = new HeavyHitters<>(windowLength, sketchWidth, capacity);
+    }
+
+    /**
+     * Counts the given message, allocating.
+     *
+     * @param messageDo The log message to count
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        converted.copyFrom(messageDo);
+        saveLogEvent(converted);
+    }
+
+    /**
+     * Counts the message of the given event for its source.
+     *
+     * @param event Event holding the message
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        CharSequence source = event.getSource();
+        if (recentSource == null || !recentSource.contentEquals(source)) {
+            recentSource = source.toString();
+        }
+        sources.add(recentSource, event.getProcessedEpochSecond());
+    }
+
+    /**
+     * Returns the given number of sources with the most messages within the window ending now.
+     *
+     * @param limit Maximum number of sources to return
+     * @return sources with their estimated message counts, ordered by descending count
+     */
+    public synchronized List<HeavyHitter<String>> getTopSources(final int limit) {
+        return sources.top(limit, Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "heavyhitters"}
+     */
+    @Override
+    public String getName() {
+        return "heavyhitters";
+    }
+}
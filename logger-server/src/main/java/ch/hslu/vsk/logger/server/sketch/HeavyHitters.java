@@ -0,0 +1,144 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Finds the keys occurring most often within a sliding time window, like the noisiest sources of the last five
+ * minutes, in memory independent of the number of distinct keys.
+ * <br />
+ * The window is divided into buckets, each counting its occurrences in a {@link CountMinSketch}. A further sketch
+ * holds the sum of all buckets, so counting an occurrence updates two sketches and estimating a key over the whole
+ * window reads one. Once a bucket slides out of the window, its counts are subtracted from the sum and it is reused
+ * for the next bucket. The window therefore spans between {@code buckets - 1} and {@code buckets} full buckets.
+ * <br />
+ * The candidates for the heaviest keys are kept in a {@link TopK} heap, which is reestimated whenever a bucket
+ * expires. Not thread safe.
+ *
+ * @param <K> Type of the keys, which must implement {@link Object#hashCode()} consistently with equality
+ */
+public final class HeavyHitters<K> {
+    /**
+     * Number of buckets the window is divided into by default.
+     */
+    public static final int DEFAULT_BUCKETS = 10;
+    /**
+     * Number of rows of the sketches by default.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+    private final long bucketSeconds;
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window;
+    private final TopK<K> topK;
+    private long currentBucket = Long.MIN_VALUE;
+
+    /**
+     * Constructs a new {@link HeavyHitters} instance with the default number of buckets and sketch rows.
+     *
+     * @param windowLength Length of the window, at least a second per bucket
+     * @param width        Number of counters per sketch row, a power of two
+     * @param capacity     Maximum number of heavy hitters kept
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public HeavyHitters(final Duration windowLength, final int width, final int capacity) {
+        this(windowLength, DEFAULT_BUCKETS, width, DEFAULT_DEPTH, capacity);
+    }
+
+    /**
+     * Constructs a new {@link HeavyHitters} instance.
+     *
+     * @param windowLength Length of the window, at least a second per bucket
+     * @param bucketCount  Number of buckets the window is divided into
+     * @param width        Number of counters per sketch row, a power of two
+     * @param depth        Number of rows per sketch
+     * @param capacity     Maximum number of heavy hitters kept
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public HeavyHitters(final Duration windowLength, final int bucketCount, final int width, final int depth,
+                        final int capacity) {
+        if (windowLength == null) {
+            throw new IllegalArgumentException("Provided windowLength cannot be null");
+        }
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive, was " + bucketCount);
+        }
+        if (windowLength.toSeconds() < bucketCount) {
+            throw new IllegalArgumentException("Window must span at least a second per bucket, was " + windowLength);
+        }
+
+        this.bucketSeconds = windowLength.toSeconds() / bucketCount;
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(width, depth);
+        }
+        this.window = new CountMinSketch(width, depth);
+        this.topK = new TopK<>(capacity);
+    }
+
+    /**
+     * Counts an occurrence of the given key.
+     *
+     * @param key         Key
+     * @param epochSecond Point of time of the occurrence, occurrences before the current bucket are counted into it
+     */
+    public void add(final K key, final long epochSecond) {
+        advance(epochSecond);
+        long hash = hash(key);
+        buckets[Math.floorMod(currentBucket, buckets.length)].add(hash, 1);
+        topK.offer(key, window.add(hash, 1));
+    }
+
+    /**
+     * Returns the given number of keys with the highest estimated counts within the window ending at the given time.
+     *
+     * @param limit       Maximum number of keys to return, at most the capacity are available
+     * @param epochSecond End of the window
+     * @return keys with their estimated counts, ordered by descending count
+     */
+    public List<HeavyHitter<K>> top(final int limit, final long epochSecond) {
+        advance(epochSecond);
+        return topK.top(limit);
+    }
+
+    /**
+     * Returns the estimated count of the given key within the current window.
+     *
+     * @param key Key
+     * @return estimated count, never below the exact count
+     */
+    public long estimate(final K key) {
+        return window.estimate(hash(key));
+    }
+
+    private void advance(final long epochSecond) {
+        long bucket = Math.floorDiv(epochSecond, bucketSeconds);
+        if (currentBucket == Long.MIN_VALUE) {
+            currentBucket = bucket;
+            return;
+        }
+        if (bucket <= currentBucket) {
+            return;
+        }
+
+        // the buckets between the current and the new one are empty, so at most all of them expire
+        long expired = Math.min(bucket - currentBucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            CountMinSketch expiring = buckets[Math.floorMod(currentBucket + i, buckets.length)];
+            window.subtract(expiring);
+            expiring.clear();
+        }
+        currentBucket = bucket;
+        topK.reestimate(this::estimate);
+    }
+
+    private static long hash(final Object key) {
+        // finalizer of MurmurHash3, spreading the 32 bit hash code over all 64 bits
+        long hash = key.hashCode();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
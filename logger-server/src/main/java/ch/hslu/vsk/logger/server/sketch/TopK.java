@@ -0,0 +1,167 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps the keys with the highest estimated counts seen so far, up to a fixed capacity, in a min-heap ordered by their
+ * estimates, so deciding whether a key displaces the least counted one takes constant time.
+ * <br />
+ * A key which is not kept is offered with its estimate on every occurrence and displaces the root of the heap once it
+ * is counted more often. The entries of displaced keys are reused, so a full heap only allocates for the map node of
+ * a newly admitted key. Not thread safe.
+ *
+ * @param <K> Type of the keys
+ */
+final class TopK<K> {
+    private final Entry<K>[] heap;
+    private final Map<K, Entry<K>> entries;
+    private int size;
+
+    /**
+     * Constructs a new {@link TopK} instance.
+     *
+     * @param capacity Maximum number of keys kept
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TopK(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+
+        this.heap = new Entry[capacity];
+        this.entries = HashMap.newHashMap(capacity);
+    }
+
+    /**
+     * Updates the estimate of the given key, admitting it if it is counted more often than the least counted key.
+     *
+     * @param key      Key
+     * @param estimate Estimated count of the key, never decreasing between two calls of {@link #reestimate}
+     */
+    void offer(final K key, final long estimate) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            entry.estimate = estimate;
+            siftDown(entry.index);
+        } else if (size < heap.length) {
+            entry = new Entry<>();
+            entry.key = key;
+            entry.estimate = estimate;
+            entry.index = size;
+            heap[size++] = entry;
+            entries.put(key, entry);
+            siftUp(entry.index);
+        } else if (estimate > heap[0].estimate) {
+            entry = heap[0];
+            entries.remove(entry.key);
+            entry.key = key;
+            entry.estimate = estimate;
+            entries.put(key, entry);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Replaces the estimates of all kept keys, dropping the keys estimated to not occur anymore.
+     *
+     * @param estimator Returns the current estimate of a key
+     */
+    void reestimate(final ToLongFunction<? super K> estimator) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Entry<K> entry = heap[i];
+            entry.estimate = estimator.applyAsLong(entry.key);
+            if (entry.estimate > 0) {
+                entry.index = kept;
+                heap[kept++] = entry;
+            } else {
+                entries.remove(entry.key);
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            heap[i] = null;
+        }
+        size = kept;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Returns the given number of keys with the highest estimates.
+     *
+     * @param limit Maximum number of keys to return
+     * @return keys with their estimates, ordered by descending estimate
+     */
+    List<HeavyHitter<K>> top(final int limit) {
+        List<HeavyHitter<K>> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            top.add(new HeavyHitter<>(heap[i].key, heap[i].estimate));
+        }
+        top.sort(HeavyHitter.BY_DESCENDING_ESTIMATE);
+        if (top.size() > limit) {
+            return new ArrayList<>(top.subList(0, Math.max(0, limit)));
+        }
+        return top;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void siftUp(final int index) {
+        int child = index;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (heap[parent].estimate <= heap[child].estimate) {
+                return;
+            }
+            swap(parent, child);
+            child = parent;
+        }
+    }
+
+    private void siftDown(final int index) {
+        int parent = index;
+        while (true) {
+            int smallest = parent;
+            int left = 2 * parent + 1;
+            int right = left + 1;
+            if (left < size && heap[left].estimate < heap[smallest].estimate) {
+                smallest = left;
+            }
+            if (right < size && heap[right].estimate < heap[smallest].estimate) {
+                smallest = right;
+            }
+            if (smallest == parent) {
+                return;
+            }
+            swap(parent, smallest);
+            parent = smallest;
+        }
+    }
+
+    private void swap(final int first, final int second) {
+        Entry<K> entry = heap[first];
+        heap[first] = heap[second];
+        heap[second] = entry;
+        heap[first].index = first;
+        heap[second].index = second;
+    }
+
+    /**
+     * Key kept in the heap together with its estimate and position.
+     *
+     * @param <K> Type of the key
+     */
+    private static final class Entry<K> {
+        private K key;
+        private long estimate;
+        private int index;
+    }
+}
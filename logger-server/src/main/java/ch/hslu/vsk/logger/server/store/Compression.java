@@ -0,0 +1,103 @@
+package ch.hslu.vsk.logger.server.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Defines how closed segments of the log file are compressed in the background.
+ */
+public enum Compression {
+    /**
+     * Keeps the segments as written.
+     */
+    NONE(""),
+
+    /**
+     * Compresses the segments to gzip files, readable by {@code zcat} and most log tools.
+     */
+    GZIP(".gz"),
+
+    /**
+     * Compresses the segments to zlib streams, i.e. deflate data wrapped in the zlib header and checksum, slightly
+     * smaller than gzip and read by {@link java.util.zip.InflaterInputStream}.
+     */
+    DEFLATE(".deflate");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final String extension;
+
+    Compression(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the extension appended to the name of a compressed segment.
+     *
+     * @return extension including the dot, empty for {@link #NONE}
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns the compression of the segment of the given name by its extension.
+     *
+     * @param segmentName Name of the segment file
+     * @return compression of the segment, {@link #NONE} if uncompressed
+     */
+    static Compression of(final String segmentName) {
+        for (Compression compression : values()) {
+            if (compression != NONE && segmentName.endsWith(compression.extension)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the name of the segment before it was compressed.
+     *
+     * @param segmentName Name of the segment file
+     * @return name without the extension of the compression
+     */
+    String uncompressedName(final String segmentName) {
+        return segmentName.substring(0, segmentName.length() - extension.length());
+    }
+
+    /**
+     * Wraps the given stream into a stream compressing the written bytes.
+     *
+     * @param target Stream receiving the compressed bytes
+     * @return compressing stream, {@code target} itself for {@link #NONE}
+     * @throws IOException if the header could not be written
+     */
+    OutputStream compress(final OutputStream target) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPOutputStream(target, BUFFER_SIZE);
+            case DEFLATE -> new DeflaterOutputStream(target, new Deflater(), BUFFER_SIZE);
+            case NONE -> target;
+        };
+    }
+
+    /**
+     * Wraps the given stream into a stream decompressing the read bytes.
+     *
+     * @param source Stream providing the compressed bytes
+     * @return decompressing stream, {@code source} itself for {@link #NONE}
+     * @throws IOException if the header could not be read
+     */
+    InputStream decompress(final InputStream source) throws IOException {
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(source, BUFFER_SIZE);
+            case DEFLATE -> new InflaterInputStream(source, new Inflater(), BUFFER_SIZE);
+            case NONE -> source;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package ch.hslu.vsk.logger.server.store;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Forces files and directories to the storage device, for replacing files by atomically moving a complete temporary
+ * file over them: the temporary file is forced before the move, so the moved name never refers to partially written
+ * data after a crash of the host, and the directory after it, so the move is durable before the files it replaces are
+ * deleted.
+ */
+public final class DurableFiles {
+    private DurableFiles() {
+    }
+
+    /**
+     * Forces the content and metadata of the given file to the storage device.
+     *
+     * @param file File written and closed before
+     * @throws IOException if the file could not be opened or forced
+     */
+    public static void force(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces the entries of the given directory, such as files moved into it, to the storage device.
+     * <br />
+     * Does nothing on platforms which cannot open directories, such as Windows.
+     *
+     * @param directory Directory to force
+     * @throws IOException if the directory could not be forced
+     */
+    public static void forceDirectory(final Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException unsupported) {
+            // directories cannot be opened on this platform
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.logstrategies.TimestampFormatter;
+import ch.hslu.vsk.logger.server.logstrategies.Utf8;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Persists the log messages to a file through a single {@link FileChannel}, as an alternative to the
+ * {@link ch.hslu.vsk.stringpersistor.api.StringPersistor} which opens the file for every message.
+ * <br />
+ * The adapter runs on the single thread of its adapter stage, thus is the only writer of the file and needs no
+ * locking. Records are encoded into a large direct buffer, which is written with a single call at the end of every
+ * batch or once it is full, so a batch of messages from many connections costs one write (group commit). When the
+ * written records are synced to the storage device is defined by the {@link FsyncPolicy}.
+ * <br />
+ * The records keep the layout of the persistor, {@code <processed at> | <formatted message>} per line, so existing
+ * readers of the log file work unchanged. The formatted message is taken as UTF-8 from the event, thus shared with
+ * the other adapters using the same strategy.
+ * <br />
+ * Following the {@link RotationPolicy}, the file is closed as a segment once it would exceed the maximum size or
+ * records of a new interval arrive. The segment is atomically renamed to {@code <name>-<sequence><extension>}, listed
+ * in the {@link SegmentManifest} with the range of its processing times, and compressed in the background, while new
+ * records go to a new file of the original name. Rotating happens between two records on the thread of the adapter,
+ * so ingesting continues while the adapter stage buffers the arriving messages. The closed segment is synced like a
+ * batch, thus not at all for {@link FsyncPolicy#NEVER}, while its compressed copy is always forced to disk by the
+ * compressor before the segment is deleted.
+ */
+public final class FileChannelLogAdapter implements LogAdapter {
+    /**
+     * Size of the write buffer by default.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(FileChannelLogAdapter.class);
+    private static final int MIN_BUFFER_SIZE = 4096;
+    private static final String SEPARATOR = " | ";
+    private static final byte LINE_FEED = '\n';
+    private final Path file;
+    private final LogStrategy strategy;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final SegmentRoller roller;
+    private final ByteBuffer buffer;
+    private final StringBuilder header = new StringBuilder();
+    private final TimestampFormatter timestamps = TimestampFormatter.isoInstant();
+    private final LogEvent converted = new LogEvent();
+    private FileChannel channel;
+    private boolean unsynced;
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Constructs a new {@link FileChannelLogAdapter} instance with the default buffer size, leaving syncing to the
+     * operating system.
+     *
+     * @param file     File to append the messages to, created with its parent directories if missing
+     * @param strategy Strategy formatting the messages
+     * @throws IllegalArgumentException if a parameter is {@code null}
+     */
+    public FileChannelLogAdapter(final Path file, final LogStrategy strategy) {
+        this(file, strategy, DEFAULT_BUFFER_SIZE, FsyncPolicy.NEVER, Duration.ZERO);
+    }
+
+    /**
+     * Constructs a new {@link FileChannelLogAdapter} instance.
+     *
+     * @param file          File to append the messages to, created with its parent directories if missing
+     * @param strategy      Strategy formatting the messages
+     * @param bufferSize    Size of the write buffer in bytes, at least {@value #MIN_BUFFER_SIZE}
+     * @param fsyncPolicy   When written records are synced to the storage device
+     * @param fsyncInterval Minimum time between two syncs for {@link FsyncPolicy#INTERVAL}
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public FileChannelLogAdapter(final Path file, final LogStrategy strategy, final int bufferSize,
+                                 final FsyncPolicy fsyncPolicy, final Duration fsyncInterval) {
+        this(file, strategy, bufferSize, fsyncPolicy, fsyncInterval, RotationPolicy.none());
+    }
+
+    /**
+     * Constructs a new {@link FileChannelLogAdapter} instance rotating the file into segments.
+     *
+     * @param file          File to append the messages to, created with its parent directories if missing
+     * @param strategy      Strategy formatting the messages
+     * @param bufferSize    Size of the write buffer in bytes, at least {@value #MIN_BUFFER_SIZE}
+     * @param fsyncPolicy   When written records are synced to the storage device
+     * @param fsyncInterval Minimum time between two syncs for {@link FsyncPolicy#INTERVAL}
+     * @param rotation      When the file is rotated into segments and how they are compressed
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public FileChannelLogAdapter(final Path file, final LogStrategy strategy, final int bufferSize,
+                                 final FsyncPolicy fsyncPolicy, final Duration fsyncInterval,
+                                 final RotationPolicy rotation) {
+        this(file, strategy, bufferSize, fsyncPolicy, fsyncInterval, rotation, 0);
+    }
+
+    /**
+     * Constructs a new {@link FileChannelLogAdapter} instance rotating the file into segments and indexing them.
+     *
+     * @param file          File to append the messages to, created with its parent directories if missing
+     * @param strategy      Strategy formatting the messages
+     * @param bufferSize    Size of the write buffer in bytes, at least {@value #MIN_BUFFER_SIZE}
+     * @param fsyncPolicy   When written records are synced to the storage device
+     * @param fsyncInterval Minimum time between two syncs for {@link FsyncPolicy#INTERVAL}
+     * @param rotation      When the file is rotated into segments and how they are compressed
+     * @param indexInterval Number of records per block of the {@link SegmentIndex}, {@code 0} to not index them
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public FileChannelLogAdapter(final Path file, final LogStrategy strategy, final int bufferSize,
+                                 final FsyncPolicy fsyncPolicy, final Duration fsyncInterval,
+                                 final RotationPolicy rotation, final int indexInterval) {
+        if (file == null) {
+            throw new IllegalArgumentException("Provided file cannot be null");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided strategy cannot be null");
+        }
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("Provided fsyncPolicy cannot be null");
+        }
+        if (fsyncInterval == null || fsyncInterval.isNegative()) {
+            throw new IllegalArgumentException("Fsync interval must not be negative, was " + fsyncInterval);
+        }
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE + ", was "
+                    + bufferSize);
+        }
+        if (rotation == null) {
+            throw new IllegalArgumentException("Provided rotation cannot be null");
+        }
+        if (indexInterval < 0) {
+            throw new IllegalArgumentException("Index interval must not be negative, was " + indexInterval);
+        }
+
+        this.file = file;
+        this.strategy = strategy;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        if (rotation.isEnabled() || indexInterval > 0) {
+            this.roller = new SegmentRoller(file, rotation, indexInterval);
+        } else {
+            this.roller = null;
+        }
+    }
+
+    /**
+     * Appends the given message to the write buffer, allocating.
+     *
+     * @param messageDo The log message to save
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        converted.copyFrom(messageDo);
+        saveLogEvent(converted);
+    }
+
+    /**
+     * Appends the message of the given event to the write buffer, writing the buffer out whenever it is full.
+     *
+     * @param event Event holding the log message to save
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        header.setLength(0);
+        timestamps.appendTo(event.getProcessedAt(), header);
+        header.append(SEPARATOR);
+        ByteBuffer formatted = event.getFormattedUtf8(strategy);
+        if (roller != null) {
+            // the header is ASCII, thus as long encoded as UTF-8
+            long length = header.length() + formatted.remaining() + 1;
+            if (roller.isDue(event.getProcessedAt(), length)) {
+                rotate();
+            }
+            roller.count(event, length);
+        }
+        // the header is short, thus fits into the buffer once it is written out
+        if (!Utf8.encode(header, buffer)) {
+            write();
+            Utf8.encode(header, buffer);
+        }
+        append(formatted);
+        if (!buffer.hasRemaining()) {
+            write();
+        }
+        buffer.put(LINE_FEED);
+    }
+
+    /**
+     * Writes the buffered records of the batch with a single write and syncs them as defined by the fsync policy.
+     */
+    @Override
+    public synchronized void endOfBatch() {
+        write();
+        if (fsyncPolicy == FsyncPolicy.BATCH
+                || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSync >= fsyncIntervalNanos) {
+            sync(false);
+        }
+    }
+
+    /**
+     * Writes the buffered records, syncs the file to disk and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        write();
+        sync(true);
+        closeChannel();
+        if (roller != null) {
+            roller.close();
+        }
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "file"}, as it replaces the adapter of the persistor
+     */
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    private void rotate() {
+        write();
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            sync(true);
+        }
+        closeChannel();
+        roller.roll();
+    }
+
+    private void append(final ByteBuffer source) {
+        int limit = source.limit();
+        while (source.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                write();
+            }
+            source.limit(source.position() + Math.min(source.remaining(), buffer.remaining()));
+            buffer.put(source);
+            source.limit(limit);
+        }
+    }
+
+    private void write() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            FileChannel target = channel();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            unsynced = true;
+        } catch (IOException e) {
+            LOG.error("Failed to write {} bytes of log records to {}", buffer.remaining(), file, e);
+            closeChannel();
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void sync(final boolean metaData) {
+        if (!unsynced || channel == null) {
+            return;
+        }
+        try {
+            channel.force(metaData);
+            unsynced = false;
+            lastSync = System.nanoTime();
+        } catch (IOException e) {
+            LOG.error("Failed to sync log file to disk: {}", file, e);
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close log file {}", file, e);
+        }
+        channel = null;
+    }
+}
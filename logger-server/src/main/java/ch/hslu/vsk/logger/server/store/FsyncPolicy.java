@@ -0,0 +1,26 @@
+package ch.hslu.vsk.logger.server.store;
+
+/**
+ * Defines when written log records are forced from the page cache to the storage device, trading the records lost on
+ * a crash of the host against the throughput of the writer. Records are always written to the file, thus survive a
+ * crash of the server, at the end of every batch.
+ */
+public enum FsyncPolicy {
+    /**
+     * Leaves syncing to the operating system, except on close.
+     * Suited for the highest throughput if losing the last seconds of records on a crash of the host is acceptable.
+     */
+    NEVER,
+
+    /**
+     * Syncs at the end of a batch once the configured interval has passed since the last sync.
+     * Bounds the records lost on a crash of the host to about the interval while messages keep arriving.
+     */
+    INTERVAL,
+
+    /**
+     * Syncs at the end of every batch, so a batch is durable before the next one is written.
+     * Suited for records which must not be lost, at the cost of a sync per batch.
+     */
+    BATCH
+}
@@ -0,0 +1,133 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.time.Instant;
+import java.util.BitSet;
+
+/**
+ * Block of consecutive records of a log file as listed in its {@link SegmentIndex}: where the records are stored,
+ * the range of their processing times and which levels and sources they have.
+ * <br />
+ * A block of unknown content, f.e. records written before the index was enabled, has every level and source.
+ */
+public final class IndexBlock {
+    private final long offset;
+    private final long length;
+    private final Content content;
+
+    /**
+     * Constructs a new {@link IndexBlock} instance.
+     *
+     * @param offset  Offset of the first record in the uncompressed file
+     * @param length  Length of the records in bytes
+     * @param content What the records hold
+     */
+    IndexBlock(final long offset, final long length, final Content content) {
+        this.offset = offset;
+        this.length = length;
+        this.content = content;
+    }
+
+    /**
+     * Creates a block of unknown content, matching any query.
+     *
+     * @param offset Offset of the first record in the uncompressed file
+     * @param length Length of the records in bytes
+     * @return block of unknown content
+     */
+    static IndexBlock unknown(final long offset, final long length) {
+        return new IndexBlock(offset, length, Content.unknown());
+    }
+
+    /**
+     * Returns the offset of the first record.
+     *
+     * @return offset in bytes within the uncompressed file
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the length of the records.
+     *
+     * @return length in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return number of records, {@code 0} if unknown
+     */
+    public int getRecords() {
+        return content.records();
+    }
+
+    /**
+     * Returns the earliest processing time of the records.
+     *
+     * @return start of the time range, {@code null} if unknown
+     */
+    public Instant getFrom() {
+        return LogEvent.toInstant(content.from());
+    }
+
+    /**
+     * Returns the latest processing time of the records.
+     *
+     * @return end of the time range, inclusive, {@code null} if unknown
+     */
+    public Instant getTo() {
+        return LogEvent.toInstant(content.to());
+    }
+
+    Content getContent() {
+        return content;
+    }
+
+    /**
+     * Returns whether the block may hold records matching the given criteria.
+     *
+     * @param rangeFrom Start of the time range in nanoseconds since the epoch, inclusive
+     * @param rangeTo   End of the time range in nanoseconds since the epoch, exclusive
+     * @param levelMask Wanted levels as bits by their ordinal, {@code -1} for any
+     * @param sourceIds Wanted sources as bits by their id, {@code null} for any
+     * @return {@code true} if the block overlaps the time range and has a wanted level and source
+     */
+    boolean matches(final long rangeFrom, final long rangeTo, final int levelMask, final BitSet sourceIds) {
+        if (content.from() != LogEvent.NO_TIMESTAMP && (content.from() >= rangeTo || content.to() < rangeFrom)) {
+            return false;
+        }
+        if (levelMask != -1 && (content.levels() & levelMask) == 0) {
+            return false;
+        }
+        return sourceIds == null || content.anySource() || content.sources().intersects(sourceIds);
+    }
+
+    /**
+     * Summary of the records of a block as written to the index.
+     *
+     * @param records   Number of records, {@code 0} if unknown
+     * @param from      Earliest processing time in nanoseconds since the epoch, {@link LogEvent#NO_TIMESTAMP} if
+     *                  unknown
+     * @param to        Latest processing time in nanoseconds since the epoch, {@link LogEvent#NO_TIMESTAMP} if
+     *                  unknown
+     * @param levels    Levels of the records as bits by their ordinal
+     * @param anySource Whether the sources are unknown, thus any source might be contained
+     * @param sources   Sources of the records as bits by their id in the index
+     */
+    record Content(int records, long from, long to, int levels, boolean anySource, BitSet sources) {
+        /**
+         * Creates the content of records not known to the index, which has every level and source.
+         *
+         * @return unknown content
+         */
+        static Content unknown() {
+            return new Content(0, LogEvent.NO_TIMESTAMP, LogEvent.NO_TIMESTAMP, -1, true, new BitSet());
+        }
+    }
+}
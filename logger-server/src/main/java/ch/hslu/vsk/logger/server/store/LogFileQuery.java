@@ -0,0 +1,319 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds the records of a log file and its segments processed within a time range, filtered by source and level,
+ * reading only the blocks their {@link SegmentIndex} lists as possibly matching instead of scanning the whole files.
+ * <br />
+ * Segments are chosen by the time ranges of the {@link SegmentManifest}, blocks by their time range, levels and
+ * sources. The records of the chosen blocks are filtered exactly by their processing time. As their text depends on
+ * the configured strategy, sources and levels are matched per block, so records of other sources and levels sharing a
+ * block with a matching record are returned as well. Records not covered by an index, f.e. written before it was
+ * enabled or not yet part of a completed block, are read and filtered by time only. Compressed segments are
+ * decompressed up to the last chosen block, skipping the others.
+ * <br />
+ * Ranges are read in chunks of at most {@value #READ_SIZE} bytes, carrying a record cut by the end of a chunk over to
+ * the next one, so the memory used does not depend on the size of the blocks. Reading a file stops at its first zero
+ * byte, which marks the unwritten part of an active file of the {@link MappedSegmentLogAdapter}.
+ */
+public final class LogFileQuery {
+    private static final Logger LOG = LoggerFactory.getLogger(LogFileQuery.class);
+    private static final int READ_SIZE = 1024 * 1024;
+    private static final byte LINE_FEED = '\n';
+    private static final byte UNWRITTEN = 0;
+    private final Path logFile;
+    private long bytesRead;
+
+    /**
+     * Constructs a new {@link LogFileQuery} instance.
+     *
+     * @param logFile Active log file, its segments and indexes being next to it
+     * @throws IllegalArgumentException if {@code logFile} is {@code null}
+     */
+    public LogFileQuery(final Path logFile) {
+        if (logFile == null) {
+            throw new IllegalArgumentException("Provided logFile cannot be null");
+        }
+
+        this.logFile = logFile;
+    }
+
+    /**
+     * Returns the records processed within the given range, of the given sources and levels.
+     *
+     * @param from    Start of the time range, inclusive, {@code null} if open
+     * @param to      End of the time range, exclusive, {@code null} if open
+     * @param sources Wanted sources, empty for any
+     * @param levels  Wanted levels, empty for any
+     * @return records in the order they were written, in the layout of the log file
+     * @throws IOException if the manifest or a segment could not be read
+     */
+    public List<String> find(final Instant from, final Instant to, final Collection<String> sources,
+                             final Collection<LogLevel> levels) throws IOException {
+        return find(from, to, sources, levels, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the oldest records processed within the given range, of the given sources and levels, reading no
+     * further once the given number of records is found.
+     *
+     * @param from    Start of the time range, inclusive, {@code null} if open
+     * @param to      End of the time range, exclusive, {@code null} if open
+     * @param sources Wanted sources, empty for any
+     * @param levels  Wanted levels, empty for any
+     * @param limit   Maximum number of records returned
+     * @return records in the order they were written, in the layout of the log file
+     * @throws IOException if the manifest or a segment could not be read
+     */
+    public List<String> find(final Instant from, final Instant to, final Collection<String> sources,
+                             final Collection<LogLevel> levels, final int limit) throws IOException {
+        bytesRead = 0;
+        long rangeFrom = Long.MIN_VALUE;
+        Instant segmentsFrom = Instant.MIN;
+        if (from != null) {
+            rangeFrom = LogEvent.toEpochNanos(from);
+            segmentsFrom = from;
+        }
+        long rangeTo = Long.MAX_VALUE;
+        Instant segmentsTo = Instant.MAX;
+        if (to != null) {
+            rangeTo = LogEvent.toEpochNanos(to);
+            segmentsTo = to;
+        }
+
+        Query query = new Query(from, to, sources, levels, rangeFrom, rangeTo, limit);
+        List<String> records = new ArrayList<>();
+        for (LogSegment segment : SegmentManifest.load(logFile).getSegments(segmentsFrom, segmentsTo)) {
+            if (records.size() >= limit) {
+                return records;
+            }
+            Compression compression = Compression.of(segment.getName());
+            Path uncompressed = logFile.resolveSibling(compression.uncompressedName(segment.getName()));
+            Path path = logFile.resolveSibling(segment.getName());
+            if (!Files.exists(path)) {
+                // compressed since the manifest was read
+                path = findCompressed(uncompressed);
+                if (path == null) {
+                    LOG.warn("Segment {} of log file {} is missing, skipping it", segment.getName(), logFile);
+                    continue;
+                }
+                compression = Compression.of(path.getFileName().toString());
+            }
+            find(path, compression, uncompressed, segment.getBytes(), query, records);
+        }
+        if (records.size() < limit && Files.exists(logFile)) {
+            find(logFile, Compression.NONE, logFile, Files.size(logFile), query, records);
+        }
+        return records;
+    }
+
+    /**
+     * Returns the number of bytes of records read by the last query, before decompression.
+     *
+     * @return bytes read
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    private void find(final Path path, final Compression compression, final Path uncompressed, final long length,
+                      final Query query, final List<String> records) throws IOException {
+        List<IndexBlock> blocks = new ArrayList<>();
+        long covered = 0;
+        Path indexFile = SegmentIndex.pathOf(uncompressed);
+        if (Files.exists(indexFile)) {
+            try {
+                SegmentIndex index = SegmentIndex.load(indexFile);
+                blocks.addAll(index.select(query.from, query.to, query.sources, query.levels));
+                covered = index.getCoveredLength();
+            } catch (IOException e) {
+                LOG.warn("Failed to read index {}, scanning its log file", indexFile, e);
+            }
+        }
+        if (covered < length) {
+            blocks.add(IndexBlock.unknown(covered, length - covered));
+        }
+        if (blocks.isEmpty()) {
+            return;
+        }
+
+        if (compression == Compression.NONE) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                readRanges(blocks, (offset, target) -> {
+                    while (target.hasRemaining()) {
+                        if (channel.read(target, offset + target.position()) < 0) {
+                            break;
+                        }
+                    }
+                }, query, records);
+            }
+        } else {
+            try (InputStream in = compression.decompress(Files.newInputStream(path))) {
+                long[] position = {0};
+                readRanges(blocks, (offset, target) -> {
+                    in.skipNBytes(offset - position[0]);
+                    int read = in.readNBytes(target.array(), target.arrayOffset() + target.position(),
+                            target.remaining());
+                    target.position(target.position() + read);
+                    position[0] = offset + read;
+                }, query, records);
+            }
+        }
+    }
+
+    private Path findCompressed(final Path uncompressed) {
+        for (Compression compression : Compression.values()) {
+            Path path = uncompressed.resolveSibling(uncompressed.getFileName() + compression.getExtension());
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private void readRanges(final List<IndexBlock> blocks, final RangeReader reader, final Query query,
+                            final List<String> records) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(READ_SIZE);
+        ByteArrayOutputStream cut = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < blocks.size()) {
+            long position = blocks.get(i).getOffset();
+            long end = position + blocks.get(i).getLength();
+            i++;
+            // adjacent blocks are read as one range
+            while (i < blocks.size() && blocks.get(i).getOffset() == end) {
+                end += blocks.get(i).getLength();
+                i++;
+            }
+            cut.reset();
+            while (position < end) {
+                chunk.clear().limit((int) Math.min(READ_SIZE, end - position));
+                reader.read(position, chunk);
+                chunk.flip();
+                if (!chunk.hasRemaining()) {
+                    // the file is shorter than its index or size claimed
+                    break;
+                }
+                bytesRead += chunk.remaining();
+                position += chunk.remaining();
+                if (!collect(chunk, cut, query, records)) {
+                    return;
+                }
+            }
+            // a range ends with a record, except the tail of a file still being written
+            if (cut.size() > 0) {
+                addIfWithin(cut.toString(StandardCharsets.UTF_8), query, records);
+            }
+            if (records.size() >= query.limit) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the records of the given chunk, the first one continuing the bytes cut off the previous chunk and the
+     * last one being cut off if it does not end within the chunk.
+     *
+     * @param chunk   Bytes read from the file, between position and limit
+     * @param cut     Bytes of the record cut off the previous chunk, holds those cut off this chunk afterwards
+     * @param query   Criteria the records must match
+     * @param records Records found so far, the matching records of the chunk are added to
+     * @return {@code false} if the chunk contains a zero byte, which ends the written part of the file, or the
+     *         limit of the query is reached
+     */
+    private static boolean collect(final ByteBuffer chunk, final ByteArrayOutputStream cut, final Query query,
+                                   final List<String> records) {
+        byte[] bytes = chunk.array();
+        int start = chunk.arrayOffset() + chunk.position();
+        int limit = chunk.arrayOffset() + chunk.limit();
+        for (int i = start; i < limit; i++) {
+            if (bytes[i] == UNWRITTEN) {
+                // a record followed by zeros is still being copied into its mapped segment
+                cut.reset();
+                return false;
+            }
+            if (bytes[i] == LINE_FEED) {
+                String line;
+                if (cut.size() == 0) {
+                    line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+                } else {
+                    cut.write(bytes, start, i - start);
+                    line = cut.toString(StandardCharsets.UTF_8);
+                    cut.reset();
+                }
+                addIfWithin(line, query, records);
+                if (records.size() >= query.limit) {
+                    cut.reset();
+                    return false;
+                }
+                start = i + 1;
+            }
+        }
+        cut.write(bytes, start, limit - start);
+        return true;
+    }
+
+    private static void addIfWithin(final String line, final Query query, final List<String> records) {
+        long processedAt = SegmentRoller.parseProcessedAt(line);
+        if (processedAt == LogEvent.NO_TIMESTAMP || processedAt >= query.rangeFrom && processedAt < query.rangeTo) {
+            records.add(line);
+        }
+    }
+
+    /**
+     * Reads a range of an uncompressed log file.
+     */
+    @FunctionalInterface
+    private interface RangeReader {
+        /**
+         * Reads the bytes at the given offset into the target up to its limit, less only at the end of the file.
+         *
+         * @param offset Offset in the uncompressed file to read from
+         * @param target Buffer to read into from its position
+         * @throws IOException if the file could not be read
+         */
+        void read(long offset, ByteBuffer target) throws IOException;
+    }
+
+    /**
+     * Criteria of a query.
+     */
+    private static final class Query {
+        private final Instant from;
+        private final Instant to;
+        private final Collection<String> sources;
+        private final Collection<LogLevel> levels;
+        private final long rangeFrom;
+        private final long rangeTo;
+        private final int limit;
+
+        private Query(final Instant from, final Instant to, final Collection<String> sources,
+                      final Collection<LogLevel> levels, final long rangeFrom, final long rangeTo, final int limit) {
+            this.from = from;
+            this.to = to;
+            this.sources = sources;
+            this.levels = levels;
+            this.rangeFrom = rangeFrom;
+            this.rangeTo = rangeTo;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ch.hslu.vsk.logger.server.store;
+
+/**
+ * Defines how the server persists the log messages to its log file.
+ */
+public enum LogFileWriter {
+    /**
+     * Saves every message through the {@link ch.hslu.vsk.stringpersistor.api.StringPersistor}.
+     */
+    PERSISTOR,
+
+    /**
+     * Appends the messages in batches through a single file channel, see {@link FileChannelLogAdapter}.
+     */
+    CHANNEL,
+
+    /**
+     * Copies the messages into segments mapped into memory, see {@link MappedSegmentLogAdapter}.
+     */
+    MAPPED
+}
@@ -0,0 +1,112 @@
+package ch.hslu.vsk.logger.server.store;
+
+import java.time.Instant;
+
+/**
+ * Closed segment of the log file as listed in the {@link SegmentManifest}: its file name and the range of the times
+ * its records were processed at.
+ */
+public final class LogSegment {
+    private final String name;
+    private final Instant from;
+    private final Instant to;
+    private final long records;
+    private final long bytes;
+
+    /**
+     * Constructs a new {@link LogSegment} instance.
+     *
+     * @param name    Name of the segment file, within the directory of the log file
+     * @param from    Processing time of the first record, {@code null} if unknown
+     * @param to      Processing time of the last record, {@code null} if unknown
+     * @param records Number of records
+     * @param bytes   Size of the records before compression
+     * @throws IllegalArgumentException if {@code name} is {@code null}
+     */
+    public LogSegment(final String name, final Instant from, final Instant to, final long records, final long bytes) {
+        if (name == null) {
+            throw new IllegalArgumentException("Provided name cannot be null");
+        }
+
+        this.name = name;
+        this.from = from;
+        this.to = to;
+        this.records = records;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the name of the segment file.
+     *
+     * @return file name, within the directory of the log file
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the processing time of the first record.
+     *
+     * @return start of the time range, {@code null} if unknown
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the processing time of the last record.
+     *
+     * @return end of the time range, inclusive, {@code null} if unknown
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the size of the records before compression.
+     *
+     * @return size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns whether the segment holds records processed within the given range.
+     *
+     * @param rangeFrom Start of the range, inclusive
+     * @param rangeTo   End of the range, exclusive
+     * @return {@code true} if the ranges overlap or the time range of the segment is unknown
+     */
+    public boolean overlaps(final Instant rangeFrom, final Instant rangeTo) {
+        if (from == null || to == null) {
+            return true;
+        }
+        return from.isBefore(rangeTo) && !to.isBefore(rangeFrom);
+    }
+
+    /**
+     * Returns a copy of the segment under another file name, f.e. once compressed.
+     *
+     * @param newName New name of the segment file
+     * @return renamed segment
+     */
+    LogSegment renamed(final String newName) {
+        return new LogSegment(newName, from, to, records, bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "LogSegment[name=" + name + ", from=" + from + ", to=" + to + ", records=" + records + ", bytes="
+                + bytes + "]";
+    }
+}
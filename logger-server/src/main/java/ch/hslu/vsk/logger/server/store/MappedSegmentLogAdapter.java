@@ -0,0 +1,331 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.logstrategies.TimestampFormatter;
+import ch.hslu.vsk.logger.server.logstrategies.Utf8;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Persists the log messages to segments of a fixed size which are mapped into memory, so records are stored by
+ * copying them into the page cache, without a write call per record or batch. Syncing a mapped range is however
+ * slower than syncing appended records, thus the {@link FileChannelLogAdapter} is the faster writer, in particular
+ * with {@link FsyncPolicy#BATCH}.
+ * <br />
+ * The active file is extended to the size of a segment when it is mapped, and records are encoded straight into the
+ * {@link MappedByteBuffer}. Once a record does not fit anymore, or the {@link RotationPolicy} asks for it, the
+ * written part is synced, the segment is unmapped right away and the file is truncated to its records and rolled over
+ * into a segment like by the {@link FileChannelLogAdapter}. The operating system writes the dirty pages back on its
+ * own; when the written range is synced explicitly is defined by the {@link FsyncPolicy}.
+ * <br />
+ * The records keep the layout of the persistor, {@code <processed at> | <formatted message>} per line. After a crash
+ * the active file still holds the zeros of its unwritten part, which are cut off when the file is opened again.
+ */
+public final class MappedSegmentLogAdapter implements LogAdapter {
+    /**
+     * Size of the segments if the rotation policy does not limit their size.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(MappedSegmentLogAdapter.class);
+    private static final String SEPARATOR = " | ";
+    private static final byte LINE_FEED = '\n';
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    private final Path file;
+    private final LogStrategy strategy;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int segmentSize;
+    private final SegmentRoller roller;
+    private final StringBuilder header = new StringBuilder();
+    private final TimestampFormatter timestamps = TimestampFormatter.isoInstant();
+    private final LogEvent converted = new LogEvent();
+    private boolean opened;
+    private MappedByteBuffer mapped;
+    private int syncedPosition;
+    private long lastSync = System.nanoTime();
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn("Mapped segments cannot be unmapped explicitly, leaving it to the garbage collector", e);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Constructs a new {@link MappedSegmentLogAdapter} instance.
+     *
+     * @param file          Active file to append the messages to, created with its parent directories if missing
+     * @param strategy      Strategy formatting the messages
+     * @param fsyncPolicy   When written records are synced to the storage device
+     * @param fsyncInterval Minimum time between two syncs for {@link FsyncPolicy#INTERVAL}
+     * @param rotation      When the file is rolled over and how the segments are compressed, its maximum size being
+     *                      the size of the segments, {@value #DEFAULT_SEGMENT_SIZE} bytes if not limited
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public MappedSegmentLogAdapter(final Path file, final LogStrategy strategy, final FsyncPolicy fsyncPolicy,
+                                   final Duration fsyncInterval, final RotationPolicy rotation) {
+        this(file, strategy, fsyncPolicy, fsyncInterval, rotation, 0);
+    }
+
+    /**
+     * Constructs a new {@link MappedSegmentLogAdapter} instance indexing the segments.
+     *
+     * @param file          Active file to append the messages to, created with its parent directories if missing
+     * @param strategy      Strategy formatting the messages
+     * @param fsyncPolicy   When written records are synced to the storage device
+     * @param fsyncInterval Minimum time between two syncs for {@link FsyncPolicy#INTERVAL}
+     * @param rotation      When the file is rolled over and how the segments are compressed, its maximum size being
+     *                      the size of the segments, {@value #DEFAULT_SEGMENT_SIZE} bytes if not limited
+     * @param indexInterval Number of records per block of the {@link SegmentIndex}, {@code 0} to not index them
+     * @throws IllegalArgumentException if a parameter is {@code null} or out of range
+     */
+    public MappedSegmentLogAdapter(final Path file, final LogStrategy strategy, final FsyncPolicy fsyncPolicy,
+                                   final Duration fsyncInterval, final RotationPolicy rotation,
+                                   final int indexInterval) {
+        if (file == null) {
+            throw new IllegalArgumentException("Provided file cannot be null");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided strategy cannot be null");
+        }
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("Provided fsyncPolicy cannot be null");
+        }
+        if (fsyncInterval == null || fsyncInterval.isNegative()) {
+            throw new IllegalArgumentException("Fsync interval must not be negative, was " + fsyncInterval);
+        }
+        if (rotation == null) {
+            throw new IllegalArgumentException("Provided rotation cannot be null");
+        }
+        if (rotation.getMaxBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be at most " + Integer.MAX_VALUE + " to be mapped, "
+                    + "was " + rotation.getMaxBytes());
+        }
+        if (indexInterval < 0) {
+            throw new IllegalArgumentException("Index interval must not be negative, was " + indexInterval);
+        }
+
+        this.file = file;
+        this.strategy = strategy;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        if (rotation.getMaxBytes() > 0) {
+            this.segmentSize = (int) rotation.getMaxBytes();
+        } else {
+            this.segmentSize = DEFAULT_SEGMENT_SIZE;
+        }
+        this.roller = new SegmentRoller(file, rotation, indexInterval);
+    }
+
+    /**
+     * Copies the given message into the mapped segment, allocating.
+     *
+     * @param messageDo The log message to save
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        converted.copyFrom(messageDo);
+        saveLogEvent(converted);
+    }
+
+    /**
+     * Copies the message of the given event into the mapped segment, rolling over to a new segment if it is full.
+     *
+     * @param event Event holding the log message to save
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        if (!opened) {
+            open();
+        }
+        header.setLength(0);
+        timestamps.appendTo(event.getProcessedAt(), header);
+        header.append(SEPARATOR);
+        ByteBuffer formatted = event.getFormattedUtf8(strategy);
+        // the header is ASCII, thus as long encoded as UTF-8
+        int length = header.length() + formatted.remaining() + 1;
+        if (roller.isDue(event.getProcessedAt(), length) || mapped != null && length > mapped.remaining()) {
+            rollOver();
+        }
+        MappedByteBuffer target = mapped(length);
+        if (target == null) {
+            return;
+        }
+        Utf8.encode(header, target);
+        target.put(formatted);
+        target.put(LINE_FEED);
+        roller.count(event, length);
+    }
+
+    /**
+     * Syncs the records written since the last sync as defined by the fsync policy, without writing them.
+     */
+    @Override
+    public synchronized void endOfBatch() {
+        if (fsyncPolicy == FsyncPolicy.BATCH
+                || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSync >= fsyncIntervalNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Syncs the written records, truncates the active file to them and waits for the segments to be compressed.
+     */
+    @Override
+    public synchronized void close() {
+        release();
+        roller.close();
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "file"}, as it replaces the adapter of the persistor
+     */
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    /**
+     * Cuts off the unwritten part of an active file left by a crash, before its records are counted.
+     */
+    private void open() {
+        opened = true;
+        if (Files.exists(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.truncate(writtenLength(channel));
+            } catch (IOException e) {
+                LOG.error("Failed to cut off unwritten part of log file {}", file, e);
+            }
+        }
+        roller.open();
+    }
+
+    private void rollOver() {
+        release();
+        roller.roll();
+    }
+
+    private MappedByteBuffer mapped(final int length) {
+        if (mapped != null) {
+            return mapped;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                // the mapping stays valid once the channel is closed
+                long written = channel.size();
+                long capacity = Math.max(segmentSize, written + length);
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                mapped.position((int) written);
+                syncedPosition = (int) written;
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to map segment of log file {}, dropping record", file, e);
+        }
+        return mapped;
+    }
+
+    private void sync() {
+        if (mapped == null || mapped.position() == syncedPosition) {
+            return;
+        }
+        mapped.force(syncedPosition, mapped.position() - syncedPosition);
+        syncedPosition = mapped.position();
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Syncs the written records, unmaps the segment and truncates the active file to its records.
+     */
+    private void release() {
+        if (mapped == null) {
+            return;
+        }
+        sync();
+        int written = mapped.position();
+        MappedByteBuffer released = mapped;
+        mapped = null;
+        unmap(released);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(written);
+        } catch (IOException e) {
+            LOG.error("Failed to truncate log file {} to its records", file, e);
+        }
+    }
+
+    /**
+     * Unmaps the given buffer right away instead of once it is garbage collected, as a file cannot be truncated while
+     * it is mapped on some platforms, f.e. Windows. The buffer must not be accessed anymore.
+     *
+     * @param buffer Mapped segment to unmap
+     */
+    private void unmap(final MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            LOG.warn("Failed to unmap segment of log file {}, leaving it to the garbage collector", file, e);
+        }
+    }
+
+    /**
+     * Returns the length of the records of the given file, which is followed by zeros if it was not released.
+     *
+     * @param channel Channel of the log file to scan
+     * @return length of the records, {@code 0} if the file holds none
+     * @throws IOException if the file could not be read
+     */
+    private static long writtenLength(final FileChannel channel) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - SCAN_BUFFER_SIZE);
+            chunk.clear().limit((int) (end - start));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, start + chunk.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                if (chunk.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,83 @@
+package ch.hslu.vsk.logger.server.store;
+
+import java.time.Duration;
+
+/**
+ * Defines when the log file is closed as a segment and a new one is started, and how closed segments are compressed.
+ */
+public final class RotationPolicy {
+    private static final RotationPolicy NONE = new RotationPolicy(0, Duration.ZERO, Compression.NONE);
+    private final long maxBytes;
+    private final Duration interval;
+    private final Compression compression;
+
+    /**
+     * Constructs a new {@link RotationPolicy} instance.
+     *
+     * @param maxBytes    Size a segment is rotated at before exceeding it, {@code 0} to not rotate by size
+     * @param interval    Length of the intervals, aligned to the epoch, a segment holds records of, zero to not rotate
+     *                    by time
+     * @param compression Compression of the closed segments
+     * @throws IllegalArgumentException if a parameter is {@code null} or negative
+     */
+    public RotationPolicy(final long maxBytes, final Duration interval, final Compression compression) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Maximum segment size must not be negative, was " + maxBytes);
+        }
+        if (interval == null || interval.isNegative()) {
+            throw new IllegalArgumentException("Rotation interval must not be negative, was " + interval);
+        }
+        if (compression == null) {
+            throw new IllegalArgumentException("Provided compression cannot be null");
+        }
+
+        this.maxBytes = maxBytes;
+        this.interval = interval;
+        this.compression = compression;
+    }
+
+    /**
+     * Returns the policy never rotating the log file.
+     *
+     * @return policy without rotation
+     */
+    public static RotationPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Returns whether the log file is rotated at all.
+     *
+     * @return {@code true} if rotating by size or time
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0 || !interval.isZero();
+    }
+
+    /**
+     * Returns the size a segment is rotated at.
+     *
+     * @return maximum size of a segment in bytes, {@code 0} if not rotating by size
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the length of the intervals a segment holds records of.
+     *
+     * @return rotation interval, zero if not rotating by time
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the compression of the closed segments.
+     *
+     * @return compression
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+}
@@ -0,0 +1,97 @@
+package ch.hslu.vsk.logger.server.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compresses closed segments of the log file one after the other on a single daemon thread of the lowest priority,
+ * so compressing never competes with ingesting for the CPU.
+ * <br />
+ * A segment is compressed into a temporary file, which is forced to disk and atomically moved to its final name
+ * before the manifest is updated. The uncompressed segment is only deleted once the directory is forced as well, so
+ * readers always find every segment listed in the manifest, either uncompressed or complete, even after a crash of
+ * the host. If compressing fails, the uncompressed segment is kept.
+ */
+final class SegmentCompressor {
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentCompressor.class);
+    private final Compression compression;
+    private final SegmentManifest manifest;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a new {@link SegmentCompressor} instance.
+     *
+     * @param compression Compression of the segments, not {@link Compression#NONE}
+     * @param manifest    Manifest to rename the compressed segments in
+     */
+    SegmentCompressor(final Compression compression, final SegmentManifest manifest) {
+        this.compression = compression;
+        this.manifest = manifest;
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("log-compressor").daemon()
+                .priority(Thread.MIN_PRIORITY).factory());
+    }
+
+    /**
+     * Queues the given segment for compression.
+     *
+     * @param segment Uncompressed segment file
+     */
+    void submit(final Path segment) {
+        try {
+            executor.execute(() -> compress(segment));
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Compressor is closed, keeping segment {} uncompressed", segment);
+        }
+    }
+
+    /**
+     * Compresses the queued segments, waiting at most the given time for them.
+     *
+     * @param timeout Maximum time to wait
+     */
+    void close(final Duration timeout) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Segments still being compressed after {}, resuming at the next start", timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void compress(final Path segment) {
+        Path compressed = segment.resolveSibling(segment.getFileName() + compression.getExtension());
+        Path temporary = compressed.resolveSibling(compressed.getFileName() + ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = compression.compress(Files.newOutputStream(temporary))) {
+                in.transferTo(out);
+            }
+            DurableFiles.force(temporary);
+            Files.move(temporary, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            manifest.rename(segment.getFileName().toString(), compressed.getFileName().toString());
+            DurableFiles.forceDirectory(compressed.toAbsolutePath().getParent());
+            Files.delete(segment);
+        } catch (IOException e) {
+            LOG.error("Failed to compress log segment {}, keeping it uncompressed", segment, e);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+        }
+    }
+}
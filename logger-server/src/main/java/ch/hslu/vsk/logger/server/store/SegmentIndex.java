@@ -0,0 +1,234 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse index of a log file, listing its records in blocks of a fixed number of records with their offset, time
+ * range, levels and sources. The union of the blocks tells whether the file holds wanted records at all, the blocks
+ * where to seek to for them, so a query filtered by time, source and level reads only the blocks which may match.
+ * <br />
+ * The index is kept next to the log file as {@code <log file>.idx} and written by the {@link SegmentIndexWriter}
+ * while the records are written. It is appended to, so a reader sees every completed block, and renamed with the
+ * segment on rotation. Its entries are
+ * <ul>
+ *     <li>a header of the magic number, the version and the number of records per block,</li>
+ *     <li>{@value #SOURCE} and the length and UTF-8 name of a source, which gets the next id,</li>
+ *     <li>{@value #BLOCK}, the offset, length, number of records, earliest and latest processing time in nanoseconds
+ *     since the epoch, the levels as bits by their ordinal, whether any source might be contained and the sources
+ *     as bits by their id.</li>
+ * </ul>
+ * An entry cut off by a crash is ignored.
+ */
+public final class SegmentIndex {
+    static final int MAGIC = 0x4c494458;
+    static final byte VERSION = 1;
+    static final byte SOURCE = 1;
+    static final byte BLOCK = 2;
+    static final int HEADER_LENGTH = Integer.BYTES + 1 + Integer.BYTES;
+    private static final String EXTENSION = ".idx";
+    private final int interval;
+    private final List<String> sources;
+    private final List<IndexBlock> blocks;
+    private final long validLength;
+    private final Map<String, Integer> sourceIds = new HashMap<>();
+    private final BitSet allSources = new BitSet();
+    private int allLevels;
+    private boolean anySource;
+
+    private SegmentIndex(final int interval, final List<String> sources, final List<IndexBlock> blocks,
+                         final long validLength) {
+        this.interval = interval;
+        this.sources = sources;
+        this.blocks = blocks;
+        this.validLength = validLength;
+        for (int i = 0; i < sources.size(); i++) {
+            sourceIds.put(sources.get(i), i);
+        }
+        for (IndexBlock block : blocks) {
+            allLevels |= block.getContent().levels();
+            anySource |= block.getContent().anySource();
+            allSources.or(block.getContent().sources());
+        }
+    }
+
+    /**
+     * Reads the given index.
+     *
+     * @param indexFile Index file
+     * @return index, without an entry cut off at its end
+     * @throws IOException if the index could not be read or is not an index
+     */
+    public static SegmentIndex load(final Path indexFile) throws IOException {
+        return load(indexFile, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads the given index up to the first block ending beyond the given length of its log file, f.e. as a crash of
+     * the host lost records of the log file whose block had already reached the index.
+     *
+     * @param indexFile  Index file
+     * @param fileLength Length of the log file
+     * @return index without the blocks beyond the log file, the sources named after them and an entry cut off at its
+     *         end
+     * @throws IOException if the index could not be read or is not an index
+     */
+    static SegmentIndex load(final Path indexFile, final long fileLength) throws IOException {
+        // indexes are small, a block of records taking a few dozen bytes
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        if (in.remaining() < HEADER_LENGTH || in.getInt() != MAGIC || in.get() != VERSION) {
+            throw new IOException("Not a log index of version " + VERSION + ": " + indexFile);
+        }
+        int interval = in.getInt();
+        List<String> sources = new ArrayList<>();
+        List<IndexBlock> blocks = new ArrayList<>();
+        int validLength = in.position();
+        try {
+            while (in.hasRemaining()) {
+                byte type = in.get();
+                if (type == SOURCE) {
+                    byte[] name = new byte[in.getShort() & 0xFFFF];
+                    in.get(name);
+                    sources.add(new String(name, StandardCharsets.UTF_8));
+                } else if (type == BLOCK) {
+                    long offset = in.getLong();
+                    long length = in.getLong();
+                    int records = in.getInt();
+                    long from = in.getLong();
+                    long to = in.getLong();
+                    int levels = in.getInt();
+                    boolean anySource = in.get() != 0;
+                    long[] words = new long[in.getInt()];
+                    for (int i = 0; i < words.length; i++) {
+                        words[i] = in.getLong();
+                    }
+                    if (offset + length > fileLength) {
+                        break;
+                    }
+                    blocks.add(new IndexBlock(offset, length,
+                            new IndexBlock.Content(records, from, to, levels, anySource, BitSet.valueOf(words))));
+                } else {
+                    throw new IOException("Unknown entry " + type + " in log index " + indexFile);
+                }
+                validLength = in.position();
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            // the last entry was cut off while it was written
+        }
+        return new SegmentIndex(interval, sources, blocks, validLength);
+    }
+
+    /**
+     * Returns the path of the index of the given log file.
+     *
+     * @param logFile Uncompressed log file or segment
+     * @return path of the index next to the log file
+     */
+    public static Path pathOf(final Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Returns the number of records per block.
+     *
+     * @return records per block
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the blocks in the order they were written.
+     *
+     * @return blocks
+     */
+    public List<IndexBlock> getBlocks() {
+        return List.copyOf(blocks);
+    }
+
+    /**
+     * Returns the number of bytes of the log file covered by the blocks, records after it are not indexed yet.
+     *
+     * @return end of the last block, {@code 0} without blocks
+     */
+    public long getCoveredLength() {
+        if (blocks.isEmpty()) {
+            return 0;
+        }
+        IndexBlock last = blocks.get(blocks.size() - 1);
+        return last.getOffset() + last.getLength();
+    }
+
+    /**
+     * Returns the blocks which may hold records matching the given criteria.
+     *
+     * @param from        Start of the time range, inclusive, {@code null} if open
+     * @param to          End of the time range, exclusive, {@code null} if open
+     * @param sourceNames Wanted sources, empty for any
+     * @param levels      Wanted levels, empty for any
+     * @return matching blocks in the order they were written, empty if the file holds no matching record
+     */
+    public List<IndexBlock> select(final Instant from, final Instant to, final Collection<String> sourceNames,
+                                   final Collection<LogLevel> levels) {
+        int levelMask = -1;
+        if (!levels.isEmpty()) {
+            levelMask = 0;
+            for (LogLevel level : levels) {
+                levelMask |= 1 << level.ordinal();
+            }
+        }
+        BitSet wanted = null;
+        if (!sourceNames.isEmpty()) {
+            wanted = new BitSet();
+            for (String name : sourceNames) {
+                Integer id = sourceIds.get(name);
+                if (id != null) {
+                    wanted.set(id);
+                }
+            }
+        }
+        // the union of the blocks rules out files without any wanted level or source at once
+        if (levelMask != -1 && (allLevels & levelMask) == 0
+                || wanted != null && !anySource && !allSources.intersects(wanted)) {
+            return List.of();
+        }
+
+        long rangeFrom = Long.MIN_VALUE + 1;
+        if (from != null) {
+            rangeFrom = LogEvent.toEpochNanos(from);
+        }
+        long rangeTo = Long.MAX_VALUE;
+        if (to != null) {
+            rangeTo = LogEvent.toEpochNanos(to);
+        }
+        List<IndexBlock> selected = new ArrayList<>();
+        for (IndexBlock block : blocks) {
+            if (block.matches(rangeFrom, rangeTo, levelMask, wanted)) {
+                selected.add(block);
+            }
+        }
+        return selected;
+    }
+
+    List<String> getSources() {
+        return sources;
+    }
+
+    long getValidLength() {
+        return validLength;
+    }
+}
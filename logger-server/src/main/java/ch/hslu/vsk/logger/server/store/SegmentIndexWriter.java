@@ -0,0 +1,240 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends the blocks of the records written to a log file to its {@link SegmentIndex}, one block every given number
+ * of records, so the index costs a small write per block instead of work per record.
+ * <br />
+ * The sources are numbered in the order they appear. Like the {@link ch.hslu.vsk.logger.server.admission.SourceCache},
+ * the most recent source is compared by its characters, so records of the same source are indexed without allocating.
+ * An index which cannot be written is given up, the records after its last block then count as unknown to readers.
+ * Not thread safe, used by the single thread of the writer.
+ */
+final class SegmentIndexWriter {
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentIndexWriter.class);
+    private static final int MAX_SOURCE_LENGTH = 0xFFFF;
+    private final Path indexFile;
+    private final int interval;
+    private final Map<String, Integer> sourceIds = new HashMap<>();
+    private final BitSet blockSources = new BitSet();
+    private DataOutputStream out;
+    private String recentSource;
+    private int recentId;
+    private long blockOffset;
+    private long blockLength;
+    private int blockRecords;
+    private long blockFrom = LogEvent.NO_TIMESTAMP;
+    private long blockTo = LogEvent.NO_TIMESTAMP;
+    private int blockLevels;
+    private boolean blockAnySource;
+
+    private SegmentIndexWriter(final Path indexFile, final int interval) {
+        this.indexFile = indexFile;
+        this.interval = interval;
+    }
+
+    /**
+     * Opens the index of the given log file for appending, continuing an existing index. Records of the log file not
+     * covered by the index are added as a block of unknown content.
+     *
+     * @param logFile    Active log file
+     * @param interval   Number of records per block
+     * @param fileLength Length of the log file
+     * @return writer of the index
+     */
+    static SegmentIndexWriter open(final Path logFile, final int interval, final long fileLength) {
+        SegmentIndexWriter writer = new SegmentIndexWriter(SegmentIndex.pathOf(logFile), interval);
+        try {
+            writer.openStream(fileLength);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Failed to open index {} of log file, not indexing it", writer.indexFile, e);
+            writer.closeStream();
+        }
+        return writer;
+    }
+
+    /**
+     * Adds a record to the current block, appending the block to the index once it is complete.
+     *
+     * @param offset      Offset of the record in the log file
+     * @param length      Length of the record in bytes
+     * @param processedAt Processing time of the record in nanoseconds since the epoch
+     * @param level       Level of the record, {@code null} if unknown
+     * @param source      Source of the record
+     */
+    void add(final long offset, final long length, final long processedAt, final LogLevel level,
+             final CharSequence source) {
+        if (out == null) {
+            return;
+        }
+        if (blockRecords == 0) {
+            blockOffset = offset;
+        }
+        blockLength = offset + length - blockOffset;
+        blockRecords++;
+        if (processedAt != LogEvent.NO_TIMESTAMP) {
+            if (blockFrom == LogEvent.NO_TIMESTAMP || processedAt < blockFrom) {
+                blockFrom = processedAt;
+            }
+            if (blockTo == LogEvent.NO_TIMESTAMP || processedAt > blockTo) {
+                blockTo = processedAt;
+            }
+        }
+        if (level != null) {
+            blockLevels |= 1 << level.ordinal();
+        }
+        int id = sourceId(source);
+        if (id < 0) {
+            blockAnySource = true;
+        } else {
+            blockSources.set(id);
+        }
+        if (blockRecords == interval) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Appends the incomplete block and closes the index.
+     */
+    void close() {
+        if (out != null && blockRecords > 0) {
+            writeBlock();
+        }
+        closeStream();
+    }
+
+    private int sourceId(final CharSequence source) {
+        if (recentSource != null && recentSource.contentEquals(source)) {
+            return recentId;
+        }
+        String name = source.toString();
+        Integer id = sourceIds.get(name);
+        if (id == null) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > MAX_SOURCE_LENGTH) {
+                return -1;
+            }
+            id = sourceIds.size();
+            sourceIds.put(name, id);
+            try {
+                out.writeByte(SegmentIndex.SOURCE);
+                out.writeShort(encoded.length);
+                out.write(encoded);
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        recentSource = name;
+        recentId = id;
+        return id;
+    }
+
+    private void writeBlock() {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeBlock(blockOffset, blockLength, new IndexBlock.Content(blockRecords, blockFrom, blockTo, blockLevels,
+                    blockAnySource, blockSources));
+            // completed blocks are visible to readers at once
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+        blockRecords = 0;
+        blockLength = 0;
+        blockFrom = LogEvent.NO_TIMESTAMP;
+        blockTo = LogEvent.NO_TIMESTAMP;
+        blockLevels = 0;
+        blockAnySource = false;
+        blockSources.clear();
+    }
+
+    private void writeBlock(final long offset, final long length, final IndexBlock.Content content)
+            throws IOException {
+        long[] words = content.sources().toLongArray();
+        out.writeByte(SegmentIndex.BLOCK);
+        out.writeLong(offset);
+        out.writeLong(length);
+        out.writeInt(content.records());
+        out.writeLong(content.from());
+        out.writeLong(content.to());
+        out.writeInt(content.levels());
+        out.writeBoolean(content.anySource());
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    private void openStream(final long fileLength) throws IOException {
+        long covered = 0;
+        boolean exists = Files.exists(indexFile);
+        if (exists) {
+            SegmentIndex index = SegmentIndex.load(indexFile, fileLength);
+            covered = index.getCoveredLength();
+            for (String name : index.getSources()) {
+                sourceIds.put(name, sourceIds.size());
+            }
+            // cuts off an entry left incomplete by a crash, as well as the blocks of records the crash lost from the
+            // log file, before appending
+            try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.WRITE)) {
+                if (channel.size() > index.getValidLength()) {
+                    LOG.warn("Cutting off {} bytes of index {} beyond its log file of {} bytes or left incomplete",
+                            channel.size() - index.getValidLength(), indexFile, fileLength);
+                }
+                channel.truncate(index.getValidLength());
+            }
+        }
+        Path parent = indexFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+        if (!exists) {
+            out.writeInt(SegmentIndex.MAGIC);
+            out.writeByte(SegmentIndex.VERSION);
+            out.writeInt(interval);
+        }
+        if (covered < fileLength) {
+            // records written without the index, f.e. before it was enabled
+            writeBlock(covered, fileLength - covered, IndexBlock.Content.unknown());
+        }
+        out.flush();
+    }
+
+    private void fail(final IOException e) {
+        LOG.error("Failed to write index {} of log file, not indexing it anymore", indexFile, e);
+        closeStream();
+    }
+
+    private void closeStream() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close index {} of log file", indexFile, e);
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,159 @@
+package ch.hslu.vsk.logger.server.store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the closed segments of a log file in the order they were written, with the range of the times their records
+ * were processed at, so a reader looking for a time window only opens the segments overlapping it.
+ * <br />
+ * The manifest is kept next to the log file as {@code <log file>.manifest}, one segment per line as
+ * {@code name;from;to;records;bytes} with ISO-8601 instants, empty if unknown. It is rewritten as a whole into a
+ * temporary file which then atomically replaces the previous manifest, so readers never see a partial manifest.
+ * Thread safe, as segments are added by the writer and renamed by the compressor.
+ */
+public final class SegmentManifest {
+    private static final String SEPARATOR = ";";
+    private final Path path;
+    private final List<LogSegment> segments = new ArrayList<>();
+
+    private SegmentManifest(final Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the manifest of the given log file.
+     *
+     * @param logFile Log file the manifest belongs to
+     * @return manifest, without segments if the file does not exist yet
+     * @throws IOException if the manifest could not be read
+     */
+    public static SegmentManifest load(final Path logFile) throws IOException {
+        SegmentManifest manifest = new SegmentManifest(pathOf(logFile));
+        if (Files.exists(manifest.path)) {
+            for (String line : Files.readAllLines(manifest.path, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    manifest.segments.add(parse(line));
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Creates a manifest of the given log file without segments, replacing an existing one once a segment is added.
+     *
+     * @param logFile Log file the manifest belongs to
+     * @return manifest without segments
+     */
+    static SegmentManifest empty(final Path logFile) {
+        return new SegmentManifest(pathOf(logFile));
+    }
+
+    /**
+     * Returns the path of the manifest of the given log file.
+     *
+     * @param logFile Log file
+     * @return path of the manifest next to the log file
+     */
+    public static Path pathOf(final Path logFile) {
+        return logFile.resolveSibling(logFile.getFileName() + ".manifest");
+    }
+
+    /**
+     * Returns the listed segments.
+     *
+     * @return segments in the order they were written
+     */
+    public synchronized List<LogSegment> getSegments() {
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Returns the segments holding records processed within the given range.
+     *
+     * @param from Start of the range, inclusive
+     * @param to   End of the range, exclusive
+     * @return overlapping segments in the order they were written
+     */
+    public synchronized List<LogSegment> getSegments(final Instant from, final Instant to) {
+        List<LogSegment> overlapping = new ArrayList<>();
+        for (LogSegment segment : segments) {
+            if (segment.overlaps(from, to)) {
+                overlapping.add(segment);
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Appends the given segment and persists the manifest.
+     *
+     * @param segment Closed segment
+     * @throws IOException if the manifest could not be written
+     */
+    synchronized void add(final LogSegment segment) throws IOException {
+        segments.add(segment);
+        persist();
+    }
+
+    /**
+     * Renames the segment of the given name and persists the manifest.
+     *
+     * @param name    Current name of the segment file
+     * @param newName New name of the segment file
+     * @throws IOException if the manifest could not be written
+     */
+    synchronized void rename(final String name, final String newName) throws IOException {
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).getName().equals(name)) {
+                segments.set(i, segments.get(i).renamed(newName));
+            }
+        }
+        persist();
+    }
+
+    private void persist() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (LogSegment segment : segments) {
+            text.append(segment.getName()).append(SEPARATOR)
+                    .append(format(segment.getFrom())).append(SEPARATOR)
+                    .append(format(segment.getTo())).append(SEPARATOR)
+                    .append(segment.getRecords()).append(SEPARATOR)
+                    .append(segment.getBytes()).append('\n');
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temporary, text, StandardCharsets.UTF_8);
+        DurableFiles.force(temporary);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static LogSegment parse(final String line) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Invalid manifest line: " + line);
+        }
+        return new LogSegment(fields[0], parseInstant(fields[1]), parseInstant(fields[2]), Long.parseLong(fields[3]),
+                Long.parseLong(fields[4]));
+    }
+
+    private static String format(final Instant instant) {
+        if (instant == null) {
+            return "";
+        }
+        return instant.toString();
+    }
+
+    private static Instant parseInstant(final String text) {
+        if (text.isEmpty()) {
+            return null;
+        }
+        return Instant.parse(text);
+    }
+}
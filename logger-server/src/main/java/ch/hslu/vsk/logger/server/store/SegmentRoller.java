@@ -0,0 +1,258 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keeps track of the records of the active file of a log and rolls it over into a segment following the
+ * {@link RotationPolicy}, shared by the writers of the log file.
+ * <br />
+ * A segment is atomically renamed to {@code <name>-<sequence><extension>}, listed in the {@link SegmentManifest} with
+ * the range of its processing times and compressed in the background, while new records go to a new file of the
+ * original name. The writer closes the active file before rolling it over. If enabled, the {@link SegmentIndex} of
+ * the active file is written along and renamed with it. Not thread safe, used by the single thread of the writer.
+ */
+final class SegmentRoller {
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentRoller.class);
+    private static final String SEPARATOR = " | ";
+    private static final Duration COMPRESSOR_CLOSE_TIMEOUT = Duration.ofSeconds(5);
+    private final Path file;
+    private final RotationPolicy rotation;
+    private final long intervalNanos;
+    private final int indexInterval;
+    private SegmentIndexWriter index;
+    private SegmentManifest manifest;
+    private SegmentCompressor compressor;
+    private long nextSequence = 1;
+    private long from = LogEvent.NO_TIMESTAMP;
+    private long to = LogEvent.NO_TIMESTAMP;
+    private long records;
+    private long bytes;
+    private long fileLength;
+
+    /**
+     * Constructs a new {@link SegmentRoller} instance.
+     *
+     * @param file          Active file of the log
+     * @param rotation      When the file is rolled over and how the segments are compressed
+     * @param indexInterval Number of records per block of the index, {@code 0} to not index the records
+     */
+    SegmentRoller(final Path file, final RotationPolicy rotation, final int indexInterval) {
+        this.file = file;
+        this.rotation = rotation;
+        this.intervalNanos = rotation.getInterval().toNanos();
+        this.indexInterval = indexInterval;
+    }
+
+    /**
+     * Loads the manifest, continues the numbering of its segments, resumes compressing the segments left uncompressed
+     * and counts the records of an existing active file. Does nothing if already opened.
+     */
+    void open() {
+        if (manifest != null) {
+            return;
+        }
+        try {
+            manifest = SegmentManifest.load(file);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Failed to read manifest of log file {}, starting a new one", file, e);
+            manifest = SegmentManifest.empty(file);
+        }
+        if (rotation.getCompression() != Compression.NONE) {
+            compressor = new SegmentCompressor(rotation.getCompression(), manifest);
+        }
+        for (LogSegment segment : manifest.getSegments()) {
+            nextSequence = Math.max(nextSequence, sequenceOf(segment.getName()) + 1);
+            Path path = file.resolveSibling(segment.getName());
+            if (compressor != null && Compression.of(segment.getName()) == Compression.NONE && Files.exists(path)) {
+                compressor.submit(path);
+            }
+        }
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            fileLength = Files.size(file);
+        } catch (IOException e) {
+            LOG.warn("Failed to read size of existing log file {}", file, e);
+        }
+        if (rotation.isEnabled()) {
+            scanExistingFile();
+        }
+    }
+
+    /**
+     * Returns whether the active file has to be rolled over before the given record is written to it.
+     *
+     * @param processedAt Processing time of the record in nanoseconds since the epoch
+     * @param length      Length of the record in bytes
+     * @return {@code true} if the record would exceed the maximum size or belongs to a new interval
+     */
+    boolean isDue(final long processedAt, final long length) {
+        open();
+        if (records == 0) {
+            return false;
+        }
+        if (rotation.getMaxBytes() > 0 && bytes + length > rotation.getMaxBytes()) {
+            return true;
+        }
+        if (intervalNanos == 0 || processedAt == LogEvent.NO_TIMESTAMP || from == LogEvent.NO_TIMESTAMP) {
+            return false;
+        }
+        // intervals are aligned to the epoch, so hourly segments start at full hours
+        return Math.floorDiv(processedAt, intervalNanos) != Math.floorDiv(from, intervalNanos);
+    }
+
+    /**
+     * Counts a record written to the active file and adds it to the index.
+     *
+     * @param event  Event holding the log message of the record
+     * @param length Length of the record in bytes
+     */
+    void count(final LogEvent event, final long length) {
+        if (indexInterval > 0) {
+            if (index == null) {
+                index = SegmentIndexWriter.open(file, indexInterval, fileLength);
+            }
+            index.add(fileLength, length, event.getProcessedAt(), event.getLevel(), event.getSource());
+        }
+        count(event.getProcessedAt(), length);
+        fileLength += length;
+    }
+
+    private void count(final long processedAt, final long length) {
+        if (processedAt != LogEvent.NO_TIMESTAMP) {
+            if (from == LogEvent.NO_TIMESTAMP) {
+                from = processedAt;
+            }
+            to = processedAt;
+        }
+        records++;
+        bytes += length;
+    }
+
+    /**
+     * Renames the closed active file to the next segment, lists it in the manifest and queues it for compression.
+     * If renaming fails, the records are continued in the active file.
+     */
+    void roll() {
+        open();
+        closeIndex();
+        Path segment = nextSegmentPath();
+        try {
+            Files.move(file, segment, StandardCopyOption.ATOMIC_MOVE);
+            moveIndex(segment);
+            manifest.add(new LogSegment(segment.getFileName().toString(), LogEvent.toInstant(from),
+                    LogEvent.toInstant(to), records, bytes));
+            if (compressor != null) {
+                compressor.submit(segment);
+            }
+            fileLength = 0;
+        } catch (IOException e) {
+            LOG.error("Failed to rotate log file {} to {}, continuing the current segment", file, segment, e);
+        }
+        from = LogEvent.NO_TIMESTAMP;
+        to = LogEvent.NO_TIMESTAMP;
+        records = 0;
+        bytes = 0;
+    }
+
+    /**
+     * Completes the index and waits for the queued segments to be compressed.
+     */
+    void close() {
+        closeIndex();
+        if (compressor != null) {
+            compressor.close(COMPRESSOR_CLOSE_TIMEOUT);
+        }
+    }
+
+    private void closeIndex() {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+    }
+
+    private void moveIndex(final Path segment) {
+        Path indexFile = SegmentIndex.pathOf(file);
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        try {
+            Files.move(indexFile, SegmentIndex.pathOf(segment), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.error("Failed to move index of log segment {}, the segment is read without index", segment, e);
+        }
+    }
+
+    private Path nextSegmentPath() {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = name;
+        String extension = "";
+        if (dot > 0) {
+            base = name.substring(0, dot);
+            extension = name.substring(dot);
+        }
+        String compressed = rotation.getCompression().getExtension();
+        Path segment;
+        do {
+            segment = file.resolveSibling(String.format("%s-%06d%s", base, nextSequence++, extension));
+        } while (Files.exists(segment) || Files.exists(segment.resolveSibling(segment.getFileName() + compressed)));
+        return segment;
+    }
+
+    private void scanExistingFile() {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                count(parseProcessedAt(line), 0);
+            }
+            bytes = fileLength;
+        } catch (IOException e) {
+            LOG.warn("Failed to read existing log file {}, rotating it by the new records only", file, e);
+        }
+    }
+
+    /**
+     * Returns the processing time of the given record of a log file.
+     *
+     * @param line Record in the layout of the persistor
+     * @return processing time in nanoseconds since the epoch, {@link LogEvent#NO_TIMESTAMP} if not parsable
+     */
+    static long parseProcessedAt(final String line) {
+        int end = line.indexOf(SEPARATOR);
+        if (end < 0) {
+            return LogEvent.NO_TIMESTAMP;
+        }
+        try {
+            return LogEvent.toEpochNanos(Instant.parse(line.substring(0, end)));
+        } catch (DateTimeParseException e) {
+            return LogEvent.NO_TIMESTAMP;
+        }
+    }
+
+    private static long sequenceOf(final String segmentName) {
+        int start = segmentName.lastIndexOf('-') + 1;
+        int end = start;
+        while (end < segmentName.length() && Character.isDigit(segmentName.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            return 0;
+        }
+        return Long.parseLong(segmentName.substring(start, end));
+    }
+}
@@ -0,0 +1,262 @@
+package ch.hslu.vsk.logger.server.templates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mines the templates of log messages online, following the Drain algorithm (He et al., "Drain: An Online Log
+ * Parsing Approach with Fixed Depth Tree", ICWS 2017).
+ * <br />
+ * A message is split into tokens at whitespace and descends a tree of fixed depth: first by its number of tokens,
+ * then by its leading tokens, where tokens containing digits as well as tokens beyond {@code maxChildren} distinct
+ * ones per node continue as {@value #WILDCARD}. The leaf holds the templates of similar messages; the message is
+ * merged into the most similar one if at least {@code similarityThreshold} of their tokens are equal, turning the
+ * differing tokens into wildcards, otherwise it starts a new template.
+ * <br />
+ * Memory is bounded by {@code maxTemplates}: once exceeded, the template matched least recently is evicted, along
+ * with the nodes leading to it which are left without templates, so the tree holds at most {@code depth - 1} nodes
+ * per template. Not thread safe.
+ */
+final class DrainTree {
+    /**
+     * Token standing for the variable parts of a template.
+     */
+    static final String WILDCARD = "<*>";
+    private final int prefixDepth;
+    private final double similarityThreshold;
+    private final int maxChildren;
+    private final int maxTemplates;
+    private final Map<Integer, Node> byLength = new HashMap<>();
+    // in access order, the eldest entry is the template matched least recently
+    private final LinkedHashMap<Integer, Template> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<String> tokens = new ArrayList<>();
+    private int nextId = 1;
+
+    /**
+     * Constructs a new {@link DrainTree} instance.
+     *
+     * @param depth               Depth of the tree, the number of leading tokens descended by is two less
+     * @param similarityThreshold Share of equal tokens for a message to be merged into a template
+     * @param maxChildren         Maximum number of distinct tokens per node
+     * @param maxTemplates        Maximum number of templates kept
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    DrainTree(final int depth, final double similarityThreshold, final int maxChildren, final int maxTemplates) {
+        if (depth < 3) {
+            throw new IllegalArgumentException("Depth must be at least 3, was " + depth);
+        }
+        if (similarityThreshold < 0 || similarityThreshold > 1) {
+            throw new IllegalArgumentException("Similarity threshold must be within [0, 1], was "
+                    + similarityThreshold);
+        }
+        if (maxChildren <= 0 || maxTemplates <= 0) {
+            throw new IllegalArgumentException("Maximum children and templates must be positive");
+        }
+
+        this.prefixDepth = depth - 2;
+        this.similarityThreshold = similarityThreshold;
+        this.maxChildren = maxChildren;
+        this.maxTemplates = maxTemplates;
+    }
+
+    /**
+     * Assigns the given message to a template, creating or generalizing it as needed, and counts it.
+     *
+     * @param message Message to mine
+     * @return template the message has been assigned to
+     */
+    Template add(final CharSequence message) {
+        tokenize(message);
+        Node node = byLength.computeIfAbsent(tokens.size(), length -> new Node(null, null));
+        for (int i = 0; i < Math.min(prefixDepth, tokens.size()); i++) {
+            node = node.descend(tokens.get(i), maxChildren);
+        }
+
+        Template template = mostSimilar(node.templates);
+        if (template == null) {
+            template = new Template(nextId++, tokens.toArray(new String[0]), node);
+            node.templates.add(template);
+            templates.put(template.id, template);
+            evictLeastRecentlyMatched();
+        } else {
+            template.merge(tokens);
+            // marks the template as matched most recently
+            templates.get(template.id);
+        }
+        template.count++;
+        return template;
+    }
+
+    /**
+     * Returns snapshots of all templates kept.
+     *
+     * @return templates in no particular order
+     */
+    List<LogTemplate> snapshot() {
+        List<LogTemplate> snapshot = new ArrayList<>(templates.size());
+        for (Template template : templates.values()) {
+            snapshot.add(new LogTemplate(template.id, template.pattern(), template.count));
+        }
+        return snapshot;
+    }
+
+    int size() {
+        return templates.size();
+    }
+
+    int nodeCount() {
+        int count = 0;
+        for (Node node : byLength.values()) {
+            count += node.count();
+        }
+        return count;
+    }
+
+    private Template mostSimilar(final List<Template> candidates) {
+        if (tokens.isEmpty()) {
+            // all empty messages share a single template
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            return candidates.getFirst();
+        }
+
+        Template best = null;
+        double bestSimilarity = -1;
+        int bestWildcards = -1;
+        for (Template candidate : candidates) {
+            int equal = 0;
+            int wildcards = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = candidate.tokens[i];
+                if (WILDCARD.equals(token)) {
+                    wildcards++;
+                } else if (token.equals(tokens.get(i))) {
+                    equal++;
+                }
+            }
+            double similarity = (double) equal / tokens.size();
+            // ties go to the more general template
+            if (similarity > bestSimilarity || similarity == bestSimilarity && wildcards > bestWildcards) {
+                best = candidate;
+                bestSimilarity = similarity;
+                bestWildcards = wildcards;
+            }
+        }
+        if (bestSimilarity >= similarityThreshold) {
+            return best;
+        }
+        return null;
+    }
+
+    private void evictLeastRecentlyMatched() {
+        if (templates.size() <= maxTemplates) {
+            return;
+        }
+        Iterator<Template> eldest = templates.values().iterator();
+        Template evicted = eldest.next();
+        eldest.remove();
+        Node node = evicted.leaf;
+        node.templates.remove(evicted);
+        // prunes the path to the leaf up to the first node still leading to other templates
+        while (node.templates.isEmpty() && node.children.isEmpty()) {
+            if (node.parent == null) {
+                byLength.remove(evicted.tokens.length);
+                return;
+            }
+            node.parent.children.remove(node.key);
+            node = node.parent;
+        }
+    }
+
+    private void tokenize(final CharSequence message) {
+        tokens.clear();
+        int start = -1;
+        for (int i = 0; i <= message.length(); i++) {
+            boolean separator = i == message.length() || Character.isWhitespace(message.charAt(i));
+            if (separator && start >= 0) {
+                tokens.add(message.subSequence(start, i).toString());
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+    }
+
+    private static boolean hasDigit(final String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inner node of the tree, or a leaf holding templates once the leading tokens are descended.
+     */
+    private static final class Node {
+        private final Node parent;
+        private final String key;
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Template> templates = new ArrayList<>();
+
+        private Node(final Node parent, final String key) {
+            this.parent = parent;
+            this.key = key;
+        }
+
+        private Node descend(final String token, final int maxChildren) {
+            String childKey = token;
+            if (hasDigit(token) || !children.containsKey(token) && children.size() >= maxChildren - 1) {
+                // one child is reserved for the wildcard, so unseen tokens always find a way down
+                childKey = WILDCARD;
+            }
+            return children.computeIfAbsent(childKey, newKey -> new Node(this, newKey));
+        }
+
+        private int count() {
+            int count = 1;
+            for (Node child : children.values()) {
+                count += child.count();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Template of a leaf, generalized as further messages are merged into it.
+     */
+    static final class Template {
+        private final int id;
+        private final String[] tokens;
+        private final Node leaf;
+        private long count;
+
+        private Template(final int id, final String[] tokens, final Node leaf) {
+            this.id = id;
+            this.tokens = tokens;
+            this.leaf = leaf;
+        }
+
+        private void merge(final List<String> message) {
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(message.get(i))) {
+                    tokens[i] = WILDCARD;
+                }
+            }
+        }
+
+        int getId() {
+            return id;
+        }
+
+        String pattern() {
+            return String.join(" ", tokens);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ch.hslu.vsk.logger.server.templates;
+
+/**
+ * Snapshot of a template mined from the received messages: the constant tokens of its messages, with their
+ * variable parts replaced by {@value DrainTree#WILDCARD}, and the number of messages matching it.
+ */
+public final class LogTemplate {
+    private final int id;
+    private final String pattern;
+    private final long count;
+
+    LogTemplate(final int id, final String pattern, final long count) {
+        this.id = id;
+        this.pattern = pattern;
+        this.count = count;
+    }
+
+    /**
+     * Returns the identifier of the template, assigned in the order the templates were first seen and never reused.
+     *
+     * @return template identifier
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the tokens of the template separated by spaces.
+     *
+     * @return pattern of the template, f.e. {@code Connection from <*> closed after <*> ms}
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the number of messages matching the template.
+     *
+     * @return count of messages
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return id + ": " + pattern + " (" + count + ")";
+    }
+}
@@ -0,0 +1,138 @@
+package ch.hslu.vsk.logger.server.templates;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.sketch.HeavyHitter;
+import ch.hslu.vsk.logger.server.sketch.HeavyHitters;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Clusters the received messages by their templates, mined online by a {@link DrainTree}, and counts the messages
+ * per template. The templates with the most messages are served by the metrics server on {@code /templates}.
+ * <br />
+ * Mining splits every message into tokens, so unlike the other adapters it allocates per message. As it runs on the
+ * thread of its own adapter stage, this only costs the server throughput if the stage falls behind, in which case
+ * its overflow policy may be set to {@code DROP} to mine a sample of the messages only.
+ * <br />
+ * Optionally, the templates matched most often within a sliding window are tracked by {@link HeavyHitters}, telling
+ * which kinds of messages dominate the volume right now rather than since the start of the server.
+ */
+public final class TemplateMinerLogAdapter implements LogAdapter {
+    private static final int MAX_CHILDREN = 100;
+    private final DrainTree tree;
+    private final HeavyHitters<DrainTree.Template> recent;
+
+    /**
+     * Constructs a new {@link TemplateMinerLogAdapter} instance.
+     *
+     * @param depth               Depth of the parse tree, at least 3
+     * @param similarityThreshold Share of equal tokens for a message to match a template
+     * @param maxTemplates        Maximum number of templates kept, the ones matched least recently are evicted
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public TemplateMinerLogAdapter(final int depth, final double similarityThreshold, final int maxTemplates) {
+        this.tree = new DrainTree(depth, similarityThreshold, MAX_CHILDREN, maxTemplates);
+        this.recent = null;
+    }
+
+    /**
+     * Constructs a new {@link TemplateMinerLogAdapter} instance also tracking the templates matched most often within
+     * a sliding window.
+     *
+     * @param depth               Depth of the parse tree, at least 3
+     * @param similarityThreshold Share of equal tokens for a message to match a template
+     * @param maxTemplates        Maximum number of templates kept, the ones matched least recently are evicted
+     * @param windowLength        Length of the sliding window, at least ten seconds
+     * @param sketchWidth         Number of counters per sketch row, a power of two
+     * @param heavyHitters        Maximum number of templates tracked within the window
+     * @throws IllegalArgumentException if a parameter is out of range
+     */
+    public TemplateMinerLogAdapter(final int depth, final double similarityThreshold, final int maxTemplates,
+                                   final Duration windowLength, final int sketchWidth, final int heavyHitters) {
+        this.tree = new DrainTree(depth, similarityThreshold, MAX_CHILDREN, maxTemplates);
+        this.recent = new HeavyHitters<>(windowLength, sketchWidth, heavyHitters);
+    }
+
+    /**
+     * Assigns the given message to its template.
+     *
+     * @param messageDo The log message to mine
+     */
+    @Override
+    public synchronized void saveLogMessage(final LogMessageDo messageDo) {
+        String message = messageDo.getMessage();
+        if (message == null) {
+            message = "";
+        }
+        DrainTree.Template template = tree.add(message);
+        if (recent != null) {
+            recent.add(template, Instant.now().getEpochSecond());
+        }
+    }
+
+    /**
+     * Assigns the message of the given event to its template.
+     *
+     * @param event Event holding the message
+     */
+    @Override
+    public synchronized void saveLogEvent(final LogEvent event) {
+        DrainTree.Template template = tree.add(event.getMessage());
+        if (recent != null) {
+            recent.add(template, event.getProcessedEpochSecond());
+        }
+    }
+
+    /**
+     * Returns the given number of templates matched by the most messages.
+     *
+     * @param limit Maximum number of templates to return
+     * @return templates ordered by descending count
+     */
+    public List<LogTemplate> getTopTemplates(final int limit) {
+        List<LogTemplate> snapshot;
+        synchronized (this) {
+            snapshot = tree.snapshot();
+        }
+        return snapshot.stream()
+                .sorted(Comparator.comparingLong(LogTemplate::getCount).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns the given number of templates matched by the most messages within the sliding window ending now.
+     * Templates evicted from the parse tree are still reported while they are in the window.
+     *
+     * @param limit Maximum number of templates to return
+     * @return templates with their estimated counts within the window ordered by descending count, empty if the
+     * templates are not tracked within a window
+     */
+    public synchronized List<LogTemplate> getRecentTopTemplates(final int limit) {
+        List<LogTemplate> top = new ArrayList<>();
+        if (recent == null) {
+            return top;
+        }
+        for (HeavyHitter<DrainTree.Template> heavyHitter : recent.top(limit, Instant.now().getEpochSecond())) {
+            DrainTree.Template template = heavyHitter.getKey();
+            top.add(new LogTemplate(template.getId(), template.pattern(), heavyHitter.getEstimate()));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the name of the adapter.
+     *
+     * @return {@code "templates"}
+     */
+    @Override
+    public String getName() {
+        return "templates";
+    }
+}
@@ -3,6 +3,7 @@ package ch.hslu.vsk.logger.server;
 import ch.hslu.vsk.logger.api.LogLevel;
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.logstrategies.CSVLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -96,4 +97,42 @@ public class CSVLogStrategyTest {
         //assert
         Assertions.assertEquals(expected, formatted);
     }
+
+    @Test
+    void testFormatToEscapesSourceAndMessage() {
+        //arrange
+        LogStrategy strategy = new CSVLogStrategy();
+
+        Instant fixedInstant = Instant.parse("2007-12-03T10:15:30Z");
+
+        LogMessageDo messageDo = new LogMessageDo.Builder("line one\nline \"two\"")
+                .from("host, rack 4")
+                .at(fixedInstant)
+                .level(LogLevel.Error)
+                .build();
+        LogEvent event = new LogEvent();
+        event.copyFrom(messageDo);
+        StringBuilder formatted = new StringBuilder();
+
+        String expected = "2007-12-03T10:15:30Z, Error, \"host, rack 4\", \"line one\nline \"\"two\"\"\"";
+
+        //act
+        strategy.formatTo(event, formatted);
+
+        //assert
+        Assertions.assertEquals(expected, formatted.toString());
+    }
+
+    @Test
+    void testFormatCSVWithMissingFields() {
+        //arrange
+        LogStrategy strategy = new CSVLogStrategy();
+        LogMessageDo messageDo = new LogMessageDo.Builder("test").build();
+
+        //act
+        String formatted = strategy.format(messageDo);
+
+        //assert
+        Assertions.assertEquals(", , , test", formatted);
+    }
 }
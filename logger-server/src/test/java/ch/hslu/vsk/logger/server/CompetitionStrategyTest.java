@@ -3,9 +3,12 @@ package ch.hslu.vsk.logger.server;
 import ch.hslu.vsk.logger.api.LogLevel;
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 public class CompetitionStrategyTest {
@@ -29,4 +32,58 @@ public class CompetitionStrategyTest {
         //assert
         Assertions.assertEquals(expected, formatted);
     }
+
+    @Test
+    public void testFormatToTruncatesFractionOfSecond() {
+        //arrange
+        LogStrategy strategy = new CompetitionStrategy();
+
+        LogMessageDo messageDo = new LogMessageDo.Builder("Example LogMessage")
+                .from("MyHost")
+                .at(Instant.parse("2024-04-29T23:59:59.99999Z"))
+                .level(LogLevel.Debug)
+                .build();
+        LogEvent event = new LogEvent();
+        event.copyFrom(messageDo);
+        StringBuilder formatted = new StringBuilder();
+
+        String expected = "2024-04-29 23:59:59.9999 DEBUG MyHost Example LogMessage";
+
+        //act
+        strategy.formatTo(event, formatted);
+
+        //assert
+        Assertions.assertEquals(expected, formatted.toString());
+    }
+
+    @Test
+    public void testEncodeToAppendsUtf8OrLeavesFullBufferUnchanged() {
+        //arrange
+        LogStrategy strategy = new CompetitionStrategy();
+
+        LogMessageDo messageDo = new LogMessageDo.Builder("Grüsse aus Zürich \uD83D\uDE00")
+                .from("MyHost")
+                .at(Instant.parse("2024-04-29T16:43:16.2345Z"))
+                .level(LogLevel.Info)
+                .build();
+        LogEvent event = new LogEvent();
+        event.copyFrom(messageDo);
+        byte[] expected = strategy.format(messageDo).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer full = ByteBuffer.allocate(expected.length - 1);
+        ByteBuffer encoded = ByteBuffer.allocate(expected.length + 8).put((byte) '>');
+
+        //act
+        boolean fitted = strategy.encodeTo(event, full);
+        boolean appended = strategy.encodeTo(event, encoded);
+
+        //assert
+        Assertions.assertFalse(fitted);
+        Assertions.assertEquals(0, full.position());
+        Assertions.assertTrue(appended);
+        byte[] actual = new byte[expected.length];
+        encoded.flip().position(1);
+        encoded.get(actual);
+        Assertions.assertArrayEquals(expected, actual);
+        Assertions.assertFalse(encoded.hasRemaining());
+    }
 }
@@ -0,0 +1,92 @@
+package ch.hslu.vsk.logger.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CreditWindowTest {
+    @Test
+    void testGrantsWindowAndReplenishesDrainedMessages() throws Exception {
+        // arrange
+        Pipe pipe = Pipe.open();
+        CreditWindow creditWindow = new CreditWindow(pipe.sink(), 4);
+        Thread.ofVirtual().start(creditWindow);
+        DataInputStream grants = new DataInputStream(Channels.newInputStream(pipe.source()));
+
+        // act & assert
+        assertThat(grants.readInt()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            creditWindow.acquire();
+        }
+        creditWindow.release();
+        creditWindow.release();
+        assertThat(grants.readInt()).isEqualTo(2);
+
+        creditWindow.close();
+    }
+
+    @Test
+    void testAcquireBlocksWhileWindowIsExhausted() throws Exception {
+        // arrange
+        CreditWindow creditWindow = new CreditWindow(Pipe.open().sink(), 1);
+        creditWindow.acquire();
+
+        // act
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                creditWindow.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // assert
+        assertThat(reader.join(Duration.ofMillis(100))).isFalse();
+        creditWindow.release();
+        assertThat(reader.join(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void testDisabledWindowNeverBlocksNorGrants() throws IOException, InterruptedException {
+        // arrange
+        Pipe pipe = Pipe.open();
+        CreditWindow creditWindow = new CreditWindow(pipe.sink(), 0);
+
+        // act
+        Thread writer = Thread.ofVirtual().start(creditWindow);
+        for (int i = 0; i < 1000; i++) {
+            creditWindow.acquire();
+        }
+
+        // assert
+        assertThat(creditWindow.isEnabled()).isFalse();
+        assertThat(writer.join(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void testPauseRevokesBudgetAndStopsGranting() throws Exception {
+        // arrange
+        Pipe pipe = Pipe.open();
+        CreditWindow creditWindow = new CreditWindow(pipe.sink(), 4);
+        Thread writer = Thread.ofVirtual().start(creditWindow);
+        DataInputStream grants = new DataInputStream(Channels.newInputStream(pipe.source()));
+        assertThat(grants.readInt()).isEqualTo(4);
+
+        // act
+        creditWindow.pause();
+        for (int i = 0; i < 4; i++) {
+            creditWindow.acquire();
+            creditWindow.release();
+        }
+
+        // assert
+        assertThat(grants.readInt()).isEqualTo(CreditWindow.PAUSE);
+        assertThat(writer.join(Duration.ofSeconds(5))).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.logstrategies.JsonLinesLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+public class JsonLinesLogStrategyTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void testFormatsIsoTimestamps() {
+        //arrange
+        LogStrategy strategy = new JsonLinesLogStrategy();
+
+        LogMessageDo messageDo = new LogMessageDo.Builder("Example LogMessage")
+                .from("MyHost")
+                .at(Instant.parse("2024-04-29T16:43:16.2345Z"))
+                .processed(Instant.parse("2024-04-29T16:43:16.2795Z"))
+                .level(LogLevel.Info)
+                .build();
+
+        String expected = "{\"createdAt\":\"2024-04-29T16:43:16.234500Z\","
+                + "\"processedAt\":\"2024-04-29T16:43:16.279500Z\","
+                + "\"level\":\"Info\",\"source\":\"MyHost\",\"message\":\"Example LogMessage\"}";
+
+        //act
+        String formatted = strategy.format(messageDo);
+
+        //assert
+        Assertions.assertEquals(expected, formatted);
+    }
+
+    @Test
+    public void testEscapesStringsParsedBackByJsonLibrary() throws Exception {
+        //arrange
+        LogStrategy strategy = new JsonLinesLogStrategy(JsonLinesLogStrategy.TimestampFormat.EPOCH_NANOS);
+        String message = "say \"hi\"\\n\r\n\tto\u0000\u001f\b\f Zürich \uD83D\uDE00 </script>";
+
+        LogMessageDo messageDo = new LogMessageDo.Builder(message)
+                .from("host \"a\"")
+                .at(Instant.parse("2024-04-29T16:43:16.234567891Z"))
+                .build();
+        LogEvent event = new LogEvent();
+        event.copyFrom(messageDo);
+        StringBuilder formatted = new StringBuilder();
+
+        //act
+        strategy.formatTo(event, formatted);
+
+        //assert
+        Assertions.assertEquals(-1, formatted.indexOf("\n"));
+        JsonNode json = MAPPER.readTree(formatted.toString());
+        Assertions.assertEquals(1_714_408_996_234_567_891L, json.get("createdAt").longValue());
+        Assertions.assertTrue(json.get("processedAt").isNull());
+        Assertions.assertTrue(json.get("level").isNull());
+        Assertions.assertEquals("host \"a\"", json.get("source").textValue());
+        Assertions.assertEquals(message, json.get("message").textValue());
+    }
+}
@@ -0,0 +1,121 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.pipeline.AdapterStage;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class LogMessageDispatcherTest {
+    @Test
+    void testStalledDroppingAdapterDoesNotDelayBlockingAdapter() throws InterruptedException {
+        // arrange
+        int messages = 50;
+        CountDownLatch persisted = new CountDownLatch(messages);
+        CountDownLatch viewerStalled = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        LogAdapter file = messageDo -> persisted.countDown();
+        LogAdapter viewer = messageDo -> {
+            try {
+                viewerStalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        AdapterStage fileStage = new AdapterStage(file, OverflowPolicy.BLOCK, 4, 2);
+        AdapterStage viewerStage = new AdapterStage(viewer, OverflowPolicy.DROP, 2, 2);
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(List.of(fileStage, viewerStage), 64, 8);
+        dispatcher.start();
+
+        // act
+        LogEvent received = new LogEvent();
+        for (int i = 0; i < messages; i++) {
+            received.clearMessage().append("message ").append(i);
+            dispatcher.dispatch(received, processed::incrementAndGet);
+        }
+
+        // assert
+        assertThat(persisted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(viewerStage.getMetrics().getDropped()).isPositive();
+
+        viewerStalled.countDown();
+        assertThat(dispatcher.stop(Duration.ofSeconds(5))).isTrue();
+        // messages are only reported processed once every adapter is done with them
+        assertThat(processed).hasValue(messages);
+        assertThat(fileStage.getMetrics().getProcessed()).isEqualTo(messages);
+        assertThat(viewerStage.getMetrics().getProcessed() + viewerStage.getMetrics().getDropped())
+                .isEqualTo(messages);
+    }
+
+    @Test
+    void testAdaptersShareMessageFormattedOncePerStrategy() throws InterruptedException {
+        // arrange
+        int messages = 20;
+        AtomicInteger formatted = new AtomicInteger();
+        LogStrategy strategy = new LogStrategy() {
+            @Override
+            public String format(final LogMessageDo message) {
+                return message.getMessage();
+            }
+
+            @Override
+            public void formatTo(final LogEvent event, final StringBuilder target) {
+                formatted.incrementAndGet();
+                target.append('[').append(event.getMessage()).append(']');
+            }
+        };
+        Map<String, String> fileTexts = new ConcurrentHashMap<>();
+        Map<String, String> viewerTexts = new ConcurrentHashMap<>();
+        AdapterStage fileStage = new AdapterStage(new FormattingAdapter(strategy, fileTexts),
+                OverflowPolicy.BLOCK, 4, 2);
+        AdapterStage viewerStage = new AdapterStage(new FormattingAdapter(strategy, viewerTexts),
+                OverflowPolicy.BLOCK, 4, 2);
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(List.of(fileStage, viewerStage), 64, 8);
+        dispatcher.start();
+
+        // act
+        LogEvent received = new LogEvent();
+        for (int i = 0; i < messages; i++) {
+            received.clearMessage().append("message ").append(i);
+            dispatcher.dispatch(received, null);
+        }
+        assertThat(dispatcher.stop(Duration.ofSeconds(5))).isTrue();
+
+        // assert
+        assertThat(formatted).hasValue(messages);
+        assertThat(fileTexts).hasSize(messages).containsEntry("[message 7]", "[message 7]");
+        for (Map.Entry<String, String> text : fileTexts.entrySet()) {
+            assertThat(viewerTexts.get(text.getKey())).isSameAs(text.getValue());
+        }
+    }
+
+    /**
+     * Collects the formatted messages, like the adapters writing them to a file or the viewer.
+     *
+     * @param strategy Strategy to format the messages with
+     * @param texts    Formatted messages collected, each mapped to itself
+     */
+    private record FormattingAdapter(LogStrategy strategy, Map<String, String> texts) implements LogAdapter {
+        @Override
+        public void saveLogMessage(final LogMessageDo messageDo) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void saveLogEvent(final LogEvent event) {
+            String text = event.getFormattedString(strategy);
+            texts.put(text, text);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.PatternLayoutStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+public class PatternLayoutStrategyTest {
+    private static final LogMessageDo MESSAGE = new LogMessageDo.Builder("Example LogMessage")
+            .from("MyHost")
+            .at(Instant.parse("2024-04-29T16:43:16.2345Z"))
+            .processed(Instant.parse("2024-04-29T16:43:16.2795Z"))
+            .level(LogLevel.Info)
+            .build();
+
+    @Test
+    void testFormatsLikeCompetitionStrategy() {
+        //arrange
+        LogStrategy strategy = new PatternLayoutStrategy("%d{yyyy-MM-dd HH:mm:ss.SSSS} %LEVEL %source %message");
+
+        //act
+        String formatted = strategy.format(MESSAGE);
+
+        //assert
+        Assertions.assertEquals(new CompetitionStrategy().format(MESSAGE), formatted);
+    }
+
+    @Test
+    void testFormatsProcessedAtLatencyAndLiterals() {
+        //arrange
+        LogStrategy strategy = new PatternLayoutStrategy(
+                "[%level] %d -> %processed{HH:mm:ss.SSS z} (+%latency ms, 100%%): %message");
+        LogEvent event = new LogEvent();
+        event.copyFrom(MESSAGE);
+        StringBuilder formatted = new StringBuilder();
+
+        String expected = "[Info] 2024-04-29T16:43:16.234500Z -> 16:43:16.279 UTC (+45 ms, 100%): Example LogMessage";
+
+        //act
+        strategy.formatTo(event, formatted);
+
+        //assert
+        Assertions.assertEquals(expected, formatted.toString());
+    }
+
+    @Test
+    void testRejectsInvalidPatterns() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PatternLayoutStrategy("%thread %message"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PatternLayoutStrategy("%d{HH:mm"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PatternLayoutStrategy("100%"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PatternLayoutStrategy("%d{bbbb}"));
+    }
+}
@@ -3,6 +3,7 @@ package ch.hslu.vsk.logger.server;
 import ch.hslu.vsk.logger.api.LogLevel;
 import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
 import ch.hslu.vsk.logger.server.logstrategies.TextLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -30,4 +31,42 @@ public class TextLogStrategyTest {
         //assert
         Assertions.assertEquals(expected, formatted);
     }
+
+    @Test
+    void testFormatToMatchesFormatWithFractionOfSecond() {
+        //arrange
+        LogStrategy strategy = new TextLogStrategy();
+        for (String instant : new String[]{"2007-12-03T10:15:30.120Z", "2007-12-03T10:15:30.000123Z",
+                "2007-12-03T10:15:30.000000001Z", "1969-12-31T23:59:59.5Z"}) {
+            LogMessageDo messageDo = new LogMessageDo.Builder("test")
+                    .from("source")
+                    .at(Instant.parse(instant))
+                    .level(LogLevel.Warning)
+                    .build();
+            LogEvent event = new LogEvent();
+            event.copyFrom(messageDo);
+            StringBuilder formatted = new StringBuilder("prefix ");
+
+            //act
+            strategy.formatTo(event, formatted);
+
+            //assert
+            Assertions.assertEquals("prefix [" + Instant.parse(instant) + "] [Warning] source: test",
+                    formatted.toString());
+            Assertions.assertEquals(formatted.substring("prefix ".length()), strategy.format(messageDo));
+        }
+    }
+
+    @Test
+    void testFormatWritesMissingFieldsEmpty() {
+        //arrange
+        LogStrategy strategy = new TextLogStrategy();
+        LogMessageDo messageDo = new LogMessageDo.Builder("test").build();
+
+        //act
+        String formatted = strategy.format(messageDo);
+
+        //assert
+        Assertions.assertEquals("[] [] : test", formatted);
+    }
 }
@@ -0,0 +1,50 @@
+package ch.hslu.vsk.logger.server;
+
+import ch.hslu.vsk.logger.server.logstrategies.Utf8;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class Utf8Test {
+    @ParameterizedTest
+    @ValueSource(strings = {"", "plain ascii", "Grüsse", "€ 100", "smile \uD83D\uDE00!", "lone \uD800 surrogate",
+        "trailing \uDBFF"})
+    void testEncodesLikeString(final String text) {
+        // arrange
+        byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.allocate(expected.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+
+        // act
+        boolean heapEncoded = Utf8.encode(text, heap);
+        boolean directEncoded = Utf8.encode(text, direct);
+
+        // assert
+        assertThat(heapEncoded).isTrue();
+        assertThat(directEncoded).isTrue();
+        assertThat(Utf8.encodedLength(text)).isEqualTo(expected.length);
+        assertThat(heap.array()).isEqualTo(expected);
+        byte[] directBytes = new byte[expected.length];
+        direct.flip().get(directBytes);
+        assertThat(directBytes).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"plain ascii", "Grüsse", "smile \uD83D\uDE00"})
+    void testLeavesPositionUnchangedIfTextDoesNotFit(final String text) {
+        // arrange
+        ByteBuffer buffer = ByteBuffer.allocate(text.getBytes(StandardCharsets.UTF_8).length + 1);
+        buffer.put((byte) 1).put((byte) 2);
+
+        // act
+        boolean encoded = Utf8.encode(text, buffer);
+
+        // assert
+        assertThat(encoded).isFalse();
+        assertThat(buffer.position()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,131 @@
+package ch.hslu.vsk.logger.server.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class AdmissionControlTest {
+    @Test
+    void testRejectsConnectionsBeyondLimit() {
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(2, 0, 0, Map.of(), 4, 16);
+
+        // act & assert
+        assertThat(admissionControl.tryOpenConnection()).isTrue();
+        assertThat(admissionControl.tryOpenConnection()).isTrue();
+        assertThat(admissionControl.tryOpenConnection()).isFalse();
+        admissionControl.closeConnection();
+        assertThat(admissionControl.tryOpenConnection()).isTrue();
+        assertThat(admissionControl.getActiveConnections()).isEqualTo(2);
+        assertThat(admissionControl.getRejectedConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void testAssignsLanesAndWeightsToSources() {
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(0, 0, 0, Map.of("billing", 4), 3, 16);
+
+        // act
+        Source billing = admissionControl.resolve("billing");
+        Source audit = admissionControl.resolve(new StringBuilder("audit"));
+        Source shop = admissionControl.resolve("shop");
+
+        // assert
+        assertThat(billing.getLane()).isEqualTo(1);
+        assertThat(billing.getWeight()).isEqualTo(4);
+        assertThat(audit.getLane()).isEqualTo(2);
+        assertThat(audit.getWeight()).isEqualTo(1);
+        assertThat(shop.getLane()).isZero();
+        assertThat(admissionControl.resolve("billing")).isSameAs(billing);
+    }
+
+    @Test
+    void testShedsOnlySourceExceedingItsQuota() {
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(0, 5, 0, Map.of(), 4, 16);
+        Source noisy = admissionControl.resolve("noisy");
+        Source quiet = admissionControl.resolve("quiet");
+
+        // act
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (noisy.tryAdmit(10)) {
+                admitted++;
+            }
+        }
+
+        // assert
+        assertThat(admitted).isEqualTo(5);
+        assertThat(noisy.getThrottledMessages()).isEqualTo(95);
+        assertThat(noisy.getThrottledBytes()).isEqualTo(950);
+        assertThat(quiet.tryAdmit(10)).isTrue();
+        assertThat(quiet.getAdmittedMessages()).isEqualTo(1);
+    }
+
+    @Test
+    void testShedsSourceExceedingByteQuota() {
+        // arrange
+        Source source = new AdmissionControl(0, 0, 100, Map.of(), 1, 16).resolve("large");
+
+        // act & assert
+        assertThat(source.tryAdmit(80)).isTrue();
+        assertThat(source.tryAdmit(80)).isFalse();
+        assertThat(source.getAdmittedBytes()).isEqualTo(80);
+        assertThat(source.getThrottledBytes()).isEqualTo(80);
+    }
+
+    @Test
+    void testMessageShedByByteQuotaDoesNotCountAgainstMessageQuota() {
+        // arrange
+        Source source = new AdmissionControl(0, 2, 100, Map.of(), 1, 16).resolve("large");
+        assertThat(source.tryAdmit(80)).isTrue();
+
+        // act
+        boolean large = source.tryAdmit(80);
+        boolean small = source.tryAdmit(20);
+
+        // assert
+        assertThat(large).isFalse();
+        assertThat(small).isTrue();
+        assertThat(source.getAdmittedMessages()).isEqualTo(2);
+    }
+
+    @Test
+    void testSourcesBeyondTrackedMaximumShareOverflowSource() {
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(0, 0, 0, Map.of(), 4, 1);
+        Source first = admissionControl.resolve("first");
+
+        // act
+        Source second = admissionControl.resolve("second");
+        Source third = admissionControl.resolve("third");
+
+        // assert
+        assertThat(first.getName()).isEqualTo("first");
+        assertThat(second.getName()).isEqualTo(AdmissionControl.OVERFLOW_SOURCE);
+        assertThat(third).isSameAs(second);
+        assertThat(admissionControl.newSourceCache().resolve("fourth")).isSameAs(second);
+        assertThat(admissionControl.getSources()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void testSourceCacheResolvesReusedBuffer() {
+        // arrange
+        AdmissionControl admissionControl = new AdmissionControl(0, 0, 0, Map.of(), 4, 16);
+        SourceCache cache = admissionControl.newSourceCache();
+        StringBuilder received = new StringBuilder("first");
+
+        // act
+        Source first = cache.resolve(received);
+        received.setLength(0);
+        received.append("second");
+        Source second = cache.resolve(received);
+
+        // assert
+        assertThat(first.getName()).isEqualTo("first");
+        assertThat(second.getName()).isEqualTo("second");
+        assertThat(cache.resolve("second")).isSameAs(second);
+    }
+}
@@ -0,0 +1,81 @@
+package ch.hslu.vsk.logger.server.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class RateLimiterTest {
+    private static final long START = 42;
+
+    @Test
+    void testAdmitsBurstOfOneSecondAndRefillsOverTime() {
+        // arrange
+        RateLimiter limiter = new RateLimiter(10);
+
+        // act & assert
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(1, START)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(1, START)).isFalse();
+        assertThat(limiter.tryAcquire(1, START + TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+        assertThat(limiter.tryAcquire(1, START + TimeUnit.MILLISECONDS.toNanos(100))).isFalse();
+    }
+
+    @Test
+    void testRejectsPermitsExceedingRemainingBurst() {
+        // arrange
+        RateLimiter limiter = new RateLimiter(1000);
+
+        // act & assert
+        assertThat(limiter.tryAcquire(600, START)).isTrue();
+        assertThat(limiter.tryAcquire(600, START)).isFalse();
+        assertThat(limiter.tryAcquire(400, START)).isTrue();
+    }
+
+    @Test
+    void testAdmitsRequestLargerThanBurstOnceFull() {
+        // arrange
+        RateLimiter limiter = new RateLimiter(1000);
+
+        // act & assert
+        assertThat(limiter.tryAcquire(1500, START)).isTrue();
+        assertThat(limiter.tryAcquire(1, START + TimeUnit.MILLISECONDS.toNanos(400))).isFalse();
+        assertThat(limiter.tryAcquire(1, START + TimeUnit.MILLISECONDS.toNanos(501))).isTrue();
+        assertThat(limiter.tryAcquire(1500, START + TimeUnit.MILLISECONDS.toNanos(1000))).isFalse();
+        assertThat(limiter.tryAcquire(1500, START + TimeUnit.MILLISECONDS.toNanos(1501))).isTrue();
+    }
+
+    @Test
+    void testReleasedPermitsCanBeTakenAgain() {
+        // arrange
+        RateLimiter limiter = new RateLimiter(10);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(1, START);
+        }
+
+        // act
+        limiter.release(2);
+
+        // assert
+        assertThat(limiter.tryAcquire(2, START)).isTrue();
+        assertThat(limiter.tryAcquire(1, START)).isFalse();
+    }
+
+    @Test
+    void testZeroRateDisablesLimit() {
+        // arrange
+        RateLimiter limiter = new RateLimiter(0);
+
+        // act & assert
+        assertThat(limiter.isEnabled()).isFalse();
+        assertThat(limiter.tryAcquire(Long.MAX_VALUE, START)).isTrue();
+    }
+
+    @Test
+    void testNegativeRateIsRejected() {
+        assertThatThrownBy(() -> new RateLimiter(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
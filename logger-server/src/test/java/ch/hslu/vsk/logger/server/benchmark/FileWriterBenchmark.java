@@ -0,0 +1,177 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.adapter.FileStringPersistorLogAdapter;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.store.FileChannelLogAdapter;
+import ch.hslu.vsk.logger.server.store.FsyncPolicy;
+import ch.hslu.vsk.logger.server.store.MappedSegmentLogAdapter;
+import ch.hslu.vsk.logger.server.store.RotationPolicy;
+import ch.hslu.vsk.stringpersistor.FileStringPersistor;
+import ch.hslu.vsk.stringpersistor.api.StringPersistor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sustained throughput of the writers of the log file, saving batches of typical messages as the adapter
+ * stage hands them over. The bytes written per second are reported as the {@code bytes} counter, divide by 2^20 for
+ * MB/s. Run with {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.FileWriterBenchmark}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FileWriterBenchmark {
+    private static final int BATCH_SIZE = 64;
+    @Param({"persistor", "channel-never", "channel-interval", "channel-batch", "mapped-never", "mapped-interval",
+        "mapped-batch"})
+    private String writer;
+    private final LogStrategy strategy = new CompetitionStrategy();
+    private final LogEvent[] events = new LogEvent[BATCH_SIZE];
+    private Path directory;
+    private LogAdapter adapter;
+    private long bytesPerBatch;
+    private long processedAt;
+
+    /**
+     * Creates the writer on a new file and the messages.
+     *
+     * @throws IOException if the directory could not be created
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-writer-benchmark");
+        Path file = directory.resolve("Logger.log");
+        adapter = switch (writer) {
+            case "channel-never" -> new FileChannelLogAdapter(file, strategy);
+            case "channel-interval" -> new FileChannelLogAdapter(file, strategy,
+                    FileChannelLogAdapter.DEFAULT_BUFFER_SIZE, FsyncPolicy.INTERVAL, Duration.ofSeconds(1));
+            case "channel-batch" -> new FileChannelLogAdapter(file, strategy,
+                    FileChannelLogAdapter.DEFAULT_BUFFER_SIZE, FsyncPolicy.BATCH, Duration.ZERO);
+            case "mapped-never" -> new MappedSegmentLogAdapter(file, strategy, FsyncPolicy.NEVER, Duration.ZERO,
+                    RotationPolicy.none());
+            case "mapped-interval" -> new MappedSegmentLogAdapter(file, strategy, FsyncPolicy.INTERVAL,
+                    Duration.ofSeconds(1), RotationPolicy.none());
+            case "mapped-batch" -> new MappedSegmentLogAdapter(file, strategy, FsyncPolicy.BATCH, Duration.ZERO,
+                    RotationPolicy.none());
+            default -> {
+                StringPersistor persistor = new FileStringPersistor();
+                persistor.setFile(file);
+                yield new FileStringPersistorLogAdapter(persistor, strategy);
+            }
+        };
+        bytesPerBatch = 0;
+        processedAt = LogEvent.toEpochNanos(Instant.parse("2024-04-29T16:43:16.2795Z"));
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            events[i] = new LogEvent();
+            events[i].clearSource().append("shop-frontend-").append(i % 8);
+            events[i].clearMessage().append("Rendered the product page for customer ").append(4711 + i)
+                    .append(" in 12 ms");
+            events[i].setLevel(LogLevel.Info);
+            events[i].setCreatedAt(LogEvent.toEpochNanos(Instant.parse("2024-04-29T16:43:16.2345Z")));
+            events[i].setProcessedAt(processedAt);
+            String line = LogEvent.toInstant(processedAt) + " | " + strategy.format(events[i].toMessageDo()) + "\n";
+            bytesPerBatch += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+
+    /**
+     * Closes the writer and deletes its file.
+     *
+     * @throws IOException if the file could not be deleted
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        adapter.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Saves a batch of messages.
+     *
+     * @param counters Counts the bytes written
+     */
+    @Benchmark
+    public void saveBatch(final WrittenBytes counters) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            // drops the cached formatted message, so every batch is formatted anew like received messages
+            events[i].setProcessedAt(processedAt);
+            adapter.saveLogEvent(events[i]);
+        }
+        adapter.endOfBatch();
+        counters.add(bytesPerBatch);
+    }
+
+    /**
+     * Bytes written, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WrittenBytes {
+        private long bytes;
+
+        /**
+         * Returns the number of bytes written, which JMH reports as the counter.
+         *
+         * @return bytes written in the current iteration
+         */
+        public long bytes() {
+            return bytes;
+        }
+
+        private void add(final long written) {
+            bytes += written;
+        }
+
+        /**
+         * Resets the counter before every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FileWriterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.server.sketch.HeavyHitters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time {@link HeavyHitters} takes to count a message of one of 10'000 sources, a tenth of the messages
+ * coming from 20 noisy sources, with the default window of five minutes. Run with
+ * {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.HeavyHittersBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeavyHittersBenchmark {
+    private static final int SOURCES = 10_000;
+    private static final int NOISY_SOURCES = 20;
+    private static final long NOW = 1_700_000_000L;
+    private final String[] sources = new String[1 << 16];
+    private HeavyHitters<String> heavyHitters;
+    private int next;
+
+    /**
+     * Draws the sequence of sources.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < sources.length; i++) {
+            if (random.nextInt(10) == 0) {
+                sources[i] = "noisy-" + random.nextInt(NOISY_SOURCES);
+            } else {
+                sources[i] = "source-" + random.nextInt(SOURCES);
+            }
+        }
+        heavyHitters = new HeavyHitters<>(Duration.ofMinutes(5), 4096, 100);
+    }
+
+    /**
+     * Counts one message.
+     */
+    @Benchmark
+    public void add() {
+        heavyHitters.add(sources[next], NOW);
+        next = (next + 1) & (sources.length - 1);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HeavyHittersBenchmark.class.getSimpleName()).build()).run();
+    }
+}
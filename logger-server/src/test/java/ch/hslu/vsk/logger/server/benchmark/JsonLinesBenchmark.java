@@ -0,0 +1,157 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.JsonLinesLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link JsonLinesLogStrategy} with Jackson, formatting a typical message once through a map bound by an
+ * {@link ObjectMapper}, as a general-purpose JSON library is usually used, and once field by field by a
+ * {@link JsonGenerator}, the fastest way Jackson offers. The message optionally holds characters to escape. Run with
+ * {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.JsonLinesBenchmark}, adding {@code -prof gc}
+ * to the JMH arguments shows the allocations per message.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonLinesBenchmark {
+    @Param({"plain", "escaped"})
+    private String messageKind;
+    private final LogStrategy strategy = new JsonLinesLogStrategy();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFactory factory = new JsonFactory();
+    private final LogEvent event = new LogEvent();
+    private final StringBuilder formatted = new StringBuilder();
+    private final ByteBuffer encoded = ByteBuffer.allocate(1024);
+    private LogMessageDo messageDo;
+
+    /**
+     * Creates the message.
+     */
+    @Setup
+    public void setUp() {
+        String message = "Rendered the product page for customer 4711 in 12 ms";
+        if ("escaped".equals(messageKind)) {
+            message = "Rendered \"product\" page\n\tat C:\\shop\\frontend in 12 ms";
+        }
+        messageDo = new LogMessageDo.Builder(message)
+                .from("shop-frontend")
+                .at(Instant.parse("2024-04-29T16:43:16.2345Z"))
+                .processed(Instant.parse("2024-04-29T16:43:16.2795Z"))
+                .level(LogLevel.Info)
+                .build();
+        event.copyFrom(messageDo);
+    }
+
+    /**
+     * Formats the message into a new string.
+     *
+     * @return formatted message
+     */
+    @Benchmark
+    public String jsonLinesFormat() {
+        return strategy.format(messageDo);
+    }
+
+    /**
+     * Appends the message of the event to a reused builder.
+     *
+     * @return builder holding the formatted message
+     */
+    @Benchmark
+    public StringBuilder jsonLinesFormatTo() {
+        formatted.setLength(0);
+        strategy.formatTo(event, formatted);
+        return formatted;
+    }
+
+    /**
+     * Encodes the message of the event as UTF-8 into a reused buffer.
+     *
+     * @return buffer holding the encoded message
+     */
+    @Benchmark
+    public ByteBuffer jsonLinesEncodeTo() {
+        encoded.clear();
+        strategy.encodeTo(event, encoded);
+        return encoded;
+    }
+
+    /**
+     * Binds the fields of the message in a map to a new string by Jackson.
+     *
+     * @return formatted message
+     * @throws IOException if the message could not be written
+     */
+    @Benchmark
+    public String jacksonObjectMapper() throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("createdAt", messageDo.getCreatedAt().toString());
+        fields.put("processedAt", messageDo.getProcessedAt().toString());
+        fields.put("level", messageDo.getLevel().toString());
+        fields.put("source", messageDo.getSource());
+        fields.put("message", messageDo.getMessage());
+        return mapper.writeValueAsString(fields);
+    }
+
+    /**
+     * Writes the fields of the message one by one to a new string by a Jackson generator.
+     *
+     * @return formatted message
+     * @throws IOException if the message could not be written
+     */
+    @Benchmark
+    public String jacksonGenerator() throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("createdAt", messageDo.getCreatedAt().toString());
+            generator.writeStringField("processedAt", messageDo.getProcessedAt().toString());
+            generator.writeStringField("level", messageDo.getLevel().toString());
+            generator.writeStringField("source", messageDo.getSource());
+            generator.writeStringField("message", messageDo.getMessage());
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonLinesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,129 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.CSVLogStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.PatternLayoutStrategy;
+import ch.hslu.vsk.logger.server.logstrategies.TextLogStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time each {@link LogStrategy}, including a {@link PatternLayoutStrategy}, takes to format a typical
+ * message, once into a new string from a {@link LogMessageDo} and once appended to a reused builder from a
+ * {@link LogEvent}, as the adapters do. The UTF-8 encoding of a message is measured once through a string and once
+ * straight into a reused buffer. Run with
+ * {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.LogStrategyBenchmark}, adding
+ * {@code -prof gc} to the JMH arguments shows the allocations per message.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogStrategyBenchmark {
+    // holds a field finer than a second besides the fraction, thus is cached per millisecond
+    private static final String PATTERN = "%d{HH:mm:ss.SSS z} [%LEVEL] %source (%latency ms): %message";
+    @Param({"text", "csv", "competition", "pattern"})
+    private String strategyName;
+    private LogStrategy strategy;
+    private LogMessageDo messageDo;
+    private final LogEvent event = new LogEvent();
+    private final StringBuilder formatted = new StringBuilder();
+    private final ByteBuffer encoded = ByteBuffer.allocate(1024);
+
+    /**
+     * Creates the strategy and the message.
+     */
+    @Setup
+    public void setUp() {
+        strategy = switch (strategyName) {
+            case "text" -> new TextLogStrategy();
+            case "csv" -> new CSVLogStrategy();
+            case "pattern" -> new PatternLayoutStrategy(PATTERN);
+            default -> new CompetitionStrategy();
+        };
+        messageDo = new LogMessageDo.Builder("Rendered the product page for customer 4711 in 12 ms")
+                .from("shop-frontend")
+                .at(Instant.parse("2024-04-29T16:43:16.2345Z"))
+                .processed(Instant.parse("2024-04-29T16:43:16.2795Z"))
+                .level(LogLevel.Info)
+                .build();
+        event.copyFrom(messageDo);
+    }
+
+    /**
+     * Formats the message into a new string.
+     *
+     * @return formatted message
+     */
+    @Benchmark
+    public String format() {
+        return strategy.format(messageDo);
+    }
+
+    /**
+     * Appends the message of the event to a reused builder.
+     *
+     * @return builder holding the formatted message
+     */
+    @Benchmark
+    public StringBuilder formatTo() {
+        formatted.setLength(0);
+        strategy.formatTo(event, formatted);
+        return formatted;
+    }
+
+    /**
+     * Formats the message into a new string and encodes it into a new byte array.
+     *
+     * @return encoded message
+     */
+    @Benchmark
+    public byte[] formatAndGetBytes() {
+        return strategy.format(messageDo).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the message of the event straight into a reused buffer.
+     *
+     * @return buffer holding the encoded message
+     */
+    @Benchmark
+    public ByteBuffer encodeTo() {
+        encoded.clear();
+        strategy.encodeTo(event, encoded);
+        return encoded;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LogStrategyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
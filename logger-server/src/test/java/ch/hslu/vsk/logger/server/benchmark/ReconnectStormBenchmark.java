@@ -0,0 +1,158 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.ConfigReader;
+import ch.hslu.vsk.logger.server.LogWebSocketServer;
+import ch.hslu.vsk.logger.server.LoggerServer;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.Pool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many connections per second the {@link LoggerServer} accepts while many clients reconnect at once,
+ * as after a restart of the server or a network outage. Every operation connects, sends one message and closes the
+ * connection again, from as many client threads as configured by {@link Threads}.
+ * <br />
+ * Compares a single acceptor thread to several ones sharing the port by {@code SO_REUSEPORT}. Run with
+ * {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.ReconnectStormBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReconnectStormBenchmark {
+    @Param({"1", "4"})
+    private String acceptorThreads;
+
+    private final LogMessageDo message = new LogMessageDo.Builder("Reconnected after the server came back")
+            .from("benchmark-client")
+            .at(Instant.now())
+            .level(LogLevel.Info)
+            .build();
+    private LoggerServer server;
+    private Thread serverThread;
+    private Path logDirectory;
+    private int port;
+
+    /**
+     * Starts the server and waits until it accepts connections.
+     *
+     * @throws Exception if the server could not be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        port = freePort();
+        logDirectory = Files.createTempDirectory("reconnect-storm");
+        Properties overrides = new Properties();
+        overrides.setProperty("LISTEN_PORT", String.valueOf(port));
+        overrides.setProperty("SOCKET_ADDRESS", InetAddress.getLoopbackAddress().getHostAddress());
+        overrides.setProperty("LOG_FILE", logDirectory.resolve("Logger.log").toString());
+        overrides.setProperty("ACCEPTOR_THREADS", acceptorThreads);
+        overrides.setProperty("MAX_CONNECTIONS", "0");
+        overrides.setProperty("METRICS_PORT", "0");
+        overrides.setProperty("JMX_ENABLED", "false");
+        Pool<Kryo> kryoPool = LoggerServer.createKryoPool();
+        LogAdapter discardingAdapter = messageDo -> {
+        };
+        server = new LoggerServer(new ConfigReader(overrides), List.of(discardingAdapter),
+                new LogWebSocketServer(freePort()), kryoPool);
+        serverThread = Thread.ofPlatform().daemon().start(server::listen);
+        awaitListening();
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @throws Exception if the server did not stop
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.stop();
+        serverThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Connects, sends one message and disconnects.
+     *
+     * @param client Serializer of the client thread
+     * @throws IOException if the connection failed
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void reconnect(final ClientState client) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Output output = new Output(socket.getOutputStream(), 256);
+            client.kryo.writeObject(output, message);
+            output.flush();
+        }
+    }
+
+    /**
+     * Kryo instance of a client thread.
+     */
+    @State(Scope.Thread)
+    public static class ClientState {
+        private final Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+    }
+
+    private void awaitListening() throws InterruptedException {
+        while (true) {
+            try (Socket probe = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                if (probe.isConnected()) {
+                    return;
+                }
+            } catch (IOException notYetListening) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReconnectStormBenchmark.class.getSimpleName()).build()).run();
+    }
+}
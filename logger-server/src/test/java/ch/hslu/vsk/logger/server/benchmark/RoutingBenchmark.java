@@ -0,0 +1,86 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.routing.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time the {@link Router} takes per message for a typical set of rules, cycling through messages
+ * matching the first rule, a rule with a message condition and no rule at all. Run with
+ * {@code java -cp <test classpath> ch.hslu.vsk.logger.server.benchmark.RoutingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutingBenchmark {
+    private static final String RULES = "level=Debug source=noisy-* -> drop;"
+            + "level=Error|Warning -> file,errors;"
+            + "source=billing message~timeout -> viewer;"
+            + "source=audit -> file;"
+            + "source=payments-* level=Info -> file,viewer";
+
+    private final LogEvent[] events = new LogEvent[]{
+            event("noisy-worker-7", LogLevel.Debug, "tick"),
+            event("billing", LogLevel.Info, "Request to the payment provider ran into a timeout after 30s"),
+            event("shop-frontend", LogLevel.Info, "Rendered the product page in 12 ms"),
+    };
+    private Router router;
+    private int next;
+
+    /**
+     * Compiles the rules.
+     */
+    @Setup
+    public void setUp() {
+        router = Router.compile(RULES, List.of("file", "viewer", "errors"));
+    }
+
+    /**
+     * Routes one message.
+     *
+     * @return adapters of the message
+     */
+    @Benchmark
+    public long route() {
+        LogEvent event = events[next];
+        next = (next + 1) % events.length;
+        return router.route(event);
+    }
+
+    private static LogEvent event(final String source, final LogLevel level, final String message) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append(source);
+        event.clearMessage().append(message);
+        event.setLevel(level);
+        return event;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RoutingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
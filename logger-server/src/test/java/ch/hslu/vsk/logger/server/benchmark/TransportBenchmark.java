@@ -0,0 +1,208 @@
+package ch.hslu.vsk.logger.server.benchmark;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.common.sharedmemory.SharedMemoryRingBuffer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares sending log messages to a consumer on the same host over loopback TCP and over the
+ * {@link SharedMemoryRingBuffer}. Both variants serialize with Kryo and deserialize on the consuming thread.
+ * <br />
+ * {@code throughput} measures how many messages a single producer hands over per second, {@code latency} the time
+ * until the consumer has deserialized a published message. As producer and consumer busy spin, the latency figures
+ * are only meaningful with at least two cores available. Run with {@code java -cp <test classpath>
+ * ch.hslu.vsk.logger.server.benchmark.TransportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransportBenchmark {
+    private static final int SLOT_COUNT = 65536;
+    private static final int SLOT_SIZE = 512;
+
+    @Param({"tcp", "shm"})
+    private String transport;
+
+    private final Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LogMessageDo message = new LogMessageDo.Builder("Benchmark message with a typical length of text")
+            .from("benchmark-client")
+            .at(Instant.now())
+            .level(LogLevel.Info)
+            .build();
+    private volatile boolean running;
+    private Thread consumer;
+    private long published;
+
+    private ServerSocketChannel serverChannel;
+    private Socket socket;
+    private Output socketOutput;
+
+    private Path ringFile;
+    private SharedMemoryRingBuffer consumerRing;
+    private SharedMemoryRingBuffer producerRing;
+    private Output ringOutput;
+
+    /**
+     * Starts the consumer thread and connects the producer.
+     *
+     * @throws IOException if the transport could not be set up
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        running = true;
+        if ("tcp".equals(transport)) {
+            serverChannel = ServerSocketChannel.open()
+                    .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            consumer = Thread.ofPlatform().daemon().start(this::consumeSocket);
+            socket = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+            socket.setTcpNoDelay(true);
+            socketOutput = new Output(socket.getOutputStream());
+        } else {
+            Path directory = Path.of("/dev/shm");
+            if (!Files.isDirectory(directory)) {
+                directory = Path.of(System.getProperty("java.io.tmpdir"));
+            }
+            ringFile = Files.createTempFile(directory, "transport-benchmark", ".ring");
+            consumerRing = SharedMemoryRingBuffer.create(ringFile, SLOT_COUNT, SLOT_SIZE);
+            producerRing = SharedMemoryRingBuffer.open(ringFile);
+            ringOutput = new Output(producerRing.getMaxRecordLength());
+            consumer = Thread.ofPlatform().daemon().start(this::consumeRing);
+        }
+    }
+
+    /**
+     * Stops the consumer and releases the transport.
+     *
+     * @throws Exception if releasing the transport failed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        if (socket != null) {
+            socket.close();
+            serverChannel.close();
+        }
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+        if (consumerRing != null) {
+            producerRing.close();
+            consumerRing.close();
+            Files.deleteIfExists(ringFile);
+        }
+    }
+
+    /**
+     * Hands one message to the transport.
+     *
+     * @throws IOException if the message could not be sent
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void throughput() throws IOException {
+        publish();
+    }
+
+    /**
+     * Hands one message to the transport and waits until the consumer has deserialized it.
+     *
+     * @throws IOException if the message could not be sent
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void latency() throws IOException {
+        publish();
+        while (consumed.get() < published) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void publish() throws IOException {
+        if (socketOutput != null) {
+            kryo.writeObject(socketOutput, message);
+            socketOutput.flush();
+        } else {
+            ringOutput.reset();
+            kryo.writeObject(ringOutput, message);
+            while (!producerRing.offer(ringOutput.getBuffer(), 0, ringOutput.position())) {
+                Thread.onSpinWait();
+            }
+        }
+        published++;
+    }
+
+    private void consumeSocket() {
+        Kryo consumerKryo = KryoFactory.createConfiguredKryoInstance();
+        try (SocketChannel client = serverChannel.accept();
+             Input input = new Input(Channels.newInputStream(client))) {
+            while (running) {
+                consumerKryo.readObject(input, LogMessageDo.class);
+                consumed.lazySet(consumed.get() + 1);
+            }
+        } catch (IOException | KryoException closed) {
+            // producer closed the connection at the end of the trial
+        }
+    }
+
+    private void consumeRing() {
+        Kryo consumerKryo = KryoFactory.createConfiguredKryoInstance();
+        byte[] record = new byte[consumerRing.getMaxRecordLength()];
+        Input input = new Input(record);
+        while (running) {
+            int length = consumerRing.poll(record);
+            if (length < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            input.setBuffer(record, 0, length);
+            consumerKryo.readObject(input, LogMessageDo.class);
+            consumed.lazySet(consumed.get() + 1);
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     * @throws RunnerException if the benchmark failed
+     */
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class ClusterTest {
+    private static final int SOURCES = 200;
+
+    @Test
+    void testForwardsOnlyMessagesOfSourcesOwnedByOtherMember() throws Exception {
+        // arrange
+        try (ServerSocketChannel owner = ServerSocketChannel.open()) {
+            owner.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            ClusterMember self = new ClusterMember("127.0.0.1", 1);
+            int port = ((InetSocketAddress) owner.getLocalAddress()).getPort();
+            ClusterMember other = new ClusterMember("127.0.0.1", port);
+            List<ClusterMember> members = List.of(self, other);
+            ConsistentHashRing ring = new ConsistentHashRing(members, 128);
+            Cluster cluster = new Cluster(self, members, 128, 1024, 64);
+            cluster.start();
+
+            // act
+            List<String> forwarded = new ArrayList<>();
+            List<String> ownedByOther = new ArrayList<>();
+            LogEvent received = new LogEvent();
+            for (int i = 0; i < SOURCES; i++) {
+                String source = "app-" + i;
+                received.copyFrom(new LogMessageDo.Builder("message " + i)
+                        .from(source)
+                        .at(Instant.now())
+                        .level(LogLevel.Info)
+                        .build());
+                if (cluster.forward(received, null)) {
+                    forwarded.add(source);
+                }
+                if (ring.owner(source).equals(other)) {
+                    ownedByOther.add(source);
+                }
+            }
+
+            // assert
+            assertThat(forwarded).isEqualTo(ownedByOther).isNotEmpty().hasSizeLessThan(SOURCES);
+
+            Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+            try (SocketChannel connection = owner.accept();
+                 Input input = new Input(Channels.newInputStream(connection))) {
+                for (String source : forwarded) {
+                    assertThat(kryo.readObject(input, LogMessageDo.class).getSource()).isEqualTo(source);
+                }
+            }
+            assertThat(cluster.stop(Duration.ofSeconds(5))).isTrue();
+            assertThat(cluster.getForwarded()).isEqualTo(forwarded.size());
+        }
+    }
+
+    @Test
+    void testStopsForwardingToUnreachableMember() throws Exception {
+        // arrange
+        int port;
+        try (ServerSocketChannel closed = ServerSocketChannel.open()) {
+            closed.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            port = ((InetSocketAddress) closed.getLocalAddress()).getPort();
+        }
+        MemberForwarder forwarder = new MemberForwarder(new ClusterMember("127.0.0.1", port), 16, 4);
+        forwarder.start();
+        LogEvent received = new LogEvent();
+        received.clearSource().append("app");
+        received.clearMessage().append("never delivered");
+        forwarder.forward(received, null);
+
+        // act
+        boolean stopped = forwarder.stop(Duration.ofSeconds(5));
+
+        // assert
+        assertThat(stopped).isTrue();
+        assertThat(forwarder.getMetrics().getQueueDepth()).isZero();
+    }
+
+    @Test
+    void testStandaloneClusterOwnsAllSources() {
+        // arrange
+        Cluster cluster = Cluster.standalone();
+        LogEvent received = new LogEvent();
+        received.clearSource().append("app");
+
+        // act & assert
+        assertThat(cluster.forward(received, null)).isFalse();
+        assertThat(cluster.getMetrics()).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package ch.hslu.vsk.logger.server.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class ConsistentHashRingTest {
+    private static final int SOURCES = 30_000;
+    private static final ClusterMember FIRST = new ClusterMember("10.0.0.1", 9999);
+    private static final ClusterMember SECOND = new ClusterMember("10.0.0.2", 9999);
+    private static final ClusterMember THIRD = new ClusterMember("10.0.0.3", 9999);
+
+    @Test
+    void testSpreadsSourcesEvenlyAmongMembers() {
+        // arrange
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(FIRST, SECOND, THIRD), 128);
+
+        // act
+        Map<ClusterMember, Integer> owned = new HashMap<>();
+        for (int i = 0; i < SOURCES; i++) {
+            owned.merge(ring.owner("app-" + i), 1, Integer::sum);
+        }
+
+        // assert
+        assertThat(owned).containsOnlyKeys(FIRST, SECOND, THIRD);
+        for (int count : owned.values()) {
+            assertThat(count).isBetween(SOURCES / 3 * 8 / 10, SOURCES / 3 * 12 / 10);
+        }
+    }
+
+    @Test
+    void testAddingMemberOnlyMovesSourcesToIt() {
+        // arrange
+        ConsistentHashRing before = new ConsistentHashRing(List.of(FIRST, SECOND), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(FIRST, SECOND, THIRD), 128);
+
+        // act
+        int moved = 0;
+        for (int i = 0; i < SOURCES; i++) {
+            String source = "app-" + i;
+            ClusterMember owner = after.owner(source);
+            if (!owner.equals(before.owner(source))) {
+                assertThat(owner).isEqualTo(THIRD);
+                moved++;
+            }
+        }
+
+        // assert
+        assertThat(moved).isBetween(SOURCES / 3 * 8 / 10, SOURCES / 3 * 12 / 10);
+    }
+
+    @Test
+    void testOwnerDoesNotDependOnMemberOrderOrCharSequenceType() {
+        // arrange
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(FIRST, SECOND, THIRD), 16);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of(THIRD, FIRST, SECOND), 16);
+
+        // act & assert
+        for (int i = 0; i < 1000; i++) {
+            String source = "app-" + i;
+            assertThat(reordered.owner(new StringBuilder(source))).isEqualTo(ring.owner(source));
+        }
+    }
+
+    @Test
+    void testParsesMembers() {
+        // act & assert
+        assertThat(ClusterMember.parse(" 10.0.0.1:9999")).isEqualTo(FIRST);
+        assertThatThrownBy(() -> ClusterMember.parse("10.0.0.1")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,49 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class HistogramTest {
+    @Test
+    void testRecordsValuesIntoInclusiveBuckets() {
+        // arrange
+        Histogram histogram = new Histogram(10, 100, 1000);
+
+        // act
+        histogram.record(-5);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(1000);
+        histogram.record(5000);
+
+        // assert
+        assertThat(histogram.getBucketCounts()).containsExactly(2, 1, 1, 1);
+        assertThat(histogram.getCount()).isEqualTo(5);
+        assertThat(histogram.getSum()).isEqualTo(10 + 11 + 1000 + 5000);
+    }
+
+    @Test
+    void testEstimatesQuantilesByBucketBounds() {
+        // arrange
+        Histogram histogram = new Histogram(10, 100, 1000);
+        for (int i = 0; i < 98; i++) {
+            histogram.record(5);
+        }
+        histogram.record(50);
+        histogram.record(5000);
+
+        // act & assert
+        assertThat(histogram.getQuantile(0.5)).isEqualTo(10);
+        assertThat(histogram.getQuantile(0.99)).isEqualTo(100);
+        assertThat(histogram.getQuantile(1)).isEqualTo(Long.MAX_VALUE);
+        assertThat(new Histogram(10).getQuantile(0.99)).isZero();
+    }
+
+    @Test
+    void testBoundsMustBeAscending() {
+        assertThatThrownBy(() -> new Histogram(10, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(Histogram::new).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,151 @@
+package ch.hslu.vsk.logger.server.metrics;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogMessageDispatcher;
+import ch.hslu.vsk.logger.server.LoggerServer;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.admission.AdmissionControl;
+import ch.hslu.vsk.logger.server.admission.Source;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.AdapterStage;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import ch.hslu.vsk.logger.server.pipeline.OverflowPolicy;
+import ch.hslu.vsk.logger.server.store.FsyncPolicy;
+import ch.hslu.vsk.logger.server.store.LogFileQuery;
+import ch.hslu.vsk.logger.server.store.MappedSegmentLogAdapter;
+import ch.hslu.vsk.logger.server.store.RotationPolicy;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.Pool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class MetricsHttpServerTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testServesPrometheusTextAndRegistersMBean() throws Exception {
+        // arrange
+        CountDownLatch saved = new CountDownLatch(2);
+        LogAdapter file = new LogAdapter() {
+            @Override
+            public void saveLogMessage(final LogMessageDo messageDo) {
+                saved.countDown();
+            }
+
+            @Override
+            public String getName() {
+                return "file";
+            }
+        };
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(
+                List.of(new AdapterStage(file, OverflowPolicy.BLOCK, 16, 4)), 2, 16, 4);
+        AdmissionControl admissionControl = new AdmissionControl(0, 2, 0, Map.of(), 2, 16);
+        Pool<Kryo> kryoPool = LoggerServer.createKryoPool();
+        MetricsHttpServer server = new MetricsHttpServer(new ServerMetrics(dispatcher, admissionControl, kryoPool));
+        dispatcher.start();
+        LogEvent received = new LogEvent();
+        received.clearSource().append("client");
+        received.setCreatedAt(LogEvent.toEpochNanos(Instant.now()));
+        Source source = admissionControl.resolve(received.getSource());
+        for (int i = 0; i < 3; i++) {
+            if (source.tryAdmit(20)) {
+                dispatcher.dispatch(received, source, null);
+            }
+        }
+        assertThat(saved.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // act
+            server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.registerMBean();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            // assert
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.headers().firstValue("Content-Type")).hasValue(PrometheusWriter.CONTENT_TYPE);
+            assertThat(response.body())
+                    .contains("# TYPE logger_received_messages_total counter\nlogger_received_messages_total 3\n")
+                    .contains("logger_throttled_messages_total 1\n")
+                    .contains("logger_received_bytes_total 60\n")
+                    .contains("logger_stage_published_total{stage=\"log-dispatcher\"} 2\n")
+                    .contains("logger_adapter_save_duration_seconds_bucket{adapter=\"file\",le=\"+Inf\"} 2\n")
+                    .contains("logger_adapter_save_duration_seconds_count{adapter=\"file\"} 2\n")
+                    .contains("logger_end_to_end_lag_seconds_count 2\n")
+                    .contains("logger_stage_batch_duration_seconds_bucket{stage=\"adapter-file\",le=\"1.0E-6\"}");
+            Object throttled = ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(MetricsHttpServer.OBJECT_NAME), "ThrottledMessages");
+            assertThat(throttled).isEqualTo(1L);
+        } finally {
+            server.stop();
+            assertThat(dispatcher.stop(Duration.ofSeconds(5))).isTrue();
+        }
+    }
+
+    @Test
+    void testServesRecordsOfMappedLogFile() throws Exception {
+        // arrange
+        Path logFile = directory.resolve("Logger.log");
+        MappedSegmentLogAdapter adapter = new MappedSegmentLogAdapter(logFile, new CompetitionStrategy(),
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none(), 4);
+        Instant start = Instant.parse("2024-05-01T10:00:00Z");
+        LogEvent event = new LogEvent();
+        for (int i = 0; i < 40; i++) {
+            event.clearSource().append("app-").append(i / 10);
+            event.clearMessage().append("message ").append(i);
+            event.setLevel(LogLevel.values()[i % 2]);
+            event.setProcessedAt(LogEvent.toEpochNanos(start.plusSeconds(i)));
+            adapter.saveLogEvent(event);
+        }
+        adapter.endOfBatch();
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(List.of(), 1, 16, 4);
+        AdmissionControl admissionControl = new AdmissionControl(0, 0, 0, Map.of(), 1, 16);
+        MetricsHttpServer server = new MetricsHttpServer(new ServerMetrics(dispatcher, admissionControl,
+                LoggerServer.createKryoPool()));
+        server.serveLogs(new LogFileQuery(logFile));
+
+        try {
+            // act
+            server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            String base = "http://127.0.0.1:" + server.getPort() + "/logs";
+            HttpClient client = HttpClient.newHttpClient();
+            String query = "?from=2024-05-01T10:00:10Z&to=2024-05-01T10:00:30Z&source=app-1,app-3&level=Info,Error"
+                    + "&limit=3";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + query)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> invalid = client.send(HttpRequest.newBuilder(URI.create(base + "?from=yesterday"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            // assert
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.body().lines().toList()).hasSize(3)
+                    .allSatisfy(line -> assertThat(line).contains("app-1"))
+                    .first().asString().startsWith("2024-05-01T10:00:10Z | ");
+            assertThat(invalid.statusCode()).isEqualTo(400);
+        } finally {
+            server.stop();
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import ch.hslu.vsk.logger.server.LogMessageDispatcher;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that a message passes decoding, the dispatcher and an adapter stage without allocating once the server
+ * reached its steady state. Allocations are measured per thread with {@link com.sun.management.ThreadMXBean}.
+ */
+final class AllocationFreePipelineTest {
+    private static final int WARM_UP_MESSAGES = 200_000;
+    private static final int MEASURED_MESSAGES = 100_000;
+    private static final double MAX_BYTES_PER_MESSAGE = 1.0;
+
+    @Test
+    void testSteadyStateDoesNotAllocatePerMessage() throws InterruptedException {
+        // arrange
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        AtomicLong saved = new AtomicLong();
+        LogAdapter countingAdapter = new LogAdapter() {
+            @Override
+            public void saveLogMessage(final LogMessageDo messageDo) {
+                throw new AssertionError("Adapter must be called with events");
+            }
+
+            @Override
+            public void saveLogEvent(final LogEvent event) {
+                if (event.getMessage().length() > 0 && event.getProcessedAt() != LogEvent.NO_TIMESTAMP) {
+                    saved.lazySet(saved.get() + 1);
+                }
+            }
+        };
+        AdapterStage adapterStage = new AdapterStage(countingAdapter, OverflowPolicy.BLOCK, 1024, 64);
+        LogMessageDispatcher dispatcher = new LogMessageDispatcher(List.of(adapterStage), 1024, 64);
+        dispatcher.start();
+
+        Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+        Output output = new Output(256);
+        kryo.writeObject(output, new LogMessageDo.Builder("Message with a typical length, ümlauts included")
+                .from("allocation-test")
+                .at(Instant.now())
+                .level(LogLevel.Info)
+                .build());
+        byte[] record = output.toBytes();
+        Input input = new Input(record);
+        LogEventDecoder decoder = new LogEventDecoder(kryo, true);
+        LogEvent received = new LogEvent();
+
+        publish(dispatcher, decoder, input, record, received, WARM_UP_MESSAGES);
+        awaitSaved(saved, WARM_UP_MESSAGES);
+        long[] threadIds = pipelineThreadIds();
+
+        // act
+        long before = allocatedBytes(threads, threadIds);
+        publish(dispatcher, decoder, input, record, received, MEASURED_MESSAGES);
+        awaitSaved(saved, WARM_UP_MESSAGES + MEASURED_MESSAGES);
+        long allocated = allocatedBytes(threads, threadIds) - before;
+
+        // assert
+        assertThat((double) allocated / MEASURED_MESSAGES).isLessThan(MAX_BYTES_PER_MESSAGE);
+        assertThat(dispatcher.stop(Duration.ofSeconds(5))).isTrue();
+    }
+
+    private static void publish(final LogMessageDispatcher dispatcher, final LogEventDecoder decoder,
+                                final Input input, final byte[] record, final LogEvent received, final int count) {
+        for (int i = 0; i < count; i++) {
+            input.setBuffer(record);
+            decoder.decode(input, received);
+            dispatcher.dispatch(received);
+        }
+    }
+
+    private static void awaitSaved(final AtomicLong saved, final long expected) {
+        while (saved.get() < expected) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long[] pipelineThreadIds() {
+        Set<Thread> all = Thread.getAllStackTraces().keySet();
+        return all.stream()
+                .filter(thread -> thread == Thread.currentThread()
+                        || thread.getName().equals("log-dispatcher")
+                        || thread.getName().startsWith("adapter-"))
+                .mapToLong(Thread::threadId)
+                .toArray();
+    }
+
+    private static long allocatedBytes(final com.sun.management.ThreadMXBean threads, final long[] threadIds) {
+        long sum = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threadIds)) {
+            sum += allocated;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,80 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class LogEventDecoderTest {
+    private final Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testDecodesMessagesAsSerializedByKryo(final boolean allocationFree) {
+        // arrange
+        List<LogMessageDo> messages = List.of(
+                new LogMessageDo.Builder("plain ascii message")
+                        .from("test-client")
+                        .at(Instant.parse("2024-05-01T10:10:00.123456789Z"))
+                        .level(LogLevel.Debug)
+                        .build(),
+                new LogMessageDo.Builder("Grüsse aus Luzern – ✓")
+                        .from("x")
+                        .at(Instant.parse("1969-12-31T23:59:59.5Z"))
+                        .processed(Instant.parse("2024-05-01T10:10:01Z"))
+                        .level(LogLevel.Error)
+                        .build(),
+                new LogMessageDo.Builder("").build());
+        Output output = new Output(1024);
+        for (LogMessageDo message : messages) {
+            kryo.writeObject(output, message);
+        }
+        Input input = new Input(output.toBytes());
+        LogEventDecoder decoder = new LogEventDecoder(kryo, allocationFree);
+        LogEvent event = new LogEvent();
+
+        // act & assert
+        for (LogMessageDo message : messages) {
+            decoder.decode(input, event);
+            assertThat(event.getMessage().toString()).isEqualTo(message.getMessage());
+            assertThat(event.getSource().toString()).isEqualTo(nullToEmpty(message.getSource()));
+            assertThat(event.getLevel()).isEqualTo(message.getLevel());
+            assertThat(LogEvent.toInstant(event.getCreatedAt())).isEqualTo(message.getCreatedAt());
+            assertThat(LogEvent.toInstant(event.getProcessedAt())).isEqualTo(message.getProcessedAt());
+        }
+        assertThat(input.position()).isEqualTo(input.limit());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testFailsOnTruncatedInput(final boolean allocationFree) {
+        // arrange
+        Output output = new Output(256);
+        kryo.writeObject(output, new LogMessageDo.Builder("message").from("source").at(Instant.now()).build());
+        byte[] truncated = new byte[output.position() - 3];
+        System.arraycopy(output.getBuffer(), 0, truncated, 0, truncated.length);
+        LogEventDecoder decoder = new LogEventDecoder(kryo, allocationFree);
+
+        // act & assert
+        assertThatThrownBy(() -> decoder.decode(new Input(truncated), new LogEvent()))
+                .isInstanceOf(KryoException.class);
+    }
+
+    private static String nullToEmpty(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return value;
+    }
+}
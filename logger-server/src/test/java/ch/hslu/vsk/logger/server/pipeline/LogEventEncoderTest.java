@@ -0,0 +1,63 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.common.KryoFactory;
+import ch.hslu.vsk.logger.common.dataobject.LogMessageDo;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class LogEventEncoderTest {
+    private final Kryo kryo = KryoFactory.createConfiguredKryoInstance();
+
+    @Test
+    void testEncodesEventsAsKryoSerializesMessages() {
+        // arrange
+        List<LogMessageDo> messages = List.of(
+                new LogMessageDo.Builder("plain ascii message")
+                        .from("test-client")
+                        .at(Instant.parse("2024-05-01T10:10:00.123456789Z"))
+                        .level(LogLevel.Debug)
+                        .build(),
+                new LogMessageDo.Builder("Grüsse aus Luzern – ✓")
+                        .from("x")
+                        .at(Instant.parse("1969-12-31T23:59:59.5Z"))
+                        .processed(Instant.parse("2024-05-01T10:10:01Z"))
+                        .level(LogLevel.Error)
+                        .build(),
+                new LogMessageDo.Builder("").build());
+        Output output = new Output(16, -1);
+        LogEvent event = new LogEvent();
+
+        // act
+        for (LogMessageDo message : messages) {
+            event.copyFrom(message);
+            LogEventEncoder.encode(event, output);
+        }
+
+        // assert
+        Input input = new Input(output.toBytes());
+        for (LogMessageDo message : messages) {
+            LogMessageDo decoded = kryo.readObject(input, LogMessageDo.class);
+            assertThat(decoded.getMessage()).isEqualTo(message.getMessage());
+            assertThat(decoded.getSource()).isEqualTo(nullToEmpty(message.getSource()));
+            assertThat(decoded.getLevel()).isEqualTo(message.getLevel());
+            assertThat(decoded.getCreatedAt()).isEqualTo(message.getCreatedAt());
+            assertThat(decoded.getProcessedAt()).isEqualTo(message.getProcessedAt());
+        }
+        assertThat(input.position()).isEqualTo(input.limit());
+    }
+
+    private static String nullToEmpty(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class LogEventRingBufferTest {
+    @Test
+    void testDrainsInPublishOrderAndRunsCallbacks() {
+        // arrange
+        LogEventRingBuffer ringBuffer = new LogEventRingBuffer(4);
+        AtomicInteger processed = new AtomicInteger();
+        List<String> received = new ArrayList<>();
+        List<Boolean> endOfBatch = new ArrayList<>();
+
+        // act
+        for (int lap = 0; lap < 3; lap++) {
+            assertThat(ringBuffer.tryPublish(createMessage("first"), processed::incrementAndGet)).isTrue();
+            assertThat(ringBuffer.tryPublish(createMessage("second"), null)).isTrue();
+            ringBuffer.drain((event, last) -> {
+                received.add(event.getMessage().toString());
+                endOfBatch.add(last);
+            }, 10);
+        }
+
+        // assert
+        assertThat(received).containsExactly("first", "second", "first", "second", "first", "second");
+        assertThat(endOfBatch).containsExactly(false, true, false, true, false, true);
+        assertThat(processed).hasValue(3);
+        assertThat(ringBuffer.size()).isZero();
+    }
+
+    @Test
+    void testPublishFailsWhenFull() {
+        // arrange
+        LogEventRingBuffer ringBuffer = new LogEventRingBuffer(2);
+        ringBuffer.tryPublish(createMessage("1"), null);
+        ringBuffer.tryPublish(createMessage("2"), null);
+
+        // act & assert
+        assertThat(ringBuffer.tryPublish(createMessage("3"), null)).isFalse();
+        assertThat(ringBuffer.drain((event, last) -> { }, 1)).isEqualTo(1);
+        assertThat(ringBuffer.tryPublish(createMessage("3"), null)).isTrue();
+        assertThat(ringBuffer.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testRejectsCapacityNotPowerOfTwo() {
+        assertThatThrownBy(() -> new LogEventRingBuffer(3)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testConcurrentProducersDeliverEveryEventOnce() {
+        // arrange
+        int producers = 4;
+        int eventsPerProducer = 20_000;
+        LogEventRingBuffer ringBuffer = new LogEventRingBuffer(64);
+        int[] nextExpected = new int[producers];
+
+        // act
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                String source = String.valueOf(p);
+                executor.execute(() -> {
+                    LogEvent event = new LogEvent();
+                    event.clearSource().append(source);
+                    for (int i = 0; i < eventsPerProducer; i++) {
+                        event.clearMessage().append(i);
+                        while (!ringBuffer.tryPublish(event, null)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                });
+            }
+
+            int received = 0;
+            while (received < producers * eventsPerProducer) {
+                received += ringBuffer.drain((event, last) -> {
+                    int producer = Integer.parseInt(event.getSource().toString());
+                    // events of one producer keep their order
+                    assertThat(Integer.parseInt(event.getMessage().toString()))
+                            .isEqualTo(nextExpected[producer]++);
+                }, 16);
+            }
+        }
+
+        // assert
+        assertThat(nextExpected).containsOnly(eventsPerProducer);
+        assertThat(ringBuffer.size()).isZero();
+    }
+
+    private static LogEvent createMessage(final String text) {
+        LogEvent event = new LogEvent();
+        event.clearMessage().append(text);
+        event.clearSource().append("test-client");
+        event.setLevel(LogLevel.Info);
+        return event;
+    }
+}
@@ -0,0 +1,108 @@
+package ch.hslu.vsk.logger.server.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class PipelineStageTest {
+    @Test
+    void testStopDrainsPublishedEventsAndRecordsMetrics() throws InterruptedException {
+        // arrange
+        AtomicInteger handled = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        PipelineStage stage = new PipelineStage("test-stage", 16, 4, (event, endOfBatch) -> handled.incrementAndGet());
+        stage.start();
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            stage.publish(createEvent("message " + i), processed::incrementAndGet);
+        }
+        boolean drained = stage.stop(Duration.ofSeconds(5));
+
+        // assert
+        assertThat(drained).isTrue();
+        assertThat(handled).hasValue(100);
+        assertThat(processed).hasValue(100);
+        StageMetrics metrics = stage.getMetrics();
+        assertThat(metrics.getPublished()).isEqualTo(100);
+        assertThat(metrics.getProcessed()).isEqualTo(100);
+        assertThat(metrics.getMaxBatchSize()).isBetween(1, 4);
+        assertThat(metrics.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void testPublishWaitsWhileQueueIsFull() throws InterruptedException {
+        // arrange
+        CountDownLatch blocked = new CountDownLatch(1);
+        PipelineStage stage = new PipelineStage("test-stage", 2, 1, (event, endOfBatch) -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stage.start();
+        for (int i = 0; i < 2; i++) {
+            stage.publish(createEvent("message " + i), null);
+        }
+
+        // act
+        Thread producer = Thread.ofVirtual()
+                .start(() -> stage.publish(createEvent("overflow"), null));
+
+        // assert
+        assertThat(producer.join(Duration.ofMillis(100))).isFalse();
+        blocked.countDown();
+        assertThat(producer.join(Duration.ofSeconds(5))).isTrue();
+        assertThat(stage.getMetrics().getProducerStalls()).isPositive();
+        assertThat(stage.stop(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void testLanesAreServedByWeight() throws InterruptedException {
+        // arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        PipelineStage stage = new PipelineStage("test-stage", 2, 16, 1, (event, endOfBatch) -> {
+            order.add(event.getMessage().toString());
+            started.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stage.start();
+        stage.publish(0, 1, createEvent("flood"), null);
+        started.await();
+
+        // act
+        for (int i = 0; i < 8; i++) {
+            stage.publish(0, 1, createEvent("flood"), null);
+        }
+        for (int i = 0; i < 8; i++) {
+            stage.publish(1, 3, createEvent("weighted"), null);
+        }
+        blocked.countDown();
+
+        // assert
+        assertThat(stage.stop(Duration.ofSeconds(5))).isTrue();
+        assertThat(order).hasSize(17);
+        assertThat(order.subList(0, 8)).containsExactly("flood", "weighted", "weighted", "weighted",
+                "flood", "weighted", "weighted", "weighted");
+        assertThat(stage.getMetrics().getQueueCapacity()).isEqualTo(32);
+    }
+
+    private static LogEvent createEvent(final String text) {
+        LogEvent event = new LogEvent();
+        event.clearMessage().append(text);
+        return event;
+    }
+}
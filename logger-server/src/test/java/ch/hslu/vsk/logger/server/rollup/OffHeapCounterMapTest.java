@@ -0,0 +1,53 @@
+package ch.hslu.vsk.logger.server.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class OffHeapCounterMapTest {
+    private static final int KEYS = 3000;
+
+    @Test
+    void testRetainIfKeepsRemainingEntriesReachable() {
+        // arrange
+        OffHeapCounterMap map = new OffHeapCounterMap(4096);
+        for (long key = 1; key <= KEYS; key++) {
+            for (int i = 0; i < key % 5; i++) {
+                map.increment(key);
+            }
+            map.increment(key);
+        }
+
+        // act
+        map.retainIf(key -> key % 3 == 0);
+
+        // assert
+        assertThat(map.size()).isEqualTo(KEYS / 3);
+        for (long key = 1; key <= KEYS; key++) {
+            if (key % 3 == 0) {
+                assertThat(map.get(key)).isEqualTo(key % 5 + 1);
+            } else {
+                assertThat(map.get(key)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void testCountsRemovedKeysFromZeroAgain() {
+        // arrange
+        OffHeapCounterMap map = new OffHeapCounterMap(16);
+        for (long key = 1; key <= 10; key++) {
+            map.increment(key);
+            map.increment(key);
+        }
+
+        // act
+        map.retainIf(key -> false);
+        map.increment(7);
+
+        // assert
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(7)).isEqualTo(1);
+        assertThat(map.get(3)).isZero();
+    }
+}
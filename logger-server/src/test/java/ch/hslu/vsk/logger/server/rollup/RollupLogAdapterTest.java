@@ -0,0 +1,124 @@
+package ch.hslu.vsk.logger.server.rollup;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class RollupLogAdapterTest {
+    private static final Instant MINUTE = Instant.parse("2024-05-01T10:10:00Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testCountsPerSourceLevelAndBucket() {
+        // arrange
+        RollupLogAdapter adapter = new RollupLogAdapter(directory, 3600, 60);
+
+        // act
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(1)));
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(1)));
+        adapter.saveLogEvent(event("billing", LogLevel.Info, MINUTE.plusSeconds(2)));
+        adapter.saveLogEvent(event("shop", LogLevel.Error, MINUTE.plusSeconds(2)));
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(61)));
+
+        // assert
+        Instant to = MINUTE.plusSeconds(120);
+        assertThat(adapter.query("billing", LogLevel.Error, Granularity.MINUTE, MINUTE, to))
+                .containsExactly(Map.entry(MINUTE, 2L), Map.entry(MINUTE.plusSeconds(60), 1L));
+        assertThat(adapter.query("billing", null, Granularity.MINUTE, MINUTE, to))
+                .containsExactly(Map.entry(MINUTE, 3L), Map.entry(MINUTE.plusSeconds(60), 1L));
+        assertThat(adapter.query("billing", null, Granularity.SECOND, MINUTE, MINUTE.plusSeconds(60)))
+                .containsExactly(Map.entry(MINUTE.plusSeconds(1), 2L), Map.entry(MINUTE.plusSeconds(2), 1L));
+        assertThat(adapter.query("unknown", null, Granularity.MINUTE, MINUTE, to)).isEmpty();
+    }
+
+    @Test
+    void testPersistsCompletedMinutes() throws IOException {
+        // arrange
+        RollupLogAdapter adapter = new RollupLogAdapter(directory, 3600, 60);
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(1)));
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(2)));
+
+        // act
+        adapter.saveLogEvent(event("billing", LogLevel.Info, MINUTE.plusSeconds(60)));
+
+        // assert
+        Path file = directory.resolve("rollup-2024-05-01.csv");
+        assertThat(Files.readAllLines(file)).containsExactly("2024-05-01T10:10:00Z;billing;Error;2");
+        adapter.close();
+        assertThat(Files.readAllLines(file)).hasSize(2).contains("2024-05-01T10:11:00Z;billing;Info;1");
+    }
+
+    @Test
+    void testPersistsLateMessagesAsCorrections() throws IOException {
+        // arrange
+        RollupLogAdapter adapter = new RollupLogAdapter(directory, 3600, 60);
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(1)));
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(60)));
+
+        // act
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(59)));
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.minusSeconds(86_400)));
+        adapter.close();
+
+        // assert
+        assertThat(adapter.query("billing", LogLevel.Error, Granularity.MINUTE, MINUTE, MINUTE.plusSeconds(60)))
+                .containsExactly(Map.entry(MINUTE, 2L));
+        assertThat(Files.readAllLines(directory.resolve("rollup-2024-05-01.csv"))).containsExactlyInAnyOrder(
+                "2024-05-01T10:10:00Z;billing;Error;1",
+                "2024-05-01T10:11:00Z;billing;Error;1",
+                "2024-05-01T10:10:00Z;billing;Error;1");
+        assertThat(Files.readAllLines(directory.resolve("rollup-2024-04-30.csv")))
+                .containsExactly("2024-04-30T10:10:00Z;billing;Error;1");
+    }
+
+    @Test
+    void testEvictsBucketsBeyondRetention() {
+        // arrange
+        RollupLogAdapter adapter = new RollupLogAdapter(directory, 60, 2);
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE));
+
+        // act
+        adapter.saveLogEvent(event("billing", LogLevel.Error, MINUTE.plusSeconds(180)));
+
+        // assert
+        assertThat(adapter.query("billing", null, Granularity.MINUTE, MINUTE, MINUTE.plusSeconds(240)))
+                .containsOnlyKeys(MINUTE.plusSeconds(180));
+    }
+
+    @Test
+    void testGrowsWithManySources() {
+        // arrange
+        RollupLogAdapter adapter = new RollupLogAdapter(directory, 3600, 60);
+
+        // act
+        for (int i = 0; i < 10_000; i++) {
+            adapter.saveLogEvent(event("app-" + i, LogLevel.Info, MINUTE));
+        }
+
+        // assert
+        for (int i = 0; i < 10_000; i += 997) {
+            assertThat(adapter.query("app-" + i, LogLevel.Info, Granularity.SECOND, MINUTE, MINUTE.plusSeconds(1)))
+                    .containsExactly(Map.entry(MINUTE, 1L));
+        }
+    }
+
+    private static LogEvent event(final String source, final LogLevel level, final Instant processedAt) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append(source);
+        event.clearMessage().append("message");
+        event.setLevel(level);
+        event.setProcessedAt(LogEvent.toEpochNanos(processedAt));
+        return event;
+    }
+}
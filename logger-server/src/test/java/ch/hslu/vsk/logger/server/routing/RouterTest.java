@@ -0,0 +1,73 @@
+package ch.hslu.vsk.logger.server.routing;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class RouterTest {
+    private static final List<String> ADAPTERS = List.of("file", "viewer", "errors");
+    private static final long FILE = 1L;
+    private static final long VIEWER = 1L << 1;
+    private static final long ERRORS = 1L << 2;
+
+    @Test
+    void testFirstMatchingRuleApplies() {
+        // arrange
+        Router router = Router.compile("level=Debug source=noisy-* -> drop; level=Error -> file,errors;"
+                + " source=billing message~timeout -> viewer", ADAPTERS);
+
+        // act & assert
+        assertThat(router.route(event("noisy-worker", LogLevel.Debug, "tick"))).isEqualTo(Router.NONE);
+        assertThat(router.route(event("noisy-worker", LogLevel.Info, "tick"))).isEqualTo(Router.ALL);
+        assertThat(router.route(event("noisy", LogLevel.Debug, "tick"))).isEqualTo(Router.ALL);
+        assertThat(router.route(event("noisy-worker", LogLevel.Error, "failed"))).isEqualTo(FILE | ERRORS);
+        assertThat(router.route(event("billing", LogLevel.Info, "request timeout"))).isEqualTo(VIEWER);
+        assertThat(router.route(event("billing", LogLevel.Info, "request served"))).isEqualTo(Router.ALL);
+        assertThat(router.route(event("billing-eu", LogLevel.Info, "request timeout"))).isEqualTo(Router.ALL);
+    }
+
+    @Test
+    void testRoutesAllWithoutRules() {
+        // arrange
+        Router router = Router.compile("", ADAPTERS);
+
+        // act & assert
+        assertThat(router.route(event("app", LogLevel.Error, "failed"))).isEqualTo(Router.ALL);
+        assertThat(Router.all().route(event("app", null, "failed"))).isEqualTo(Router.ALL);
+    }
+
+    @Test
+    void testRulesWithoutLevelConditionMatchMessagesWithoutLevel() {
+        // arrange
+        Router router = Router.compile("level=Error -> errors; source=app -> file", ADAPTERS);
+
+        // act & assert
+        assertThat(router.route(event("app", null, "failed"))).isEqualTo(FILE);
+    }
+
+    @Test
+    void testRejectsMalformedRulesAndUnknownAdapters() {
+        // act & assert
+        assertThatThrownBy(() -> Router.compile("level=Error", ADAPTERS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Router.compile("level=Fatal -> file", ADAPTERS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Router.compile("host=a -> file", ADAPTERS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Router.compile("level=Error -> database", ADAPTERS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LogEvent event(final String source, final LogLevel level, final String message) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append(source);
+        event.clearMessage().append(message);
+        event.setLevel(level);
+        return event;
+    }
+}
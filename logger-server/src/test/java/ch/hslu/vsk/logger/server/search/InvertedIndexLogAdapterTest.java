@@ -0,0 +1,126 @@
+package ch.hslu.vsk.logger.server.search;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class InvertedIndexLogAdapterTest {
+    private static final Instant START = Instant.parse("2024-05-01T10:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testFindsKeywordsAndPhrasesInSegmentsAndBuffer() {
+        // arrange
+        InvertedIndexLogAdapter adapter = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 10);
+        for (int i = 0; i < 25; i++) {
+            if (i % 5 == 0) {
+                save(adapter, i, "Connection refused by db-" + i);
+            } else if (i % 5 == 1) {
+                save(adapter, i, "Refused connection to cache-" + i);
+            } else {
+                save(adapter, i, "Order " + i + " shipped");
+            }
+        }
+
+        // act
+        List<String> phrase = adapter.search("\"connection refused\"", 10);
+        List<String> keywords = adapter.search("REFUSED connection", 10);
+        List<String> limited = adapter.search("shipped", 3);
+
+        // assert
+        assertThat(phrase).hasSize(5);
+        assertThat(phrase.get(0)).startsWith("2024-05-01T10:00:20Z | ").endsWith("Connection refused by db-20");
+        assertThat(phrase.get(4)).endsWith("Connection refused by db-0");
+        assertThat(keywords).hasSize(10);
+        assertThat(limited).hasSize(3);
+        assertThat(limited.get(0)).endsWith("Order 24 shipped");
+        assertThat(adapter.search("\"db 15\"", 10)).singleElement().asString().endsWith("db-15");
+        assertThat(adapter.search("\"refused connection\" db", 10)).isEmpty();
+        assertThat(adapter.search("unknown", 10)).isEmpty();
+        assertThat(adapter.search(" ?! ", 10)).isEmpty();
+        adapter.close();
+    }
+
+    @Test
+    void testMergesSegmentsAndReopensThem() throws IOException {
+        // arrange
+        int messages = 5 * (InvertedIndexLogAdapter.MERGE_FACTOR + 1) + 2;
+        InvertedIndexLogAdapter adapter = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 5);
+        for (int i = 0; i < messages; i++) {
+            save(adapter, i, "Request " + i + " failed with timeout");
+        }
+        adapter.close();
+
+        // act
+        InvertedIndexLogAdapter reopened = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 5);
+        save(reopened, messages, "Request " + messages + " failed with timeout");
+        List<String> found = reopened.search("\"failed with timeout\"", 100);
+
+        // assert
+        assertThat(reopened.getSegmentCount()).isEqualTo(3);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(3)
+                    .allSatisfy(file -> assertThat(file.getFileName().toString()).endsWith(IndexSegment.EXTENSION));
+        }
+        assertThat(found).hasSize(messages + 1);
+        assertThat(found.get(0)).endsWith("Request " + messages + " failed with timeout");
+        assertThat(found.get(messages)).endsWith("Request 0 failed with timeout");
+        assertThat(reopened.search("\"request 17 failed\"", 100)).singleElement().asString()
+                .startsWith("2024-05-01T10:00:17Z");
+        reopened.close();
+    }
+
+    @Test
+    void testMergesSegmentEnclosedByHigherLevels() throws IOException {
+        // arrange
+        int messages = InvertedIndexLogAdapter.MERGE_FACTOR;
+        for (int i = 0; i < messages; i++) {
+            InvertedIndexLogAdapter writer = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 1);
+            save(writer, i, "Request " + i + " failed with timeout");
+            writer.close();
+            if (i != 1) {
+                // leaves a stray segment of level 0 between segments of level 1
+                Path file = directory.resolve(IndexSegment.fileName(i, 0));
+                IndexSegmentWriter.merge(directory, List.of(IndexSegment.open(file)), 1);
+                Files.delete(file);
+            }
+        }
+
+        // act
+        InvertedIndexLogAdapter adapter = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 1);
+        save(adapter, messages, "Request " + messages + " failed with timeout");
+        adapter.close();
+
+        // assert
+        assertThat(adapter.getSegmentCount()).isEqualTo(2);
+        assertThat(Files.exists(directory.resolve(IndexSegment.fileName(0, 2)))).isTrue();
+        InvertedIndexLogAdapter reopened = new InvertedIndexLogAdapter(directory, new CompetitionStrategy(), 1);
+        assertThat(reopened.search("\"failed with timeout\"", 100)).hasSize(messages + 1);
+        assertThat(reopened.search("\"request 1 failed\"", 100)).singleElement().asString()
+                .startsWith("2024-05-01T10:00:01Z");
+        reopened.close();
+    }
+
+    private static void save(final InvertedIndexLogAdapter adapter, final int second, final String message) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append("shop");
+        event.clearMessage().append(message);
+        event.setLevel(LogLevel.Info);
+        event.setCreatedAt(LogEvent.toEpochNanos(START.plusSeconds(second)));
+        event.setProcessedAt(LogEvent.toEpochNanos(START.plusSeconds(second)));
+        adapter.saveLogEvent(event);
+    }
+}
@@ -0,0 +1,75 @@
+package ch.hslu.vsk.logger.server.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class HeavyHittersTest {
+    private static final long NOW = 1_700_000_000L;
+
+    @Test
+    void testFindsNoisiestSourcesAmongManyQuietOnes() {
+        // arrange
+        HeavyHitters<String> heavyHitters = new HeavyHitters<>(Duration.ofMinutes(5), 1024, 20);
+        for (int i = 0; i < 50_000; i++) {
+            heavyHitters.add("quiet-" + i, NOW);
+            if (i % 10 == 0) {
+                heavyHitters.add("noisy-" + i % 30, NOW);
+            }
+        }
+
+        // act
+        List<HeavyHitter<String>> top = heavyHitters.top(3, NOW);
+
+        // assert
+        assertThat(top).extracting(HeavyHitter::getKey).allMatch(key -> key.startsWith("noisy-"));
+        assertThat(top).extracting(HeavyHitter::getEstimate).allMatch(estimate -> estimate >= 5_000 / 30);
+    }
+
+    @Test
+    void testNeverUnderestimates() {
+        // arrange
+        HeavyHitters<String> heavyHitters = new HeavyHitters<>(Duration.ofSeconds(10), 64, 5);
+
+        // act
+        for (int i = 0; i < 10_000; i++) {
+            heavyHitters.add("source-" + i % 500, NOW);
+        }
+
+        // assert
+        for (int i = 0; i < 500; i++) {
+            assertThat(heavyHitters.estimate("source-" + i)).isGreaterThanOrEqualTo(20);
+        }
+    }
+
+    @Test
+    void testForgetsOccurrencesSlidingOutOfWindow() {
+        // arrange
+        HeavyHitters<String> heavyHitters = new HeavyHitters<>(Duration.ofSeconds(10), 1024, 5);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.add("early", NOW);
+        }
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.add("late", NOW + 5);
+        }
+
+        // act
+        List<HeavyHitter<String>> withinWindow = heavyHitters.top(5, NOW + 9);
+        List<HeavyHitter<String>> afterWindow = heavyHitters.top(5, NOW + 10);
+
+        // assert
+        assertThat(withinWindow).extracting(HeavyHitter::getKey).containsExactly("early", "late");
+        assertThat(afterWindow).extracting(HeavyHitter::getKey).containsExactly("late");
+        assertThat(afterWindow.getFirst().getEstimate()).isEqualTo(10);
+    }
+
+    @Test
+    void testRejectsWindowShorterThanBuckets() {
+        assertThatThrownBy(() -> new HeavyHitters<String>(Duration.ofSeconds(5), 1024, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
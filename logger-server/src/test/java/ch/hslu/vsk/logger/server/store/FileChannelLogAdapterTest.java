@@ -0,0 +1,149 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class FileChannelLogAdapterTest {
+    private static final Instant PROCESSED = Instant.parse("2024-05-01T10:10:00.5Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWritesBatchAtItsEndInLayoutOfPersistor() throws IOException {
+        // arrange
+        Path file = directory.resolve("logs/Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.BATCH, Duration.ZERO);
+
+        // act
+        adapter.saveLogEvent(event("shop", "Grüsse aus Zürich"));
+        adapter.saveLogEvent(event("billing", "invoice 4711 sent"));
+        boolean writtenBeforeEndOfBatch = Files.exists(file);
+        adapter.endOfBatch();
+
+        // assert
+        assertThat(writtenBeforeEndOfBatch).isFalse();
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).containsExactly(
+                "2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO shop Grüsse aus Zürich",
+                "2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO billing invoice 4711 sent");
+        adapter.close();
+    }
+
+    @Test
+    void testWritesRecordsLargerThanBufferAndFlushesOnClose() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO);
+        String large = "x".repeat(10_000);
+
+        // act
+        for (int i = 0; i < 100; i++) {
+            adapter.saveLogEvent(event("shop", "message " + i));
+        }
+        adapter.saveLogEvent(event("shop", large));
+        adapter.saveLogEvent(event("shop", "after"));
+        adapter.close();
+
+        // assert
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .hasSize(102)
+                .startsWith("2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO shop message 0")
+                .endsWith("2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO shop " + large,
+                        "2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO shop after");
+    }
+
+    @Test
+    void testRotatesBySizeIntoCompressedSegmentsListedInManifest() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        // every record takes 72 bytes, thus two fit into a segment
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, new RotationPolicy(150, Duration.ZERO, Compression.GZIP));
+
+        // act
+        for (int i = 0; i < 5; i++) {
+            adapter.saveLogEvent(event("shop", "message " + i));
+        }
+        adapter.close();
+
+        // assert
+        List<LogSegment> segments = SegmentManifest.load(file).getSegments();
+        assertThat(segments).extracting(LogSegment::getName)
+                .containsExactly("Logger-000001.log.gz", "Logger-000002.log.gz");
+        assertThat(segments).extracting(LogSegment::getRecords).containsExactly(2L, 2L);
+        assertThat(segments).extracting(LogSegment::getBytes).containsExactly(144L, 144L);
+        assertThat(directory.resolve("Logger-000001.log")).doesNotExist();
+        List<String> lines = new ArrayList<>();
+        for (LogSegment segment : segments) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve(segment.getName())))) {
+                lines.addAll(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList());
+            }
+        }
+        lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+        assertThat(lines).extracting(line -> line.substring(line.lastIndexOf(' ') + 1))
+                .containsExactly("0", "1", "2", "3", "4");
+    }
+
+    @Test
+    void testRotatesByIntervalAndContinuesNumberingAfterRestart() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        RotationPolicy hourly = new RotationPolicy(0, Duration.ofHours(1), Compression.NONE);
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, hourly);
+        adapter.saveLogEvent(event("shop", "first", PROCESSED));
+        adapter.saveLogEvent(event("shop", "second", PROCESSED.plusSeconds(60)));
+        adapter.close();
+
+        // act
+        FileChannelLogAdapter restarted = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, hourly);
+        restarted.saveLogEvent(event("shop", "third", PROCESSED.plusSeconds(3600)));
+        restarted.saveLogEvent(event("shop", "fourth", PROCESSED.plusSeconds(7200)));
+        restarted.close();
+
+        // assert
+        SegmentManifest manifest = SegmentManifest.load(file);
+        assertThat(manifest.getSegments()).extracting(LogSegment::getName)
+                .containsExactly("Logger-000001.log", "Logger-000002.log");
+        LogSegment first = manifest.getSegments().get(0);
+        assertThat(first.getFrom()).isEqualTo(PROCESSED);
+        assertThat(first.getTo()).isEqualTo(PROCESSED.plusSeconds(60));
+        assertThat(first.getRecords()).isEqualTo(2);
+        assertThat(manifest.getSegments(PROCESSED.plusSeconds(3000), PROCESSED.plusSeconds(4000)))
+                .extracting(LogSegment::getName).containsExactly("Logger-000002.log");
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).singleElement().asString().endsWith("fourth");
+    }
+
+    private static LogEvent event(final String source, final String message) {
+        return event(source, message, PROCESSED);
+    }
+
+    private static LogEvent event(final String source, final String message, final Instant processedAt) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append(source);
+        event.clearMessage().append(message);
+        event.setLevel(LogLevel.Info);
+        event.setCreatedAt(LogEvent.toEpochNanos(processedAt.minusMillis(1500)));
+        event.setProcessedAt(LogEvent.toEpochNanos(processedAt));
+        return event;
+    }
+}
@@ -0,0 +1,181 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.adapter.LogAdapter;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class LogFileQueryTest {
+    private static final Instant START = Instant.parse("2024-05-01T10:00:00Z");
+    private static final int RECORDS = 300;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testReadsOnlyBlocksOfWantedSourceAndLevel() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none(), 10);
+        writeRecords(adapter);
+        adapter.close();
+        LogFileQuery query = new LogFileQuery(file);
+
+        // act
+        List<String> found = query.find(START.plusSeconds(100), START.plusSeconds(200), Set.of("billing"),
+                Set.of(LogLevel.Error));
+
+        // assert
+        assertThat(found).hasSize(10).allSatisfy(line -> assertThat(line).contains("billing"));
+        assertThat(found.get(0)).endsWith("incident 150");
+        assertThat(query.getBytesRead()).isLessThan(Files.size(file) / 20);
+        assertThat(query.find(null, null, Set.of("unknown"), Set.of())).isEmpty();
+        assertThat(query.getBytesRead()).isZero();
+    }
+
+    @Test
+    void testSeeksIntoCompressedSegmentsByTimeRange() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, new RotationPolicy(8192, Duration.ZERO, Compression.GZIP), 10);
+        writeRecords(adapter);
+        adapter.close();
+        LogFileQuery query = new LogFileQuery(file);
+        long total = SegmentManifest.load(file).getSegments().stream().mapToLong(LogSegment::getBytes).sum()
+                + Files.size(file);
+
+        // act
+        List<String> found = query.find(START.plusSeconds(95), START.plusSeconds(105), Set.of(), Set.of());
+
+        // assert
+        assertThat(SegmentManifest.load(file).getSegments()).hasSizeGreaterThan(1)
+                .allSatisfy(segment -> assertThat(segment.getName()).endsWith(".log.gz"));
+        assertThat(found).extracting(line -> line.substring(line.lastIndexOf(' ') + 1))
+                .containsExactlyElementsOf(IntStream.range(95, 105).mapToObj(String::valueOf).toList());
+        assertThat(query.getBytesRead()).isLessThan(total / 5);
+    }
+
+    @Test
+    void testStreamsRangesLargerThanReadSize() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy());
+        LogEvent event = new LogEvent();
+        event.clearSource().append("shop");
+        event.setLevel(LogLevel.Info);
+        for (int i = 0; i < 20_000; i++) {
+            event.clearMessage().append("Grüsse ").append("x".repeat(i % 100)).append(' ').append(i);
+            event.setCreatedAt(LogEvent.toEpochNanos(START.plusMillis(i)));
+            event.setProcessedAt(LogEvent.toEpochNanos(START.plusMillis(i)));
+            adapter.saveLogEvent(event);
+        }
+        adapter.close();
+        LogFileQuery query = new LogFileQuery(file);
+
+        // act
+        List<String> found = query.find(null, null, Set.of(), Set.of());
+
+        // assert
+        assertThat(Files.size(file)).isGreaterThan(2 * 1024 * 1024);
+        assertThat(found).hasSize(20_000);
+        for (int i = 0; i < found.size(); i += 997) {
+            assertThat(found.get(i)).contains("Grüsse ").endsWith(" " + i);
+        }
+    }
+
+    @Test
+    void testStopsAtUnwrittenPartOfMappedSegment() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        MappedSegmentLogAdapter adapter = new MappedSegmentLogAdapter(file, new CompetitionStrategy(),
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none(), 10);
+        writeRecords(adapter);
+        LogFileQuery query = new LogFileQuery(file);
+
+        // act
+        List<String> found = query.find(START.plusSeconds(100), START.plusSeconds(200), Set.of("billing"),
+                Set.of(LogLevel.Error));
+        List<String> all = query.find(null, null, Set.of(), Set.of());
+
+        // assert
+        assertThat(found).hasSize(10).allSatisfy(line -> assertThat(line).contains("billing"));
+        assertThat(all).hasSize(RECORDS);
+        assertThat(all.get(RECORDS - 1)).endsWith("message " + (RECORDS - 1));
+        assertThat(Files.size(file)).isEqualTo(MappedSegmentLogAdapter.DEFAULT_SEGMENT_SIZE);
+        assertThat(query.getBytesRead()).isLessThan(2 * 1024 * 1024);
+        adapter.close();
+    }
+
+    @Test
+    void testKeepsIndexBlocksWithinLogFileShortenedByCrash() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        FileChannelLogAdapter adapter = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none(), 10);
+        writeRecords(adapter);
+        adapter.close();
+        // the crash lost the records after the 85th, whose blocks had already reached the index
+        long survivingLength = String.join("\n", Files.readAllLines(file).subList(0, 85)).length() + 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(survivingLength);
+        }
+
+        // act
+        FileChannelLogAdapter restarted = new FileChannelLogAdapter(file, new CompetitionStrategy(), 4096,
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none(), 10);
+        writeRecords(restarted);
+        restarted.close();
+
+        // assert
+        List<IndexBlock> blocks = SegmentIndex.load(SegmentIndex.pathOf(file)).getBlocks();
+        assertThat(blocks.subList(0, 8)).allSatisfy(block -> assertThat(block.getRecords()).isEqualTo(10));
+        assertThat(blocks.get(8).getOffset()).isEqualTo(blocks.get(7).getOffset() + blocks.get(7).getLength());
+        assertThat(blocks.get(8).getOffset() + blocks.get(8).getLength()).isEqualTo(survivingLength);
+        assertThat(blocks.get(blocks.size() - 1).getOffset() + blocks.get(blocks.size() - 1).getLength())
+                .isEqualTo(Files.size(file));
+        assertThat(new LogFileQuery(file).find(START.plusSeconds(150), START.plusSeconds(160), Set.of("billing"),
+                Set.of(LogLevel.Error))).hasSize(10);
+    }
+
+    /**
+     * Writes records a second apart, {@code billing} reporting errors from the 150th to the 159th second, in a
+     * single batch.
+     *
+     * @param adapter Adapter to write the records with
+     */
+    private static void writeRecords(final LogAdapter adapter) {
+        LogEvent event = new LogEvent();
+        for (int i = 0; i < RECORDS; i++) {
+            if (i >= 150 && i < 160) {
+                event.clearSource().append("billing");
+                event.clearMessage().append("incident ").append(i);
+                event.setLevel(LogLevel.Error);
+            } else {
+                event.clearSource().append("shop");
+                event.clearMessage().append("message ").append(i);
+                event.setLevel(LogLevel.Info);
+            }
+            event.setCreatedAt(LogEvent.toEpochNanos(START.plusSeconds(i)));
+            event.setProcessedAt(LogEvent.toEpochNanos(START.plusSeconds(i)));
+            adapter.saveLogEvent(event);
+        }
+        adapter.endOfBatch();
+    }
+}
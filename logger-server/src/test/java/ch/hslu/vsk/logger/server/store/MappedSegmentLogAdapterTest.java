@@ -0,0 +1,81 @@
+package ch.hslu.vsk.logger.server.store;
+
+import ch.hslu.vsk.logger.api.LogLevel;
+import ch.hslu.vsk.logger.server.logstrategies.CompetitionStrategy;
+import ch.hslu.vsk.logger.server.pipeline.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+final class MappedSegmentLogAdapterTest {
+    private static final Instant PROCESSED = Instant.parse("2024-05-01T10:10:00.5Z");
+    private static final String PREFIX = "2024-05-01T10:10:00.500Z | 2024-05-01 10:09:59.0000 INFO shop ";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testRollsOverFullSegmentsTruncatedToTheirRecords() throws IOException {
+        // arrange
+        Path file = directory.resolve("logs/Logger.log");
+        // every record takes 72 bytes, thus three fit into a segment
+        MappedSegmentLogAdapter adapter = new MappedSegmentLogAdapter(file, new CompetitionStrategy(),
+                FsyncPolicy.BATCH, Duration.ZERO, new RotationPolicy(256, Duration.ZERO, Compression.NONE));
+
+        // act
+        for (int i = 0; i < 7; i++) {
+            adapter.saveLogEvent(event("message " + i));
+        }
+        adapter.endOfBatch();
+        long preallocated = Files.size(file);
+        adapter.close();
+
+        // assert
+        assertThat(preallocated).isEqualTo(256);
+        assertThat(SegmentManifest.load(file).getSegments()).extracting(LogSegment::getName, LogSegment::getBytes)
+                .containsExactly(tuple("Logger-000001.log", 216L),
+                        tuple("Logger-000002.log", 216L));
+        assertThat(Files.readAllLines(directory.resolve("logs/Logger-000002.log"), StandardCharsets.UTF_8))
+                .containsExactly(PREFIX + "message 3", PREFIX + "message 4", PREFIX + "message 5");
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).containsExactly(PREFIX + "message 6");
+    }
+
+    @Test
+    void testCutsOffUnwrittenPartLeftByCrashAndAppends() throws IOException {
+        // arrange
+        Path file = directory.resolve("Logger.log");
+        byte[] record = (PREFIX + "before crash\n").getBytes(StandardCharsets.UTF_8);
+        byte[] preallocated = new byte[4096];
+        System.arraycopy(record, 0, preallocated, 0, record.length);
+        Files.write(file, preallocated);
+        MappedSegmentLogAdapter adapter = new MappedSegmentLogAdapter(file, new CompetitionStrategy(),
+                FsyncPolicy.NEVER, Duration.ZERO, RotationPolicy.none());
+
+        // act
+        adapter.saveLogEvent(event("after restart"));
+        adapter.close();
+
+        // assert
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly(PREFIX + "before crash", PREFIX + "after restart");
+    }
+
+    private static LogEvent event(final String message) {
+        LogEvent event = new LogEvent();
+        event.clearSource().append("shop");
+        event.clearMessage().append(message);
+        event.setLevel(LogLevel.Info);
+        event.setCreatedAt(LogEvent.toEpochNanos(PROCESSED.minusMillis(1500)));
+        event.setProcessedAt(LogEvent.toEpochNanos(PROCESSED));
+        return event;
+    }
+}
@@ -0,0 +1,84 @@
+package ch.hslu.vsk.logger.server.templates;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+final class DrainTreeTest {
+    @Test
+    void testMergesMessagesOfSamePatternIntoTemplate() {
+        // arrange
+        DrainTree tree = new DrainTree(4, 0.4, 100, 100);
+
+        // act
+        DrainTree.Template first = tree.add("Connection from 10.0.0.1 closed after 12 ms");
+        DrainTree.Template second = tree.add("Connection from 10.0.0.2 closed after 480 ms");
+        DrainTree.Template other = tree.add("Session 4711 opened for alice");
+        DrainTree.Template otherAgain = tree.add("Session 4712 opened for bob");
+
+        // assert
+        assertThat(second).isSameAs(first);
+        assertThat(otherAgain).isSameAs(other);
+        assertThat(other.getId()).isNotEqualTo(first.getId());
+        assertThat(tree.snapshot())
+                .extracting(LogTemplate::getPattern, LogTemplate::getCount)
+                .containsExactlyInAnyOrder(
+                        tuple("Connection from <*> closed after <*> ms", 2L),
+                        tuple("Session <*> opened for <*>", 2L));
+    }
+
+    @Test
+    void testKeepsDissimilarMessagesOfSameLengthApart() {
+        // arrange
+        DrainTree tree = new DrainTree(4, 0.5, 100, 100);
+
+        // act
+        DrainTree.Template started = tree.add("Job export started by scheduler");
+        DrainTree.Template failed = tree.add("Job export failed with timeout");
+
+        // assert
+        assertThat(failed).isNotSameAs(started);
+        assertThat(tree.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyMatchedTemplateBeyondMaximum() {
+        // arrange
+        DrainTree tree = new DrainTree(4, 0.4, 100, 2);
+        DrainTree.Template evicted = tree.add("alpha one two");
+        tree.add("beta three four five");
+
+        // act
+        tree.add("gamma six seven eight nine");
+
+        // assert
+        assertThat(tree.size()).isEqualTo(2);
+        assertThat(tree.add("alpha one two").getId()).isNotEqualTo(evicted.getId());
+    }
+
+    @Test
+    void testPrunesNodesOfEvictedTemplates() {
+        // arrange
+        DrainTree tree = new DrainTree(4, 0.4, 100, 2);
+
+        // act
+        for (int i = 0; i < 1000; i++) {
+            tree.add("token" + "x".repeat(i) + " message of length " + " word".repeat(i % 50));
+        }
+
+        // assert
+        assertThat(tree.size()).isEqualTo(2);
+        // a root and two descended nodes per remaining template
+        assertThat(tree.nodeCount()).isEqualTo(2 * 3);
+    }
+
+    @Test
+    void testSharesTemplateOfEmptyMessages() {
+        // arrange
+        DrainTree tree = new DrainTree(4, 0.4, 100, 100);
+
+        // act & assert
+        assertThat(tree.add("")).isSameAs(tree.add("  "));
+    }
+}